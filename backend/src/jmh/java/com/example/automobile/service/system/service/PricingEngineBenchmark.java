@@ -0,0 +1,109 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.ServiceFee;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Prices the same pre-bill with the BigDecimal code the services used before and with
+ * {@link PricingEngine}. Run with {@code -prof gc} to compare {@code gc.alloc.rate.norm}
+ * (bytes allocated per quote) alongside throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PricingEngineBenchmark {
+    private static final String MODEL = "Corolla";
+
+    @Param({"3", "12"})
+    int selectedServices;
+
+    private List<ServiceFee> modelFees;
+    private List<String> selected;
+    private List<String> customDescriptions;
+    private List<BigDecimal> customCosts;
+    private BigDecimal partsCost;
+    private PricingEngine engine;
+
+    @Setup
+    public void setUp() {
+        modelFees = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            modelFees.add(new ServiceFee((long) i + 1, "Service " + i, BigDecimal.valueOf(150_000 + i * 2_575L, 2), "Toyota", MODEL, 30));
+        }
+        selected = new ArrayList<>();
+        for (int i = 0; i < selectedServices; i++) {
+            selected.add("Service " + (i * 3 % 40));
+        }
+        customDescriptions = List.of("Headlight bulb", "Wiper blades");
+        customCosts = List.of(new BigDecimal("1250.00"), new BigDecimal("3400.50"));
+        partsCost = new BigDecimal("18750.00");
+
+        ServiceFeeCatalog catalog = new ServiceFeeCatalog();
+        catalog.replace(modelFees);
+        engine = new PricingEngine();
+        engine.serviceFeeCatalog = catalog;
+    }
+
+    // PreBillService.calculateEstimate before the engine: a fee map per call and BigDecimal sums
+    @Benchmark
+    public void bigDecimal(Blackhole blackhole) {
+        Map<String, BigDecimal> feeMap = modelFees.stream()
+                .collect(Collectors.toMap(ServiceFee::getDescription, ServiceFee::getFee));
+        BigDecimal total = BigDecimal.ZERO;
+        for (String desc : selected) {
+            BigDecimal fee = feeMap.get(desc);
+            if (fee != null) {
+                total = total.add(fee);
+                blackhole.consume(fee.setScale(2));
+            }
+        }
+        for (int i = 0; i < customDescriptions.size(); i++) {
+            BigDecimal cost = customCosts.get(i);
+            if (cost != null && cost.compareTo(BigDecimal.ZERO) > 0 && !customDescriptions.get(i).isBlank()) {
+                total = total.add(cost);
+                blackhole.consume(cost.setScale(2));
+            }
+        }
+        if (partsCost.compareTo(BigDecimal.ZERO) > 0) {
+            total = total.add(partsCost);
+            blackhole.consume(partsCost.setScale(2));
+        }
+        blackhole.consume(total.setScale(2));
+    }
+
+    // Arithmetic only: lines and total stay in cents
+    @Benchmark
+    public long engineCents() {
+        PricingEngine.Calculation estimate = engine.start(MODEL).services(selected);
+        for (int i = 0; i < customDescriptions.size(); i++) {
+            estimate.custom(customDescriptions.get(i), customCosts.get(i));
+        }
+        estimate.parts("Estimated Parts Cost", partsCost);
+        return estimate.totalCents();
+    }
+
+    // Same, plus the BigDecimal conversions the API response needs
+    @Benchmark
+    public void engineWithResponse(Blackhole blackhole) {
+        PricingEngine.Calculation estimate = engine.start(MODEL).services(selected);
+        for (int i = 0; i < customDescriptions.size(); i++) {
+            estimate.custom(customDescriptions.get(i), customCosts.get(i));
+        }
+        estimate.parts("Estimated Parts Cost", partsCost);
+        for (int i = 0; i < estimate.size(); i++) {
+            blackhole.consume(estimate.amount(i));
+        }
+        blackhole.consume(estimate.total());
+    }
+}
@@ -2,11 +2,22 @@ package com.example.automobile.service.system.controller;
 
 import com.example.automobile.service.system.entity.*;
 import com.example.automobile.service.system.model.AppointmentFilter;
+import com.example.automobile.service.system.model.AppointmentPage;
 import com.example.automobile.service.system.model.AppointmentStatus;
+import com.example.automobile.service.system.model.ModelRevenue;
+import com.example.automobile.service.system.model.PartStock;
+import com.example.automobile.service.system.model.RevenuePeriod;
+import com.example.automobile.service.system.model.RollupGranularity;
+import com.example.automobile.service.system.model.ServiceRevenue;
+import com.example.automobile.service.system.model.StockAdjustmentRequest;
 import com.example.automobile.service.system.service.AppointmentService;
+import com.example.automobile.service.system.service.BillLineItemService;
 import com.example.automobile.service.system.service.BillingService;
 import com.example.automobile.service.system.service.CashierService;
 import com.example.automobile.service.system.service.DataService;
+import com.example.automobile.service.system.service.PartInventory;
+import com.example.automobile.service.system.service.PricingRuleService;
+import com.example.automobile.service.system.service.RevenueRollupService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
@@ -28,6 +39,14 @@ public class AdminController {
     BillingService billCalculationService;
     @Autowired
     CashierService cashierService;
+    @Autowired
+    BillLineItemService billLineItemService;
+    @Autowired
+    PartInventory partInventory;
+    @Autowired
+    RevenueRollupService revenueRollupService;
+    @Autowired
+    PricingRuleService pricingRuleService;
 
     @GetMapping("/holidays")
     private List<Holiday> getHolidays(){
@@ -111,12 +130,55 @@ public class AdminController {
         return ResponseEntity.ok(billCalculationService.updateServiceFee(feeId, serviceFee));
     }
 
+    @GetMapping("/service-fees/{feeId}/history")
+    public ResponseEntity<List<ServiceFeeVersion>> getServiceFeeHistory(@PathVariable Long feeId) {
+        return ResponseEntity.ok(billCalculationService.getServiceFeeHistory(feeId));
+    }
+
     @DeleteMapping("/service-fees/{feeId}")
     public ResponseEntity<Void> deleteServiceFee(@PathVariable Long feeId) {
         billCalculationService.deleteServiceFee(feeId);
         return ResponseEntity.noContent().build();
     }
 
+    // Discounts and taxes; changes apply to the next bill or estimate priced
+    @PostMapping("/pricing-rules")
+    public ResponseEntity<PricingRule> addPricingRule(@RequestBody PricingRule rule) {
+        return new ResponseEntity<>(pricingRuleService.addRule(rule), HttpStatus.CREATED);
+    }
+
+    @GetMapping("/pricing-rules")
+    public ResponseEntity<List<PricingRule>> getPricingRules() {
+        return ResponseEntity.ok(pricingRuleService.getRules());
+    }
+
+    @PutMapping("/pricing-rules/{ruleId}")
+    public ResponseEntity<PricingRule> updatePricingRule(@PathVariable Long ruleId, @RequestBody PricingRule rule) {
+        return ResponseEntity.ok(pricingRuleService.updateRule(ruleId, rule));
+    }
+
+    @DeleteMapping("/pricing-rules/{ruleId}")
+    public ResponseEntity<Void> deletePricingRule(@PathVariable Long ruleId) {
+        pricingRuleService.deleteRule(ruleId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/parts")
+    public ResponseEntity<List<PartStock>> getPartStock() {
+        return ResponseEntity.ok(partInventory.stockLevels());
+    }
+
+    // Creates or reprices a part; stock levels only change through /stock
+    @PutMapping("/parts/{partId}")
+    public ResponseEntity<Part> savePart(@PathVariable String partId, @RequestBody Part part) {
+        return ResponseEntity.ok(partInventory.savePart(partId, part));
+    }
+
+    @PostMapping("/parts/{partId}/stock")
+    public ResponseEntity<PartStock> adjustPartStock(@PathVariable String partId, @RequestBody StockAdjustmentRequest request) {
+        return ResponseEntity.ok(partInventory.adjust(partId, request.getQuantity(), request.getReason()));
+    }
+
     @PostMapping("/cashiers")
     public ResponseEntity<Cashier> addCashier(@RequestBody Cashier cashier) {
         System.out.println(cashier.getPhoneNo());
@@ -139,16 +201,58 @@ public class AdminController {
         return ResponseEntity.noContent().build();
     }
     @GetMapping("/appointments")
-    public ResponseEntity<List<Appointment>> getAppointments(
+    public ResponseEntity<AppointmentPage> getAppointments(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(required = false) String vehicleId, // Search by internal vehicle ID
             @RequestParam(required = false) String chassisNo,
             @RequestParam(required = false) String customerName,
-            @RequestParam(required = false) AppointmentStatus status
+            @RequestParam(required = false) AppointmentStatus status,
+            @RequestParam(required = false) String cursor, // nextCursor from the previous page
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "false") boolean includeTotal
     ) {
         AppointmentFilter filters = new AppointmentFilter(startDate, endDate, vehicleId, chassisNo, customerName, status);
-        return ResponseEntity.ok(appointmentService.filterAppointments(filters));
+        return ResponseEntity.ok(appointmentService.filterAppointments(filters, cursor, limit, includeTotal));
+    }
+
+    // Gross revenue per service, before discounts and tax
+    @GetMapping("/reports/revenue-by-service")
+    public ResponseEntity<List<ServiceRevenue>> getRevenueByService(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(defaultValue = "false") boolean includeCustom
+    ) {
+        return ResponseEntity.ok(billLineItemService.revenueByService(fromDate, toDate, includeCustom));
+    }
+
+    @GetMapping("/reports/revenue")
+    public ResponseEntity<List<RevenuePeriod>> getRevenue(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(defaultValue = "DAY") RollupGranularity granularity
+    ) {
+        return ResponseEntity.ok(revenueRollupService.revenueByPeriod(fromDate, toDate, granularity));
+    }
+
+    @GetMapping("/reports/revenue-by-model")
+    public ResponseEntity<List<ModelRevenue>> getRevenueByModel(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate
+    ) {
+        return ResponseEntity.ok(revenueRollupService.revenueByModel(fromDate, toDate));
+    }
+
+    // Recomputes the revenue rollups from all bills; returns the number of months rebuilt
+    @PostMapping("/reports/revenue/rebuild")
+    public ResponseEntity<Integer> rebuildRevenueRollups() {
+        return ResponseEntity.ok(revenueRollupService.rebuild());
+    }
+
+    // Itemizes bills saved before line items existed; safe to run again after an interruption
+    @PostMapping("/bills/line-items/backfill")
+    public ResponseEntity<Integer> backfillBillLineItems() {
+        return ResponseEntity.ok(billLineItemService.backfill());
     }
 
 }
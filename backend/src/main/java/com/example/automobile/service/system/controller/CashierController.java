@@ -2,18 +2,30 @@ package com.example.automobile.service.system.controller;
 
 import com.example.automobile.service.system.entity.Customer;
 import com.example.automobile.service.system.entity.ServiceRecord;
-import com.example.automobile.service.system.entity.Vehicle;
 import com.example.automobile.service.system.model.BillingRequest;
 import com.example.automobile.service.system.model.CustomerVehicleInput;
+import com.example.automobile.service.system.model.PartStock;
+import com.example.automobile.service.system.model.ReceiptFormat;
+import com.example.automobile.service.system.model.ServiceHistoryPage;
 import com.example.automobile.service.system.model.ServiceRecordDTO;
+import com.example.automobile.service.system.model.ShiftSettlement;
+import com.example.automobile.service.system.model.VehicleSuggestion;
 import com.example.automobile.service.system.service.BillingService;
 import com.example.automobile.service.system.service.CustomerVehicleService;
+import com.example.automobile.service.system.service.IdempotencyStore;
+import com.example.automobile.service.system.service.PartInventory;
+import com.example.automobile.service.system.service.ReceiptRenderer;
 import com.example.automobile.service.system.service.ServiceHistoryService;
+import com.example.automobile.service.system.service.ShiftSettlementService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -26,6 +38,14 @@ public class CashierController {
     BillingService billingService;
     @Autowired
     ServiceHistoryService serviceHistoryService;
+    @Autowired
+    IdempotencyStore idempotencyStore;
+    @Autowired
+    ReceiptRenderer receiptRenderer;
+    @Autowired
+    PartInventory partInventory;
+    @Autowired
+    ShiftSettlementService shiftSettlementService;
 
     @GetMapping("/customer-vehicle")
     public ResponseEntity<?> findCustomerVehicle(
@@ -50,16 +70,27 @@ public class CashierController {
 
     // Endpoint for providing suggestions as cashier types in the search box
     @GetMapping("/customer-vehicle/suggestions")
-    public ResponseEntity<List<Vehicle>> getVehicleSuggestions(@RequestParam String query) {
-        return ResponseEntity.ok(customerVehicleService.getVehicleSuggestions(query));
+    public ResponseEntity<List<VehicleSuggestion>> getVehicleSuggestions(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(customerVehicleService.getVehicleSuggestions(query, limit));
     }
 
 
     // --- Billing ---
+    // Parts with their unit price and what is on hand, for picking parts onto a bill
+    @GetMapping("/parts")
+    public ResponseEntity<List<PartStock>> getParts() {
+        return ResponseEntity.ok(partInventory.stockLevels());
+    }
+
     @PostMapping("/billing/calculate")
-    public ResponseEntity<ServiceRecord> calculateAndFinalizeBill(@RequestBody BillingRequest billingRequest) {
-        // The service will calculate the total, create the ServiceRecord, and return it
-        ServiceRecord finalizedBill = billingService.calculateAndSaveBill(billingRequest);
+    public ResponseEntity<ServiceRecord> calculateAndFinalizeBill(
+            @RequestBody BillingRequest billingRequest,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        // The service will calculate the total, create the ServiceRecord, and return it; a retry with the same key gets the first record back
+        ServiceRecord finalizedBill = idempotencyStore.execute("billing", idempotencyKey, billingRequest,
+                () -> billingService.calculateAndSaveBill(billingRequest));
         return new ResponseEntity<>(finalizedBill, HttpStatus.CREATED);
     }
 
@@ -72,6 +103,28 @@ public class CashierController {
         return ResponseEntity.ok("Receipt generated for Service Record: " + serviceRecordId + "\n" + receiptContent);
     }
 
+    @GetMapping(value = "/billing/receipt/{serviceRecordId}/pdf", produces = MediaType.APPLICATION_PDF_VALUE)
+    public ResponseEntity<byte[]> printReceiptPdf(@PathVariable Long serviceRecordId) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"receipt-" + serviceRecordId + ".pdf\"")
+                .body(receiptRenderer.bytes(serviceRecordId, ReceiptFormat.PDF));
+    }
+
+    // Raw ESC/POS commands, for forwarding as-is to a thermal receipt printer
+    @GetMapping(value = "/billing/receipt/{serviceRecordId}/escpos", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> printReceiptEscPos(@PathVariable Long serviceRecordId) {
+        return ResponseEntity.ok(receiptRenderer.bytes(serviceRecordId, ReceiptFormat.ESC_POS));
+    }
+
+    // End-of-shift totals for the bills a cashier finalized in [from, to)
+    @GetMapping("/settlement")
+    public ResponseEntity<ShiftSettlement> getShiftSettlement(
+            @RequestParam String cashierName,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(shiftSettlementService.settle(cashierName, from, to));
+    }
+
     // --- Service History ---
     @GetMapping("/history")
     public ResponseEntity<List<ServiceRecordDTO>> getVehicleHistory(@RequestParam(required = true) String vehicleIdentifier) {
@@ -81,8 +134,10 @@ public class CashierController {
 
 
     @GetMapping("/history/search")
-    public ResponseEntity<List<ServiceRecordDTO>> searchVehicleHistory(@RequestParam(required = true) String query) {
-        List<ServiceRecordDTO> history = serviceHistoryService.searchHistory(query);
-        return ResponseEntity.ok(history);
+    public ResponseEntity<ServiceHistoryPage> searchVehicleHistory(
+            @RequestParam(required = true) String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(serviceHistoryService.searchHistory(query, page, size));
     }
 }
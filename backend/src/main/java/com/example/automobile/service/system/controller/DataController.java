@@ -2,14 +2,20 @@ package com.example.automobile.service.system.controller;
 
 import com.example.automobile.service.system.entity.*;
 import com.example.automobile.service.system.model.AppointmentSlot;
+import com.example.automobile.service.system.model.DatedAppointmentSlot;
+import com.example.automobile.service.system.model.DayAvailability;
 import com.example.automobile.service.system.service.AppointmentService;
 import com.example.automobile.service.system.service.DataService;
+import com.example.automobile.service.system.service.SlotChangeBroadcaster;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 
 @RestController
@@ -20,6 +26,8 @@ public class DataController {
     DataService dataService;
     @Autowired
     AppointmentService appointmentService;
+    @Autowired
+    SlotChangeBroadcaster slotChangeBroadcaster;
 
     @GetMapping("/vehicle-types")
     private List<VehicleType> getVehicleTypes(){
@@ -50,6 +58,36 @@ public class DataController {
     ) {
         return ResponseEntity.ok(dataService.getAvailableAppointmentSlots(date, serviceDescriptions, makeName, modelName));
     }
+
+    // Endpoint to get the earliest available slots across a range of dates
+    @GetMapping("/appointment-slots/next")
+    public ResponseEntity<List<DatedAppointmentSlot>> getNextAvailableSlots(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam List<String> serviceDescriptions,
+            @RequestParam String makeName,
+            @RequestParam String modelName,
+            @RequestParam(defaultValue = "10") int maxResults
+    ) {
+        LocalDate endDate = toDate != null ? toDate : fromDate.plusDays(13);
+        return ResponseEntity.ok(dataService.findNextAvailableSlots(fromDate, endDate, serviceDescriptions, makeName, modelName, maxResults));
+    }
+    // Per-day free slot counts for a month, used to grey out full days on the calendar
+    @GetMapping("/appointment-slots/month")
+    public ResponseEntity<List<DayAvailability>> getMonthAvailability(
+            @RequestParam String month, // yyyy-MM
+            @RequestParam List<String> serviceDescriptions,
+            @RequestParam String makeName,
+            @RequestParam String modelName
+    ) {
+        return ResponseEntity.ok(dataService.getMonthAvailability(YearMonth.parse(month), serviceDescriptions, makeName, modelName));
+    }
+    // Live slot-taken / slot-freed deltas for one date, batched into at most one event per interval
+    @GetMapping(value = "/appointment-slots/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSlotChanges(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return slotChangeBroadcaster.subscribe(date);
+    }
     @GetMapping("/holidays")
     private List<Holiday> getHolidays(){
         return appointmentService.getHolidays();
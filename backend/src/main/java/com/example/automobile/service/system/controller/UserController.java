@@ -3,9 +3,19 @@ package com.example.automobile.service.system.controller;
 import com.example.automobile.service.system.entity.Appointment;
 import com.example.automobile.service.system.entity.ServiceRecord;
 import com.example.automobile.service.system.model.AppointmentBookingRequest;
+import com.example.automobile.service.system.model.BatchBookingRequest;
+import com.example.automobile.service.system.model.BatchBookingResult;
+import com.example.automobile.service.system.model.BatchPreBillRequest;
+import com.example.automobile.service.system.model.BatchPreBillResult;
+import com.example.automobile.service.system.model.CustomerOverview;
 import com.example.automobile.service.system.model.PreBillRequest;
 import com.example.automobile.service.system.model.PreBillResponse;
+import com.example.automobile.service.system.model.SlotHold;
+import com.example.automobile.service.system.model.SlotHoldRequest;
 import com.example.automobile.service.system.service.AppointmentService;
+import com.example.automobile.service.system.service.BatchBookingService;
+import com.example.automobile.service.system.service.CustomerOverviewService;
+import com.example.automobile.service.system.service.IdempotencyStore;
 import com.example.automobile.service.system.service.PreBillService;
 import com.example.automobile.service.system.service.ServiceHistoryService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,20 +37,61 @@ public class UserController {
     ServiceHistoryService serviceHistoryService;
     @Autowired
     PreBillService preBillService;
+    @Autowired
+    BatchBookingService batchBookingService;
+    @Autowired
+    CustomerOverviewService customerOverviewService;
+    @Autowired
+    IdempotencyStore idempotencyStore;
     @PostMapping("/pre-bill")
     public ResponseEntity<PreBillResponse> calculatePreBill(@RequestBody PreBillRequest preBillRequest) {
         PreBillResponse response = preBillService.calculateEstimate(preBillRequest);
         return ResponseEntity.ok(response);
     }
 
+    // Quote many make/model combinations at once; each item reports its own estimate or error
+    @PostMapping("/pre-bill/batch")
+    public ResponseEntity<BatchPreBillResult> calculatePreBills(@RequestBody BatchPreBillRequest batchRequest) {
+        return ResponseEntity.ok(preBillService.calculateEstimates(batchRequest));
+    }
+
     // --- Appointments ---
     @PostMapping("/appointments")
-    public ResponseEntity<Appointment> bookAppointment(@RequestBody AppointmentBookingRequest bookingRequest) {
+    public ResponseEntity<Appointment> bookAppointment(
+            @RequestBody AppointmentBookingRequest bookingRequest,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         System.out.println(bookingRequest.getCustomerIdentifier());
-        Appointment createdAppointment = appointmentService.bookAppointment(bookingRequest, bookingRequest.getCustomerIdentifier());
+        // A retry with the same key gets the first booking back instead of booking again
+        Appointment createdAppointment = idempotencyStore.execute("booking", idempotencyKey, bookingRequest,
+                () -> appointmentService.bookAppointment(bookingRequest, bookingRequest.getCustomerIdentifier()));
         return new ResponseEntity<>(createdAppointment, HttpStatus.CREATED);
     }
 
+    // Book many vehicles at once; an all-or-nothing batch with any failure is rejected as a whole
+    @PostMapping("/appointments/batch")
+    public ResponseEntity<BatchBookingResult> bookAppointments(@RequestBody BatchBookingRequest batchRequest) {
+        BatchBookingResult result = batchBookingService.bookAppointments(batchRequest);
+        HttpStatus status = batchRequest.isAllOrNothing() && result.getFailedCount() > 0 ? HttpStatus.CONFLICT : HttpStatus.OK;
+        return new ResponseEntity<>(result, status);
+    }
+
+    @PutMapping("/appointments/{appointmentId}/cancel")
+    public ResponseEntity<Appointment> cancelAppointment(@PathVariable Long appointmentId, String username) {
+        return ResponseEntity.ok(appointmentService.cancelAppointment(appointmentId, username));
+    }
+
+    // Reserve a slot for a few minutes while the customer completes the advance payment
+    @PostMapping("/appointments/holds")
+    public ResponseEntity<SlotHold> holdSlot(@RequestBody SlotHoldRequest holdRequest) {
+        return new ResponseEntity<>(appointmentService.holdSlot(holdRequest), HttpStatus.CREATED);
+    }
+
+    @DeleteMapping("/appointments/holds/{holdId}")
+    public ResponseEntity<Void> releaseHold(@PathVariable String holdId) {
+        appointmentService.releaseHold(holdId);
+        return ResponseEntity.noContent().build();
+    }
+
     // Get appointments for the logged-in user
     @GetMapping("/appointments")
     public ResponseEntity<List<Appointment>> getUserAppointments(String username) {
@@ -48,6 +99,12 @@ public class UserController {
         return ResponseEntity.ok(appointments);
     }
 
+    // Vehicles, upcoming appointments and recent service for the dashboard in one call
+    @GetMapping("/overview")
+    public ResponseEntity<CustomerOverview> getCustomerOverview(String username) {
+        return ResponseEntity.ok(customerOverviewService.getOverview(username));
+    }
+
     // --- Service History ---
     @GetMapping("/service-history")
     public ResponseEntity<List<ServiceRecord>> getServiceHistory(String username) {
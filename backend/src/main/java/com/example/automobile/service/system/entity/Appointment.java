@@ -9,6 +9,7 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Entity
+@Table(indexes = @Index(name = "idx_appointment_date_start_id", columnList = "date, start_time, id"))
 public class Appointment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
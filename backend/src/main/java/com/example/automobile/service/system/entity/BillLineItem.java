@@ -0,0 +1,122 @@
+package com.example.automobile.service.system.entity;
+
+import com.example.automobile.service.system.model.BillLineItemKind;
+import com.fasterxml.jackson.annotation.JsonBackReference;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+@Entity
+@Table(name = "bill_line_item",
+        uniqueConstraints = @UniqueConstraint(name = "uk_bill_line_item_record_line", columnNames = {"service_record_id", "line_no"}),
+        indexes = @Index(name = "idx_bill_line_item_kind_description", columnList = "kind, description"))
+public class BillLineItem {
+    // Kept at 255 so (kind, description) still fits one InnoDB index key in utf8mb4
+    public static final int MAX_DESCRIPTION_LENGTH = 255;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "service_record_id", nullable = false)
+    @JsonBackReference
+    private ServiceRecord serviceRecord;
+
+    @Column(name = "line_no", nullable = false)
+    private int lineNo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private BillLineItemKind kind;
+
+    @Column(nullable = false, length = MAX_DESCRIPTION_LENGTH)
+    private String description;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal unitPrice;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    // The predefined fee this line was priced from; a plain id so deleting the fee keeps the bill intact
+    private Long serviceFeeId;
+
+    public BillLineItem() {
+    }
+
+    public BillLineItem(Long id, ServiceRecord serviceRecord, int lineNo, BillLineItemKind kind, String description, BigDecimal unitPrice, int quantity, Long serviceFeeId) {
+        this.id = id;
+        this.serviceRecord = serviceRecord;
+        this.lineNo = lineNo;
+        this.kind = kind;
+        this.description = description;
+        this.unitPrice = unitPrice;
+        this.quantity = quantity;
+        this.serviceFeeId = serviceFeeId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public ServiceRecord getServiceRecord() {
+        return serviceRecord;
+    }
+
+    public void setServiceRecord(ServiceRecord serviceRecord) {
+        this.serviceRecord = serviceRecord;
+    }
+
+    public int getLineNo() {
+        return lineNo;
+    }
+
+    public void setLineNo(int lineNo) {
+        this.lineNo = lineNo;
+    }
+
+    public BillLineItemKind getKind() {
+        return kind;
+    }
+
+    public void setKind(BillLineItemKind kind) {
+        this.kind = kind;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+
+    public void setUnitPrice(BigDecimal unitPrice) {
+        this.unitPrice = unitPrice;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public Long getServiceFeeId() {
+        return serviceFeeId;
+    }
+
+    public void setServiceFeeId(Long serviceFeeId) {
+        this.serviceFeeId = serviceFeeId;
+    }
+}
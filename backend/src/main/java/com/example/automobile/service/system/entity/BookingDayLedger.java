@@ -0,0 +1,43 @@
+package com.example.automobile.service.system.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDate;
+
+/**
+ * One row per calendar date that has bookings. Bookings lock this row before checking for
+ * overlaps, so every backend instance sees same-day bookings one at a time.
+ */
+@Entity
+@Table(name = "booking_day_ledger")
+public class BookingDayLedger {
+    @Id
+    private LocalDate bookingDate;
+    private Integer appointmentCount;
+
+    public BookingDayLedger() {
+    }
+
+    public BookingDayLedger(LocalDate bookingDate, Integer appointmentCount) {
+        this.bookingDate = bookingDate;
+        this.appointmentCount = appointmentCount;
+    }
+
+    public LocalDate getBookingDate() {
+        return bookingDate;
+    }
+
+    public void setBookingDate(LocalDate bookingDate) {
+        this.bookingDate = bookingDate;
+    }
+
+    public Integer getAppointmentCount() {
+        return appointmentCount;
+    }
+
+    public void setAppointmentCount(Integer appointmentCount) {
+        this.appointmentCount = appointmentCount;
+    }
+}
@@ -1,11 +1,13 @@
 package com.example.automobile.service.system.entity;
 
+import com.example.automobile.service.system.service.SearchIndexEntityListener;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 
 import java.util.List;
 
 @Entity
+@EntityListeners(SearchIndexEntityListener.class)
 public class Customer {
     @Id
     @GeneratedValue(strategy=GenerationType.IDENTITY)
@@ -1,6 +1,7 @@
 package com.example.automobile.service.system.entity;
 
 import jakarta.annotation.Nonnull;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 
@@ -11,6 +12,14 @@ public class Part {
     private String name;
     private String price;
 
+    // Unit price in cents; the text price above is kept in step for older readers
+    @Column(name = "price_cents")
+    private Long priceCents;
+
+    // Stock not leased to any instance; only ever changed by PartInventory, never by saving the entity
+    @Column(name = "stock_on_hand", nullable = false, updatable = false)
+    private long stockOnHand;
+
     public Part() {
     }
 
@@ -43,4 +52,20 @@ public class Part {
     public void setPrice(String price) {
         this.price = price;
     }
+
+    public Long getPriceCents() {
+        return priceCents;
+    }
+
+    public void setPriceCents(Long priceCents) {
+        this.priceCents = priceCents;
+    }
+
+    public long getStockOnHand() {
+        return stockOnHand;
+    }
+
+    public void setStockOnHand(long stockOnHand) {
+        this.stockOnHand = stockOnHand;
+    }
 }
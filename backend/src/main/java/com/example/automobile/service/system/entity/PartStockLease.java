@@ -0,0 +1,84 @@
+package com.example.automobile.service.system.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock of one part leased from {@code part.stock_on_hand} to one running instance, which sells
+ * it from an in-memory counter. Sales are taken off the lease as their movements are folded in;
+ * what is left goes back to the part when the instance stops or stops renewing the lease.
+ */
+@Entity
+@Table(name = "part_stock_lease",
+        uniqueConstraints = @UniqueConstraint(name = "uk_part_stock_lease_instance_part", columnNames = {"instance_id", "part_id"}),
+        indexes = @Index(name = "idx_part_stock_lease_renewed", columnList = "renewed_at"))
+public class PartStockLease {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "instance_id", nullable = false, length = 64)
+    private String instanceId;
+
+    @Column(name = "part_id", nullable = false)
+    private String partId;
+
+    // Leased and not yet taken off by a folded movement
+    @Column(nullable = false)
+    private long quantity;
+
+    @Column(name = "renewed_at", nullable = false)
+    private LocalDateTime renewedAt;
+
+    public PartStockLease() {
+    }
+
+    public PartStockLease(Long id, String instanceId, String partId, long quantity, LocalDateTime renewedAt) {
+        this.id = id;
+        this.instanceId = instanceId;
+        this.partId = partId;
+        this.quantity = quantity;
+        this.renewedAt = renewedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    public String getPartId() {
+        return partId;
+    }
+
+    public void setPartId(String partId) {
+        this.partId = partId;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+
+    public LocalDateTime getRenewedAt() {
+        return renewedAt;
+    }
+
+    public void setRenewedAt(LocalDateTime renewedAt) {
+        this.renewedAt = renewedAt;
+    }
+}
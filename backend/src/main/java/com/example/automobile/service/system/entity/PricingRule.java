@@ -0,0 +1,174 @@
+package com.example.automobile.service.system.entity;
+
+import com.example.automobile.service.system.model.PricingRuleKind;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A discount or tax applied when pricing bills and estimates. Every condition left empty matches
+ * anything; a discount takes either a percentage or a fixed amount, a tax always a percentage.
+ */
+@Entity
+@Table(name = "pricing_rule")
+public class PricingRule {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Shown on the bill as the description of the discount or tax line
+    @Column(nullable = false)
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private PricingRuleKind kind;
+
+    private String make;
+    private String model;
+
+    // A discount with a service applies to that service's line only, otherwise to the whole bill
+    private String serviceDescription;
+
+    private Long customerId;
+
+    // Loyalty: bills the customer already has on any of their vehicles
+    private Integer minPriorVisits;
+
+    // Inclusive; promotions run between these dates
+    private LocalDate validFrom;
+    private LocalDate validTo;
+
+    @Column(precision = 5, scale = 2)
+    private BigDecimal percent;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal fixedAmount;
+
+    @Column(nullable = false)
+    private boolean active = true;
+
+    public PricingRule() {
+    }
+
+    public PricingRule(Long id, String name, PricingRuleKind kind, String make, String model, String serviceDescription, Long customerId, Integer minPriorVisits, LocalDate validFrom, LocalDate validTo, BigDecimal percent, BigDecimal fixedAmount, boolean active) {
+        this.id = id;
+        this.name = name;
+        this.kind = kind;
+        this.make = make;
+        this.model = model;
+        this.serviceDescription = serviceDescription;
+        this.customerId = customerId;
+        this.minPriorVisits = minPriorVisits;
+        this.validFrom = validFrom;
+        this.validTo = validTo;
+        this.percent = percent;
+        this.fixedAmount = fixedAmount;
+        this.active = active;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public PricingRuleKind getKind() {
+        return kind;
+    }
+
+    public void setKind(PricingRuleKind kind) {
+        this.kind = kind;
+    }
+
+    public String getMake() {
+        return make;
+    }
+
+    public void setMake(String make) {
+        this.make = make;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public String getServiceDescription() {
+        return serviceDescription;
+    }
+
+    public void setServiceDescription(String serviceDescription) {
+        this.serviceDescription = serviceDescription;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public Integer getMinPriorVisits() {
+        return minPriorVisits;
+    }
+
+    public void setMinPriorVisits(Integer minPriorVisits) {
+        this.minPriorVisits = minPriorVisits;
+    }
+
+    public LocalDate getValidFrom() {
+        return validFrom;
+    }
+
+    public void setValidFrom(LocalDate validFrom) {
+        this.validFrom = validFrom;
+    }
+
+    public LocalDate getValidTo() {
+        return validTo;
+    }
+
+    public void setValidTo(LocalDate validTo) {
+        this.validTo = validTo;
+    }
+
+    public BigDecimal getPercent() {
+        return percent;
+    }
+
+    public void setPercent(BigDecimal percent) {
+        this.percent = percent;
+    }
+
+    public BigDecimal getFixedAmount() {
+        return fixedAmount;
+    }
+
+    public void setFixedAmount(BigDecimal fixedAmount) {
+        this.fixedAmount = fixedAmount;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+}
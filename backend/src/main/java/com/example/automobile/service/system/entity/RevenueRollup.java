@@ -0,0 +1,123 @@
+package com.example.automobile.service.system.entity;
+
+import com.example.automobile.service.system.model.RollupGranularity;
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * Revenue and job count of one day or month, for one make and model or for all vehicles.
+ * Kept up to date by billing, so reports sum a handful of rows per period instead of bills.
+ */
+@Entity
+@Table(name = "revenue_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_revenue_rollup_bucket",
+                columnNames = {"granularity", "period_start", "make", "model", "slot"}))
+public class RevenueRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private RollupGranularity granularity;
+
+    // The day itself, or the first day of the month
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    // Empty make and model mark the all-vehicles total
+    @Column(nullable = false)
+    private String make;
+
+    @Column(nullable = false)
+    private String model;
+
+    // Each period is spread over a few rows so concurrent bills rarely wait on the same row lock
+    @Column(nullable = false)
+    private int slot;
+
+    @Column(name = "job_count", nullable = false)
+    private long jobCount;
+
+    @Column(name = "revenue_cents", nullable = false)
+    private long revenueCents;
+
+    public RevenueRollup() {
+    }
+
+    public RevenueRollup(Long id, RollupGranularity granularity, LocalDate periodStart, String make, String model, int slot, long jobCount, long revenueCents) {
+        this.id = id;
+        this.granularity = granularity;
+        this.periodStart = periodStart;
+        this.make = make;
+        this.model = model;
+        this.slot = slot;
+        this.jobCount = jobCount;
+        this.revenueCents = revenueCents;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public RollupGranularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(RollupGranularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public void setPeriodStart(LocalDate periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    public String getMake() {
+        return make;
+    }
+
+    public void setMake(String make) {
+        this.make = make;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    public long getJobCount() {
+        return jobCount;
+    }
+
+    public void setJobCount(long jobCount) {
+        this.jobCount = jobCount;
+    }
+
+    public long getRevenueCents() {
+        return revenueCents;
+    }
+
+    public void setRevenueCents(long revenueCents) {
+        this.revenueCents = revenueCents;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.automobile.service.system.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A service fee as it stood from {@code effectiveFrom} until the next version for the same model
+ * and description. Rows are only ever added: one when a fee is created or changed, and one with
+ * {@code withdrawn} set when a fee is deleted or moved to another model or description.
+ */
+@Entity
+@Table(name = "service_fee_version",
+        indexes = @Index(name = "idx_service_fee_version_fee", columnList = "service_fee_id, effective_from"))
+public class ServiceFeeVersion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // A plain id rather than a foreign key, so the history outlives a deleted fee
+    @Column(name = "service_fee_id", nullable = false)
+    private Long serviceFeeId;
+
+    private String description;
+    private String make;
+    private String model;
+    private BigDecimal fee;
+
+    @Column(name = "effective_from", nullable = false)
+    private LocalDateTime effectiveFrom;
+
+    @Column(nullable = false)
+    private boolean withdrawn;
+
+    public ServiceFeeVersion() {
+    }
+
+    public ServiceFeeVersion(Long id, Long serviceFeeId, String description, String make, String model, BigDecimal fee, LocalDateTime effectiveFrom, boolean withdrawn) {
+        this.id = id;
+        this.serviceFeeId = serviceFeeId;
+        this.description = description;
+        this.make = make;
+        this.model = model;
+        this.fee = fee;
+        this.effectiveFrom = effectiveFrom;
+        this.withdrawn = withdrawn;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getServiceFeeId() {
+        return serviceFeeId;
+    }
+
+    public void setServiceFeeId(Long serviceFeeId) {
+        this.serviceFeeId = serviceFeeId;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getMake() {
+        return make;
+    }
+
+    public void setMake(String make) {
+        this.make = make;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public BigDecimal getFee() {
+        return fee;
+    }
+
+    public void setFee(BigDecimal fee) {
+        this.fee = fee;
+    }
+
+    public LocalDateTime getEffectiveFrom() {
+        return effectiveFrom;
+    }
+
+    public void setEffectiveFrom(LocalDateTime effectiveFrom) {
+        this.effectiveFrom = effectiveFrom;
+    }
+
+    public boolean isWithdrawn() {
+        return withdrawn;
+    }
+
+    public void setWithdrawn(boolean withdrawn) {
+        this.withdrawn = withdrawn;
+    }
+}
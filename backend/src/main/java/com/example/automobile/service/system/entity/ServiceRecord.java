@@ -7,6 +7,11 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_service_record_date", columnList = "service_date_time"),
+        @Index(name = "idx_service_record_cashier_date", columnList = "cashier_id, service_date_time"),
+        @Index(name = "idx_service_record_vehicle", columnList = "vehicle_id")
+})
 public class ServiceRecord {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
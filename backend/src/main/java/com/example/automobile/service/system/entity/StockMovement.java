@@ -0,0 +1,123 @@
+package com.example.automobile.service.system.entity;
+
+import com.example.automobile.service.system.model.StockMovementReason;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One change to a part's stock: negative for parts sold or written off, positive for deliveries.
+ * Rows are written with the bill or adjustment that caused them and later folded into the selling
+ * instance's {@link PartStockLease} in batches, so the part row itself is never updated per sale.
+ */
+@Entity
+@Table(name = "stock_movement",
+        indexes = @Index(name = "idx_stock_movement_applied", columnList = "applied, id"))
+public class StockMovement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // A plain id rather than a foreign key, so recording a sale takes no lock on the part row
+    @Column(name = "part_id", nullable = false)
+    private String partId;
+
+    @Column(nullable = false)
+    private long quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private StockMovementReason reason;
+
+    @Column(name = "service_record_id")
+    private Long serviceRecordId;
+
+    // The instance whose lease the stock was taken from; empty for stock taken from the shared pool
+    @Column(name = "instance_id", length = 64)
+    private String instanceId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Whether the quantity has been taken off the lease (or part.stock_on_hand) yet
+    @Column(nullable = false)
+    private boolean applied;
+
+    public StockMovement() {
+    }
+
+    public StockMovement(Long id, String partId, long quantity, StockMovementReason reason, Long serviceRecordId, String instanceId, LocalDateTime createdAt, boolean applied) {
+        this.id = id;
+        this.partId = partId;
+        this.quantity = quantity;
+        this.reason = reason;
+        this.serviceRecordId = serviceRecordId;
+        this.instanceId = instanceId;
+        this.createdAt = createdAt;
+        this.applied = applied;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getPartId() {
+        return partId;
+    }
+
+    public void setPartId(String partId) {
+        this.partId = partId;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+
+    public StockMovementReason getReason() {
+        return reason;
+    }
+
+    public void setReason(StockMovementReason reason) {
+        this.reason = reason;
+    }
+
+    public Long getServiceRecordId() {
+        return serviceRecordId;
+    }
+
+    public void setServiceRecordId(Long serviceRecordId) {
+        this.serviceRecordId = serviceRecordId;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public boolean isApplied() {
+        return applied;
+    }
+
+    public void setApplied(boolean applied) {
+        this.applied = applied;
+    }
+}
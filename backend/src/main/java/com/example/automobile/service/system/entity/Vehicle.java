@@ -1,5 +1,6 @@
 package com.example.automobile.service.system.entity;
 
+import com.example.automobile.service.system.service.SearchIndexEntityListener;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
@@ -7,6 +8,8 @@ import jakarta.persistence.*;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_vehicle_owner", columnList = "owner_id"))
+@EntityListeners(SearchIndexEntityListener.class)
 public class Vehicle {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,14 @@
+package com.example.automobile.service.system.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.CONFLICT) // 409 Conflict
+public class IdempotencyKeyConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
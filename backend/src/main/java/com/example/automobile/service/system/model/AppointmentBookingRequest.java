@@ -26,6 +26,8 @@ public class AppointmentBookingRequest {
 
     private List<String> selectedServiceDescriptions;
 
+    private String holdId;
+
     public AppointmentBookingRequest() {
     }
 
@@ -139,4 +141,12 @@ public class AppointmentBookingRequest {
     public void setSelectedServiceDescriptions(List<String> selectedServiceDescriptions) {
         this.selectedServiceDescriptions = selectedServiceDescriptions;
     }
+
+    public String getHoldId() {
+        return holdId;
+    }
+
+    public void setHoldId(String holdId) {
+        this.holdId = holdId;
+    }
 }
@@ -0,0 +1,56 @@
+package com.example.automobile.service.system.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a page, in (date, startTime, id) order. Sent to clients as an
+ * opaque URL-safe token.
+ */
+public class AppointmentCursor {
+    private final LocalDate date;
+    private final LocalTime startTime;
+    private final Long id;
+
+    public AppointmentCursor(LocalDate date, LocalTime startTime, Long id) {
+        this.date = date;
+        this.startTime = startTime;
+        this.id = id;
+    }
+
+    public static AppointmentCursor after(AppointmentSummary last) {
+        return new AppointmentCursor(last.getDate(), last.getStartTime(), last.getId());
+    }
+
+    public static AppointmentCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+            return new AppointmentCursor(LocalDate.parse(parts[0]), LocalTime.parse(parts[1]), Long.valueOf(parts[2]));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+
+    public String encode() {
+        String raw = date + "|" + startTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public LocalTime getStartTime() {
+        return startTime;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.automobile.service.system.model;
 
 import java.time.LocalDate;
+import java.util.Set;
 
 public class AppointmentFilter {
     private LocalDate startDate;
@@ -9,6 +10,9 @@ public class AppointmentFilter {
     private String chassisNo;
     private String customerName;
     private AppointmentStatus status;
+    // Primary keys the substring filters resolved to; null means unrestricted
+    private Set<Long> vehicleKeys;
+    private Set<Long> customerKeys;
 
     public AppointmentFilter() {
     }
@@ -70,4 +74,20 @@ public class AppointmentFilter {
     public void setStatus(AppointmentStatus status) {
         this.status = status;
     }
+
+    public Set<Long> getVehicleKeys() {
+        return vehicleKeys;
+    }
+
+    public void setVehicleKeys(Set<Long> vehicleKeys) {
+        this.vehicleKeys = vehicleKeys;
+    }
+
+    public Set<Long> getCustomerKeys() {
+        return customerKeys;
+    }
+
+    public void setCustomerKeys(Set<Long> customerKeys) {
+        this.customerKeys = customerKeys;
+    }
 }
@@ -0,0 +1,44 @@
+package com.example.automobile.service.system.model;
+
+import java.util.List;
+
+public class AppointmentPage {
+    private List<AppointmentSummary> items;
+    private String nextCursor;
+    private Long totalCount;
+
+    public AppointmentPage() {
+    }
+
+    public AppointmentPage(List<AppointmentSummary> items, String nextCursor, Long totalCount) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.totalCount = totalCount;
+    }
+
+    public List<AppointmentSummary> getItems() {
+        return items;
+    }
+
+    public void setItems(List<AppointmentSummary> items) {
+        this.items = items;
+    }
+
+    // Null on the last page
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    // Only filled in when the caller asked for it
+    public Long getTotalCount() {
+        return totalCount;
+    }
+
+    public void setTotalCount(Long totalCount) {
+        this.totalCount = totalCount;
+    }
+}
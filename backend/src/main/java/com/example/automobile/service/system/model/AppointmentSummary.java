@@ -0,0 +1,136 @@
+package com.example.automobile.service.system.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+public class AppointmentSummary {
+    private Long id;
+    private LocalDate date;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private AppointmentStatus status;
+    private BigDecimal advanceFeePaid;
+    private String vehicleId;
+    private String chassisNo;
+    private String make;
+    private String model;
+    private Integer year;
+    private String customerName;
+
+    public AppointmentSummary() {
+    }
+
+    public AppointmentSummary(Long id, LocalDate date, LocalTime startTime, LocalTime endTime, AppointmentStatus status,
+                              BigDecimal advanceFeePaid, String vehicleId, String chassisNo, String make, String model,
+                              Integer year, String customerName) {
+        this.id = id;
+        this.date = date;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.status = status;
+        this.advanceFeePaid = advanceFeePaid;
+        this.vehicleId = vehicleId;
+        this.chassisNo = chassisNo;
+        this.make = make;
+        this.model = model;
+        this.year = year;
+        this.customerName = customerName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public LocalTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalTime endTime) {
+        this.endTime = endTime;
+    }
+
+    public AppointmentStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(AppointmentStatus status) {
+        this.status = status;
+    }
+
+    public BigDecimal getAdvanceFeePaid() {
+        return advanceFeePaid;
+    }
+
+    public void setAdvanceFeePaid(BigDecimal advanceFeePaid) {
+        this.advanceFeePaid = advanceFeePaid;
+    }
+
+    public String getVehicleId() {
+        return vehicleId;
+    }
+
+    public void setVehicleId(String vehicleId) {
+        this.vehicleId = vehicleId;
+    }
+
+    public String getChassisNo() {
+        return chassisNo;
+    }
+
+    public void setChassisNo(String chassisNo) {
+        this.chassisNo = chassisNo;
+    }
+
+    public String getMake() {
+        return make;
+    }
+
+    public void setMake(String make) {
+        this.make = make;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public Integer getYear() {
+        return year;
+    }
+
+    public void setYear(Integer year) {
+        this.year = year;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+}
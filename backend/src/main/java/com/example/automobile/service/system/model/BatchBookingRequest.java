@@ -0,0 +1,33 @@
+package com.example.automobile.service.system.model;
+
+import java.util.List;
+
+public class BatchBookingRequest {
+    private List<AppointmentBookingRequest> bookings;
+    // When true a single failed item rejects the whole batch; otherwise each item is reported on its own
+    private boolean allOrNothing;
+
+    public BatchBookingRequest() {
+    }
+
+    public BatchBookingRequest(List<AppointmentBookingRequest> bookings, boolean allOrNothing) {
+        this.bookings = bookings;
+        this.allOrNothing = allOrNothing;
+    }
+
+    public List<AppointmentBookingRequest> getBookings() {
+        return bookings;
+    }
+
+    public void setBookings(List<AppointmentBookingRequest> bookings) {
+        this.bookings = bookings;
+    }
+
+    public boolean isAllOrNothing() {
+        return allOrNothing;
+    }
+
+    public void setAllOrNothing(boolean allOrNothing) {
+        this.allOrNothing = allOrNothing;
+    }
+}
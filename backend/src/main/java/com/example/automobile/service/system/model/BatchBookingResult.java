@@ -0,0 +1,113 @@
+package com.example.automobile.service.system.model;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+public class BatchBookingResult {
+    private int bookedCount;
+    private int failedCount;
+    private List<ItemResult> items;
+
+    public static class ItemResult {
+        private int index;
+        private Long appointmentId;
+        private LocalDate date;
+        private LocalTime startTime;
+        private LocalTime endTime;
+        private String error;
+
+        public ItemResult() {
+        }
+
+        public ItemResult(int index, Long appointmentId, LocalDate date, LocalTime startTime, LocalTime endTime, String error) {
+            this.index = index;
+            this.appointmentId = appointmentId;
+            this.date = date;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.error = error;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public Long getAppointmentId() {
+            return appointmentId;
+        }
+
+        public void setAppointmentId(Long appointmentId) {
+            this.appointmentId = appointmentId;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public void setDate(LocalDate date) {
+            this.date = date;
+        }
+
+        public LocalTime getStartTime() {
+            return startTime;
+        }
+
+        public void setStartTime(LocalTime startTime) {
+            this.startTime = startTime;
+        }
+
+        public LocalTime getEndTime() {
+            return endTime;
+        }
+
+        public void setEndTime(LocalTime endTime) {
+            this.endTime = endTime;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+    }
+
+    public BatchBookingResult() {
+    }
+
+    public BatchBookingResult(int bookedCount, int failedCount, List<ItemResult> items) {
+        this.bookedCount = bookedCount;
+        this.failedCount = failedCount;
+        this.items = items;
+    }
+
+    public int getBookedCount() {
+        return bookedCount;
+    }
+
+    public void setBookedCount(int bookedCount) {
+        this.bookedCount = bookedCount;
+    }
+
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    public void setFailedCount(int failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    public List<ItemResult> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ItemResult> items) {
+        this.items = items;
+    }
+}
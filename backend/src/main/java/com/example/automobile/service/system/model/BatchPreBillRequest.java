@@ -0,0 +1,22 @@
+package com.example.automobile.service.system.model;
+
+import java.util.List;
+
+public class BatchPreBillRequest {
+    private List<PreBillRequest> quotes;
+
+    public BatchPreBillRequest() {
+    }
+
+    public BatchPreBillRequest(List<PreBillRequest> quotes) {
+        this.quotes = quotes;
+    }
+
+    public List<PreBillRequest> getQuotes() {
+        return quotes;
+    }
+
+    public void setQuotes(List<PreBillRequest> quotes) {
+        this.quotes = quotes;
+    }
+}
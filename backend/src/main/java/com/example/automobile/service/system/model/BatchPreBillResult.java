@@ -0,0 +1,81 @@
+package com.example.automobile.service.system.model;
+
+import java.util.List;
+
+public class BatchPreBillResult {
+    private int quotedCount;
+    private int failedCount;
+    private List<ItemResult> items;
+
+    public static class ItemResult {
+        private int index;
+        private PreBillResponse estimate;
+        private String error;
+
+        public ItemResult() {
+        }
+
+        public ItemResult(int index, PreBillResponse estimate, String error) {
+            this.index = index;
+            this.estimate = estimate;
+            this.error = error;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public PreBillResponse getEstimate() {
+            return estimate;
+        }
+
+        public void setEstimate(PreBillResponse estimate) {
+            this.estimate = estimate;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+    }
+
+    public BatchPreBillResult() {
+    }
+
+    public BatchPreBillResult(int quotedCount, int failedCount, List<ItemResult> items) {
+        this.quotedCount = quotedCount;
+        this.failedCount = failedCount;
+        this.items = items;
+    }
+
+    public int getQuotedCount() {
+        return quotedCount;
+    }
+
+    public void setQuotedCount(int quotedCount) {
+        this.quotedCount = quotedCount;
+    }
+
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    public void setFailedCount(int failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    public List<ItemResult> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ItemResult> items) {
+        this.items = items;
+    }
+}
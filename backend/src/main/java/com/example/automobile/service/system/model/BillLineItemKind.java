@@ -0,0 +1,9 @@
+package com.example.automobile.service.system.model;
+
+public enum BillLineItemKind {
+    SERVICE,
+    CUSTOM,
+    PARTS,
+    DISCOUNT,
+    TAX
+}
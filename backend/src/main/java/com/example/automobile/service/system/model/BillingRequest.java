@@ -11,8 +11,14 @@ public class BillingRequest {
     private List<CustomServiceItem> customItems;
 
     private BigDecimal partsCost = BigDecimal.ZERO;
+
+    // Stocked parts used on the job; priced from the parts list and taken out of stock
+    private List<PartItem> parts;
     private String processedByCashierName;
 
+    // The booked appointment being billed, if any; its advance fee is offset at settlement
+    private Long appointmentId;
+
     public static class CustomServiceItem {
         private String description;
 
@@ -42,6 +48,36 @@ public class BillingRequest {
             this.cost = cost;
         }
     }
+
+    public static class PartItem {
+        private String partId;
+
+        private int quantity;
+
+        public PartItem() {
+        }
+
+        public PartItem(String partId, int quantity) {
+            this.partId = partId;
+            this.quantity = quantity;
+        }
+
+        public String getPartId() {
+            return partId;
+        }
+
+        public void setPartId(String partId) {
+            this.partId = partId;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+    }
     public BillingRequest() {
     }
 
@@ -85,6 +121,22 @@ public class BillingRequest {
         this.partsCost = partsCost;
     }
 
+    public List<PartItem> getParts() {
+        return parts;
+    }
+
+    public void setParts(List<PartItem> parts) {
+        this.parts = parts;
+    }
+
+    public Long getAppointmentId() {
+        return appointmentId;
+    }
+
+    public void setAppointmentId(Long appointmentId) {
+        this.appointmentId = appointmentId;
+    }
+
     public String getProcessedByCashierName() {
         return processedByCashierName;
     }
@@ -0,0 +1,73 @@
+package com.example.automobile.service.system.model;
+
+import java.util.List;
+
+public class CustomerOverview {
+    private Long customerId;
+    private String name;
+    private String phoneNo;
+    private List<VehicleDTO> vehicles;
+    private List<AppointmentSummary> upcomingAppointments;
+    private List<ServiceRecordDTO> recentServiceRecords;
+
+    public CustomerOverview() {
+    }
+
+    public CustomerOverview(Long customerId, String name, String phoneNo, List<VehicleDTO> vehicles,
+                            List<AppointmentSummary> upcomingAppointments, List<ServiceRecordDTO> recentServiceRecords) {
+        this.customerId = customerId;
+        this.name = name;
+        this.phoneNo = phoneNo;
+        this.vehicles = vehicles;
+        this.upcomingAppointments = upcomingAppointments;
+        this.recentServiceRecords = recentServiceRecords;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getPhoneNo() {
+        return phoneNo;
+    }
+
+    public void setPhoneNo(String phoneNo) {
+        this.phoneNo = phoneNo;
+    }
+
+    public List<VehicleDTO> getVehicles() {
+        return vehicles;
+    }
+
+    public void setVehicles(List<VehicleDTO> vehicles) {
+        this.vehicles = vehicles;
+    }
+
+    public List<AppointmentSummary> getUpcomingAppointments() {
+        return upcomingAppointments;
+    }
+
+    public void setUpcomingAppointments(List<AppointmentSummary> upcomingAppointments) {
+        this.upcomingAppointments = upcomingAppointments;
+    }
+
+    public List<ServiceRecordDTO> getRecentServiceRecords() {
+        return recentServiceRecords;
+    }
+
+    public void setRecentServiceRecords(List<ServiceRecordDTO> recentServiceRecords) {
+        this.recentServiceRecords = recentServiceRecords;
+    }
+}
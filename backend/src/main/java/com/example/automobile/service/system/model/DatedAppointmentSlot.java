@@ -0,0 +1,43 @@
+package com.example.automobile.service.system.model;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+public class DatedAppointmentSlot {
+    private LocalDate date;
+    private LocalTime startTime;
+    private LocalTime endTime;
+
+    public DatedAppointmentSlot() {
+    }
+
+    public DatedAppointmentSlot(LocalDate date, LocalTime startTime, LocalTime endTime) {
+        this.date = date;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public LocalTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalTime endTime) {
+        this.endTime = endTime;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.automobile.service.system.model;
+
+import java.time.LocalDate;
+
+public class DayAvailability {
+    private LocalDate date;
+    private int freeSlotCount;
+    private int longestFreeMinutes;
+
+    public DayAvailability() {
+    }
+
+    public DayAvailability(LocalDate date, int freeSlotCount, int longestFreeMinutes) {
+        this.date = date;
+        this.freeSlotCount = freeSlotCount;
+        this.longestFreeMinutes = longestFreeMinutes;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public int getFreeSlotCount() {
+        return freeSlotCount;
+    }
+
+    public void setFreeSlotCount(int freeSlotCount) {
+        this.freeSlotCount = freeSlotCount;
+    }
+
+    public int getLongestFreeMinutes() {
+        return longestFreeMinutes;
+    }
+
+    public void setLongestFreeMinutes(int longestFreeMinutes) {
+        this.longestFreeMinutes = longestFreeMinutes;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.automobile.service.system.model;
+
+import java.math.BigDecimal;
+
+public class ModelRevenue {
+    private String make;
+    private String model;
+    private long jobCount;
+    private BigDecimal revenue;
+
+    public ModelRevenue() {
+    }
+
+    public ModelRevenue(String make, String model, Long jobCount, Long revenueCents) {
+        this.make = make;
+        this.model = model;
+        this.jobCount = jobCount != null ? jobCount : 0;
+        this.revenue = BigDecimal.valueOf(revenueCents != null ? revenueCents : 0, 2);
+    }
+
+    public String getMake() {
+        return make;
+    }
+
+    public void setMake(String make) {
+        this.make = make;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public long getJobCount() {
+        return jobCount;
+    }
+
+    public void setJobCount(long jobCount) {
+        this.jobCount = jobCount;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+}
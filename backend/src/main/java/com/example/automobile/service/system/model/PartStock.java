@@ -0,0 +1,52 @@
+package com.example.automobile.service.system.model;
+
+import java.math.BigDecimal;
+
+public class PartStock {
+    private String partId;
+    private String name;
+    private BigDecimal price;
+    private long onHand;
+
+    public PartStock() {
+    }
+
+    public PartStock(String partId, String name, BigDecimal price, long onHand) {
+        this.partId = partId;
+        this.name = name;
+        this.price = price;
+        this.onHand = onHand;
+    }
+
+    public String getPartId() {
+        return partId;
+    }
+
+    public void setPartId(String partId) {
+        this.partId = partId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public long getOnHand() {
+        return onHand;
+    }
+
+    public void setOnHand(long onHand) {
+        this.onHand = onHand;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.automobile.service.system.model;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public class PreBillRequest {
@@ -13,6 +14,9 @@ public class PreBillRequest {
 
     private BigDecimal estimatedPartsCost = BigDecimal.ZERO;
 
+    // Prices the quote at the fees in force at this time, to reproduce an earlier quote; now when absent
+    private LocalDateTime quotedAt;
+
 
     public static class CustomServiceItemDTO {
 
@@ -94,4 +98,12 @@ public class PreBillRequest {
     public void setEstimatedPartsCost(BigDecimal estimatedPartsCost) {
         this.estimatedPartsCost = estimatedPartsCost;
     }
+
+    public LocalDateTime getQuotedAt() {
+        return quotedAt;
+    }
+
+    public void setQuotedAt(LocalDateTime quotedAt) {
+        this.quotedAt = quotedAt;
+    }
 }
@@ -0,0 +1,6 @@
+package com.example.automobile.service.system.model;
+
+public enum PricingRuleKind {
+    DISCOUNT,
+    TAX
+}
@@ -0,0 +1,43 @@
+package com.example.automobile.service.system.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class RevenuePeriod {
+    private LocalDate periodStart;
+    private long jobCount;
+    private BigDecimal revenue;
+
+    public RevenuePeriod() {
+    }
+
+    public RevenuePeriod(LocalDate periodStart, Long jobCount, Long revenueCents) {
+        this.periodStart = periodStart;
+        this.jobCount = jobCount != null ? jobCount : 0;
+        this.revenue = BigDecimal.valueOf(revenueCents != null ? revenueCents : 0, 2);
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public void setPeriodStart(LocalDate periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    public long getJobCount() {
+        return jobCount;
+    }
+
+    public void setJobCount(long jobCount) {
+        this.jobCount = jobCount;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.automobile.service.system.model;
+
+import java.util.List;
+
+public class ServiceHistoryPage {
+    private List<ServiceRecordDTO> items;
+    private int page;
+    private int size;
+    private int totalHits;
+
+    public ServiceHistoryPage() {
+    }
+
+    public ServiceHistoryPage(List<ServiceRecordDTO> items, int page, int size, int totalHits) {
+        this.items = items;
+        this.page = page;
+        this.size = size;
+        this.totalHits = totalHits;
+    }
+
+    public List<ServiceRecordDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ServiceRecordDTO> items) {
+        this.items = items;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public int getTotalHits() {
+        return totalHits;
+    }
+
+    public void setTotalHits(int totalHits) {
+        this.totalHits = totalHits;
+    }
+}
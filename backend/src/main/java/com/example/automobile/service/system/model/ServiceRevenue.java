@@ -0,0 +1,52 @@
+package com.example.automobile.service.system.model;
+
+import java.math.BigDecimal;
+
+public class ServiceRevenue {
+    private String description;
+    private long billCount;
+    private long quantity;
+    private BigDecimal revenue;
+
+    public ServiceRevenue() {
+    }
+
+    public ServiceRevenue(String description, Long billCount, Long quantity, BigDecimal revenue) {
+        this.description = description;
+        this.billCount = billCount != null ? billCount : 0;
+        this.quantity = quantity != null ? quantity : 0;
+        this.revenue = revenue;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public long getBillCount() {
+        return billCount;
+    }
+
+    public void setBillCount(long billCount) {
+        this.billCount = billCount;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.automobile.service.system.model;
+
+import java.math.BigDecimal;
+
+public class SettlementLine {
+    private BillLineItemKind kind;
+    private String description;
+    private long quantity;
+    private BigDecimal amount;
+
+    public SettlementLine() {
+    }
+
+    public SettlementLine(BillLineItemKind kind, String description, long quantity, BigDecimal amount) {
+        this.kind = kind;
+        this.description = description;
+        this.quantity = quantity;
+        this.amount = amount;
+    }
+
+    public BillLineItemKind getKind() {
+        return kind;
+    }
+
+    public void setKind(BillLineItemKind kind) {
+        this.kind = kind;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.automobile.service.system.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class ShiftSettlement {
+    private Long cashierId;
+    private String cashierName;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long billCount;
+    // Bills saved before line items existed; counted in the totals but not in the lines
+    private long unitemizedBillCount;
+    private BigDecimal totalBilled;
+    private long advanceFeeBillCount;
+    private BigDecimal advanceFeesOffset;
+    // What the cashier should have collected: total billed less advance fees paid at booking
+    private BigDecimal amountDue;
+    private List<SettlementLine> lines;
+
+    public ShiftSettlement() {
+    }
+
+    public ShiftSettlement(Long cashierId, String cashierName, LocalDateTime from, LocalDateTime to, long billCount, long unitemizedBillCount, BigDecimal totalBilled, long advanceFeeBillCount, BigDecimal advanceFeesOffset, BigDecimal amountDue, List<SettlementLine> lines) {
+        this.cashierId = cashierId;
+        this.cashierName = cashierName;
+        this.from = from;
+        this.to = to;
+        this.billCount = billCount;
+        this.unitemizedBillCount = unitemizedBillCount;
+        this.totalBilled = totalBilled;
+        this.advanceFeeBillCount = advanceFeeBillCount;
+        this.advanceFeesOffset = advanceFeesOffset;
+        this.amountDue = amountDue;
+        this.lines = lines;
+    }
+
+    public Long getCashierId() {
+        return cashierId;
+    }
+
+    public void setCashierId(Long cashierId) {
+        this.cashierId = cashierId;
+    }
+
+    public String getCashierName() {
+        return cashierName;
+    }
+
+    public void setCashierName(String cashierName) {
+        this.cashierName = cashierName;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public long getBillCount() {
+        return billCount;
+    }
+
+    public void setBillCount(long billCount) {
+        this.billCount = billCount;
+    }
+
+    public long getUnitemizedBillCount() {
+        return unitemizedBillCount;
+    }
+
+    public void setUnitemizedBillCount(long unitemizedBillCount) {
+        this.unitemizedBillCount = unitemizedBillCount;
+    }
+
+    public BigDecimal getTotalBilled() {
+        return totalBilled;
+    }
+
+    public void setTotalBilled(BigDecimal totalBilled) {
+        this.totalBilled = totalBilled;
+    }
+
+    public long getAdvanceFeeBillCount() {
+        return advanceFeeBillCount;
+    }
+
+    public void setAdvanceFeeBillCount(long advanceFeeBillCount) {
+        this.advanceFeeBillCount = advanceFeeBillCount;
+    }
+
+    public BigDecimal getAdvanceFeesOffset() {
+        return advanceFeesOffset;
+    }
+
+    public void setAdvanceFeesOffset(BigDecimal advanceFeesOffset) {
+        this.advanceFeesOffset = advanceFeesOffset;
+    }
+
+    public BigDecimal getAmountDue() {
+        return amountDue;
+    }
+
+    public void setAmountDue(BigDecimal amountDue) {
+        this.amountDue = amountDue;
+    }
+
+    public List<SettlementLine> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<SettlementLine> lines) {
+        this.lines = lines;
+    }
+}
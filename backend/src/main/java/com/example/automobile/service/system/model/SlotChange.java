@@ -0,0 +1,42 @@
+package com.example.automobile.service.system.model;
+
+import java.time.LocalTime;
+
+public class SlotChange {
+    private SlotChangeType type;
+    private LocalTime startTime;
+    private LocalTime endTime;
+
+    public SlotChange() {
+    }
+
+    public SlotChange(SlotChangeType type, LocalTime startTime, LocalTime endTime) {
+        this.type = type;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public SlotChangeType getType() {
+        return type;
+    }
+
+    public void setType(SlotChangeType type) {
+        this.type = type;
+    }
+
+    public LocalTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalTime endTime) {
+        this.endTime = endTime;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.automobile.service.system.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class SlotChangeEvent {
+    private LocalDate date;
+    private List<SlotChange> changes;
+
+    public SlotChangeEvent() {
+    }
+
+    public SlotChangeEvent(LocalDate date, List<SlotChange> changes) {
+        this.date = date;
+        this.changes = changes;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public List<SlotChange> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<SlotChange> changes) {
+        this.changes = changes;
+    }
+}
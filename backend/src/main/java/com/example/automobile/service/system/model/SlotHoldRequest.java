@@ -0,0 +1,64 @@
+package com.example.automobile.service.system.model;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+public class SlotHoldRequest {
+    private LocalDate date;
+    private LocalTime startTime;
+    private String make;
+    private String model;
+    private List<String> selectedServiceDescriptions;
+
+    public SlotHoldRequest() {
+    }
+
+    public SlotHoldRequest(LocalDate date, LocalTime startTime, String make, String model, List<String> selectedServiceDescriptions) {
+        this.date = date;
+        this.startTime = startTime;
+        this.make = make;
+        this.model = model;
+        this.selectedServiceDescriptions = selectedServiceDescriptions;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public LocalTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public String getMake() {
+        return make;
+    }
+
+    public void setMake(String make) {
+        this.make = make;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public List<String> getSelectedServiceDescriptions() {
+        return selectedServiceDescriptions;
+    }
+
+    public void setSelectedServiceDescriptions(List<String> selectedServiceDescriptions) {
+        this.selectedServiceDescriptions = selectedServiceDescriptions;
+    }
+}
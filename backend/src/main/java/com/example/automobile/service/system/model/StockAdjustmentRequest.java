@@ -0,0 +1,31 @@
+package com.example.automobile.service.system.model;
+
+public class StockAdjustmentRequest {
+    // Positive for a delivery, negative for a write-off
+    private long quantity;
+    private StockMovementReason reason = StockMovementReason.RESTOCK;
+
+    public StockAdjustmentRequest() {
+    }
+
+    public StockAdjustmentRequest(long quantity, StockMovementReason reason) {
+        this.quantity = quantity;
+        this.reason = reason;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+
+    public StockMovementReason getReason() {
+        return reason;
+    }
+
+    public void setReason(StockMovementReason reason) {
+        this.reason = reason;
+    }
+}
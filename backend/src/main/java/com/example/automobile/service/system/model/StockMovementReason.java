@@ -0,0 +1,7 @@
+package com.example.automobile.service.system.model;
+
+public enum StockMovementReason {
+    SALE,
+    RESTOCK,
+    ADJUSTMENT
+}
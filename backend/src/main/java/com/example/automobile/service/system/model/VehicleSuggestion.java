@@ -0,0 +1,90 @@
+package com.example.automobile.service.system.model;
+
+public class VehicleSuggestion {
+    private Long id;
+    private String vehicleId;
+    private String chassisNo;
+    private String make;
+    private String model;
+    private Integer year;
+    private Long ownerId;
+    private String ownerName;
+
+    public VehicleSuggestion() {
+    }
+
+    public VehicleSuggestion(Long id, String vehicleId, String chassisNo, String make, String model, Integer year, Long ownerId, String ownerName) {
+        this.id = id;
+        this.vehicleId = vehicleId;
+        this.chassisNo = chassisNo;
+        this.make = make;
+        this.model = model;
+        this.year = year;
+        this.ownerId = ownerId;
+        this.ownerName = ownerName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getVehicleId() {
+        return vehicleId;
+    }
+
+    public void setVehicleId(String vehicleId) {
+        this.vehicleId = vehicleId;
+    }
+
+    public String getChassisNo() {
+        return chassisNo;
+    }
+
+    public void setChassisNo(String chassisNo) {
+        this.chassisNo = chassisNo;
+    }
+
+    public String getMake() {
+        return make;
+    }
+
+    public void setMake(String make) {
+        this.make = make;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public Integer getYear() {
+        return year;
+    }
+
+    public void setYear(Integer year) {
+        this.year = year;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public String getOwnerName() {
+        return ownerName;
+    }
+
+    public void setOwnerName(String ownerName) {
+        this.ownerName = ownerName;
+    }
+}
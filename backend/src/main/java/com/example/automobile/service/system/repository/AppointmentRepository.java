@@ -1,8 +1,10 @@
 package com.example.automobile.service.system.repository;
 
 import com.example.automobile.service.system.entity.Appointment;
+import com.example.automobile.service.system.entity.Customer;
 import com.example.automobile.service.system.entity.Vehicle;
 import com.example.automobile.service.system.model.AppointmentStatus;
+import com.example.automobile.service.system.model.AppointmentSummary;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -10,17 +12,29 @@ import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 
-public interface AppointmentRepository extends JpaRepository<Appointment,Integer>, JpaSpecificationExecutor<Appointment> {
+public interface AppointmentRepository extends JpaRepository<Appointment,Long>, JpaSpecificationExecutor<Appointment>, AppointmentRepositoryCustom {
     List<Appointment> findByVehicle(Vehicle vehicle);
+    List<Appointment> findByVehicleIn(Collection<Vehicle> vehicles);
     List<Appointment> findByDate(LocalDate date);
     List<Appointment> findByDateBetween(LocalDate startDate, LocalDate endDate);
+    List<Appointment> findByDateIn(Collection<LocalDate> dates);
     List<Appointment> findByStatus(AppointmentStatus status);
     List<Appointment> findByDateAndStatus(LocalDate date, AppointmentStatus status);
 
     List<Appointment> findByVehicleAndDateBetween(Vehicle vehicle, LocalDate startDate, LocalDate endDate);
 
+    @Query("SELECT new com.example.automobile.service.system.model.AppointmentSummary(" +
+            "a.id, a.date, a.startTime, a.endTime, a.status, a.advanceFeePaid, v.vehicleId, v.chassisNo, mk.name, m.name, v.year, o.name) " +
+            "FROM Appointment a JOIN a.vehicle v JOIN v.owner o LEFT JOIN v.model m LEFT JOIN m.vehicleMake mk " +
+            "WHERE o = :owner AND a.status = :status AND a.date >= :fromDate " +
+            "ORDER BY a.date, a.startTime, a.id")
+    List<AppointmentSummary> findSummariesByOwnerFrom(@Param("owner") Customer owner,
+                                                      @Param("status") AppointmentStatus status,
+                                                      @Param("fromDate") LocalDate fromDate);
+
     // Check for overlapping appointments for a given date and time range
     @Query("SELECT COUNT(a) > 0 FROM Appointment a " +
             "WHERE a.date = :date " +
@@ -0,0 +1,14 @@
+package com.example.automobile.service.system.repository;
+
+import com.example.automobile.service.system.model.AppointmentCursor;
+import com.example.automobile.service.system.model.AppointmentFilter;
+import com.example.automobile.service.system.model.AppointmentSummary;
+
+import java.util.List;
+
+public interface AppointmentRepositoryCustom {
+    // Up to limit rows after the cursor (or from the start when null), in (date, startTime, id) order
+    List<AppointmentSummary> findSummaries(AppointmentFilter filters, AppointmentCursor after, int limit);
+
+    long countMatching(AppointmentFilter filters);
+}
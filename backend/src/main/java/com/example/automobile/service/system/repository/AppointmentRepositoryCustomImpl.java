@@ -0,0 +1,102 @@
+package com.example.automobile.service.system.repository;
+
+import com.example.automobile.service.system.entity.*;
+import com.example.automobile.service.system.model.AppointmentCursor;
+import com.example.automobile.service.system.model.AppointmentFilter;
+import com.example.automobile.service.system.model.AppointmentSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AppointmentRepositoryCustomImpl implements AppointmentRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AppointmentSummary> findSummaries(AppointmentFilter filters, AppointmentCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AppointmentSummary> query = cb.createQuery(AppointmentSummary.class);
+        Root<Appointment> root = query.from(Appointment.class);
+        Join<Appointment, Vehicle> vehicle = root.join("vehicle");
+        Join<Vehicle, Customer> owner = vehicle.join("owner", JoinType.LEFT);
+        Join<Vehicle, VehicleModel> model = vehicle.join("model", JoinType.LEFT);
+        Join<VehicleModel, VehicleMake> make = model.join("vehicleMake", JoinType.LEFT);
+
+        List<Predicate> predicates = filterPredicates(cb, root, vehicle, owner, filters);
+        if (after != null) {
+            // Row-value comparison (date, startTime, id) > cursor, spelled out so the date index can seek
+            Path<LocalDate> date = root.get("date");
+            Path<LocalTime> startTime = root.get("startTime");
+            Path<Long> id = root.get("id");
+            predicates.add(cb.or(
+                    cb.greaterThan(date, after.getDate()),
+                    cb.and(cb.equal(date, after.getDate()), cb.or(
+                            cb.greaterThan(startTime, after.getStartTime()),
+                            cb.and(cb.equal(startTime, after.getStartTime()), cb.greaterThan(id, after.getId()))))));
+        }
+
+        query.select(cb.construct(AppointmentSummary.class,
+                        root.get("id"), root.get("date"), root.get("startTime"), root.get("endTime"),
+                        root.get("status"), root.get("advanceFeePaid"),
+                        vehicle.get("vehicleId"), vehicle.get("chassisNo"),
+                        make.get("name"), model.get("name"), vehicle.get("year"),
+                        owner.get("name")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(root.get("date")), cb.asc(root.get("startTime")), cb.asc(root.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public long countMatching(AppointmentFilter filters) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Appointment> root = query.from(Appointment.class);
+        // Only join what the filters need
+        Join<Appointment, Vehicle> vehicle = hasText(filters.getVehicleId()) || hasText(filters.getChassisNo())
+                || hasText(filters.getCustomerName()) || filters.getCustomerKeys() != null ? root.join("vehicle") : null;
+        Join<Vehicle, Customer> owner = hasText(filters.getCustomerName()) ? vehicle.join("owner", JoinType.LEFT) : null;
+
+        query.select(cb.count(root)).where(filterPredicates(cb, root, vehicle, owner, filters).toArray(new Predicate[0]));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static List<Predicate> filterPredicates(CriteriaBuilder cb, Root<Appointment> root,
+                                                    Join<Appointment, Vehicle> vehicle, Join<Vehicle, Customer> owner,
+                                                    AppointmentFilter filters) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filters.getStartDate() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("date"), filters.getStartDate()));
+        }
+        if (filters.getEndDate() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("date"), filters.getEndDate()));
+        }
+        if (filters.getStatus() != null) {
+            predicates.add(cb.equal(root.get("status"), filters.getStatus()));
+        }
+        if (filters.getVehicleKeys() != null) {
+            predicates.add(root.get("vehicle").get("id").in(filters.getVehicleKeys()));
+        }
+        if (filters.getCustomerKeys() != null) {
+            predicates.add(vehicle.get("owner").get("id").in(filters.getCustomerKeys()));
+        }
+        if (hasText(filters.getVehicleId())) {
+            predicates.add(cb.like(cb.lower(vehicle.get("vehicleId")), "%" + filters.getVehicleId().toLowerCase() + "%"));
+        }
+        if (hasText(filters.getChassisNo())) {
+            predicates.add(cb.like(cb.lower(vehicle.get("chassisNo")), "%" + filters.getChassisNo().toLowerCase() + "%"));
+        }
+        if (hasText(filters.getCustomerName())) {
+            predicates.add(cb.like(cb.lower(owner.get("name")), "%" + filters.getCustomerName().toLowerCase() + "%"));
+        }
+        return predicates;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
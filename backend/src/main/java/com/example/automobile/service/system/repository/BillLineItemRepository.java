@@ -0,0 +1,23 @@
+package com.example.automobile.service.system.repository;
+
+import com.example.automobile.service.system.entity.BillLineItem;
+import com.example.automobile.service.system.model.BillLineItemKind;
+import com.example.automobile.service.system.model.ServiceRevenue;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BillLineItemRepository extends JpaRepository<BillLineItem,Long> {
+    List<BillLineItem> findByServiceRecordIdOrderByLineNo(Long serviceRecordId);
+
+    @Query("SELECT new com.example.automobile.service.system.model.ServiceRevenue(" +
+            "li.description, COUNT(DISTINCT sr.id), SUM(li.quantity), SUM(li.unitPrice * li.quantity)) " +
+            "FROM BillLineItem li JOIN li.serviceRecord sr " +
+            "WHERE li.kind IN :kinds AND sr.serviceDateTime >= :from AND sr.serviceDateTime < :to " +
+            "GROUP BY li.description ORDER BY SUM(li.unitPrice * li.quantity) DESC")
+    List<ServiceRevenue> sumRevenueByDescription(@Param("kinds") List<BillLineItemKind> kinds,
+                                                 @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
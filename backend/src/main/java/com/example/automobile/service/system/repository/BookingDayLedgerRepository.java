@@ -0,0 +1,28 @@
+package com.example.automobile.service.system.repository;
+
+import com.example.automobile.service.system.entity.BookingDayLedger;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+
+public interface BookingDayLedgerRepository extends JpaRepository<BookingDayLedger, LocalDate> {
+    // Creates the day's row if it is missing. A concurrent insert of the same date waits on the
+    // winner's exclusive row lock rather than taking a shared one, so it cannot deadlock the lock below
+    @Modifying
+    @Query(value = "INSERT INTO booking_day_ledger (booking_date, appointment_count) VALUES (:date, 0) " +
+            "ON DUPLICATE KEY UPDATE appointment_count = appointment_count", nativeQuery = true)
+    int insertIfAbsent(@Param("date") LocalDate date);
+
+    // SELECT ... FOR UPDATE on the day's row, held until the booking transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000"))
+    @Query("SELECT l FROM BookingDayLedger l WHERE l.bookingDate = :date")
+    BookingDayLedger lockByBookingDate(@Param("date") LocalDate date);
+}
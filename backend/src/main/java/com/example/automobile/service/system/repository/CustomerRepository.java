@@ -3,7 +3,10 @@ package com.example.automobile.service.system.repository;
 import com.example.automobile.service.system.entity.Customer;
 import jakarta.persistence.Column;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface CustomerRepository extends JpaRepository<Customer,Long> {
@@ -11,4 +14,10 @@ public interface CustomerRepository extends JpaRepository<Customer,Long> {
     Customer findByPhoneNo(String phoneNo);
     Boolean existsByPhoneNo(String phoneNo);
     Boolean existsByNicNo(String nicNo);
+    List<Customer> findByNicNoIn(Collection<String> nicNos);
+    List<Customer> findByPhoneNoIn(Collection<String> phoneNos);
+
+    // (id, name) rows for building the in-memory search index
+    @Query("SELECT c.id, c.name FROM Customer c")
+    List<Object[]> findSearchKeys();
 }
@@ -10,4 +10,5 @@ import java.util.List;
 public interface HolidayRepository extends JpaRepository<Holiday,Long> {
     Holiday findByDate(LocalDate date);
     List<Holiday> findAllByDate(LocalDate date);
+    List<Holiday> findByDateBetween(LocalDate startDate, LocalDate endDate);
 }
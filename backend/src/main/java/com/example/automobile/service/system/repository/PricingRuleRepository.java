@@ -0,0 +1,7 @@
+package com.example.automobile.service.system.repository;
+
+import com.example.automobile.service.system.entity.PricingRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface PricingRuleRepository extends JpaRepository<PricingRule,Long> {
+}
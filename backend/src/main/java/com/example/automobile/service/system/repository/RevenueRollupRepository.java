@@ -0,0 +1,28 @@
+package com.example.automobile.service.system.repository;
+
+import com.example.automobile.service.system.entity.RevenueRollup;
+import com.example.automobile.service.system.model.ModelRevenue;
+import com.example.automobile.service.system.model.RevenuePeriod;
+import com.example.automobile.service.system.model.RollupGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface RevenueRollupRepository extends JpaRepository<RevenueRollup,Long> {
+    @Query("SELECT new com.example.automobile.service.system.model.RevenuePeriod(r.periodStart, SUM(r.jobCount), SUM(r.revenueCents)) " +
+            "FROM RevenueRollup r " +
+            "WHERE r.granularity = :granularity AND r.make = '' AND r.periodStart >= :from AND r.periodStart <= :to " +
+            "GROUP BY r.periodStart ORDER BY r.periodStart")
+    List<RevenuePeriod> sumTotals(@Param("granularity") RollupGranularity granularity,
+                                  @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT new com.example.automobile.service.system.model.ModelRevenue(r.make, r.model, SUM(r.jobCount), SUM(r.revenueCents)) " +
+            "FROM RevenueRollup r " +
+            "WHERE r.granularity = :granularity AND r.make <> '' AND r.periodStart >= :from AND r.periodStart <= :to " +
+            "GROUP BY r.make, r.model")
+    List<ModelRevenue> sumByModel(@Param("granularity") RollupGranularity granularity,
+                                  @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,12 @@
+package com.example.automobile.service.system.repository;
+
+import com.example.automobile.service.system.entity.ServiceFeeVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ServiceFeeVersionRepository extends JpaRepository<ServiceFeeVersion, Long> {
+    List<ServiceFeeVersion> findByServiceFeeIdOrderByEffectiveFromAscIdAsc(Long serviceFeeId);
+
+    boolean existsByServiceFeeId(Long serviceFeeId);
+}
@@ -1,18 +1,43 @@
 package com.example.automobile.service.system.repository;
 
+import com.example.automobile.service.system.entity.Customer;
 import com.example.automobile.service.system.entity.ServiceRecord;
 import com.example.automobile.service.system.entity.Vehicle;
+import com.example.automobile.service.system.model.ServiceRecordDTO;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ServiceRecordRepository extends JpaRepository<ServiceRecord,Long> {
     List<ServiceRecord> findByVehicleOrderByServiceDateTimeDesc(Vehicle vehicle);
-    @org.springframework.data.jpa.repository.Query("SELECT sr FROM ServiceRecord sr JOIN sr.vehicle v JOIN v.owner c " +
-            "WHERE LOWER(v.vehicleId) LIKE LOWER(CONCAT('%', :query, '%')) " +
-            "OR LOWER(v.chassisNo) LIKE LOWER(CONCAT('%', :query, '%')) " +
-            "OR LOWER(c.name) LIKE LOWER(CONCAT('%', :query, '%')) " +
-            "OR LOWER(c.nicNo) LIKE LOWER(CONCAT('%', :query, '%')) " +
-            "ORDER BY sr.serviceDateTime DESC")
-    List<ServiceRecord> searchHistory(@org.springframework.data.repository.query.Param("query") String query);
+    List<ServiceRecord> findByVehicleInOrderByServiceDateTimeDesc(Collection<Vehicle> vehicles);
+    boolean existsByAppointmentId(Long appointmentId);
+
+    // Bills on all of the customer's vehicles, for loyalty pricing
+    @Query("SELECT COUNT(sr) FROM ServiceRecord sr JOIN sr.vehicle v WHERE v.owner.id = :ownerId")
+    long countByOwnerId(@Param("ownerId") Long ownerId);
+
+    @Query("SELECT new com.example.automobile.service.system.model.ServiceRecordDTO(" +
+            "sr.id, v.vehicleId, m.makeName, m.name, sr.serviceDateTime, sr.serviceDetails, sr.totalCost, c.name, a.id) " +
+            "FROM ServiceRecord sr JOIN sr.vehicle v JOIN v.model m LEFT JOIN sr.processedByCashier c LEFT JOIN sr.appointment a " +
+            "WHERE v.owner = :owner ORDER BY sr.serviceDateTime DESC, sr.id DESC")
+    List<ServiceRecordDTO> findRecentByOwner(@Param("owner") Customer owner, Pageable pageable);
+    // (id, serviceDateTime, serviceDetails, vehicle id, plate, chassis, make, model, owner id, owner name, NIC) for the search index
+    @Query("SELECT sr.id, sr.serviceDateTime, sr.serviceDetails, v.id, v.vehicleId, v.chassisNo, m.makeName, m.name, c.id, c.name, c.nicNo " +
+            "FROM ServiceRecord sr JOIN sr.vehicle v JOIN v.model m JOIN v.owner c")
+    List<Object[]> findSearchRows();
+
+    // Everything toDTO reads, in one query
+    @Query("SELECT sr FROM ServiceRecord sr JOIN FETCH sr.vehicle v JOIN FETCH v.model JOIN FETCH v.owner " +
+            "LEFT JOIN FETCH sr.processedByCashier LEFT JOIN FETCH sr.appointment WHERE sr.id IN :ids")
+    List<ServiceRecord> findWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // (id, serviceDetails, model name, serviceDateTime) of records after the given id that have no line items yet
+    @Query("SELECT sr.id, sr.serviceDetails, m.name, sr.serviceDateTime FROM ServiceRecord sr JOIN sr.vehicle v JOIN v.model m " +
+            "WHERE sr.id > :afterId AND NOT EXISTS (SELECT li.id FROM BillLineItem li WHERE li.serviceRecord = sr) ORDER BY sr.id")
+    List<Object[]> findUnitemizedAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
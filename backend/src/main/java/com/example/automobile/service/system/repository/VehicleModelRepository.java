@@ -3,11 +3,17 @@ package com.example.automobile.service.system.repository;
 import com.example.automobile.service.system.entity.VehicleMake;
 import com.example.automobile.service.system.entity.VehicleModel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface VehicleModelRepository extends JpaRepository<VehicleModel,Long> {
     List<VehicleModel> findByVehicleMake(VehicleMake vehicleMake);
     VehicleModel findByNameAndVehicleMake(String name, VehicleMake vehicleMake);
+    // Superset of the requested (make, model) pairs; callers match the exact pairs in memory
+    @Query("SELECT m FROM VehicleModel m JOIN FETCH m.vehicleMake mk WHERE mk.name IN :makeNames AND m.name IN :modelNames")
+    List<VehicleModel> findByMakeNamesAndNames(@Param("makeNames") Collection<String> makeNames, @Param("modelNames") Collection<String> modelNames);
 
 }
@@ -2,10 +2,12 @@ package com.example.automobile.service.system.repository;
 
 import com.example.automobile.service.system.entity.Customer;
 import com.example.automobile.service.system.entity.Vehicle;
+import com.example.automobile.service.system.model.VehicleSuggestion;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,9 +21,24 @@ public interface VehicleRepository extends JpaRepository<Vehicle,Long> {
     Boolean existsByVehicleId(String vehicleId);
 
     Boolean existsByChassisNo(String chassisNo);
-    @Query("SELECT v FROM Vehicle v JOIN v.owner o " +
-            "WHERE LOWER(v.vehicleId) LIKE LOWER(CONCAT('%', :query, '%')) " +
-            "OR LOWER(v.chassisNo) LIKE LOWER(CONCAT('%', :query, '%')) " +
-            "OR LOWER(o.name) LIKE LOWER(CONCAT('%', :query, '%'))")
-    List<Vehicle> findSuggestions(@Param("query") String query);
+    // Owner is already in the persistence context when this runs, so only the model needs fetching
+    @Query("SELECT v FROM Vehicle v JOIN FETCH v.model WHERE v.owner = :owner ORDER BY v.id")
+    List<Vehicle> findWithModelByOwner(@Param("owner") Customer owner);
+
+    // Flat rows for the cashier autocomplete index
+    @Query("SELECT new com.example.automobile.service.system.model.VehicleSuggestion(" +
+            "v.id, v.vehicleId, v.chassisNo, m.makeName, m.name, v.year, o.id, o.name) " +
+            "FROM Vehicle v JOIN v.model m JOIN v.owner o")
+    List<VehicleSuggestion> findAllSuggestions();
+
+    // (id, vehicleId, chassisNo) rows for building the in-memory search index
+    @Query("SELECT v.id, v.vehicleId, v.chassisNo FROM Vehicle v")
+    List<Object[]> findSearchKeys();
+
+    // Model and owner are fetched in the same query so callers can read them without per-vehicle selects
+    @Query("SELECT v FROM Vehicle v JOIN FETCH v.model JOIN FETCH v.owner WHERE v.vehicleId IN :vehicleIds")
+    List<Vehicle> findWithModelByVehicleIdIn(@Param("vehicleIds") Collection<String> vehicleIds);
+
+    @Query("SELECT v FROM Vehicle v JOIN FETCH v.model JOIN FETCH v.owner WHERE v.chassisNo IN :chassisNos")
+    List<Vehicle> findWithModelByChassisNoIn(@Param("chassisNos") Collection<String> chassisNos);
 }
@@ -0,0 +1,183 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.model.AppointmentFilter;
+import com.example.automobile.service.system.repository.CustomerRepository;
+import com.example.automobile.service.system.repository.VehicleRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Trigram indexes over vehicle registration numbers, chassis numbers and customer names, so the
+ * admin appointment filters can turn a substring into a set of primary keys instead of a
+ * {@code LIKE '%x%'} scan. Kept current by {@link SearchIndexEntityListener} and rebuilt from the
+ * database every {@code appointment.search.refresh.seconds}, which also picks up writes made by
+ * other instances. A filter the index finds nothing for matches no appointments; a row saved on
+ * another instance shows up once the next rebuild has read it.
+ */
+@Component
+public class AppointmentSearchIndex {
+    // Past this many matches an IN list stops paying off, so the LIKE predicate is kept instead
+    static final int MAX_CANDIDATES = 1000;
+
+    @Autowired
+    VehicleRepository vehicleRepository;
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Value("${appointment.search.refresh.seconds:300}")
+    private long refreshSeconds = 300;
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private volatile Indexes indexes = new Indexes(Long.MAX_VALUE);
+    // Changes that arrive while a rebuild reads the database, replayed onto the new indexes
+    private final List<Consumer<Indexes>> changesDuringReload = new ArrayList<>();
+    private boolean reloading;
+
+    @PostConstruct
+    public void load() {
+        reloadLock.lock();
+        try {
+            rebuild();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    void vehicleSaved(Long id, String vehicleId, String chassisNo) {
+        apply(current -> {
+            current.vehicleIds.put(id, vehicleId);
+            current.chassisNos.put(id, chassisNo);
+        });
+    }
+
+    void vehicleRemoved(Long id) {
+        apply(current -> {
+            current.vehicleIds.remove(id);
+            current.chassisNos.remove(id);
+        });
+    }
+
+    void customerSaved(Long id, String name) {
+        apply(current -> current.customerNames.put(id, name));
+    }
+
+    void customerRemoved(Long id) {
+        apply(current -> current.customerNames.remove(id));
+    }
+
+    /**
+     * Copy of {@code filters} with each substring filter the index can answer replaced by the
+     * matching vehicle or customer keys. Filters matching too many rows are left as they are; one
+     * that matches nothing leaves an empty key set, which the caller answers without a query.
+     */
+    public AppointmentFilter narrow(AppointmentFilter filters) {
+        AppointmentFilter narrowed = new AppointmentFilter(filters.getStartDate(), filters.getEndDate(),
+                filters.getVehicleId(), filters.getChassisNo(), filters.getCustomerName(), filters.getStatus());
+        narrowed.setVehicleKeys(filters.getVehicleKeys());
+        narrowed.setCustomerKeys(filters.getCustomerKeys());
+        Indexes current = current();
+
+        Set<Long> byVehicleId = hasText(filters.getVehicleId()) ? current.vehicleIds.search(filters.getVehicleId(), MAX_CANDIDATES) : null;
+        if (byVehicleId != null) {
+            narrowed.setVehicleId(null);
+            narrowed.setVehicleKeys(intersect(narrowed.getVehicleKeys(), byVehicleId));
+        }
+        Set<Long> byChassisNo = hasText(filters.getChassisNo()) ? current.chassisNos.search(filters.getChassisNo(), MAX_CANDIDATES) : null;
+        if (byChassisNo != null) {
+            narrowed.setChassisNo(null);
+            narrowed.setVehicleKeys(intersect(narrowed.getVehicleKeys(), byChassisNo));
+        }
+        Set<Long> byName = hasText(filters.getCustomerName()) ? current.customerNames.search(filters.getCustomerName(), MAX_CANDIDATES) : null;
+        if (byName != null) {
+            narrowed.setCustomerName(null);
+            narrowed.setCustomerKeys(intersect(narrowed.getCustomerKeys(), byName));
+        }
+        return narrowed;
+    }
+
+    private Indexes current() {
+        Indexes current = indexes;
+        if (System.currentTimeMillis() - current.loadedAtMillis > refreshSeconds * 1000 && reloadLock.tryLock()) {
+            try {
+                if (indexes == current) {
+                    rebuild();
+                }
+            } finally {
+                reloadLock.unlock();
+            }
+            return indexes;
+        }
+        return current;
+    }
+
+    // Caller holds reloadLock
+    private void rebuild() {
+        synchronized (changesDuringReload) {
+            reloading = true;
+            changesDuringReload.clear();
+        }
+        try {
+            Indexes fresh = new Indexes(System.currentTimeMillis());
+            for (Object[] row : vehicleRepository.findSearchKeys()) {
+                fresh.vehicleIds.put((Long) row[0], (String) row[1]);
+                fresh.chassisNos.put((Long) row[0], (String) row[2]);
+            }
+            for (Object[] row : customerRepository.findSearchKeys()) {
+                fresh.customerNames.put((Long) row[0], (String) row[1]);
+            }
+            synchronized (changesDuringReload) {
+                for (Consumer<Indexes> change : changesDuringReload) {
+                    change.accept(fresh);
+                }
+                indexes = fresh;
+            }
+        } finally {
+            synchronized (changesDuringReload) {
+                reloading = false;
+                changesDuringReload.clear();
+            }
+        }
+    }
+
+    private void apply(Consumer<Indexes> change) {
+        synchronized (changesDuringReload) {
+            change.accept(indexes);
+            if (reloading) {
+                changesDuringReload.add(change);
+            }
+        }
+    }
+
+    private static Set<Long> intersect(Set<Long> current, Set<Long> matches) {
+        if (current == null) {
+            return matches;
+        }
+        Set<Long> result = new HashSet<>(current);
+        result.retainAll(matches);
+        return result;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private static class Indexes {
+        private final TrigramIndex vehicleIds = new TrigramIndex();
+        private final TrigramIndex chassisNos = new TrigramIndex();
+        private final TrigramIndex customerNames = new TrigramIndex();
+        private final long loadedAtMillis;
+
+        private Indexes(long loadedAtMillis) {
+            this.loadedAtMillis = loadedAtMillis;
+        }
+    }
+}
@@ -4,21 +4,25 @@ import com.example.automobile.service.system.entity.*;
 import com.example.automobile.service.system.exception.AppointmentConflictException;
 import com.example.automobile.service.system.model.*;
 import com.example.automobile.service.system.repository.*;
-import jakarta.persistence.criteria.Join;
-import jakarta.persistence.criteria.JoinType;
-import jakarta.persistence.criteria.Predicate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -40,7 +44,21 @@ public class AppointmentService {
     @Autowired
     CustomerRepository customerRepository;
     @Autowired
-    ServiceFeeRepository serviceFeeRepository;
+    ServiceFeeCatalog serviceFeeCatalog;
+    @Autowired
+    BookingDayLedgerRepository bookingDayLedgerRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    SlotHoldRegistry slotHolds;
+    @Autowired
+    HolidayCalendar holidayCalendar;
+    @Autowired
+    MonthAvailabilityCache monthAvailabilityCache;
+    @Autowired
+    AppointmentSearchIndex appointmentSearchIndex;
+    @Autowired
+    SlotChangeBroadcaster slotChanges;
 
     public static class ResourceNotFoundException extends RuntimeException {
         public ResourceNotFoundException(String message) {
@@ -57,12 +75,22 @@ public class AppointmentService {
     @Value("${appointment.working.end.time:17:00}")
     private String workingEndTimeStr;
 
-    private LocalTime getWorkingStartTime() { return LocalTime.parse(workingStartTimeStr); }
-    private LocalTime getWorkingEndTime() { return LocalTime.parse(workingEndTimeStr); }
+    @Value("${appointment.search.max.days:31}")
+    private int maxSearchDays;
+
+    @Value("${appointment.hold.minutes:10}")
+    private int holdMinutes;
+
+    static final int MAX_PAGE_SIZE = 500;
+
+    // Queues same-day bookings inside this instance so they wait here rather than on the ledger row lock
+    final DateStripedLock bookingLocks = new DateStripedLock(64);
+
+    LocalTime getWorkingStartTime() { return LocalTime.parse(workingStartTimeStr); }
+    LocalTime getWorkingEndTime() { return LocalTime.parse(workingEndTimeStr); }
 
     public Boolean checkIsHoliday(LocalDate date){
-        Holiday holiday=holidayRepository.findByDate(date);
-        return holiday != null;
+        return holidayCalendar.isHoliday(date);
     }
 
     public List<Holiday> getHolidays(){
@@ -70,12 +98,20 @@ public class AppointmentService {
     }
 
     public Holiday setHolidays(Holiday holiday){
-        return holidayRepository.save(holiday);
+        Holiday saved = holidayRepository.save(holiday);
+        holidayChanged();
+        publishHoliday(saved, SlotChangeType.TAKEN);
+        return saved;
     }
 
     public String removeHolidays(Long id){
         try {
+            Holiday removed = holidayRepository.findById(id).orElse(null);
             holidayRepository.deleteById(id);
+            holidayChanged();
+            if (removed != null) {
+                publishHoliday(removed, SlotChangeType.FREED);
+            }
             return "Holiday removed from database";
         }catch (Exception e){
             return e.toString();
@@ -84,6 +120,7 @@ public class AppointmentService {
     public Holiday updateHoliday(Long id,Holiday holiday){
         Holiday existingHoliday = holidayRepository.findById(id)
                 .orElseThrow(() -> new BillingService.ResourceNotFoundException("Holiday not found with id: " + id));
+        Holiday previous = new Holiday(id, existingHoliday.getStartTime(), existingHoliday.getEndTime(), existingHoliday.getDate());
 
         // Update the fields
         existingHoliday.setDate(holiday.getDate());
@@ -91,7 +128,11 @@ public class AppointmentService {
         existingHoliday.setEndTime(holiday.getEndTime());
 
         // Save and return the updated entity
-        return holidayRepository.save(existingHoliday);
+        Holiday saved = holidayRepository.save(existingHoliday);
+        holidayChanged();
+        publishHoliday(previous, SlotChangeType.FREED);
+        publishHoliday(saved, SlotChangeType.TAKEN);
+        return saved;
     }
 
     /*public List<AvailableTimeSlot> getAvailableTime(String date,String dayStartTime, String dayEndTime, int durationInMinutes){
@@ -143,92 +184,90 @@ public class AppointmentService {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.toString());
         }
     }
-    public List<Appointment> filterAppointments(AppointmentFilter filters) {
-        Specification<Appointment> spec = (root, query, cb) -> {
-            Predicate p = cb.conjunction(); // Start with an always-true predicate
-
-            if (filters.getStartDate() != null) {
-                p = cb.and(p, cb.greaterThanOrEqualTo(root.get("date"), filters.getStartDate()));
-            }
-            if (filters.getEndDate() != null) {
-                p = cb.and(p, cb.lessThanOrEqualTo(root.get("date"), filters.getEndDate()));
-            }
-            if (filters.getStatus() != null) {
-                p = cb.and(p, cb.equal(root.get("status"), filters.getStatus()));
-            }
-            // Join with Vehicle and Customer for filtering by their attributes
-            if (filters.getVehicleId() != null || filters.getChassisNo() != null || filters.getCustomerName() != null) {
-                Join<Appointment, Vehicle> vehicleJoin = root.join("vehicle", JoinType.LEFT); // LEFT JOIN if vehicle might be null (shouldn't be based on entity)
-                if (filters.getVehicleId() != null && !filters.getVehicleId().isBlank()) {
-                    p = cb.and(p, cb.like(cb.lower(vehicleJoin.get("vehicleId")), "%" + filters.getVehicleId().toLowerCase() + "%"));
-                }
-                if (filters.getChassisNo() != null && !filters.getChassisNo().isBlank()) {
-                    p = cb.and(p, cb.like(cb.lower(vehicleJoin.get("chassisNo")), "%" + filters.getChassisNo().toLowerCase() + "%"));
-                }
-                if (filters.getCustomerName() != null && !filters.getCustomerName().isBlank()) {
-                    Join<Vehicle, Customer> customerJoin = vehicleJoin.join("owner", JoinType.LEFT);
-                    p = cb.and(p, cb.like(cb.lower(customerJoin.get("name")), "%" + filters.getCustomerName().toLowerCase() + "%"));
-                }
-            }
-
-            // Order by date and start time
-            query.orderBy(cb.asc(root.get("date")), cb.asc(root.get("startTime")));
-
-            return p;
-        };
-        return appointmentRepository.findAll(spec);
+    public AppointmentPage filterAppointments(AppointmentFilter filters, String cursor, int limit, boolean includeTotal) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        AppointmentCursor after = cursor != null && !cursor.isBlank() ? AppointmentCursor.decode(cursor) : null;
+        // Substring filters become key sets from the in-memory index where it can answer them
+        filters = appointmentSearchIndex.narrow(filters);
+        if (isEmpty(filters.getVehicleKeys()) || isEmpty(filters.getCustomerKeys())) {
+            return new AppointmentPage(new ArrayList<>(), null, includeTotal ? 0L : null);
+        }
+        // One extra row tells us whether there is a next page without a count query
+        List<AppointmentSummary> rows = appointmentRepository.findSummaries(filters, after, limit + 1);
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = new ArrayList<>(rows.subList(0, limit));
+            nextCursor = AppointmentCursor.after(rows.get(limit - 1)).encode();
+        }
+        Long totalCount = includeTotal ? appointmentRepository.countMatching(filters) : null;
+        return new AppointmentPage(rows, nextCursor, totalCount);
     }
     public List<AppointmentSlot> getAvailableSlots(LocalDate date, int requiredDurationMinutes) {
-        List<AppointmentSlot> availableSlots = new ArrayList<>();
-        LocalTime potentialStartTime = getWorkingStartTime();
-        LocalTime workingEndTime = getWorkingEndTime();
-
-        // Fetch all existing non-cancelled appointments and holidays for the day
-        List<Appointment> existingAppointments = appointmentRepository.findByDate(date).stream()
-                .filter(a -> a.getStatus() != AppointmentStatus.CANCELLED)
-                .toList();
-        List<Holiday> holidays = holidayRepository.findAllByDate(date);
-
-        while (!potentialStartTime.isAfter(workingEndTime)) {
-            LocalTime potentialEndTime = potentialStartTime.plusMinutes(requiredDurationMinutes);
-
+        // Build the day's occupancy once, then scan it for free runs instead of re-checking every interval per slot
+        return DayCapacityIndex.forWindow(getWorkingStartTime(), getWorkingEndTime())
+                .appointments(appointmentRepository.findByDate(date))
+                .holidays(holidayCalendar.holidaysOn(date))
+                .holds(slotHolds.activeHolds(date))
+                .build(slotGranularityMinutes, requiredDurationMinutes)
+                .availableSlots();
+    }
 
-            if (potentialEndTime.isAfter(workingEndTime)) {
-                break;
+    /**
+     * Free slot count and longest free window for every day of the month. Held slots are not
+     * counted as busy here; the cached month is dropped whenever a booking or holiday touches it.
+     */
+    public List<DayAvailability> getMonthAvailability(YearMonth month, int requiredDurationMinutes) {
+        return monthAvailabilityCache.get(month, requiredDurationMinutes, () -> {
+            LocalDate firstDay = month.atDay(1);
+            LocalDate lastDay = month.atEndOfMonth();
+            Map<LocalDate, List<Appointment>> appointmentsByDate = appointmentRepository.findByDateBetween(firstDay, lastDay).stream()
+                    .collect(Collectors.groupingBy(Appointment::getDate));
+            Map<LocalDate, List<Holiday>> holidaysByDate = holidayCalendar.holidaysBetween(firstDay, lastDay);
+
+            List<DayAvailability> days = new ArrayList<>();
+            for (LocalDate date = firstDay; !date.isAfter(lastDay); date = date.plusDays(1)) {
+                DayCapacityIndex index = DayCapacityIndex.forWindow(getWorkingStartTime(), getWorkingEndTime())
+                        .appointments(appointmentsByDate.getOrDefault(date, Collections.emptyList()))
+                        .holidays(holidaysByDate.getOrDefault(date, Collections.emptyList()))
+                        .build(slotGranularityMinutes, requiredDurationMinutes);
+                days.add(new DayAvailability(date, index.countAvailableSlots(), index.longestFreeMinutes()));
             }
+            return days;
+        });
+    }
 
-            boolean isSlotAvailable = true;
-
-
-            for (Holiday holiday : holidays) {
-                LocalTime holidayStart = holiday.getStartTime() != null ? holiday.getStartTime() : LocalTime.MIN;
-                LocalTime holidayEnd = holiday.getEndTime() != null ? holiday.getEndTime() : LocalTime.MAX;
+    public List<DatedAppointmentSlot> findAvailableSlotsBetween(LocalDate fromDate, LocalDate toDate, int requiredDurationMinutes, int maxResults) {
+        if (toDate.isBefore(fromDate)) {
+            throw new IllegalArgumentException("End date must not be before the start date.");
+        }
+        // Both ends are searched, so the window spans one day more than the days between them
+        if (ChronoUnit.DAYS.between(fromDate, toDate) >= maxSearchDays) {
+            throw new IllegalArgumentException("Search window cannot exceed " + maxSearchDays + " days.");
+        }
 
-                if (potentialStartTime.isBefore(holidayEnd) && potentialEndTime.isAfter(holidayStart)) {
-                    isSlotAvailable = false;
+        // One appointment query for the whole window, then a single pass over the days in order
+        Map<LocalDate, List<Appointment>> appointmentsByDate = appointmentRepository.findByDateBetween(fromDate, toDate).stream()
+                .collect(Collectors.groupingBy(Appointment::getDate));
+        Map<LocalDate, List<Holiday>> holidaysByDate = holidayCalendar.holidaysBetween(fromDate, toDate);
+
+        List<DatedAppointmentSlot> result = new ArrayList<>();
+        for (LocalDate date = fromDate; !date.isAfter(toDate) && result.size() < maxResults; date = date.plusDays(1)) {
+            List<AppointmentSlot> daySlots = DayCapacityIndex.forWindow(getWorkingStartTime(), getWorkingEndTime())
+                    .appointments(appointmentsByDate.getOrDefault(date, Collections.emptyList()))
+                    .holidays(holidaysByDate.getOrDefault(date, Collections.emptyList()))
+                    .holds(slotHolds.activeHolds(date))
+                    .build(slotGranularityMinutes, requiredDurationMinutes)
+                    .availableSlots();
+            for (AppointmentSlot slot : daySlots) {
+                if (result.size() >= maxResults) {
                     break;
                 }
+                result.add(new DatedAppointmentSlot(date, slot.getStartTime(), slot.getEndTime()));
             }
-
-            // Check against existing appointments if not already conflicting with holiday
-            if (isSlotAvailable) {
-                for (Appointment existing : existingAppointments) {
-                    if (potentialStartTime.isBefore(existing.getEndTime()) && potentialEndTime.isAfter(existing.getStartTime())) {
-                        isSlotAvailable = false;
-                        break;
-                    }
-                }
-            }
-
-
-            if (isSlotAvailable) {
-                availableSlots.add(new AppointmentSlot(potentialStartTime, potentialEndTime));
-            }
-
-            potentialStartTime = potentialStartTime.plusMinutes(slotGranularityMinutes);
         }
-
-        return availableSlots;
+        return result;
     }
 
 
@@ -240,8 +279,7 @@ public class AppointmentService {
             return Collections.emptyList();
         }
 
-        return vehicles.stream()
-                .flatMap(vehicle -> appointmentRepository.findByVehicle(vehicle).stream())
+        return appointmentRepository.findByVehicleIn(vehicles).stream()
                 .sorted((a1, a2) -> {
                     int dateCompare = a1.getDate().compareTo(a2.getDate());
                     return dateCompare != 0 ? dateCompare : a1.getStartTime().compareTo(a2.getStartTime());
@@ -250,7 +288,7 @@ public class AppointmentService {
 
     }
 
-    private Customer findOrCreateCustomer(AppointmentBookingRequest bookingRequest, UserAccount user) {
+    Customer findOrCreateCustomer(AppointmentBookingRequest bookingRequest, UserAccount user) {
         Customer customerOpt = customerRepository.findByNicNo(bookingRequest.getCustomerIdentifier());
         if (customerOpt==null) {
             customerOpt = customerRepository.findByPhoneNo(bookingRequest.getCustomerIdentifier());
@@ -260,29 +298,33 @@ public class AppointmentService {
             customerOpt.setPhoneNo(bookingRequest.getCustomerPhoneNo());
             return customerOpt;
         } else {
+            return customerRepository.save(newCustomer(bookingRequest));
+        }
+    }
 
-            Customer newCustomer = new Customer();
-            newCustomer.setName(bookingRequest.getCustomerName());
-            newCustomer.setAddress(bookingRequest.getCustomerAddress());
-            newCustomer.setPhoneNo(bookingRequest.getCustomerPhoneNo());
+    // Checked but not saved, so a batch only keeps the customers of the items it books
+    Customer newCustomer(AppointmentBookingRequest bookingRequest) {
+        Customer newCustomer = new Customer();
+        newCustomer.setName(bookingRequest.getCustomerName());
+        newCustomer.setAddress(bookingRequest.getCustomerAddress());
+        newCustomer.setPhoneNo(bookingRequest.getCustomerPhoneNo());
 
-            if (isPhoneNumber(bookingRequest.getCustomerIdentifier())) {
-                if (customerRepository.existsByPhoneNo(bookingRequest.getCustomerIdentifier())) {
-                    throw new IllegalArgumentException("Phone number already exists.");
-                }
-                newCustomer.setPhoneNo(bookingRequest.getCustomerIdentifier());
-            } else {
-                if (customerRepository.existsByNicNo(bookingRequest.getCustomerIdentifier())) {
-                    throw new IllegalArgumentException("NIC number already exists.");
-                }
-                newCustomer.setNicNo(bookingRequest.getCustomerIdentifier());
+        if (isPhoneNumber(bookingRequest.getCustomerIdentifier())) {
+            if (customerRepository.existsByPhoneNo(bookingRequest.getCustomerIdentifier())) {
+                throw new IllegalArgumentException("Phone number already exists.");
+            }
+            newCustomer.setPhoneNo(bookingRequest.getCustomerIdentifier());
+        } else {
+            if (customerRepository.existsByNicNo(bookingRequest.getCustomerIdentifier())) {
+                throw new IllegalArgumentException("NIC number already exists.");
             }
-            return customerRepository.save(newCustomer);
+            newCustomer.setNicNo(bookingRequest.getCustomerIdentifier());
         }
+        return newCustomer;
     }
 
 
-    private Vehicle findOrCreateVehicle(AppointmentBookingRequest bookingRequest, Customer customer) {
+    Vehicle findOrCreateVehicle(AppointmentBookingRequest bookingRequest, Customer customer) {
         Vehicle vehicleOpt = vehicleRepository.findByVehicleId(bookingRequest.getVehicleIdentifier());
         if (vehicleOpt==null) {
             vehicleOpt = vehicleRepository.findByChassisNo(bookingRequest.getVehicleIdentifier());
@@ -291,33 +333,38 @@ public class AppointmentService {
         if (vehicleOpt!=null) {
             return vehicleOpt;
         } else {
-            if (bookingRequest.getMake() == null || bookingRequest.getModel() == null || bookingRequest.getYear() == null) {
-                throw new IllegalArgumentException("Vehicle not found, and required details (make, model, year) missing for creation.");
-            }
+            return vehicleRepository.save(newVehicle(bookingRequest, customer));
+        }
+    }
 
-            if (vehicleRepository.existsByVehicleId(bookingRequest.getVehicleIdentifier())) {
-                throw new IllegalArgumentException("Vehicle ID already exists.");
-            }
-            String chassisNo = bookingRequest.getVehicleIdentifier();
-            String vehicleId = bookingRequest.getVehicleIdentifier();
-            if (isChassisNumber(bookingRequest.getVehicleIdentifier())) {
-                vehicleId = "TEMP_" + System.currentTimeMillis();
-            }
+    // Checked but not saved, so a batch only keeps the vehicles of the items it books
+    Vehicle newVehicle(AppointmentBookingRequest bookingRequest, Customer customer) {
+        if (bookingRequest.getMake() == null || bookingRequest.getModel() == null || bookingRequest.getYear() == null) {
+            throw new IllegalArgumentException("Vehicle not found, and required details (make, model, year) missing for creation.");
+        }
 
+        if (vehicleRepository.existsByVehicleId(bookingRequest.getVehicleIdentifier())) {
+            throw new IllegalArgumentException("Vehicle ID already exists.");
+        }
+        String chassisNo = bookingRequest.getVehicleIdentifier();
+        String vehicleId = bookingRequest.getVehicleIdentifier();
+        if (isChassisNumber(bookingRequest.getVehicleIdentifier())) {
+            // Random rather than time-based, since one batch creates several of these in the same millisecond
+            vehicleId = "TEMP_" + UUID.randomUUID();
+        }
 
-            Vehicle newVehicle = new Vehicle();
-            newVehicle.setOwner(customer);
-            newVehicle.setYear(bookingRequest.getYear());
-            newVehicle.setVehicleId(vehicleId);
-            newVehicle.setChassisNo(chassisNo);
 
+        Vehicle newVehicle = new Vehicle();
+        newVehicle.setOwner(customer);
+        newVehicle.setYear(bookingRequest.getYear());
+        newVehicle.setVehicleId(vehicleId);
+        newVehicle.setChassisNo(chassisNo);
 
-            VehicleMake make = vehicleMakeRepository.findByName(bookingRequest.getMake());
-            VehicleModel model = vehicleModelRepository.findByNameAndVehicleMake(bookingRequest.getModel(), make);
-            newVehicle.setModel(model);
 
-            return vehicleRepository.save(newVehicle);
-        }
+        VehicleMake make = vehicleMakeRepository.findByName(bookingRequest.getMake());
+        VehicleModel model = vehicleModelRepository.findByNameAndVehicleMake(bookingRequest.getModel(), make);
+        newVehicle.setModel(model);
+        return newVehicle;
     }
 
 
@@ -333,55 +380,198 @@ public class AppointmentService {
         // 3. Calculate Required Duration based on selected services
         int requiredDuration = calculateTotalDuration(vehicle.getModel(), bookingRequest.getSelectedServiceDescriptions());
 
-        // 4. Validate Time Slot and Duration
         LocalTime startTime = bookingRequest.getStartTime();
         LocalTime endTime = startTime.plusMinutes(requiredDuration);
-        validateAppointmentTime(bookingRequest.getDate(), startTime, endTime);
 
-        // 5. Process Advance Payment (Simulated)
-        String paymentTransactionId = "SIM_PAY_" + System.currentTimeMillis(); // Simulated ID
+        // 4-6 run in one transaction holding the date's ledger row lock, so no instance in the cluster
+        // can pass the overlap check for the same date until this insert has committed
+        Appointment booked = bookingLocks.withLock(bookingRequest.getDate(), () -> transactionTemplate.execute(status -> {
+            BookingDayLedger ledger = lockBookingDay(bookingRequest.getDate());
+
+            // 4. Validate Time Slot and Duration (the customer's own hold does not count against them)
+            String holdId = ownHold(bookingRequest.getDate(), startTime, endTime, bookingRequest.getHoldId());
+            validateAppointmentTime(bookingRequest.getDate(), startTime, endTime, holdId);
+
+            // 5. Process Advance Payment (Simulated)
+            String paymentTransactionId = "SIM_PAY_" + System.currentTimeMillis(); // Simulated ID
+
+            // 6. Create and Save Appointment
+            Appointment appointment = new Appointment();
+            appointment.setDate(bookingRequest.getDate());
+            appointment.setStartTime(startTime);
+            appointment.setEndTime(endTime);
+            appointment.setVehicle(vehicle);
+            appointment.setAdvanceFeePaid(bookingRequest.getAdvanceFee());
+            appointment.setPaymentTransactionId(paymentTransactionId);
+            appointment.setStatus(AppointmentStatus.UPCOMING);
+
+            ledger.setAppointmentCount(ledger.getAppointmentCount() + 1);
+            Appointment saved = appointmentRepository.save(appointment);
+            if (holdId != null) {
+                slotHolds.release(holdId);
+            }
+            return saved;
+        }));
+        monthAvailabilityCache.invalidate(bookingRequest.getDate());
+        slotChanges.slotTaken(booked.getDate(), booked.getStartTime(), booked.getEndTime());
+        return booked;
+
+    }
+
+    public Appointment cancelAppointment(Long appointmentId, String username) {
+        Appointment appointment = appointmentRepository.findById(appointmentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with id: " + appointmentId));
+        LocalDate date = appointment.getDate();
+
+        Appointment cancelled = bookingLocks.withLock(date, () -> transactionTemplate.execute(status -> {
+            BookingDayLedger ledger = lockBookingDay(date);
+            // Re-read under the ledger lock so a concurrent cancel is seen
+            Appointment current = appointmentRepository.findById(appointmentId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with id: " + appointmentId));
+            // Someone else's appointment looks the same as a missing one, so ids can't be probed
+            if (!isOwnedBy(current, username)) {
+                throw new ResourceNotFoundException("Appointment not found with id: " + appointmentId);
+            }
+            if (current.getStatus() != AppointmentStatus.UPCOMING) {
+                throw new IllegalArgumentException("Only upcoming appointments can be cancelled.");
+            }
+            current.setStatus(AppointmentStatus.CANCELLED);
+            ledger.setAppointmentCount(Math.max(0, ledger.getAppointmentCount() - 1));
+            return appointmentRepository.save(current);
+        }));
+        monthAvailabilityCache.invalidate(date);
+        publishFreed(date, cancelled.getStartTime(), cancelled.getEndTime());
+        return cancelled;
+    }
+
+    private boolean isOwnedBy(Appointment appointment, String username) {
+        Vehicle vehicle = appointment.getVehicle();
+        return username != null && vehicle != null && vehicle.getOwner() != null
+                && username.equals(vehicle.getOwner().getNicNo());
+    }
 
-        // 6. Create and Save Appointment
-        Appointment appointment = new Appointment();
-        appointment.setDate(bookingRequest.getDate());
-        appointment.setStartTime(startTime);
-        appointment.setEndTime(endTime);
-        appointment.setVehicle(vehicle);
-        appointment.setAdvanceFeePaid(bookingRequest.getAdvanceFee());
-        appointment.setPaymentTransactionId(paymentTransactionId);
-        appointment.setStatus(AppointmentStatus.UPCOMING);
+    public SlotHold holdSlot(SlotHoldRequest holdRequest) {
+        VehicleMake make = vehicleMakeRepository.findByName(holdRequest.getMake());
+        VehicleModel model = vehicleModelRepository.findByNameAndVehicleMake(holdRequest.getModel(), make);
+        if (model == null) {
+            throw new IllegalArgumentException("Vehicle make and model not recognised.");
+        }
+        int requiredDuration = calculateTotalDuration(model, holdRequest.getSelectedServiceDescriptions());
+        LocalDate date = holdRequest.getDate();
+        LocalTime startTime = holdRequest.getStartTime();
+        LocalTime endTime = startTime.plusMinutes(requiredDuration);
 
-        return appointmentRepository.save(appointment);
+        // Same lock as booking, so a hold and a booking cannot both claim the slot
+        return bookingLocks.withLock(date, () -> {
+            validateAppointmentTime(date, startTime, endTime, null);
+            return slotHolds.place(date, startTime, endTime, Duration.ofMinutes(holdMinutes));
+        });
+    }
 
+    public void releaseHold(String holdId) {
+        slotHolds.release(holdId);
     }
 
     // --- Helper Methods ---
 
-    private int calculateTotalDuration(VehicleModel model, List<String> serviceDescriptions) {
-        if (serviceDescriptions == null || serviceDescriptions.isEmpty()) {
-            throw new IllegalArgumentException("At least one service must be selected to calculate duration.");
+    private void holidayChanged() {
+        holidayCalendar.reload();
+        monthAvailabilityCache.invalidateAll();
+    }
+
+    private void publishHoliday(Holiday holiday, SlotChangeType type) {
+        LocalTime start = holiday.getStartTime() != null ? holiday.getStartTime() : getWorkingStartTime();
+        LocalTime end = holiday.getEndTime() != null ? holiday.getEndTime() : getWorkingEndTime();
+        if (type == SlotChangeType.TAKEN) {
+            slotChanges.slotTaken(holiday.getDate(), start, end);
+        } else {
+            publishFreed(holiday.getDate(), start, end);
+        }
+    }
+
+    /**
+     * Publishes only the parts of a released interval that no other appointment, holiday or hold
+     * on the date still covers, so watchers are never told a busy slot is free.
+     */
+    private void publishFreed(LocalDate date, LocalTime startTime, LocalTime endTime) {
+        if (!slotChanges.isWatched(date)) {
+            return;
         }
-        int totalDuration = 0;
-        for (String description : serviceDescriptions) {
-            ServiceFee fee = serviceFeeRepository.findByDescriptionAndModel(description, model.getName());
-            totalDuration += fee.getDurationMinutes();
+        List<LocalTime[]> busy = new ArrayList<>();
+        for (Appointment appointment : appointmentRepository.findByDate(date)) {
+            if (appointment.getStatus() != AppointmentStatus.CANCELLED) {
+                busy.add(new LocalTime[] {appointment.getStartTime(), appointment.getEndTime()});
+            }
+        }
+        for (Holiday holiday : holidayCalendar.holidaysOn(date)) {
+            busy.add(new LocalTime[] {
+                    holiday.getStartTime() != null ? holiday.getStartTime() : LocalTime.MIN,
+                    holiday.getEndTime() != null ? holiday.getEndTime() : LocalTime.MAX});
+        }
+        for (SlotHold hold : slotHolds.activeHolds(date)) {
+            busy.add(new LocalTime[] {hold.getStartTime(), hold.getEndTime()});
+        }
+        busy.sort(Comparator.comparing(interval -> interval[0]));
+
+        LocalTime from = startTime;
+        for (LocalTime[] interval : busy) {
+            if (!from.isBefore(endTime)) {
+                break;
+            }
+            if (interval[0].isBefore(endTime) && interval[1].isAfter(from)) {
+                if (interval[0].isAfter(from)) {
+                    slotChanges.slotFreed(date, from, interval[0]);
+                }
+                from = interval[1];
+            }
+        }
+        if (from.isBefore(endTime)) {
+            slotChanges.slotFreed(date, from, endTime);
+        }
+    }
+
+    private static boolean isEmpty(Set<Long> keys) {
+        return keys != null && keys.isEmpty();
+    }
+
+    // A plain read first, so days that already have a row go straight to the row lock; a locking
+    // read of a missing row would take a gap lock that two instances' inserts deadlock on
+    BookingDayLedger lockBookingDay(LocalDate date) {
+        if (!bookingDayLedgerRepository.existsById(date)) {
+            bookingDayLedgerRepository.insertIfAbsent(date);
         }
-        return totalDuration;
+        return bookingDayLedgerRepository.lockByBookingDate(date);
     }
 
+    private int calculateTotalDuration(VehicleModel model, List<String> serviceDescriptions) {
+        return serviceFeeCatalog.totalDuration(model.getName(), serviceDescriptions);
+    }
 
-    private void validateAppointmentTime(LocalDate date, LocalTime startTime, LocalTime endTime) {
+
+    // A hold only stands in for the booking it was placed for; one that has lapsed is simply gone
+    String ownHold(LocalDate date, LocalTime startTime, LocalTime endTime, String holdId) {
+        SlotHold hold = slotHolds.get(holdId);
+        if (hold == null) {
+            return null;
+        }
+        if (!hold.getDate().equals(date) || !hold.getStartTime().equals(startTime) || !hold.getEndTime().equals(endTime)) {
+            throw new AppointmentConflictException("The hold is for a different time slot than the booking.");
+        }
+        return holdId;
+    }
+
+    private void validateAppointmentTime(LocalDate date, LocalTime startTime, LocalTime endTime, String ignoredHoldId) {
         if (startTime.isBefore(getWorkingStartTime()) || endTime.isAfter(getWorkingEndTime())) {
             throw new AppointmentConflictException("Requested time is outside working hours (" + getWorkingStartTime() + " - " + getWorkingEndTime() + ").");
         }
 
-        List<Holiday> holidays = holidayRepository.findAllByDate(date);
-        for (Holiday holiday : holidays) {
-            LocalTime holidayStart = holiday.getStartTime() != null ? holiday.getStartTime() : LocalTime.MIN;
-            LocalTime holidayEnd = holiday.getEndTime() != null ? holiday.getEndTime() : LocalTime.MAX;
-            if (startTime.isBefore(holidayEnd) && endTime.isAfter(holidayStart)) {
-                throw new AppointmentConflictException("The requested time period conflicts with a holiday or time-off.");
-            }
+        // Read from the table, not the calendar snapshot, so a holiday just added on another instance counts
+        if (holidayCalendar.isBlockedInDatabase(date, startTime, endTime)) {
+            throw new AppointmentConflictException("The requested time period conflicts with a holiday or time-off.");
+        }
+
+        if (slotHolds.isHeld(date, startTime, endTime, ignoredHoldId)) {
+            throw new AppointmentConflictException("The requested time slot is being held by another customer.");
         }
 
         if (appointmentRepository.existsOverlappingAppointment(date, startTime, endTime)) {
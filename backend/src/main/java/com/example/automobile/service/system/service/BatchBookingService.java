@@ -0,0 +1,304 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.*;
+import com.example.automobile.service.system.exception.AppointmentConflictException;
+import com.example.automobile.service.system.model.AppointmentBookingRequest;
+import com.example.automobile.service.system.model.AppointmentStatus;
+import com.example.automobile.service.system.model.BatchBookingRequest;
+import com.example.automobile.service.system.model.BatchBookingResult;
+import com.example.automobile.service.system.model.SlotHold;
+import com.example.automobile.service.system.repository.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Books many vehicles in one request. Customers, vehicles, appointments and holidays are loaded
+ * with one set-based query each and fees come from the in-memory catalog. Every item is
+ * placed on an in-memory minute grid per date, and the accepted appointments are written with
+ * a single JDBC batch insert. Customers and vehicles the batch introduces are only saved for
+ * the items that are booked.
+ */
+@Service
+public class BatchBookingService {
+    private static final String INSERT_APPOINTMENT = "INSERT INTO appointment " +
+            "(date, start_time, end_time, vehicle_id, advance_fee_paid, payment_transaction_id, status) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    AppointmentService appointmentService;
+    @Autowired
+    AppointmentRepository appointmentRepository;
+    @Autowired
+    HolidayCalendar holidayCalendar;
+    @Autowired
+    MonthAvailabilityCache monthAvailabilityCache;
+    @Autowired
+    SlotChangeBroadcaster slotChanges;
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    VehicleRepository vehicleRepository;
+    @Autowired
+    ServiceFeeCatalog serviceFeeCatalog;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    public BatchBookingResult bookAppointments(BatchBookingRequest batchRequest) {
+        List<AppointmentBookingRequest> requests = batchRequest.getBookings() != null ? batchRequest.getBookings() : Collections.emptyList();
+        for (AppointmentBookingRequest request : requests) {
+            if (request.getDate() == null || request.getStartTime() == null) {
+                throw new IllegalArgumentException("Every booking needs a date and a start time.");
+            }
+        }
+        Set<LocalDate> dates = requests.stream().map(AppointmentBookingRequest::getDate).collect(Collectors.toCollection(TreeSet::new));
+
+        BatchBookingResult result = appointmentService.bookingLocks.withLocks(dates, () -> transactionTemplate.execute(status -> {
+            // Ledger rows in date order, so two overlapping batches always lock them in the same sequence
+            Map<LocalDate, BookingDayLedger> ledgers = new HashMap<>();
+            for (LocalDate date : dates) {
+                ledgers.put(date, appointmentService.lockBookingDay(date));
+            }
+
+            BatchBookingResult.ItemResult[] items = new BatchBookingResult.ItemResult[requests.size()];
+            Customer[] customers = new Customer[requests.size()];
+            Vehicle[] vehicles = resolveVehicles(requests, customers, items);
+            Map<LocalDate, BitSet> grid = loadDayGrid(dates);
+            // Read under the lock rather than taken from the calendar snapshot, which can lag other instances
+            Map<LocalDate, HolidayCalendar.Day> holidays = holidayCalendar.readDays(dates);
+            Map<LocalDate, List<SlotHold>> holds = new HashMap<>();
+            for (LocalDate date : dates) {
+                holds.put(date, appointmentService.slotHolds.activeHolds(date));
+            }
+
+            String[] holdIds = new String[requests.size()];
+            List<Integer> accepted = new ArrayList<>();
+            for (int i = 0; i < requests.size(); i++) {
+                if (items[i] != null) {
+                    continue;
+                }
+                AppointmentBookingRequest request = requests.get(i);
+                try {
+                    LocalTime endTime = request.getStartTime().plusMinutes(serviceFeeCatalog.totalDuration(vehicles[i].getModel().getName(), request.getSelectedServiceDescriptions()));
+                    holdIds[i] = appointmentService.ownHold(request.getDate(), request.getStartTime(), endTime, request.getHoldId());
+                    place(grid.get(request.getDate()), holidays.get(request.getDate()), holds.get(request.getDate()), holdIds[i],
+                            request.getStartTime(), endTime);
+                    items[i] = new BatchBookingResult.ItemResult(i, null, request.getDate(), request.getStartTime(), endTime, null);
+                    accepted.add(i);
+                } catch (IllegalArgumentException | AppointmentConflictException e) {
+                    items[i] = failed(i, request, e.getMessage());
+                }
+            }
+
+            int failedCount = requests.size() - accepted.size();
+            if (batchRequest.isAllOrNothing() && failedCount > 0) {
+                // Nothing has been written beyond the ledger rows, which are rolled back too
+                status.setRollbackOnly();
+                for (int i : accepted) {
+                    items[i].setError("Not booked: another item in the batch failed.");
+                }
+                return new BatchBookingResult(0, requests.size(), Arrays.asList(items));
+            }
+
+            saveCustomersAndVehicles(requests, customers, vehicles, accepted);
+            insertAppointments(requests, vehicles, items, accepted);
+            for (int i : accepted) {
+                BookingDayLedger ledger = ledgers.get(requests.get(i).getDate());
+                ledger.setAppointmentCount(ledger.getAppointmentCount() + 1);
+                if (holdIds[i] != null) {
+                    appointmentService.slotHolds.release(holdIds[i]);
+                }
+            }
+            return new BatchBookingResult(accepted.size(), failedCount, Arrays.asList(items));
+        }));
+        if (result.getBookedCount() > 0) {
+            monthAvailabilityCache.invalidate(dates);
+            for (BatchBookingResult.ItemResult item : result.getItems()) {
+                if (item.getAppointmentId() != null) {
+                    slotChanges.slotTaken(item.getDate(), item.getStartTime(), item.getEndTime());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Resolves every request's customer and vehicle with two IN queries each. Identifiers not found
+     * get new, unsaved rows checked the way single bookings check them, shared by every item that
+     * names them. Failures are recorded in {@code items}.
+     */
+    private Vehicle[] resolveVehicles(List<AppointmentBookingRequest> requests, Customer[] itemCustomers, BatchBookingResult.ItemResult[] items) {
+        Set<String> identifiers = requests.stream().map(AppointmentBookingRequest::getVehicleIdentifier)
+                .filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<String, Vehicle> byIdentifier = new HashMap<>();
+        if (!identifiers.isEmpty()) {
+            for (Vehicle vehicle : vehicleRepository.findWithModelByChassisNoIn(identifiers)) {
+                byIdentifier.put(vehicle.getChassisNo(), vehicle);
+            }
+            // Registration number wins over chassis number, matching findOrCreateVehicle
+            for (Vehicle vehicle : vehicleRepository.findWithModelByVehicleIdIn(identifiers)) {
+                byIdentifier.put(vehicle.getVehicleId(), vehicle);
+            }
+        }
+
+        Set<String> customerIdentifiers = requests.stream().map(AppointmentBookingRequest::getCustomerIdentifier)
+                .filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<String, Customer> customers = new HashMap<>();
+        if (!customerIdentifiers.isEmpty()) {
+            for (Customer customer : customerRepository.findByPhoneNoIn(customerIdentifiers)) {
+                customers.put(customer.getPhoneNo(), customer);
+            }
+            for (Customer customer : customerRepository.findByNicNoIn(customerIdentifiers)) {
+                customers.put(customer.getNicNo(), customer);
+            }
+        }
+
+        Vehicle[] vehicles = new Vehicle[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            AppointmentBookingRequest request = requests.get(i);
+            try {
+                Customer customer = customers.get(request.getCustomerIdentifier());
+                if (customer == null) {
+                    customer = appointmentService.newCustomer(request);
+                    customers.put(request.getCustomerIdentifier(), customer);
+                }
+                Vehicle vehicle = byIdentifier.get(request.getVehicleIdentifier());
+                if (vehicle == null) {
+                    vehicle = appointmentService.newVehicle(request, customer);
+                    byIdentifier.put(request.getVehicleIdentifier(), vehicle);
+                }
+                if (vehicle.getModel() == null) {
+                    throw new IllegalArgumentException("Vehicle model not recognised.");
+                }
+                itemCustomers[i] = customer;
+                vehicles[i] = vehicle;
+            } catch (IllegalArgumentException e) {
+                items[i] = failed(i, request, e.getMessage());
+            }
+        }
+        return vehicles;
+    }
+
+    /**
+     * Saves the new customers and vehicles of booked items and updates the phone number of the
+     * existing customers who booked, as a single booking does.
+     */
+    private void saveCustomersAndVehicles(List<AppointmentBookingRequest> requests, Customer[] customers,
+                                          Vehicle[] vehicles, List<Integer> accepted) {
+        for (int i : accepted) {
+            if (customers[i].getId() == null) {
+                customerRepository.save(customers[i]);
+            } else {
+                customers[i].setPhoneNo(requests.get(i).getCustomerPhoneNo());
+            }
+            if (vehicles[i].getId() == null) {
+                vehicleRepository.save(vehicles[i]);
+            }
+        }
+    }
+
+    /**
+     * One bit per minute of the day for each date in the batch, set where an existing appointment
+     * already sits.
+     */
+    private Map<LocalDate, BitSet> loadDayGrid(Set<LocalDate> dates) {
+        Map<LocalDate, BitSet> grid = new HashMap<>();
+        for (LocalDate date : dates) {
+            grid.put(date, new BitSet(24 * 60));
+        }
+        for (Appointment appointment : appointmentRepository.findByDateIn(dates)) {
+            if (appointment.getStatus() != AppointmentStatus.CANCELLED) {
+                mark(grid.get(appointment.getDate()), appointment.getStartTime(), appointment.getEndTime());
+            }
+        }
+        return grid;
+    }
+
+    // Holidays and holds are checked apart from the grid: reversed holiday entries cannot be bits, and
+    // only an item's own checked hold may be passed over
+    private void place(BitSet day, HolidayCalendar.Day holidays, List<SlotHold> holds, String ownHoldId,
+                       LocalTime startTime, LocalTime endTime) {
+        if (startTime.isBefore(appointmentService.getWorkingStartTime()) || endTime.isAfter(appointmentService.getWorkingEndTime())) {
+            throw new AppointmentConflictException("Requested time is outside working hours ("
+                    + appointmentService.getWorkingStartTime() + " - " + appointmentService.getWorkingEndTime() + ").");
+        }
+        if (holidays != null && holidays.blocks(startTime, endTime)) {
+            throw new AppointmentConflictException("The requested time period conflicts with a holiday or time-off.");
+        }
+        for (SlotHold hold : holds) {
+            if (!hold.getHoldId().equals(ownHoldId)
+                    && startTime.isBefore(hold.getEndTime()) && endTime.isAfter(hold.getStartTime())) {
+                throw new AppointmentConflictException("The requested time slot is being held by another customer.");
+            }
+        }
+        int from = startTime.toSecondOfDay() / 60;
+        int to = (endTime.toSecondOfDay() + 59) / 60;
+        int taken = day.nextSetBit(from);
+        if (taken >= 0 && taken < to) {
+            throw new AppointmentConflictException("The requested time slot is no longer available.");
+        }
+        day.set(from, to);
+    }
+
+    private static void mark(BitSet day, LocalTime startTime, LocalTime endTime) {
+        // Partly covered minutes count as taken; requested slots always start and end on whole minutes
+        int from = startTime.toSecondOfDay() / 60;
+        int to = (endTime.toSecondOfDay() + 59) / 60;
+        if (from < to) {
+            day.set(from, to);
+        }
+    }
+
+    private void insertAppointments(List<AppointmentBookingRequest> requests, Vehicle[] vehicles,
+                                    BatchBookingResult.ItemResult[] items, List<Integer> accepted) {
+        if (accepted.isEmpty()) {
+            return;
+        }
+        String paymentTransactionId = "SIM_PAY_" + System.currentTimeMillis(); // Simulated ID
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_APPOINTMENT, Statement.RETURN_GENERATED_KEYS)) {
+                for (int i : accepted) {
+                    AppointmentBookingRequest request = requests.get(i);
+                    ps.setObject(1, request.getDate());
+                    ps.setObject(2, items[i].getStartTime());
+                    ps.setObject(3, items[i].getEndTime());
+                    ps.setLong(4, vehicles[i].getId());
+                    if (request.getAdvanceFee() != null) {
+                        ps.setBigDecimal(5, request.getAdvanceFee());
+                    } else {
+                        ps.setNull(5, Types.DECIMAL);
+                    }
+                    ps.setString(6, paymentTransactionId + "_" + i);
+                    ps.setString(7, AppointmentStatus.UPCOMING.name());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (int i : accepted) {
+                        if (keys.next()) {
+                            items[i].setAppointmentId(keys.getLong(1));
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private static BatchBookingResult.ItemResult failed(int index, AppointmentBookingRequest request, String error) {
+        return new BatchBookingResult.ItemResult(index, null, request.getDate(), request.getStartTime(), null, error);
+    }
+}
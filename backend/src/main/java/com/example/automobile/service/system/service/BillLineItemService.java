@@ -0,0 +1,178 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.BillLineItem;
+import com.example.automobile.service.system.model.BillLineItemKind;
+import com.example.automobile.service.system.model.ServiceRevenue;
+import com.example.automobile.service.system.repository.BillLineItemRepository;
+import com.example.automobile.service.system.repository.ServiceRecordRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Service
+public class BillLineItemService {
+    private static final String INSERT_LINE_ITEM = "INSERT INTO bill_line_item " +
+            "(service_record_id, line_no, kind, description, unit_price, quantity, service_fee_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    // Separator calculateAndSaveBill has always written between a line's description and its amount
+    private static final String AMOUNT_SEPARATOR = ": Rs.";
+    private static final String PARTS_DESCRIPTION = "Parts Cost";
+    static final int BACKFILL_CHUNK_SIZE = 500;
+
+    @Autowired
+    BillLineItemRepository billLineItemRepository;
+    @Autowired
+    ServiceRecordRepository serviceRecordRepository;
+    @Autowired
+    ServiceFeeCatalog serviceFeeCatalog;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean backfillRunning = new AtomicBoolean();
+
+    /**
+     * Writes a bill's lines in one JDBC batch, numbered in the order given. Joins the caller's
+     * transaction, so the lines commit or roll back together with the service record.
+     */
+    public void insert(Long serviceRecordId, List<BillLineItem> lines) {
+        List<Object[]> rows = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            rows.add(row(serviceRecordId, i, lines.get(i)));
+        }
+        batchInsert(rows);
+    }
+
+    public List<BillLineItem> lineItems(Long serviceRecordId) {
+        return billLineItemRepository.findByServiceRecordIdOrderByLineNo(serviceRecordId);
+    }
+
+    /**
+     * Revenue per service description for bills dated within {@code [fromDate, toDate]}, highest first.
+     * Custom items are left out unless asked for; parts are never included.
+     * <p>
+     * This is gross revenue, at the prices charged before discounts and tax. Discount lines are not
+     * netted off: bill-wide discounts belong to no single service, and a service discount names its
+     * service only in its free-text description.
+     */
+    public List<ServiceRevenue> revenueByService(LocalDate fromDate, LocalDate toDate, boolean includeCustom) {
+        if (fromDate == null || toDate == null || toDate.isBefore(fromDate)) {
+            throw new IllegalArgumentException("A date range with the end on or after the start is required.");
+        }
+        List<BillLineItemKind> kinds = includeCustom
+                ? List.of(BillLineItemKind.SERVICE, BillLineItemKind.CUSTOM)
+                : List.of(BillLineItemKind.SERVICE);
+        return billLineItemRepository.sumRevenueByDescription(kinds, fromDate.atStartOfDay(), toDate.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Itemizes service records billed before line items existed by parsing their details text.
+     * Records are read in id order, a chunk at a time, and each chunk commits on its own so an
+     * interrupted run can simply be started again. Returns the number of records itemized.
+     */
+    public int backfill() {
+        if (!backfillRunning.compareAndSet(false, true)) {
+            throw new IllegalStateException("A line-item backfill is already running.");
+        }
+        try {
+            int itemized = 0;
+            long afterId = 0;
+            while (true) {
+                long chunkAfterId = afterId;
+                long[] chunk = transactionTemplate.execute(status -> backfillChunk(chunkAfterId));
+                itemized += (int) chunk[1];
+                if (chunk[0] < BACKFILL_CHUNK_SIZE) {
+                    return itemized;
+                }
+                afterId = chunk[2];
+            }
+        } finally {
+            backfillRunning.set(false);
+        }
+    }
+
+    /**
+     * Returns {records read, records itemized, last record id}.
+     */
+    private long[] backfillChunk(long afterId) {
+        List<Object[]> records = serviceRecordRepository.findUnitemizedAfter(afterId, PageRequest.of(0, BACKFILL_CHUNK_SIZE));
+        List<Object[]> rows = new ArrayList<>();
+        int itemized = 0;
+        long lastId = afterId;
+        for (Object[] record : records) {
+            Long recordId = (Long) record[0];
+            lastId = recordId;
+            List<BillLineItem> lines = parse((String) record[1], (String) record[2], (LocalDateTime) record[3]);
+            for (int i = 0; i < lines.size(); i++) {
+                rows.add(row(recordId, i, lines.get(i)));
+            }
+            if (!lines.isEmpty()) {
+                itemized++;
+            }
+        }
+        batchInsert(rows);
+        return new long[]{records.size(), itemized, lastId};
+    }
+
+    /**
+     * Turns the legacy "description: Rs.amount" lines back into line items. Descriptions matching a
+     * fee the model offered when the bill was made are treated as predefined services; lines that do
+     * not parse are skipped. Custom descriptions longer than the column are cut to fit, since bills
+     * made before the limit was checked may have them; the details text keeps the full wording.
+     */
+    List<BillLineItem> parse(String serviceDetails, String modelName, LocalDateTime billedAt) {
+        List<BillLineItem> lines = new ArrayList<>();
+        if (serviceDetails == null) {
+            return lines;
+        }
+        for (String line : serviceDetails.split("\n")) {
+            int separator = line.lastIndexOf(AMOUNT_SEPARATOR);
+            if (separator <= 0) {
+                continue;
+            }
+            String description = line.substring(0, separator).trim();
+            BigDecimal amount;
+            try {
+                amount = new BigDecimal(line.substring(separator + AMOUNT_SEPARATOR.length()).trim());
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            Long feeId = serviceFeeCatalog.feeIdAt(modelName, description, billedAt);
+            if (feeId != null) {
+                lines.add(new BillLineItem(null, null, 0, BillLineItemKind.SERVICE, description, amount, 1, feeId));
+            } else if (PARTS_DESCRIPTION.equals(description)) {
+                lines.add(new BillLineItem(null, null, 0, BillLineItemKind.PARTS, description, amount, 1, null));
+            } else if (!description.isEmpty()) {
+                if (description.length() > BillLineItem.MAX_DESCRIPTION_LENGTH) {
+                    description = description.substring(0, BillLineItem.MAX_DESCRIPTION_LENGTH);
+                }
+                lines.add(new BillLineItem(null, null, 0, BillLineItemKind.CUSTOM, description, amount, 1, null));
+            }
+        }
+        return lines;
+    }
+
+    private void batchInsert(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        int[] types = {Types.BIGINT, Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.DECIMAL, Types.INTEGER, Types.BIGINT};
+        jdbcTemplate.batchUpdate(INSERT_LINE_ITEM, rows, types);
+    }
+
+    private static Object[] row(Long serviceRecordId, int lineNo, BillLineItem line) {
+        return new Object[]{serviceRecordId, lineNo, line.getKind().name(), line.getDescription(),
+                line.getUnitPrice(), line.getQuantity(), line.getServiceFeeId()};
+    }
+}
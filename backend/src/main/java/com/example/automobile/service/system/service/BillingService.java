@@ -5,19 +5,24 @@ import com.example.automobile.service.system.model.BillingRequest;
 import com.example.automobile.service.system.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Objects;
 
 @Service
 public class BillingService {
+    // Fees that predate the fee history are recorded as in force since this instant when first changed
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
     @Autowired
     ServiceFeeRepository serviceFeeRepository;
     @Autowired
+    ServiceFeeVersionRepository serviceFeeVersionRepository;
+    @Autowired
     PartRepository partRepository;
     @Autowired
     VehicleRepository vehicleRepository;
@@ -25,6 +30,24 @@ public class BillingService {
     ServiceRecordRepository serviceRecordRepository;
     @Autowired
     CashierRepository cashierRepository;
+    @Autowired
+    AppointmentRepository appointmentRepository;
+    @Autowired
+    ServiceHistoryIndex serviceHistoryIndex;
+    @Autowired
+    ServiceFeeCatalog serviceFeeCatalog;
+    @Autowired
+    BillLineItemService billLineItemService;
+    @Autowired
+    PricingEngine pricingEngine;
+    @Autowired
+    ReceiptRenderer receiptRenderer;
+    @Autowired
+    PartInventory partInventory;
+    @Autowired
+    RevenueRollupService revenueRollupService;
+    @Autowired
+    PricingRules pricingRules;
 
     public static class ResourceNotFoundException extends RuntimeException {
         public ResourceNotFoundException(String message) {
@@ -35,13 +58,26 @@ public class BillingService {
     public List<ServiceFee> getServiceFees(){
         return serviceFeeRepository.findAll();
     }
+    @Transactional
     public ServiceFee addServiceFee(ServiceFee serviceFee){
-        return serviceFeeRepository.save(serviceFee);
+        ServiceFee saved = serviceFeeRepository.save(serviceFee);
+        recordVersion(saved, LocalDateTime.now(), false);
+        serviceFeeCatalog.reloadAfterCommit();
+        return saved;
     }
+    @Transactional
     public ServiceFee updateServiceFee(Long feeId,ServiceFee serviceFee){
         ServiceFee existingFee = serviceFeeRepository.findById(feeId)
                 .orElseThrow(() -> new ResourceNotFoundException("ServiceFee not found with id: " + feeId));
 
+        // Keep the fee as it was in the history before overwriting it
+        LocalDateTime now = LocalDateTime.now();
+        recordHistoryStart(existingFee);
+        if (!Objects.equals(existingFee.getModel(), serviceFee.getModel())
+                || !Objects.equals(existingFee.getDescription(), serviceFee.getDescription())) {
+            recordVersion(existingFee, now, true);
+        }
+
         // Update the fields
         existingFee.setFee(serviceFee.getFee());
         existingFee.setDescription(serviceFee.getDescription());
@@ -50,110 +86,131 @@ public class BillingService {
         existingFee.setDurationMinutes(serviceFee.getDurationMinutes());
 
         // Save and return the updated entity
-        return serviceFeeRepository.save(existingFee);
+        ServiceFee saved = serviceFeeRepository.save(existingFee);
+        recordVersion(saved, now, false);
+        serviceFeeCatalog.reloadAfterCommit();
+        return saved;
     }
+    @Transactional
     public void deleteServiceFee(Long feeId) {
         ServiceFee existingFee = serviceFeeRepository.findById(feeId)
                 .orElseThrow(() -> new ResourceNotFoundException("ServiceFee not found with id: " + feeId));
 
+        recordHistoryStart(existingFee);
+        recordVersion(existingFee, LocalDateTime.now(), true);
         serviceFeeRepository.delete(existingFee);
+        serviceFeeCatalog.reloadAfterCommit();
+    }
+    public List<ServiceFeeVersion> getServiceFeeHistory(Long feeId) {
+        List<ServiceFeeVersion> versions = serviceFeeVersionRepository.findByServiceFeeIdOrderByEffectiveFromAscIdAsc(feeId);
+        if (versions.isEmpty() && !serviceFeeRepository.existsById(feeId)) {
+            throw new ResourceNotFoundException("ServiceFee not found with id: " + feeId);
+        }
+        return versions;
+    }
+    private void recordHistoryStart(ServiceFee fee) {
+        if (!serviceFeeVersionRepository.existsByServiceFeeId(fee.getId())) {
+            recordVersion(fee, HISTORY_START, false);
+        }
+    }
+    private void recordVersion(ServiceFee fee, LocalDateTime effectiveFrom, boolean withdrawn) {
+        serviceFeeVersionRepository.save(new ServiceFeeVersion(null, fee.getId(), fee.getDescription(), fee.getMake(),
+                fee.getModel(), fee.getFee(), effectiveFrom, withdrawn));
     }
     public List<Part> getPartsPrices(){
         return partRepository.findAll();
     }
+    @Transactional
     public ServiceRecord calculateAndSaveBill(BillingRequest billingRequest) {
 
         Vehicle vehicle = vehicleRepository.findById(billingRequest.getVehicleId())
                 .orElseThrow(() -> new ResourceNotFoundException("Vehicle id"));
 
-        BigDecimal totalCost = BigDecimal.ZERO;
-        StringBuilder detailsBuilder = new StringBuilder();
+        // Admins bill too and have no cashier record, so an unknown name leaves the bill unstamped
+        Cashier cashier = null;
+        if (billingRequest.getProcessedByCashierName() != null && !billingRequest.getProcessedByCashierName().isBlank()) {
+            cashier = cashierRepository.findByName(billingRequest.getProcessedByCashierName().trim());
+        }
+        Appointment appointment = null;
+        if (billingRequest.getAppointmentId() != null) {
+            appointment = appointmentRepository.findById(billingRequest.getAppointmentId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Appointment id"));
+            if (!appointment.getVehicle().getId().equals(vehicle.getId())) {
+                throw new IllegalArgumentException("Appointment " + appointment.getId() + " is for a different vehicle.");
+            }
+            if (serviceRecordRepository.existsByAppointmentId(appointment.getId())) {
+                throw new IllegalArgumentException("Appointment " + appointment.getId() + " has already been billed.");
+            }
+        }
 
-        // 1. Calculate cost from predefined services
-        if (billingRequest.getSelectedServiceDescriptions() != null && !billingRequest.getSelectedServiceDescriptions().isEmpty()) {
-            List<ServiceFee> predefinedFees = serviceFeeRepository.findByModel(vehicle.getModel().getName());
-            Map<String, BigDecimal> feeMap = predefinedFees.stream()
-                    .collect(Collectors.toMap(ServiceFee::getDescription, ServiceFee::getFee));
-
-            for (String desc : billingRequest.getSelectedServiceDescriptions()) {
-                BigDecimal fee = feeMap.get(desc);
-                if (fee != null) {
-                    totalCost = totalCost.add(fee);
-                    detailsBuilder.append(desc).append(": Rs.").append(fee.setScale(2)).append("\n");
+        if (billingRequest.getCustomItems() != null) {
+            for (BillingRequest.CustomServiceItem item : billingRequest.getCustomItems()) {
+                if (item.getDescription() != null && item.getDescription().length() > BillLineItem.MAX_DESCRIPTION_LENGTH) {
+                    throw new IllegalArgumentException("Custom item descriptions must be at most "
+                            + BillLineItem.MAX_DESCRIPTION_LENGTH + " characters.");
                 }
             }
         }
 
-        // 2. Calculate cost from custom items
-        if (billingRequest.getCustomItems() != null && !billingRequest.getCustomItems().isEmpty()) {
+        // Stock is taken now and goes back if anything below fails
+        List<PartInventory.Line> partLines = partInventory.reserve(billingRequest.getParts());
+
+        // 1. Predefined services, 2. custom items, 3. parts, priced in cents at the fees in force when billed
+        LocalDateTime billedAt = LocalDateTime.now();
+        PricingEngine.Calculation bill = pricingEngine.start(serviceFeeCatalog.pricesAt(vehicle.getModel().getName(), billedAt))
+                .services(billingRequest.getSelectedServiceDescriptions());
+        if (billingRequest.getCustomItems() != null) {
             for (BillingRequest.CustomServiceItem item : billingRequest.getCustomItems()) {
-                if (item.getCost() != null && item.getCost().compareTo(BigDecimal.ZERO) > 0 && item.getDescription() != null && !item.getDescription().isBlank()) {
-                    totalCost = totalCost.add(item.getCost());
-                    detailsBuilder.append(item.getDescription()).append(": Rs.").append(item.getCost().setScale(2)).append("\n");
-                }
+                bill.custom(item.getDescription(), item.getCost());
             }
         }
+        for (PartInventory.Line part : partLines) {
+            bill.part(part.getName(), part.getUnitCents(), part.getQuantity());
+        }
+        bill.parts("Parts Cost", billingRequest.getPartsCost());
+        // Discounts and taxes, with loyalty counted from the owner's earlier bills only when a rule asks for it
+        Customer owner = vehicle.getOwner();
+        String make = vehicle.getModel().getMakeName();
+        String model = vehicle.getModel().getName();
+        int priorVisits = owner != null && pricingRules.needsPriorVisits(make, model)
+                ? Math.toIntExact(serviceRecordRepository.countByOwnerId(owner.getId())) : 0;
+        pricingRules.apply(bill, make, model, owner != null ? owner.getId() : PricingRules.ANY_CUSTOMER,
+                priorVisits, billedAt.toLocalDate());
 
-        // 3. Add parts cost
-        if (billingRequest.getPartsCost() != null && billingRequest.getPartsCost().compareTo(BigDecimal.ZERO) > 0) {
-            totalCost = totalCost.add(billingRequest.getPartsCost());
-            detailsBuilder.append("Parts Cost: Rs.").append(billingRequest.getPartsCost().setScale(2)).append("\n");
+        StringBuilder detailsBuilder = new StringBuilder();
+        List<BillLineItem> lineItems = new ArrayList<>(bill.size());
+        for (int i = 0; i < bill.size(); i++) {
+            BigDecimal amount = bill.amount(i);
+            detailsBuilder.append(bill.description(i));
+            if (bill.quantity(i) != 1) {
+                detailsBuilder.append(" x").append(bill.quantity(i));
+            }
+            detailsBuilder.append(": Rs.").append(amount).append("\n");
+            lineItems.add(new BillLineItem(null, null, 0, bill.kind(i), bill.description(i), bill.unitAmount(i), bill.quantity(i), bill.feeId(i)));
         }
 
         // 4. Create and Save Service Record
         ServiceRecord serviceRecord = new ServiceRecord();
         serviceRecord.setVehicle(vehicle);
-        serviceRecord.setServiceDateTime(LocalDateTime.now());
-        serviceRecord.setTotalCost(totalCost.setScale(2));
+        serviceRecord.setServiceDateTime(billedAt);
+        serviceRecord.setTotalCost(bill.total());
         serviceRecord.setServiceDetails(detailsBuilder.toString().trim());
-        return serviceRecordRepository.save(serviceRecord);
+        serviceRecord.setProcessedByCashier(cashier);
+        serviceRecord.setAppointment(appointment);
+        ServiceRecord saved = serviceRecordRepository.save(serviceRecord);
+        // The details text stays as the display and search copy; reports read the line items
+        billLineItemService.insert(saved.getId(), lineItems);
+        partInventory.recordSale(saved.getId(), partLines);
+        revenueRollupService.recordBill(saved.getId(), saved.getServiceDateTime(),
+                vehicle.getModel().getMakeName(), vehicle.getModel().getName(), bill.totalCents());
+        serviceHistoryIndex.recordSaved(saved);
+        receiptRenderer.renderAfterCommit(saved.getId());
+        return saved;
 
 
     }
 
     public String generateReceipt(Long serviceRecordId) {
-        ServiceRecord record = serviceRecordRepository.findById(serviceRecordId)
-                .orElseThrow(() -> new ResourceNotFoundException("ServiceRecord id"));
-
-        Vehicle vehicle = record.getVehicle();
-        Customer customer = vehicle.getOwner();
-
-        // Receipt generation
-        StringBuilder receipt = new StringBuilder();
-        receipt.append("========================================\n");
-        receipt.append("         AutoZen Services Receipt       \n");
-        receipt.append("========================================\n");
-        receipt.append("Service Record ID: ").append(record.getId()).append("\n");
-        receipt.append("Date & Time: ").append(record.getServiceDateTime().format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))).append("\n");
-        receipt.append("----------------------------------------\n");
-        receipt.append("Customer Information:\n");
-        receipt.append("  Name: ").append(customer.getName()).append("\n");
-        receipt.append("  Phone: ").append(customer.getPhoneNo()).append("\n");
-        receipt.append("  NIC: ").append(customer.getNicNo()).append("\n");
-        receipt.append("----------------------------------------\n");
-        receipt.append("Vehicle Information:\n");
-        receipt.append("  ID: ").append(vehicle.getVehicleId()).append("\n");
-        receipt.append("  Make: ").append(vehicle.getModel().getVehicleMake().getName()).append("\n");
-        receipt.append("  Model: ").append(vehicle.getModel().getName()).append("\n");
-        receipt.append("  Year: ").append(vehicle.getYear()).append("\n");
-        receipt.append("  Chassis: ").append(vehicle.getChassisNo()).append("\n");
-        receipt.append("----------------------------------------\n");
-        receipt.append("Services & Parts:\n");
-
-        if (record.getServiceDetails() != null && !record.getServiceDetails().isBlank()) {
-            Stream.of(record.getServiceDetails().split("\n"))
-                    .filter(line -> !line.trim().isEmpty())
-                    .forEach(line -> receipt.append("  ").append(line).append("\n"));
-        } else {
-            receipt.append("  (No itemized details available)\n");
-        }
-        receipt.append("----------------------------------------\n");
-        receipt.append(String.format("Total Amount: Rs.%.2f%n", record.getTotalCost()));
-        receipt.append("========================================\n");
-        receipt.append("          Thank you for choosing        \n");
-        receipt.append("            AutoZen Services!           \n");
-        receipt.append("========================================\n");
-
-        return receipt.toString();
+        return receiptRenderer.text(serviceRecordId);
     }
 }
@@ -0,0 +1,61 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.Customer;
+import com.example.automobile.service.system.entity.Vehicle;
+import com.example.automobile.service.system.model.AppointmentStatus;
+import com.example.automobile.service.system.model.AppointmentSummary;
+import com.example.automobile.service.system.model.CustomerOverview;
+import com.example.automobile.service.system.model.ServiceRecordDTO;
+import com.example.automobile.service.system.model.VehicleDTO;
+import com.example.automobile.service.system.repository.AppointmentRepository;
+import com.example.automobile.service.system.repository.CustomerRepository;
+import com.example.automobile.service.system.repository.ServiceRecordRepository;
+import com.example.automobile.service.system.repository.VehicleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class CustomerOverviewService {
+    static final int RECENT_SERVICE_RECORDS = 10;
+
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    VehicleRepository vehicleRepository;
+    @Autowired
+    AppointmentRepository appointmentRepository;
+    @Autowired
+    ServiceRecordRepository serviceRecordRepository;
+
+    /**
+     * Everything the customer dashboard shows, in four statements however many vehicles the
+     * customer owns: the customer, their vehicles with models, upcoming appointments and the most
+     * recent service records, the last two selected straight into DTOs.
+     */
+    @Transactional(readOnly = true)
+    public CustomerOverview getOverview(String username) {
+        Customer customer = customerRepository.findByNicNo(username);
+        if (customer == null) {
+            throw new IllegalArgumentException("Customer not found for user: " + username);
+        }
+        List<VehicleDTO> vehicles = vehicleRepository.findWithModelByOwner(customer).stream()
+                .map(this::toVehicleDTO)
+                .collect(Collectors.toList());
+        List<AppointmentSummary> upcoming = appointmentRepository.findSummariesByOwnerFrom(
+                customer, AppointmentStatus.UPCOMING, LocalDate.now());
+        List<ServiceRecordDTO> recent = serviceRecordRepository.findRecentByOwner(
+                customer, PageRequest.of(0, RECENT_SERVICE_RECORDS));
+        return new CustomerOverview(customer.getId(), customer.getName(), customer.getPhoneNo(), vehicles, upcoming, recent);
+    }
+
+    private VehicleDTO toVehicleDTO(Vehicle vehicle) {
+        return new VehicleDTO(vehicle.getId(), vehicle.getVehicleId(), vehicle.getModel().getMakeName(),
+                vehicle.getModel().getName(), vehicle.getYear(), vehicle.getChassisNo());
+    }
+}
@@ -8,6 +8,7 @@ import com.example.automobile.service.system.exception.ResourceNotFoundException
 import com.example.automobile.service.system.model.CustomerVehicle;
 import com.example.automobile.service.system.model.CustomerVehicleInput;
 import com.example.automobile.service.system.model.VehicleDTO;
+import com.example.automobile.service.system.model.VehicleSuggestion;
 import com.example.automobile.service.system.repository.CustomerRepository;
 import com.example.automobile.service.system.repository.VehicleMakeRepository;
 import com.example.automobile.service.system.repository.VehicleModelRepository;
@@ -30,6 +31,8 @@ public class CustomerVehicleService {
     VehicleMakeRepository vehicleMakeRepository;
     @Autowired
     VehicleModelRepository vehicleModelRepository;
+    @Autowired
+    VehicleSuggestionIndex vehicleSuggestionIndex;
     public Optional<CustomerVehicle> findCustomerAndVehicle(String vehicleIdentifier) {
         Vehicle vehicle = vehicleRepository.findByVehicleId(vehicleIdentifier);
         if (vehicle == null) {
@@ -163,8 +166,8 @@ public class CustomerVehicleService {
     }
 
 
-    public List<Vehicle> getVehicleSuggestions(String query) {
-        return vehicleRepository.findSuggestions(query);
+    public List<VehicleSuggestion> getVehicleSuggestions(String query, int limit) {
+        return vehicleSuggestionIndex.suggest(query, limit);
     }
 
     private VehicleMake findMake(String makeName) {
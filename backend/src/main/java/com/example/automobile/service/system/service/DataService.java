@@ -5,7 +5,8 @@ import com.example.automobile.service.system.entity.VehicleMake;
 import com.example.automobile.service.system.entity.VehicleModel;
 import com.example.automobile.service.system.entity.VehicleType;
 import com.example.automobile.service.system.model.AppointmentSlot;
-import com.example.automobile.service.system.repository.ServiceFeeRepository;
+import com.example.automobile.service.system.model.DatedAppointmentSlot;
+import com.example.automobile.service.system.model.DayAvailability;
 import com.example.automobile.service.system.repository.VehicleMakeRepository;
 import com.example.automobile.service.system.repository.VehicleModelRepository;
 import com.example.automobile.service.system.repository.VehicleTypeRepository;
@@ -13,6 +14,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.Collections;
 import java.util.List;
 
@@ -25,7 +27,7 @@ public class DataService {
     @Autowired
     VehicleModelRepository vehicleModelRepository;
     @Autowired
-    ServiceFeeRepository serviceFeeRepository;
+    ServiceFeeCatalog serviceFeeCatalog;
     @Autowired
     AppointmentService appointmentService;
 
@@ -80,25 +82,36 @@ public class DataService {
     public List<ServiceFee> getServicesForVehicle(String makeName, String modelName) {
         VehicleMake make = vehicleMakeRepository.findByName(makeName);
         VehicleModel model = vehicleModelRepository.findByNameAndVehicleMake(modelName, make);
-        return serviceFeeRepository.findByModel(model.getName());
+        return serviceFeeCatalog.feesForModel(model.getName());
     }
     public List<AppointmentSlot> getAvailableAppointmentSlots(LocalDate date, List<String> serviceDescriptions, String makeName, String modelName) {
+        if (serviceDescriptions == null || serviceDescriptions.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return appointmentService.getAvailableSlots(date, calculateTotalDuration(serviceDescriptions, makeName, modelName));
+    }
 
-        // Find the vehicle model
-        VehicleMake make = vehicleMakeRepository.findByName(makeName);
-        VehicleModel model = vehicleModelRepository.findByNameAndVehicleMake(modelName, make);
-        // Calculate total duration needed
-        int totalDuration = 0;
-        if (serviceDescriptions != null && !serviceDescriptions.isEmpty()) {
-            for (String desc : serviceDescriptions) {
-                ServiceFee fee = serviceFeeRepository.findByDescriptionAndModel(desc, model.getName());
-                totalDuration += fee.getDurationMinutes();
-            }
-        } else {
+    public List<DatedAppointmentSlot> findNextAvailableSlots(LocalDate fromDate, LocalDate toDate, List<String> serviceDescriptions, String makeName, String modelName, int maxResults) {
+        if (serviceDescriptions == null || serviceDescriptions.isEmpty() || maxResults <= 0) {
+            return Collections.emptyList();
+        }
+        // Duration is resolved once for the whole window rather than once per day
+        int totalDuration = calculateTotalDuration(serviceDescriptions, makeName, modelName);
+        return appointmentService.findAvailableSlotsBetween(fromDate, toDate, totalDuration, maxResults);
+    }
+
+    public List<DayAvailability> getMonthAvailability(YearMonth month, List<String> serviceDescriptions, String makeName, String modelName) {
+        if (serviceDescriptions == null || serviceDescriptions.isEmpty()) {
             return Collections.emptyList();
         }
+        return appointmentService.getMonthAvailability(month, calculateTotalDuration(serviceDescriptions, makeName, modelName));
+    }
 
-        return appointmentService.getAvailableSlots(date, totalDuration);
+    private int calculateTotalDuration(List<String> serviceDescriptions, String makeName, String modelName) {
+        // Find the vehicle model
+        VehicleMake make = vehicleMakeRepository.findByName(makeName);
+        VehicleModel model = vehicleModelRepository.findByNameAndVehicleMake(modelName, make);
+        return serviceFeeCatalog.totalDuration(model.getName(), serviceDescriptions);
     }
 }
 
@@ -0,0 +1,69 @@
+package com.example.automobile.service.system.service;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fixed pool of locks shared out by calendar date. Work for the same date is serialized while
+ * different dates almost always land on different stripes and run in parallel.
+ */
+public class DateStripedLock {
+    private final ReentrantLock[] stripes;
+
+    public DateStripedLock(int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive.");
+        }
+        stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T withLock(LocalDate date, Supplier<T> action) {
+        ReentrantLock lock = lockFor(date);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Holds the stripes of every given date at once. Stripes are always taken in index order so
+     * two multi-date callers cannot deadlock on each other.
+     */
+    public <T> T withLocks(Collection<LocalDate> dates, Supplier<T> action) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (LocalDate date : dates) {
+            indexes.add(stripeIndex(date));
+        }
+        Deque<ReentrantLock> held = new ArrayDeque<>();
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                held.push(stripes[index]);
+            }
+            return action.get();
+        } finally {
+            while (!held.isEmpty()) {
+                held.pop().unlock();
+            }
+        }
+    }
+
+    ReentrantLock lockFor(LocalDate date) {
+        return stripes[stripeIndex(date)];
+    }
+
+    private int stripeIndex(LocalDate date) {
+        // Consecutive days map to consecutive stripes, so a booking window never shares a lock until it wraps
+        return (int) Math.floorMod(date.toEpochDay(), (long) stripes.length);
+    }
+}
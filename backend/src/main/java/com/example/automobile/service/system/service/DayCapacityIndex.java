@@ -0,0 +1,258 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.Appointment;
+import com.example.automobile.service.system.entity.Holiday;
+import com.example.automobile.service.system.model.AppointmentSlot;
+import com.example.automobile.service.system.model.AppointmentStatus;
+import com.example.automobile.service.system.model.SlotHold;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Occupancy bitmap for one working day. Bit {@code i} covers the {@code i}-th unit of time
+ * after the start of the working window and is set when an appointment or holiday touches it.
+ * <p>
+ * The unit is the slot granularity, reduced to the largest divisor that every busy boundary and
+ * the requested duration also fall on, so a run of free bits means exactly "no overlap" and the
+ * slots returned are the same as checking each start time against every interval. Entries that
+ * end no later than they start cannot be bits; as in that check, they only block slots that begin
+ * before their end and finish after their start, and are kept as separate spans.
+ */
+public class DayCapacityIndex {
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+
+    private final LocalTime windowStart;
+    private final int unitMinutes;
+    private final int unitCount;
+    private final int stepUnits;
+    private final int durationUnits;
+    private final long[] free;
+    // {lo, hi} unit pairs, sorted by hi: a slot is blocked when it starts before lo and ends after hi
+    private final int[][] spans;
+
+    private DayCapacityIndex(LocalTime windowStart, int unitMinutes, int unitCount, int stepUnits, int durationUnits, long[] free, int[][] spans) {
+        this.windowStart = windowStart;
+        this.unitMinutes = unitMinutes;
+        this.unitCount = unitCount;
+        this.stepUnits = stepUnits;
+        this.durationUnits = durationUnits;
+        this.free = free;
+        this.spans = spans;
+    }
+
+    public static Builder forWindow(LocalTime windowStart, LocalTime windowEnd) {
+        return new Builder(windowStart, windowEnd);
+    }
+
+    /**
+     * Every start time on the granularity grid whose whole duration is free, in time order.
+     */
+    public List<AppointmentSlot> availableSlots() {
+        List<AppointmentSlot> slots = new ArrayList<>();
+        forEachSlotStart(pos -> {
+            LocalTime start = windowStart.plusMinutes((long) pos * unitMinutes);
+            slots.add(new AppointmentSlot(start, start.plusMinutes((long) durationUnits * unitMinutes)));
+        });
+        return slots;
+    }
+
+    public int countAvailableSlots() {
+        int[] count = new int[1];
+        forEachSlotStart(pos -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Length in minutes of the longest stretch of the working window with nothing booked or blocked.
+     */
+    public int longestFreeMinutes() {
+        int longest = 0;
+        int runStart = 0;
+        // Earliest start allowed by the spans that a stretch ending here would cover
+        int earliestStart = 0;
+        int nextSpan = 0;
+        for (int i = 0; i < unitCount; i++) {
+            if ((free[i >>> 6] & (1L << i)) == 0) {
+                runStart = i + 1;
+                continue;
+            }
+            while (nextSpan < spans.length && spans[nextSpan][1] <= i) {
+                earliestStart = Math.max(earliestStart, spans[nextSpan][0]);
+                nextSpan++;
+            }
+            longest = Math.max(longest, i + 1 - Math.max(runStart, earliestStart));
+        }
+        return longest * unitMinutes;
+    }
+
+    private void forEachSlotStart(IntConsumer action) {
+        if (unitCount == 0) {
+            return;
+        }
+        long[] runs = runsOfLength(free, durationUnits);
+        for (int w = 0; w < runs.length; w++) {
+            long bits = runs[w];
+            while (bits != 0) {
+                int pos = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (pos % stepUnits == 0 && !coversSpan(pos)) {
+                    action.accept(pos);
+                }
+            }
+        }
+    }
+
+    private boolean coversSpan(int pos) {
+        for (int[] span : spans) {
+            if (pos < span[0] && pos + durationUnits > span[1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sets bit {@code i} of the result when bits {@code i .. i+length-1} of {@code bits} are all set,
+     * by repeatedly AND-ing the map with a shifted copy of itself.
+     */
+    private static long[] runsOfLength(long[] bits, int length) {
+        long[] runs = bits.clone();
+        int covered = 1;
+        while (covered * 2 <= length) {
+            and(runs, shiftDown(runs, covered));
+            covered *= 2;
+        }
+        if (covered < length) {
+            and(runs, shiftDown(runs, length - covered));
+        }
+        return runs;
+    }
+
+    private static long[] shiftDown(long[] bits, int distance) {
+        long[] shifted = new long[bits.length];
+        int wordShift = distance >>> 6;
+        int bitShift = distance & 63;
+        for (int w = 0; w + wordShift < bits.length; w++) {
+            long word = bits[w + wordShift] >>> bitShift;
+            if (bitShift != 0 && w + wordShift + 1 < bits.length) {
+                word |= bits[w + wordShift + 1] << (64 - bitShift);
+            }
+            shifted[w] = word;
+        }
+        return shifted;
+    }
+
+    private static void and(long[] target, long[] mask) {
+        for (int w = 0; w < target.length; w++) {
+            target[w] &= mask[w];
+        }
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    public static class Builder {
+        private final LocalTime windowStart;
+        private final int windowMinutes;
+        // Busy intervals as [start, end) minute offsets from the window start, already clipped to the window
+        private final List<int[]> busy = new ArrayList<>();
+        // Zero-length and reversed entries as {lo, hi} minute offsets, see DayCapacityIndex.spans
+        private final List<int[]> spans = new ArrayList<>();
+
+        private Builder(LocalTime windowStart, LocalTime windowEnd) {
+            this.windowStart = windowStart;
+            this.windowMinutes = (int) Math.max(0, (windowEnd.toNanoOfDay() - windowStart.toNanoOfDay()) / NANOS_PER_MINUTE);
+        }
+
+        public Builder busy(LocalTime start, LocalTime end) {
+            long from = start.toNanoOfDay() - windowStart.toNanoOfDay();
+            long to = end.toNanoOfDay() - windowStart.toNanoOfDay();
+            // Round outwards: slot boundaries are whole minutes, so this keeps the overlap test exact
+            int fromMinute = (int) Math.max(0, Math.floorDiv(from, NANOS_PER_MINUTE));
+            int toMinute = (int) Math.min(windowMinutes, -Math.floorDiv(-to, NANOS_PER_MINUTE));
+            if (to <= from) {
+                // Slots start and end on whole minutes, so "starts before the end" means before the
+                // end rounded up, and "ends after the start" means after the start rounded down
+                int lo = (int) Math.min(windowMinutes, -Math.floorDiv(-to, NANOS_PER_MINUTE));
+                int hi = (int) Math.max(0, Math.floorDiv(from, NANOS_PER_MINUTE));
+                if (lo > hi) {
+                    // Both ends inside one minute: blocks exactly the slots that contain that minute
+                    if (hi < windowMinutes) {
+                        busy.add(new int[]{hi, Math.min(lo, windowMinutes)});
+                    }
+                } else if (lo > 0 && hi < windowMinutes) {
+                    spans.add(new int[]{lo, hi});
+                }
+            } else if (fromMinute < toMinute) {
+                busy.add(new int[]{fromMinute, toMinute});
+            }
+            return this;
+        }
+
+        public Builder appointments(Collection<Appointment> appointments) {
+            for (Appointment appointment : appointments) {
+                if (appointment.getStatus() != AppointmentStatus.CANCELLED) {
+                    busy(appointment.getStartTime(), appointment.getEndTime());
+                }
+            }
+            return this;
+        }
+
+        public Builder holidays(Collection<Holiday> holidays) {
+            for (Holiday holiday : holidays) {
+                busy(holiday.getStartTime() != null ? holiday.getStartTime() : LocalTime.MIN,
+                        holiday.getEndTime() != null ? holiday.getEndTime() : LocalTime.MAX);
+            }
+            return this;
+        }
+
+        public Builder holds(Collection<SlotHold> holds) {
+            for (SlotHold hold : holds) {
+                busy(hold.getStartTime(), hold.getEndTime());
+            }
+            return this;
+        }
+
+        public DayCapacityIndex build(int granularityMinutes, int durationMinutes) {
+            if (granularityMinutes <= 0 || durationMinutes <= 0) {
+                throw new IllegalArgumentException("Slot granularity and duration must be positive.");
+            }
+            // The window length is included so the last unit is never cut short
+            int unit = gcd(gcd(granularityMinutes, durationMinutes), windowMinutes);
+            for (int[] interval : busy) {
+                unit = gcd(gcd(unit, interval[0]), interval[1]);
+            }
+            for (int[] span : spans) {
+                unit = gcd(gcd(unit, span[0]), span[1]);
+            }
+            int[][] unitSpans = new int[spans.size()][];
+            for (int i = 0; i < unitSpans.length; i++) {
+                unitSpans[i] = new int[]{spans.get(i)[0] / unit, spans.get(i)[1] / unit};
+            }
+            Arrays.sort(unitSpans, Comparator.comparingInt(span -> span[1]));
+            int unitCount = windowMinutes / unit;
+            long[] free = new long[(unitCount + 63) >>> 6];
+            for (int i = 0; i < unitCount; i++) {
+                free[i >>> 6] |= 1L << i;
+            }
+            for (int[] interval : busy) {
+                for (int i = interval[0] / unit; i < interval[1] / unit && i < unitCount; i++) {
+                    free[i >>> 6] &= ~(1L << i);
+                }
+            }
+            return new DayCapacityIndex(windowStart, unit, unitCount, granularityMinutes / unit, durationMinutes / unit, free, unitSpans);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.Holiday;
+import com.example.automobile.service.system.repository.HolidayRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Read-only view of all holidays and time-off, held in memory so slot searches and booking
+ * validation never query the holiday table.
+ * <p>
+ * Each date keeps its raw entries plus the blocked time merged into disjoint, sorted intervals,
+ * so "is this interval blocked" is one binary search. The whole index is rebuilt from the
+ * database and swapped in one reference write whenever holidays change, and refreshed
+ * periodically to pick up edits made through other instances. Until that refresh, the snapshot can
+ * miss another instance's edit, so booking checks made under the booking lock read the table
+ * instead, through {@link #isBlockedInDatabase} and {@link #readDays}.
+ */
+@Component
+public class HolidayCalendar {
+    private static final long END_OF_DAY = LocalTime.MAX.toNanoOfDay();
+
+    @Autowired
+    HolidayRepository holidayRepository;
+
+    @Value("${holiday.calendar.refresh.seconds:300}")
+    private long refreshSeconds = 300;
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private volatile Snapshot snapshot = new Snapshot(new TreeMap<>(), Long.MAX_VALUE);
+
+    @PostConstruct
+    public void reload() {
+        reloadLock.lock();
+        try {
+            snapshot = build(holidayRepository.findAll(), System.currentTimeMillis());
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    public boolean isHoliday(LocalDate date) {
+        return current().days.containsKey(date);
+    }
+
+    /**
+     * Whether {@code [startTime, endTime)} on the date overlaps any holiday or time-off entry.
+     */
+    public boolean isBlocked(LocalDate date, LocalTime startTime, LocalTime endTime) {
+        Day day = current().days.get(date);
+        return day != null && day.blocks(startTime, endTime);
+    }
+
+    /**
+     * Same as {@link #isBlocked}, but reads the date's entries from the holiday table.
+     */
+    public boolean isBlockedInDatabase(LocalDate date, LocalTime startTime, LocalTime endTime) {
+        return Day.of(holidayRepository.findAllByDate(date)).blocks(startTime, endTime);
+    }
+
+    /**
+     * The entries on each of the dates that has any, read from the holiday table in one query.
+     */
+    Map<LocalDate, Day> readDays(Collection<LocalDate> dates) {
+        Map<LocalDate, Day> days = new HashMap<>();
+        if (dates.isEmpty()) {
+            return days;
+        }
+        Map<LocalDate, List<Holiday>> byDate = new HashMap<>();
+        for (Holiday holiday : holidayRepository.findByDateBetween(Collections.min(dates), Collections.max(dates))) {
+            if (dates.contains(holiday.getDate())) {
+                byDate.computeIfAbsent(holiday.getDate(), d -> new ArrayList<>()).add(holiday);
+            }
+        }
+        byDate.forEach((date, holidays) -> days.put(date, Day.of(holidays)));
+        return days;
+    }
+
+    public List<Holiday> holidaysOn(LocalDate date) {
+        Day day = current().days.get(date);
+        return day != null ? day.holidays : Collections.emptyList();
+    }
+
+    /**
+     * Holiday entries for every date in {@code [fromDate, toDate]} that has any.
+     */
+    public SortedMap<LocalDate, List<Holiday>> holidaysBetween(LocalDate fromDate, LocalDate toDate) {
+        SortedMap<LocalDate, List<Holiday>> result = new TreeMap<>();
+        for (Map.Entry<LocalDate, Day> entry : current().days.subMap(fromDate, true, toDate, true).entrySet()) {
+            result.put(entry.getKey(), entry.getValue().holidays);
+        }
+        return result;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (System.currentTimeMillis() - current.loadedAtMillis > refreshSeconds * 1000 && reloadLock.tryLock()) {
+            try {
+                if (snapshot == current) {
+                    snapshot = build(holidayRepository.findAll(), System.currentTimeMillis());
+                }
+            } finally {
+                reloadLock.unlock();
+            }
+            return snapshot;
+        }
+        return current;
+    }
+
+    private static Snapshot build(List<Holiday> holidays, long loadedAtMillis) {
+        Map<LocalDate, List<Holiday>> byDate = new HashMap<>();
+        for (Holiday holiday : holidays) {
+            if (holiday.getDate() != null) {
+                // Detached copies, so later changes to the managed entities cannot leak into the snapshot
+                byDate.computeIfAbsent(holiday.getDate(), d -> new ArrayList<>())
+                        .add(new Holiday(holiday.getId(), holiday.getStartTime(), holiday.getEndTime(), holiday.getDate()));
+            }
+        }
+        TreeMap<LocalDate, Day> days = new TreeMap<>();
+        for (Map.Entry<LocalDate, List<Holiday>> entry : byDate.entrySet()) {
+            days.put(entry.getKey(), Day.of(entry.getValue()));
+        }
+        return new Snapshot(days, loadedAtMillis);
+    }
+
+    private static class Snapshot {
+        private final NavigableMap<LocalDate, Day> days;
+        private final long loadedAtMillis;
+
+        private Snapshot(TreeMap<LocalDate, Day> days, long loadedAtMillis) {
+            this.days = Collections.unmodifiableNavigableMap(days);
+            this.loadedAtMillis = loadedAtMillis;
+        }
+    }
+
+    static class Day {
+        private final List<Holiday> holidays;
+        private final long[] starts;
+        private final long[] ends;
+        // Entries that end before they start, as {start, end}; they cannot be merged with the rest
+        private final long[][] reversed;
+
+        private Day(List<Holiday> holidays, long[] starts, long[] ends, long[][] reversed) {
+            this.holidays = holidays;
+            this.starts = starts;
+            this.ends = ends;
+            this.reversed = reversed;
+        }
+
+        /**
+         * Whether {@code [startTime, endTime)} overlaps an entry, by the same test the booking checks
+         * have always used: it starts before the entry ends and ends after the entry starts.
+         */
+        boolean blocks(LocalTime startTime, LocalTime endTime) {
+            long start = startTime.toNanoOfDay();
+            long end = endTime.toNanoOfDay();
+            // Last merged interval that starts before the requested end; earlier ones end even sooner
+            int lo = 0;
+            int hi = starts.length - 1;
+            int candidate = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (starts[mid] < end) {
+                    candidate = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            if (candidate >= 0 && ends[candidate] > start) {
+                return true;
+            }
+            // A reversed entry still blocks a time that begins before its end and finishes after its start
+            for (long[] entry : reversed) {
+                if (start < entry[1] && end > entry[0]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        static Day of(List<Holiday> holidays) {
+            long[][] intervals = new long[holidays.size()][];
+            for (int i = 0; i < intervals.length; i++) {
+                Holiday holiday = holidays.get(i);
+                // Missing times mean the whole day, as in the booking checks
+                intervals[i] = new long[]{
+                        holiday.getStartTime() != null ? holiday.getStartTime().toNanoOfDay() : 0,
+                        holiday.getEndTime() != null ? holiday.getEndTime().toNanoOfDay() : END_OF_DAY};
+            }
+            Arrays.sort(intervals, Comparator.comparingLong(interval -> interval[0]));
+
+            long[] starts = new long[intervals.length];
+            long[] ends = new long[intervals.length];
+            List<long[]> reversed = new ArrayList<>();
+            int count = 0;
+            for (long[] interval : intervals) {
+                if (interval[1] < interval[0]) {
+                    reversed.add(interval);
+                    continue;
+                }
+                if (count > 0 && interval[0] <= ends[count - 1]) {
+                    ends[count - 1] = Math.max(ends[count - 1], interval[1]);
+                } else {
+                    starts[count] = interval[0];
+                    ends[count] = interval[1];
+                    count++;
+                }
+            }
+            return new Day(Collections.unmodifiableList(holidays), Arrays.copyOf(starts, count), Arrays.copyOf(ends, count),
+                    reversed.toArray(new long[0][]));
+        }
+    }
+}
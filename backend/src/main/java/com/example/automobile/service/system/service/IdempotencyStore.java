@@ -0,0 +1,140 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.exception.IdempotencyKeyConflictException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the result of requests sent with an Idempotency-Key, so a retried POST gets the
+ * original result instead of running again.
+ * <p>
+ * The first request with a key runs the action; duplicates arriving while it runs wait on the
+ * same future. Only successful results are kept: if the action throws, waiting duplicates get the
+ * same exception and the key is freed for a fresh attempt. Entries expire after a fixed time and
+ * the oldest are dropped once the store is full. Keys are scoped per endpoint and tied to a
+ * fingerprint of the request body, so reusing a key for a different request is rejected.
+ * <p>
+ * Keys live only in this instance's memory. Behind a load balancer, a retry that reaches another
+ * instance, or any retry after a restart, runs the action again. Clients that need the guarantee
+ * across instances must be routed to the same instance (sticky sessions).
+ */
+@Component
+public class IdempotencyStore {
+    static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${idempotency.ttl.minutes:60}")
+    private long ttlMinutes = 60;
+
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries = 10000;
+
+    @Value("${idempotency.wait.seconds:30}")
+    private long waitSeconds = 30;
+
+    // Insertion order doubles as expiry order, since every entry lives for the same time
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    /**
+     * Runs {@code action} once per (scope, key); without a key it simply runs.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String scope, String key, Object request, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters.");
+        }
+        String storeKey = scope + '\n' + key;
+        byte[] fingerprint = fingerprint(request);
+        long now = System.currentTimeMillis();
+
+        Entry entry;
+        boolean first = false;
+        synchronized (entries) {
+            evict(now);
+            entry = entries.get(storeKey);
+            if (entry == null) {
+                entry = new Entry(fingerprint, now + TimeUnit.MINUTES.toMillis(ttlMinutes));
+                entries.put(storeKey, entry);
+                first = true;
+            } else if (!Arrays.equals(entry.fingerprint, fingerprint)) {
+                throw new IdempotencyKeyConflictException("This Idempotency-Key was already used for a different request.");
+            }
+        }
+
+        if (first) {
+            try {
+                T result = action.get();
+                entry.result.complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                synchronized (entries) {
+                    entries.remove(storeKey, entry);
+                }
+                entry.result.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return (T) entry.result.get(waitSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyConflictException("A request with this Idempotency-Key is still being processed.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyConflictException("A request with this Idempotency-Key is still being processed.");
+        }
+    }
+
+    private void evict(long now) {
+        Iterator<Entry> oldest = entries.values().iterator();
+        while (oldest.hasNext()) {
+            Entry entry = oldest.next();
+            if (entry.expiresAtMillis > now && entries.size() < maxEntries) {
+                break;
+            }
+            oldest.remove();
+        }
+    }
+
+    private byte[] fingerprint(Object request) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint the request.", e);
+        }
+    }
+
+    private static class Entry {
+        private final byte[] fingerprint;
+        private final long expiresAtMillis;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private Entry(byte[] fingerprint, long expiresAtMillis) {
+            this.fingerprint = fingerprint;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
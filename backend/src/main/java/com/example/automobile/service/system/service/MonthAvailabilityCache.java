@@ -0,0 +1,93 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.model.DayAvailability;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Month heatmaps keyed by (month, duration). Each month carries a version that bookings and
+ * holiday changes bump; a cached entry is only served while its version is current, and a
+ * result computed while the month changed underneath it is returned but not stored. Entries
+ * also expire after a short time so bookings taken on other instances show up.
+ */
+@Component
+public class MonthAvailabilityCache {
+    private static final int MAX_ENTRIES = 512;
+
+    @Value("${appointment.heatmap.cache.seconds:60}")
+    private long ttlSeconds = 60;
+
+    private final Map<YearMonth, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final Map<YearMonth, Map<Integer, Entry>> entries = new ConcurrentHashMap<>();
+    private final AtomicLong size = new AtomicLong();
+
+    public List<DayAvailability> get(YearMonth month, int durationMinutes, Supplier<List<DayAvailability>> loader) {
+        long version = version(month).get();
+        Map<Integer, Entry> forMonth = entries.get(month);
+        Entry cached = forMonth != null ? forMonth.get(durationMinutes) : null;
+        long now = System.currentTimeMillis();
+        if (cached != null && cached.version == version && now - cached.createdAtMillis < ttlSeconds * 1000) {
+            return cached.days;
+        }
+
+        List<DayAvailability> days = List.copyOf(loader.get());
+        if (version(month).get() == version) {
+            Entry previous = entries.computeIfAbsent(month, m -> new ConcurrentHashMap<>())
+                    .put(durationMinutes, new Entry(version, now, days));
+            if (previous == null && size.incrementAndGet() > MAX_ENTRIES) {
+                // Rare: many distinct durations across many months; start over rather than track recency
+                entries.clear();
+                size.set(0);
+            }
+        }
+        return days;
+    }
+
+    public void invalidate(LocalDate date) {
+        YearMonth month = YearMonth.from(date);
+        version(month).incrementAndGet();
+        Map<Integer, Entry> removed = entries.remove(month);
+        if (removed != null) {
+            size.addAndGet(-removed.size());
+        }
+    }
+
+    public void invalidate(Collection<LocalDate> dates) {
+        for (LocalDate date : dates) {
+            invalidate(date);
+        }
+    }
+
+    public void invalidateAll() {
+        for (AtomicLong version : versions.values()) {
+            version.incrementAndGet();
+        }
+        entries.clear();
+        size.set(0);
+    }
+
+    private AtomicLong version(YearMonth month) {
+        return versions.computeIfAbsent(month, m -> new AtomicLong());
+    }
+
+    private static class Entry {
+        private final long version;
+        private final long createdAtMillis;
+        private final List<DayAvailability> days;
+
+        private Entry(long version, long createdAtMillis, List<DayAvailability> days) {
+            this.version = version;
+            this.createdAtMillis = createdAtMillis;
+            this.days = days;
+        }
+    }
+}
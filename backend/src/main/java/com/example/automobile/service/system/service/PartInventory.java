@@ -0,0 +1,569 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.Part;
+import com.example.automobile.service.system.exception.InsufficientStockException;
+import com.example.automobile.service.system.exception.ResourceNotFoundException;
+import com.example.automobile.service.system.model.BillingRequest;
+import com.example.automobile.service.system.model.PartStock;
+import com.example.automobile.service.system.model.StockMovementReason;
+import com.example.automobile.service.system.repository.PartRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Parts stock, held in memory as one counter per part so billing never waits on a row lock.
+ * <p>
+ * Sales and adjustments take stock with a compare-and-set on the part's counter, so two cashiers
+ * selling the same part only retry against each other in memory, and a sale that would go below
+ * zero is refused. Each change is written as a {@code stock_movement} row in the same transaction
+ * as the bill; a background task folds committed movements in batches.
+ * <p>
+ * A counter only holds stock this instance has leased. {@code part.stock_on_hand} is the pool no
+ * instance holds, and {@code part_stock_lease} records what each instance does. When a counter
+ * runs short, a block is leased from the part row in a short transaction of its own, so the
+ * database never hands the same units to two instances; busy counters are topped up in the
+ * background so bills rarely have to. Folding a sale takes it off its instance's lease. Idle
+ * leases go back to the pool, as does everything left when the instance stops, and the leases of
+ * an instance that dies are returned by the others once it stops renewing them. Near the last
+ * units a sale can be refused while stock sits in another instance's lease, until that lease
+ * goes back.
+ */
+@Component
+public class PartInventory {
+    private static final String INSERT_MOVEMENT = "INSERT INTO stock_movement " +
+            "(part_id, quantity, reason, service_record_id, instance_id, created_at, applied) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String ADD_TO_POOL = "UPDATE part SET stock_on_hand = stock_on_hand + ? WHERE id = ?";
+    private static final String ADD_TO_LEASE = "UPDATE part_stock_lease SET quantity = quantity + ? WHERE instance_id = ? AND part_id = ?";
+    // The pool, every instance's lease, and sales not yet taken off a lease
+    private static final String STOCK_LEVELS = "SELECT p.id, p.stock_on_hand " +
+            "+ COALESCE((SELECT SUM(l.quantity) FROM part_stock_lease l WHERE l.part_id = p.id), 0) " +
+            "+ COALESCE((SELECT SUM(m.quantity) FROM stock_movement m WHERE m.applied = FALSE AND m.part_id = p.id), 0) " +
+            "FROM part p";
+    private static final long NO_PRICE = -1;
+    static final int FLUSH_BATCH_SIZE = 1000;
+
+    @Autowired
+    PartRepository partRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Value("${parts.stock.flush.seconds:5}")
+    private long flushSeconds = 5;
+    @Value("${parts.stock.lease.block:20}")
+    private long leaseBlock = 20;
+    @Value("${parts.stock.lease.idle-seconds:60}")
+    private long leaseIdleSeconds = 60;
+    @Value("${parts.stock.lease.expiry-seconds:120}")
+    private long leaseExpirySeconds = 120;
+
+    // New on every start, so a restarted instance never takes a dead one's leases for its own
+    final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, Stock> stock = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile TransactionTemplate leaseTransaction;
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        load();
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "part-stock-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::maintainQuietly, flushSeconds, flushSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        // Hand back what is left so the other instances can sell it straight away
+        for (Stock entry : stock.values()) {
+            try {
+                returnLease(entry);
+            } catch (RuntimeException e) {
+                // Goes back once the lease expires
+            }
+        }
+    }
+
+    void load() {
+        List<Object[]> migratedPrices = new ArrayList<>();
+        for (Part part : partRepository.findAll()) {
+            Stock entry = new Stock(part);
+            if (part.getPriceCents() == null && entry.priceCents != NO_PRICE) {
+                migratedPrices.add(new Object[]{entry.priceCents, part.getId()});
+            }
+            stock.put(part.getId(), entry);
+        }
+        // Parts saved before prices were stored in cents get their text price converted once
+        if (!migratedPrices.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE part SET price_cents = ? WHERE id = ? AND price_cents IS NULL", migratedPrices);
+        }
+    }
+
+    /**
+     * Stock of every part across all instances, bills still in progress aside.
+     */
+    public List<PartStock> stockLevels() {
+        List<PartStock> levels = new ArrayList<>();
+        jdbcTemplate.query(STOCK_LEVELS, rs -> {
+            Stock entry = entry(rs.getString(1));
+            if (entry != null) {
+                levels.add(entry.toPartStock(rs.getLong(2)));
+            }
+        });
+        levels.sort(Comparator.comparing(PartStock::getPartId));
+        return levels;
+    }
+
+    /**
+     * Takes the parts out of stock for the current transaction, all lines or none. The stock goes
+     * back if the transaction rolls back; on commit the caller must have called {@link #recordSale}.
+     */
+    public List<Line> reserve(List<BillingRequest.PartItem> items) {
+        if (items == null || items.isEmpty()) {
+            return Collections.emptyList();
+        }
+        requireTransaction();
+        List<Line> lines = new ArrayList<>(items.size());
+        try {
+            for (BillingRequest.PartItem item : items) {
+                if (item.getQuantity() <= 0) {
+                    throw new IllegalArgumentException("Quantity of part '" + item.getPartId() + "' must be positive.");
+                }
+                Stock entry = entry(item.getPartId());
+                if (entry == null) {
+                    throw new ResourceNotFoundException("Part", "id", item.getPartId());
+                }
+                if (entry.priceCents == NO_PRICE) {
+                    throw new IllegalArgumentException("Part '" + item.getPartId() + "' has no price.");
+                }
+                take(entry, item.getQuantity());
+                lines.add(new Line(entry, item.getQuantity()));
+            }
+        } catch (RuntimeException e) {
+            giveBack(lines);
+            throw e;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    giveBack(lines);
+                }
+            }
+        });
+        return lines;
+    }
+
+    /**
+     * Writes the movements for reserved lines in one batch, inside the caller's transaction.
+     */
+    public void recordSale(Long serviceRecordId, List<Line> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(lines.size());
+        for (Line line : lines) {
+            rows.add(new Object[]{line.getPartId(), -(long) line.getQuantity(), StockMovementReason.SALE.name(), serviceRecordId, instanceId, now, false});
+        }
+        jdbcTemplate.batchUpdate(INSERT_MOVEMENT, rows,
+                new int[]{Types.VARCHAR, Types.BIGINT, Types.VARCHAR, Types.BIGINT, Types.VARCHAR, Types.TIMESTAMP, Types.BOOLEAN});
+    }
+
+    /**
+     * Records a delivery (positive) or write-off (negative) and returns the new level. Write-offs
+     * are refused when they exceed what is on hand; deliveries go straight into the shared pool.
+     */
+    public PartStock adjust(String partId, long quantity, StockMovementReason reason) {
+        if (quantity == 0) {
+            throw new IllegalArgumentException("Quantity must not be zero.");
+        }
+        if (reason == null || reason == StockMovementReason.SALE) {
+            throw new IllegalArgumentException("Adjustments must be a restock or an adjustment.");
+        }
+        Stock entry = entry(partId);
+        if (entry == null) {
+            throw new ResourceNotFoundException("Part", "id", partId);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            if (quantity > 0) {
+                jdbcTemplate.update(ADD_TO_POOL, quantity, entry.partId);
+                jdbcTemplate.update(INSERT_MOVEMENT, entry.partId, quantity, reason.name(), null, null, now, true);
+                return;
+            }
+            take(entry, -quantity);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int completion) {
+                    if (completion != STATUS_COMMITTED) {
+                        entry.onHand.addAndGet(-quantity);
+                    }
+                }
+            });
+            jdbcTemplate.update(INSERT_MOVEMENT, entry.partId, quantity, reason.name(), null, instanceId, now, false);
+        });
+        List<PartStock> level = new ArrayList<>(1);
+        jdbcTemplate.query(STOCK_LEVELS + " WHERE p.id = ?", rs -> {
+            level.add(entry.toPartStock(rs.getLong(2)));
+        }, entry.partId);
+        return level.get(0);
+    }
+
+    /**
+     * Creates or renames and reprices a part. Stock is left alone; it only changes through movements.
+     */
+    public Part savePart(String partId, Part part) {
+        if (part.getPriceCents() == null || part.getPriceCents() < 0) {
+            throw new IllegalArgumentException("A price in cents of zero or more is required.");
+        }
+        Part saved = transactionTemplate.execute(status -> {
+            Part existing = partRepository.findById(partId);
+            Part target = existing != null ? existing : new Part(partId, null, null);
+            target.setName(part.getName());
+            target.setPriceCents(part.getPriceCents());
+            target.setPrice(PricingEngine.toAmount(part.getPriceCents()).toPlainString());
+            return partRepository.save(target);
+        });
+        Stock entry = stock.computeIfAbsent(partId, id -> new Stock(saved));
+        entry.name = saved.getName();
+        entry.priceCents = saved.getPriceCents();
+        return saved;
+    }
+
+    /**
+     * Folds committed movements into the leases they were sold from, or into {@code part.stock_on_hand}
+     * for the rest, a batch per transaction, and returns how many were folded in. Rows are locked
+     * as they are read, so instances sharing the database never apply the same movement twice.
+     */
+    public int flush() {
+        if (!flushLock.tryLock()) {
+            return 0;
+        }
+        try {
+            int applied = 0;
+            while (true) {
+                Integer batch = transactionTemplate.execute(status -> flushBatch());
+                applied += batch;
+                if (batch < FLUSH_BATCH_SIZE) {
+                    return applied;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private int flushBatch() {
+        List<Object[]> ids = new ArrayList<>();
+        // Sorted, so concurrent flushes lock rows in the same order
+        Map<String, Long> poolDeltas = new TreeMap<>();
+        Map<String, Object[]> leaseDeltas = new TreeMap<>();
+        jdbcTemplate.query("SELECT id, part_id, quantity, instance_id FROM stock_movement WHERE applied = FALSE ORDER BY id LIMIT ? FOR UPDATE",
+                rs -> {
+                    ids.add(new Object[]{rs.getLong(1)});
+                    String partId = rs.getString(2);
+                    long quantity = rs.getLong(3);
+                    String owner = rs.getString(4);
+                    if (owner == null) {
+                        poolDeltas.merge(partId, quantity, Long::sum);
+                    } else {
+                        Object[] delta = leaseDeltas.computeIfAbsent(partId + '\n' + owner, key -> new Object[]{0L, owner, partId});
+                        delta[0] = (Long) delta[0] + quantity;
+                    }
+                }, FLUSH_BATCH_SIZE);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        for (Object[] delta : leaseDeltas.values()) {
+            if (jdbcTemplate.update(ADD_TO_LEASE, delta) == 0) {
+                // The lease was reclaimed and its stock went back to the pool, so the sale comes off there
+                poolDeltas.merge((String) delta[2], (Long) delta[0], Long::sum);
+            }
+        }
+        List<Object[]> updates = new ArrayList<>(poolDeltas.size());
+        for (Map.Entry<String, Long> delta : poolDeltas.entrySet()) {
+            updates.add(new Object[]{delta.getValue(), delta.getKey()});
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD_TO_POOL, updates);
+        }
+        jdbcTemplate.batchUpdate("UPDATE stock_movement SET applied = TRUE WHERE id = ?", ids);
+        return ids.size();
+    }
+
+    /**
+     * One round of the background task: renews this instance's leases, folds in movements, tops up
+     * busy counters and returns idle ones, and reclaims leases other instances stopped renewing.
+     */
+    synchronized void maintain() {
+        renewLeases();
+        flush();
+        balanceLeases();
+        reclaimExpiredLeases();
+    }
+
+    private void maintainQuietly() {
+        try {
+            maintain();
+        } catch (RuntimeException e) {
+            // Movements stay unapplied and leases as they are until the next run
+        }
+    }
+
+    private void renewLeases() {
+        long startedAt = System.currentTimeMillis();
+        jdbcTemplate.update("UPDATE part_stock_lease SET renewed_at = ? WHERE instance_id = ?",
+                Timestamp.valueOf(LocalDateTime.now()), instanceId);
+        Set<String> leased = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT part_id FROM part_stock_lease WHERE instance_id = ?", String.class, instanceId));
+        for (Stock entry : stock.values()) {
+            synchronized (entry) {
+                if (!leased.contains(entry.partId) && entry.leasedAtMillis < startedAt) {
+                    // Reclaimed while this instance was out of touch; the stock is back in the pool already
+                    entry.onHand.set(0);
+                }
+            }
+        }
+    }
+
+    private void balanceLeases() {
+        long idleBefore = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(leaseIdleSeconds);
+        for (Stock entry : stock.values()) {
+            if (entry.lastUsedMillis < idleBefore) {
+                returnLease(entry);
+                continue;
+            }
+            synchronized (entry) {
+                long shortfall = leaseBlock - entry.onHand.get();
+                if (shortfall > leaseBlock / 2) {
+                    try {
+                        lease(entry, shortfall, shortfall);
+                    } catch (InsufficientStockException e) {
+                        // Left for bills to lease only what they need
+                    }
+                }
+            }
+        }
+    }
+
+    private void reclaimExpiredLeases() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusSeconds(leaseExpirySeconds));
+        for (Long leaseId : jdbcTemplate.queryForList("SELECT id FROM part_stock_lease WHERE renewed_at < ?", Long.class, cutoff)) {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Object[]> expired = new ArrayList<>(1);
+                jdbcTemplate.query("SELECT quantity, part_id FROM part_stock_lease WHERE id = ? AND renewed_at < ? FOR UPDATE",
+                        rs -> {
+                            expired.add(new Object[]{rs.getLong(1), rs.getString(2)});
+                        }, leaseId, cutoff);
+                for (Object[] lease : expired) {
+                    jdbcTemplate.update(ADD_TO_POOL, lease);
+                    jdbcTemplate.update("DELETE FROM part_stock_lease WHERE id = ?", leaseId);
+                }
+            });
+        }
+    }
+
+    // Takes from the counter, leasing more when it runs short
+    private void take(Stock entry, long quantity) {
+        while (!entry.tryTake(quantity)) {
+            synchronized (entry) {
+                long shortfall = quantity - entry.onHand.get();
+                if (shortfall > 0) {
+                    lease(entry, shortfall, Math.max(shortfall, leaseBlock));
+                }
+            }
+        }
+    }
+
+    // Moves at least needed and up to wanted units from the pool to this instance's lease, in a
+    // transaction of its own so the part row is only locked while the block is handed over
+    private void lease(Stock entry, long needed, long wanted) {
+        Long leased = leaseTransaction().execute(status -> {
+            Long pool = jdbcTemplate.queryForObject("SELECT stock_on_hand FROM part WHERE id = ? FOR UPDATE", Long.class, entry.partId);
+            long available = pool != null ? pool : 0;
+            if (available < needed) {
+                throw new InsufficientStockException("Only " + Math.max(entry.onHand.get() + available, 0) + " of part '" + entry.partId + "' in stock.");
+            }
+            long amount = Math.min(wanted, available);
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.update(ADD_TO_POOL, -amount, entry.partId);
+            if (jdbcTemplate.update("UPDATE part_stock_lease SET quantity = quantity + ?, renewed_at = ? WHERE instance_id = ? AND part_id = ?",
+                    amount, now, instanceId, entry.partId) == 0) {
+                jdbcTemplate.update("INSERT INTO part_stock_lease (instance_id, part_id, quantity, renewed_at) VALUES (?, ?, ?, ?)",
+                        instanceId, entry.partId, amount, now);
+            }
+            return amount;
+        });
+        entry.leasedAtMillis = System.currentTimeMillis();
+        entry.onHand.addAndGet(leased);
+    }
+
+    // Hands the counter's stock back to the pool; sales still to be folded in stay on the lease
+    private void returnLease(Stock entry) {
+        synchronized (entry) {
+            long amount = entry.onHand.getAndSet(0);
+            if (amount <= 0) {
+                return;
+            }
+            try {
+                leaseTransaction().executeWithoutResult(status -> {
+                    // A lease already reclaimed has had its stock put back in the pool
+                    if (jdbcTemplate.update(ADD_TO_LEASE, -amount, instanceId, entry.partId) == 1) {
+                        jdbcTemplate.update(ADD_TO_POOL, amount, entry.partId);
+                    }
+                });
+            } catch (RuntimeException e) {
+                entry.onHand.addAndGet(amount);
+                throw e;
+            }
+        }
+    }
+
+    private TransactionTemplate leaseTransaction() {
+        TransactionTemplate template = leaseTransaction;
+        if (template == null) {
+            // Never joins the bill's transaction, so the part row lock ends with the lease
+            template = new TransactionTemplate(transactionTemplate.getTransactionManager());
+            template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            leaseTransaction = template;
+        }
+        return template;
+    }
+
+    // Parts added straight to the database after startup are picked up on first use
+    private Stock entry(String partId) {
+        if (partId == null) {
+            return null;
+        }
+        Stock entry = stock.get(partId);
+        if (entry != null) {
+            return entry;
+        }
+        Part part = partRepository.findById(partId);
+        if (part == null) {
+            return null;
+        }
+        return stock.computeIfAbsent(partId, id -> new Stock(part));
+    }
+
+    private void requireTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Parts can only be reserved inside a transaction.");
+        }
+    }
+
+    private static void giveBack(List<Line> lines) {
+        for (Line line : lines) {
+            line.stock.onHand.addAndGet(line.quantity);
+        }
+    }
+
+    private static long priceCents(Part part) {
+        if (part.getPriceCents() != null) {
+            return part.getPriceCents();
+        }
+        if (part.getPrice() == null || part.getPrice().isBlank()) {
+            return NO_PRICE;
+        }
+        try {
+            long cents = PricingEngine.toCents(new BigDecimal(part.getPrice().trim()));
+            return cents >= 0 ? cents : NO_PRICE;
+        } catch (NumberFormatException | ArithmeticException e) {
+            return NO_PRICE;
+        }
+    }
+
+    /**
+     * A reserved part line, priced at the unit price in effect when it was reserved.
+     */
+    public static final class Line {
+        private final Stock stock;
+        private final String name;
+        private final long unitCents;
+        private final int quantity;
+
+        private Line(Stock stock, int quantity) {
+            this.stock = stock;
+            this.name = stock.name != null && !stock.name.isBlank() ? stock.name : stock.partId;
+            this.unitCents = stock.priceCents;
+            this.quantity = quantity;
+        }
+
+        public String getPartId() {
+            return stock.partId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getUnitCents() {
+            return unitCents;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+    }
+
+    private static final class Stock {
+        private final String partId;
+        private volatile String name;
+        private volatile long priceCents;
+        // Leased to this instance and not yet sold
+        private final AtomicLong onHand = new AtomicLong();
+        private volatile long lastUsedMillis;
+        private volatile long leasedAtMillis;
+
+        private Stock(Part part) {
+            this.partId = part.getId();
+            this.name = part.getName();
+            this.priceCents = priceCents(part);
+        }
+
+        private boolean tryTake(long quantity) {
+            lastUsedMillis = System.currentTimeMillis();
+            while (true) {
+                long current = onHand.get();
+                if (current < quantity) {
+                    return false;
+                }
+                if (onHand.compareAndSet(current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+
+        private PartStock toPartStock(long onHand) {
+            return new PartStock(partId, name, priceCents != NO_PRICE ? PricingEngine.toAmount(priceCents) : null, onHand);
+        }
+    }
+}
@@ -1,72 +1,130 @@
 package com.example.automobile.service.system.service;
 
-import com.example.automobile.service.system.entity.ServiceFee;
 import com.example.automobile.service.system.entity.VehicleMake;
 import com.example.automobile.service.system.entity.VehicleModel;
+import com.example.automobile.service.system.model.BatchPreBillRequest;
+import com.example.automobile.service.system.model.BatchPreBillResult;
 import com.example.automobile.service.system.model.PreBillRequest;
 import com.example.automobile.service.system.model.PreBillResponse;
-import com.example.automobile.service.system.repository.ServiceFeeRepository;
 import com.example.automobile.service.system.repository.VehicleMakeRepository;
 import com.example.automobile.service.system.repository.VehicleModelRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.time.LocalDateTime;
+import java.util.*;
 
 @Service
 public class PreBillService {
+    static final int MAX_BATCH_SIZE = 500;
+
     @Autowired
     VehicleMakeRepository vehicleMakeRepository;
     @Autowired
     VehicleModelRepository vehicleModelRepository;
     @Autowired
-    ServiceFeeRepository serviceFeeRepository;
+    ServiceFeeCatalog serviceFeeCatalog;
+    @Autowired
+    PricingEngine pricingEngine;
+    @Autowired
+    PricingRules pricingRules;
     public PreBillResponse calculateEstimate(PreBillRequest requestDTO) {
 
         VehicleMake make = vehicleMakeRepository.findByName(requestDTO.getMake());
         VehicleModel model = vehicleModelRepository.findByNameAndVehicleMake(requestDTO.getModel(), make);
+        LocalDateTime quotedAt = requestDTO.getQuotedAt() != null ? requestDTO.getQuotedAt() : LocalDateTime.now();
+        return estimate(requestDTO, model, serviceFeeCatalog.pricesAt(model.getName(), quotedAt), quotedAt);
+    }
 
-        BigDecimal totalEstimate = BigDecimal.ZERO;
-        List<PreBillResponse.ServiceCostDetail> breakdown = new ArrayList<>();
+    /**
+     * Quotes every request in one pass: all make/model pairs are resolved with a single query and
+     * each model's fee list is read once. Results come back in input order, and a quote that cannot
+     * be priced carries an error instead of failing the batch.
+     */
+    public BatchPreBillResult calculateEstimates(BatchPreBillRequest batchRequest) {
+        List<PreBillRequest> quotes = batchRequest.getQuotes() != null ? batchRequest.getQuotes() : Collections.emptyList();
+        if (quotes.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " quotes can be estimated at once.");
+        }
 
-        // 1. Calculate cost from predefined services
-        if (requestDTO.getSelectedServiceDescriptions() != null && !requestDTO.getSelectedServiceDescriptions().isEmpty()) {
-            List<ServiceFee> predefinedFees = serviceFeeRepository.findByModel(model.getName());
-            Map<String, BigDecimal> feeMap = predefinedFees.stream()
-                    .collect(Collectors.toMap(ServiceFee::getDescription, ServiceFee::getFee));
+        Set<String> makeNames = new HashSet<>();
+        Set<String> modelNames = new HashSet<>();
+        for (PreBillRequest quote : quotes) {
+            if (quote != null && quote.getMake() != null && quote.getModel() != null) {
+                makeNames.add(quote.getMake());
+                modelNames.add(quote.getModel());
+            }
+        }
+        Map<String, Map<String, VehicleModel>> modelsByMake = new HashMap<>();
+        if (!makeNames.isEmpty()) {
+            for (VehicleModel model : vehicleModelRepository.findByMakeNamesAndNames(makeNames, modelNames)) {
+                modelsByMake.computeIfAbsent(model.getVehicleMake().getName(), m -> new HashMap<>()).putIfAbsent(model.getName(), model);
+            }
+        }
 
-            for (String desc : requestDTO.getSelectedServiceDescriptions()) {
-                BigDecimal fee = feeMap.get(desc);
-                if (fee != null) {
-                    totalEstimate = totalEstimate.add(fee);
-                    breakdown.add(new PreBillResponse.ServiceCostDetail(desc, fee.setScale(2)));
+        // Keyed by model and quote time, so quotes for the same model at the same time share one price list
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, ServiceFeeCatalog.PriceList> pricesByModel = new HashMap<>();
+        List<BatchPreBillResult.ItemResult> items = new ArrayList<>(quotes.size());
+        int failedCount = 0;
+        for (int i = 0; i < quotes.size(); i++) {
+            PreBillRequest quote = quotes.get(i);
+            String error = null;
+            VehicleModel model = null;
+            if (quote == null || quote.getMake() == null || quote.getModel() == null) {
+                error = "Every quote needs a make and a model.";
+            } else {
+                model = modelsByMake.getOrDefault(quote.getMake(), Collections.emptyMap()).get(quote.getModel());
+                if (model == null) {
+                    error = "Unknown vehicle model " + quote.getMake() + " " + quote.getModel() + ".";
                 }
             }
+            if (error != null) {
+                items.add(new BatchPreBillResult.ItemResult(i, null, error));
+                failedCount++;
+                continue;
+            }
+            String modelName = model.getName();
+            LocalDateTime quotedAt = quote.getQuotedAt() != null ? quote.getQuotedAt() : now;
+            try {
+                ServiceFeeCatalog.PriceList prices = pricesByModel.computeIfAbsent(modelName + '\n' + quotedAt,
+                        key -> serviceFeeCatalog.pricesAt(modelName, quotedAt));
+                items.add(new BatchPreBillResult.ItemResult(i, estimate(quote, model, prices, quotedAt), null));
+            } catch (ArithmeticException e) {
+                // Amounts with a fraction of a cent are rejected rather than rounded
+                items.add(new BatchPreBillResult.ItemResult(i, null, "Amounts can have at most two decimal places."));
+                failedCount++;
+            } catch (IllegalArgumentException e) {
+                items.add(new BatchPreBillResult.ItemResult(i, null, e.getMessage()));
+                failedCount++;
+            } catch (RuntimeException e) {
+                // Anything else wrong with one quote, such as a null custom item, fails only that quote
+                items.add(new BatchPreBillResult.ItemResult(i, null, "The quote could not be priced."));
+                failedCount++;
+            }
         }
+        return new BatchPreBillResult(quotes.size() - failedCount, failedCount, items);
+    }
 
-        // 2. Calculate cost from custom items
-        if (requestDTO.getCustomItems() != null && !requestDTO.getCustomItems().isEmpty()) {
+    private PreBillResponse estimate(PreBillRequest requestDTO, VehicleModel model, ServiceFeeCatalog.PriceList prices, LocalDateTime quotedAt) {
+        // 1. Predefined services, 2. custom items, 3. estimated parts, priced in cents
+        PricingEngine.Calculation estimate = pricingEngine.start(prices)
+                .services(requestDTO.getSelectedServiceDescriptions());
+        if (requestDTO.getCustomItems() != null) {
             for (PreBillRequest.CustomServiceItemDTO item : requestDTO.getCustomItems()) {
-                if (item.getCost() != null && item.getCost().compareTo(BigDecimal.ZERO) > 0 && item.getDescription() != null && !item.getDescription().isBlank()) {
-                    totalEstimate = totalEstimate.add(item.getCost());
-                    breakdown.add(new PreBillResponse.ServiceCostDetail(item.getDescription(), item.getCost().setScale(2)));
-
-                }
+                estimate.custom(item.getDescription(), item.getCost());
             }
         }
-
-        // 3. Add estimated parts cost
         BigDecimal partsCost = requestDTO.getEstimatedPartsCost() != null ? requestDTO.getEstimatedPartsCost() : BigDecimal.ZERO;
-        if (partsCost.compareTo(BigDecimal.ZERO) > 0) {
-            totalEstimate = totalEstimate.add(partsCost);
-            breakdown.add(new PreBillResponse.ServiceCostDetail("Estimated Parts Cost", partsCost.setScale(2)));
+        estimate.parts("Estimated Parts Cost", partsCost);
+        // The customer is not known for an estimate, so customer and loyalty rules do not apply
+        pricingRules.apply(estimate, requestDTO.getMake(), model.getName(), PricingRules.ANY_CUSTOMER, 0, quotedAt.toLocalDate());
 
+        List<PreBillResponse.ServiceCostDetail> breakdown = new ArrayList<>(estimate.size());
+        for (int i = 0; i < estimate.size(); i++) {
+            breakdown.add(new PreBillResponse.ServiceCostDetail(estimate.description(i), estimate.amount(i)));
         }
-
-        return new PreBillResponse(totalEstimate.setScale(2), breakdown, partsCost.setScale(2));
+        return new PreBillResponse(estimate.total(), breakdown, partsCost.setScale(2));
     }
 }
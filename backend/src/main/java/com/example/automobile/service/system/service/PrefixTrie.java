@@ -0,0 +1,165 @@
+package com.example.automobile.service.system.service;
+
+import java.util.*;
+
+/**
+ * Compressed (radix) trie from string keys to ids. Each edge carries a run of characters, so a
+ * chain of single-child nodes costs one node. Every id stored under a key has a rank, and lower
+ * ranks sort first among keys of the same length.
+ * <p>
+ * Not thread-safe; callers guard it.
+ */
+class PrefixTrie {
+    private final Node root = new Node("");
+
+    void add(String key, long id, int rank) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.child(key.charAt(i));
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.putChild(child);
+                node = child;
+                i = key.length();
+                break;
+            }
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // Split the edge where the new key diverges
+                Node mid = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                mid.putChild(child);
+                node.putChild(mid);
+                child = mid;
+            }
+            node = child;
+            i += common;
+        }
+        if (node.entries == null) {
+            node.entries = new HashMap<>();
+        }
+        node.entries.merge(id, rank, Math::min);
+    }
+
+    void remove(String key, long id) {
+        remove(root, key, 0, id);
+    }
+
+    /**
+     * Up to {@code limit} distinct ids whose keys start with {@code prefix}, shortest key first.
+     */
+    List<Long> search(String prefix, int limit) {
+        Node node = root;
+        int depth = 0;
+        while (depth < prefix.length()) {
+            Node child = node.child(prefix.charAt(depth));
+            if (child == null) {
+                return Collections.emptyList();
+            }
+            int remaining = prefix.length() - depth;
+            if (child.label.length() >= remaining) {
+                // The prefix ends inside (or at the end of) this edge
+                if (!child.label.startsWith(prefix.substring(depth))) {
+                    return Collections.emptyList();
+                }
+            } else if (!prefix.startsWith(child.label, depth)) {
+                return Collections.emptyList();
+            }
+            depth += child.label.length();
+            node = child;
+        }
+
+        // Best-first by key length, so closer completions are found before deep ones
+        Set<Long> results = new LinkedHashSet<>();
+        PriorityQueue<Pending> queue = new PriorityQueue<>(Comparator.comparingInt(p -> p.length));
+        queue.add(new Pending(depth, node));
+        while (!queue.isEmpty() && results.size() < limit) {
+            Pending head = queue.poll();
+            Node current = head.node;
+            if (current.entries != null) {
+                current.entries.entrySet().stream()
+                        .sorted(Map.Entry.<Long, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                        .forEach(e -> {
+                            if (results.size() < limit) {
+                                results.add(e.getKey());
+                            }
+                        });
+            }
+            if (current.children != null) {
+                for (Node child : current.children.values()) {
+                    queue.add(new Pending(head.length + child.label.length(), child));
+                }
+            }
+        }
+        return new ArrayList<>(results);
+    }
+
+    private static void remove(Node node, String key, int i, long id) {
+        if (i == key.length()) {
+            if (node.entries != null) {
+                node.entries.remove(id);
+                if (node.entries.isEmpty()) {
+                    node.entries = null;
+                }
+            }
+            return;
+        }
+        Node child = node.child(key.charAt(i));
+        if (child == null || !key.startsWith(child.label, i)) {
+            return;
+        }
+        remove(child, key, i + child.label.length(), id);
+        if (child.entries == null) {
+            if (child.children == null || child.children.isEmpty()) {
+                node.children.remove(key.charAt(i));
+            } else if (child.children.size() == 1) {
+                // Fold the now-unneeded node into its only child
+                Node only = child.children.values().iterator().next();
+                child.label = child.label + only.label;
+                child.children = only.children;
+                child.entries = only.entries;
+            }
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int n = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < n && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static class Pending {
+        private final int length;
+        private final Node node;
+
+        private Pending(int length, Node node) {
+            this.length = length;
+            this.node = node;
+        }
+    }
+
+    private static class Node {
+        private String label;
+        private Map<Character, Node> children;
+        private Map<Long, Integer> entries;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private Node child(char c) {
+            return children != null ? children.get(c) : null;
+        }
+
+        private void putChild(Node child) {
+            if (children == null) {
+                children = new HashMap<>();
+            }
+            children.put(child.label.charAt(0), child);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.model.BillLineItemKind;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Prices bills and estimates in whole cents held in primitive longs.
+ * <p>
+ * Rounding rule: amounts are never rounded. An amount with a non-zero fraction of a cent is
+ * rejected with an {@link ArithmeticException}, exactly as the {@code setScale(2)} calls it
+ * replaces did, and sums that would overflow a long fail instead of wrapping. BigDecimal is
+ * only used to read request amounts and to hand results back, so totals, line amounts and
+ * their scale match the previous BigDecimal arithmetic.
+ */
+@Component
+public class PricingEngine {
+    static final long NO_FEE = -1;
+
+    @Autowired
+    ServiceFeeCatalog serviceFeeCatalog;
+
+    public Calculation start(String model) {
+        return new Calculation(serviceFeeCatalog.pricesFor(model));
+    }
+
+    public Calculation start(ServiceFeeCatalog.PriceList prices) {
+        return new Calculation(prices);
+    }
+
+    /**
+     * Whole cents of the amount; throws when it carries a fraction of a cent.
+     */
+    public static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * Lines of one bill in the order they were added, with a running total.
+     */
+    public static final class Calculation {
+        private final ServiceFeeCatalog.PriceList prices;
+        private BillLineItemKind[] kinds = new BillLineItemKind[8];
+        private String[] descriptions = new String[8];
+        private long[] amounts = new long[8];
+        private long[] feeIds = new long[8];
+        private int[] quantities = new int[8];
+        private int size;
+        private long totalCents;
+
+        private Calculation(ServiceFeeCatalog.PriceList prices) {
+            this.prices = prices;
+        }
+
+        /**
+         * Adds the predefined fee of every selected service the model offers; unknown ones are skipped.
+         */
+        public Calculation services(List<String> serviceDescriptions) {
+            if (serviceDescriptions == null) {
+                return this;
+            }
+            for (String description : serviceDescriptions) {
+                int index = prices.indexOf(description);
+                if (index < 0) {
+                    continue;
+                }
+                if (!prices.isExact(index)) {
+                    throw new ArithmeticException("Fee for '" + description + "' has a fraction of a cent.");
+                }
+                add(BillLineItemKind.SERVICE, description, prices.cents(index), 1, prices.feeId(index));
+            }
+            return this;
+        }
+
+        /**
+         * Adds a free-form item; items without a description or a positive cost are skipped.
+         */
+        public Calculation custom(String description, BigDecimal cost) {
+            if (cost != null && cost.signum() > 0 && description != null && !description.isBlank()) {
+                add(BillLineItemKind.CUSTOM, description, toCents(cost), 1, NO_FEE);
+            }
+            return this;
+        }
+
+        /**
+         * Adds the parts line when the cost is positive.
+         */
+        public Calculation parts(String description, BigDecimal partsCost) {
+            if (partsCost != null && partsCost.signum() > 0) {
+                add(BillLineItemKind.PARTS, description, toCents(partsCost), 1, NO_FEE);
+            }
+            return this;
+        }
+
+        /**
+         * Adds a stocked part at its unit price; the line amount is unit price times quantity.
+         */
+        public Calculation part(String description, long unitCents, int quantity) {
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("Quantity of '" + description + "' must be positive.");
+            }
+            add(BillLineItemKind.PARTS, description, Math.multiplyExact(unitCents, quantity), quantity, NO_FEE);
+            return this;
+        }
+
+        // Discount (negative) and tax lines from PricingRules
+        void adjustment(BillLineItemKind kind, String description, long cents) {
+            add(kind, description, cents, 1, NO_FEE);
+        }
+
+        private void add(BillLineItemKind kind, String description, long cents, int quantity, long feeId) {
+            if (size == amounts.length) {
+                int capacity = size * 2;
+                kinds = Arrays.copyOf(kinds, capacity);
+                descriptions = Arrays.copyOf(descriptions, capacity);
+                amounts = Arrays.copyOf(amounts, capacity);
+                feeIds = Arrays.copyOf(feeIds, capacity);
+                quantities = Arrays.copyOf(quantities, capacity);
+            }
+            kinds[size] = kind;
+            descriptions[size] = description;
+            amounts[size] = cents;
+            feeIds[size] = feeId;
+            quantities[size] = quantity;
+            size++;
+            totalCents = Math.addExact(totalCents, cents);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public BillLineItemKind kind(int line) {
+            return kinds[line];
+        }
+
+        public String description(int line) {
+            return descriptions[line];
+        }
+
+        public long amountCents(int line) {
+            return amounts[line];
+        }
+
+        public BigDecimal amount(int line) {
+            return toAmount(amounts[line]);
+        }
+
+        public int quantity(int line) {
+            return quantities[line];
+        }
+
+        public BigDecimal unitAmount(int line) {
+            return toAmount(amounts[line] / quantities[line]);
+        }
+
+        /**
+         * Id of the predefined fee the line was priced from, or null for custom and parts lines.
+         */
+        public Long feeId(int line) {
+            return feeIds[line] != NO_FEE ? feeIds[line] : null;
+        }
+
+        public long totalCents() {
+            return totalCents;
+        }
+
+        public BigDecimal total() {
+            return toAmount(totalCents);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.PricingRule;
+import com.example.automobile.service.system.exception.ResourceNotFoundException;
+import com.example.automobile.service.system.repository.PricingRuleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class PricingRuleService {
+    @Autowired
+    PricingRuleRepository pricingRuleRepository;
+    @Autowired
+    PricingRules pricingRules;
+
+    public List<PricingRule> getRules() {
+        return pricingRuleRepository.findAll();
+    }
+
+    public PricingRule addRule(PricingRule rule) {
+        rule.setId(null);
+        PricingRule saved = pricingRuleRepository.save(normalize(rule));
+        pricingRules.reload();
+        return saved;
+    }
+
+    public PricingRule updateRule(Long ruleId, PricingRule rule) {
+        PricingRule existing = pricingRuleRepository.findById(ruleId)
+                .orElseThrow(() -> new ResourceNotFoundException("PricingRule", "id", ruleId));
+        normalize(rule);
+        existing.setName(rule.getName());
+        existing.setKind(rule.getKind());
+        existing.setMake(rule.getMake());
+        existing.setModel(rule.getModel());
+        existing.setServiceDescription(rule.getServiceDescription());
+        existing.setCustomerId(rule.getCustomerId());
+        existing.setMinPriorVisits(rule.getMinPriorVisits());
+        existing.setValidFrom(rule.getValidFrom());
+        existing.setValidTo(rule.getValidTo());
+        existing.setPercent(rule.getPercent());
+        existing.setFixedAmount(rule.getFixedAmount());
+        existing.setActive(rule.isActive());
+        PricingRule saved = pricingRuleRepository.save(existing);
+        pricingRules.reload();
+        return saved;
+    }
+
+    public void deleteRule(Long ruleId) {
+        PricingRule existing = pricingRuleRepository.findById(ruleId)
+                .orElseThrow(() -> new ResourceNotFoundException("PricingRule", "id", ruleId));
+        pricingRuleRepository.delete(existing);
+        pricingRules.reload();
+    }
+
+    // Blank conditions mean "any", the same as leaving them out
+    private static PricingRule normalize(PricingRule rule) {
+        rule.setMake(blankToNull(rule.getMake()));
+        rule.setModel(blankToNull(rule.getModel()));
+        rule.setServiceDescription(blankToNull(rule.getServiceDescription()));
+        PricingRules.validate(rule);
+        return rule;
+    }
+
+    private static String blankToNull(String value) {
+        return value != null && !value.isBlank() ? value.trim() : null;
+    }
+}
@@ -0,0 +1,356 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.PricingRule;
+import com.example.automobile.service.system.model.BillLineItemKind;
+import com.example.automobile.service.system.model.PricingRuleKind;
+import com.example.automobile.service.system.repository.PricingRuleRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Discount and tax rules, compiled into an immutable index so pricing never reads the rule table.
+ * <p>
+ * Rules are grouped by the make and model they name (either may be a wildcard), and discounts for
+ * a single service further by that service's description, so pricing a bill looks at four groups
+ * and only the rules that can apply to its services. Conditions are compiled to plain numbers:
+ * dates to epoch days, percentages to basis points and amounts to cents. The whole index is
+ * rebuilt and swapped in one reference write whenever rules change, and refreshed periodically
+ * to pick up edits made through other instances.
+ * <p>
+ * Each service line gets its best matching service discount, then the bill its best matching bill
+ * discount, and then every matching tax is charged on the discounted total. Percentages round half
+ * up to the cent; discounts never take a line or the bill below zero.
+ */
+@Component
+public class PricingRules {
+    static final long ANY_CUSTOMER = -1;
+    private static final int BASIS_POINTS = 10_000;
+
+    @Autowired
+    PricingRuleRepository pricingRuleRepository;
+
+    @Value("${pricing.rules.refresh.seconds:300}")
+    private long refreshSeconds = 300;
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private volatile Snapshot snapshot = new Snapshot(new HashMap<>(), 0, Long.MAX_VALUE);
+
+    @PostConstruct
+    public void reload() {
+        reloadLock.lock();
+        try {
+            replace(pricingRuleRepository.findAll());
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    void replace(List<PricingRule> rules) {
+        snapshot = build(rules, snapshot.version + 1, System.currentTimeMillis());
+    }
+
+    /**
+     * Increases every time a new index is swapped in.
+     */
+    public long version() {
+        return current().version;
+    }
+
+    /**
+     * Checks a rule the way the index will read it, so a bad rule is refused before it is saved.
+     */
+    public static void validate(PricingRule rule) {
+        Rule.compile(rule);
+    }
+
+    /**
+     * Whether any rule for this make and model depends on the customer's prior visits, so callers
+     * only count visits when the answer can change the bill.
+     */
+    public boolean needsPriorVisits(String make, String model) {
+        for (Group group : current().groupsFor(make, model)) {
+            if (group.needsPriorVisits) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the discount and tax lines that apply to the bill. Pass {@link #ANY_CUSTOMER} and no
+     * prior visits when the customer is not known, as for estimates.
+     */
+    public void apply(PricingEngine.Calculation bill, String make, String model, long customerId, int priorVisits, LocalDate date) {
+        Group[] groups = current().groupsFor(make, model);
+        if (groups.length == 0) {
+            return;
+        }
+        int day = (int) date.toEpochDay();
+
+        int lines = bill.size();
+        for (int i = 0; i < lines; i++) {
+            if (bill.kind(i) != BillLineItemKind.SERVICE) {
+                continue;
+            }
+            long lineCents = bill.amountCents(i);
+            Rule best = null;
+            long bestCents = 0;
+            for (Group group : groups) {
+                Rule[] candidates = group.serviceDiscounts.get(bill.description(i));
+                if (candidates == null) {
+                    continue;
+                }
+                for (Rule rule : candidates) {
+                    if (rule.matches(customerId, priorVisits, day)) {
+                        long cents = rule.discountOn(lineCents);
+                        if (cents > bestCents) {
+                            best = rule;
+                            bestCents = cents;
+                        }
+                    }
+                }
+            }
+            if (best != null) {
+                bill.adjustment(BillLineItemKind.DISCOUNT, best.name + " (" + bill.description(i) + ")", -bestCents);
+            }
+        }
+
+        Rule best = null;
+        long bestCents = 0;
+        long subtotal = bill.totalCents();
+        for (Group group : groups) {
+            for (Rule rule : group.billDiscounts) {
+                if (rule.matches(customerId, priorVisits, day)) {
+                    long cents = rule.discountOn(subtotal);
+                    if (cents > bestCents) {
+                        best = rule;
+                        bestCents = cents;
+                    }
+                }
+            }
+        }
+        if (best != null) {
+            bill.adjustment(BillLineItemKind.DISCOUNT, best.name, -bestCents);
+        }
+
+        long taxable = bill.totalCents();
+        if (taxable <= 0) {
+            return;
+        }
+        for (Group group : groups) {
+            for (Rule rule : group.taxes) {
+                if (rule.matches(customerId, priorVisits, day)) {
+                    bill.adjustment(BillLineItemKind.TAX, rule.name, percentOf(taxable, rule.basisPoints));
+                }
+            }
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (System.currentTimeMillis() - current.loadedAtMillis > refreshSeconds * 1000 && reloadLock.tryLock()) {
+            try {
+                if (snapshot == current) {
+                    snapshot = build(pricingRuleRepository.findAll(), current.version + 1, System.currentTimeMillis());
+                }
+            } finally {
+                reloadLock.unlock();
+            }
+            return snapshot;
+        }
+        return current;
+    }
+
+    // Rules that fail to compile were saved around validate(), straight into the table; they are skipped
+    private static Snapshot build(List<PricingRule> rules, long version, long loadedAtMillis) {
+        List<PricingRule> sorted = new ArrayList<>(rules);
+        sorted.sort(Comparator.comparing(PricingRule::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        Map<String, GroupBuilder> builders = new HashMap<>();
+        for (PricingRule source : sorted) {
+            if (!source.isActive()) {
+                continue;
+            }
+            Rule rule;
+            try {
+                rule = Rule.compile(source);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            GroupBuilder builder = builders.computeIfAbsent(key(source.getMake(), source.getModel()), k -> new GroupBuilder());
+            builder.needsPriorVisits |= rule.minPriorVisits > 0;
+            if (rule.kind == PricingRuleKind.TAX) {
+                builder.taxes.add(rule);
+            } else if (source.getServiceDescription() != null) {
+                builder.serviceDiscounts.computeIfAbsent(source.getServiceDescription(), d -> new ArrayList<>()).add(rule);
+            } else {
+                builder.billDiscounts.add(rule);
+            }
+        }
+        Map<String, Group> groups = new HashMap<>();
+        builders.forEach((key, builder) -> groups.put(key, builder.build()));
+        return new Snapshot(groups, version, loadedAtMillis);
+    }
+
+    private static String key(String make, String model) {
+        return (make != null ? make : "") + '\n' + (model != null ? model : "");
+    }
+
+    // Half up, for the non-negative amounts rules are applied to
+    private static long percentOf(long cents, int basisPoints) {
+        return Math.addExact(Math.multiplyExact(cents, basisPoints), BASIS_POINTS / 2) / BASIS_POINTS;
+    }
+
+    private static class Snapshot {
+        private static final Group[] NONE = new Group[0];
+
+        private final Map<String, Group> groups;
+        private final long version;
+        private final long loadedAtMillis;
+
+        private Snapshot(Map<String, Group> groups, long version, long loadedAtMillis) {
+            this.groups = Collections.unmodifiableMap(groups);
+            this.version = version;
+            this.loadedAtMillis = loadedAtMillis;
+        }
+
+        // The groups for this make and model, each at most once: exact, any model, any make, any vehicle
+        private Group[] groupsFor(String make, String model) {
+            if (groups.isEmpty()) {
+                return NONE;
+            }
+            Group[] found = new Group[4];
+            int count = 0;
+            count = addGroup(found, count, make != null && model != null ? groups.get(key(make, model)) : null);
+            count = addGroup(found, count, make != null ? groups.get(key(make, null)) : null);
+            count = addGroup(found, count, model != null ? groups.get(key(null, model)) : null);
+            count = addGroup(found, count, groups.get(key(null, null)));
+            return count == found.length ? found : Arrays.copyOf(found, count);
+        }
+
+        private static int addGroup(Group[] found, int count, Group group) {
+            if (group == null) {
+                return count;
+            }
+            for (int i = 0; i < count; i++) {
+                if (found[i] == group) {
+                    return count;
+                }
+            }
+            found[count] = group;
+            return count + 1;
+        }
+    }
+
+    private static class Group {
+        private final Map<String, Rule[]> serviceDiscounts;
+        private final Rule[] billDiscounts;
+        private final Rule[] taxes;
+        private final boolean needsPriorVisits;
+
+        private Group(Map<String, Rule[]> serviceDiscounts, Rule[] billDiscounts, Rule[] taxes, boolean needsPriorVisits) {
+            this.serviceDiscounts = serviceDiscounts;
+            this.billDiscounts = billDiscounts;
+            this.taxes = taxes;
+            this.needsPriorVisits = needsPriorVisits;
+        }
+    }
+
+    private static class GroupBuilder {
+        private final Map<String, List<Rule>> serviceDiscounts = new HashMap<>();
+        private final List<Rule> billDiscounts = new ArrayList<>();
+        private final List<Rule> taxes = new ArrayList<>();
+        private boolean needsPriorVisits;
+
+        private Group build() {
+            Map<String, Rule[]> byService = new HashMap<>();
+            serviceDiscounts.forEach((description, rules) -> byService.put(description, rules.toArray(new Rule[0])));
+            return new Group(byService, billDiscounts.toArray(new Rule[0]), taxes.toArray(new Rule[0]), needsPriorVisits);
+        }
+    }
+
+    private static final class Rule {
+        private final String name;
+        private final PricingRuleKind kind;
+        private final long customerId;
+        private final int minPriorVisits;
+        private final int fromDay;
+        private final int toDay;
+        // One of the two is set; the other is -1
+        private final int basisPoints;
+        private final long fixedCents;
+
+        private Rule(String name, PricingRuleKind kind, long customerId, int minPriorVisits, int fromDay, int toDay, int basisPoints, long fixedCents) {
+            this.name = name;
+            this.kind = kind;
+            this.customerId = customerId;
+            this.minPriorVisits = minPriorVisits;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.basisPoints = basisPoints;
+            this.fixedCents = fixedCents;
+        }
+
+        private static Rule compile(PricingRule rule) {
+            if (rule.getName() == null || rule.getName().isBlank()) {
+                throw new IllegalArgumentException("A pricing rule needs a name.");
+            }
+            if (rule.getKind() == null) {
+                throw new IllegalArgumentException("A pricing rule must be a discount or a tax.");
+            }
+            if ((rule.getPercent() == null) == (rule.getFixedAmount() == null)) {
+                throw new IllegalArgumentException("A pricing rule needs either a percentage or a fixed amount.");
+            }
+            if (rule.getKind() == PricingRuleKind.TAX && (rule.getPercent() == null || rule.getServiceDescription() != null)) {
+                throw new IllegalArgumentException("A tax is a percentage of the whole bill.");
+            }
+            if (rule.getValidFrom() != null && rule.getValidTo() != null && rule.getValidTo().isBefore(rule.getValidFrom())) {
+                throw new IllegalArgumentException("A pricing rule cannot end before it starts.");
+            }
+            if (rule.getMinPriorVisits() != null && rule.getMinPriorVisits() < 0) {
+                throw new IllegalArgumentException("Minimum prior visits cannot be negative.");
+            }
+            int basisPoints = -1;
+            long fixedCents = -1;
+            try {
+                if (rule.getPercent() != null) {
+                    basisPoints = rule.getPercent().movePointRight(2).intValueExact();
+                    if (basisPoints <= 0 || basisPoints > BASIS_POINTS) {
+                        throw new IllegalArgumentException("A percentage must be above 0 and at most 100.");
+                    }
+                } else {
+                    fixedCents = PricingEngine.toCents(rule.getFixedAmount());
+                    if (fixedCents <= 0) {
+                        throw new IllegalArgumentException("A fixed discount must be above zero.");
+                    }
+                }
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Percentages and amounts can have at most two decimal places.");
+            }
+            return new Rule(rule.getName().trim(), rule.getKind(),
+                    rule.getCustomerId() != null ? rule.getCustomerId() : ANY_CUSTOMER,
+                    rule.getMinPriorVisits() != null ? rule.getMinPriorVisits() : 0,
+                    rule.getValidFrom() != null ? (int) rule.getValidFrom().toEpochDay() : Integer.MIN_VALUE,
+                    rule.getValidTo() != null ? (int) rule.getValidTo().toEpochDay() : Integer.MAX_VALUE,
+                    basisPoints, fixedCents);
+        }
+
+        private boolean matches(long customer, int priorVisits, int day) {
+            return day >= fromDay && day <= toDay
+                    && (customerId == ANY_CUSTOMER || customerId == customer)
+                    && priorVisits >= minPriorVisits;
+        }
+
+        private long discountOn(long cents) {
+            if (cents <= 0) {
+                return 0;
+            }
+            return basisPoints >= 0 ? percentOf(cents, basisPoints) : Math.min(fixedCents, cents);
+        }
+    }
+}
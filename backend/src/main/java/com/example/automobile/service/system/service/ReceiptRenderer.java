@@ -0,0 +1,320 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.BillLineItem;
+import com.example.automobile.service.system.entity.Customer;
+import com.example.automobile.service.system.entity.ServiceRecord;
+import com.example.automobile.service.system.entity.Vehicle;
+import com.example.automobile.service.system.entity.VehicleModel;
+import com.example.automobile.service.system.model.ReceiptFormat;
+import com.example.automobile.service.system.repository.ServiceRecordRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Renders service-record receipts as plain text, PDF and ESC/POS printer bytes from one compiled
+ * template, and keeps the results in memory so reprints never touch the database.
+ * <p>
+ * A new bill is rendered on a background thread once its transaction commits. Anything not in
+ * the cache, because it was evicted or billed before a restart, is rendered on first request.
+ * The cache is bounded by the total size of the stored output and drops the least recently
+ * printed receipts first. Receipts show the customer and vehicle details as they were when
+ * rendered.
+ */
+@Component
+public class ReceiptRenderer {
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final String[] FIELDS = {"recordId", "dateTime", "customerName", "customerPhone", "customerNic",
+            "vehicleId", "make", "model", "year", "chassisNo", "total"};
+    private static final String TEMPLATE =
+            "========================================\n" +
+            "         AutoZen Services Receipt       \n" +
+            "========================================\n" +
+            "Service Record ID: {recordId}\n" +
+            "Date & Time: {dateTime}\n" +
+            "----------------------------------------\n" +
+            "Customer Information:\n" +
+            "  Name: {customerName}\n" +
+            "  Phone: {customerPhone}\n" +
+            "  NIC: {customerNic}\n" +
+            "----------------------------------------\n" +
+            "Vehicle Information:\n" +
+            "  ID: {vehicleId}\n" +
+            "  Make: {make}\n" +
+            "  Model: {model}\n" +
+            "  Year: {year}\n" +
+            "  Chassis: {chassisNo}\n" +
+            "----------------------------------------\n" +
+            "Services & Parts:\n" +
+            "{items}\n" +
+            "----------------------------------------\n" +
+            "Total Amount: Rs.{total}\n" +
+            "========================================\n" +
+            "          Thank you for choosing        \n" +
+            "            AutoZen Services!           \n" +
+            "========================================\n";
+    private static final ReceiptTemplate RECEIPT = ReceiptTemplate.compile(TEMPLATE, "  (No itemized details available)", FIELDS);
+
+    @Autowired
+    ServiceRecordRepository serviceRecordRepository;
+    @Autowired
+    BillLineItemService billLineItemService;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Value("${receipt.cache.max-bytes:33554432}")
+    private long maxCacheBytes = 32L * 1024 * 1024;
+
+    // Access order, so the eldest entry is the least recently printed
+    private final LinkedHashMap<Long, RenderedReceipt> cache = new LinkedHashMap<>(256, 0.75f, true);
+    private long cachedBytes;
+    private TransactionTemplate readOnlyTransaction;
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        // A full queue drops the job; that receipt is simply rendered when it is first printed
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1000), r -> {
+            Thread thread = new Thread(r, "receipt-render");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues the record for rendering once the current transaction commits.
+     */
+    public void renderAfterCommit(Long serviceRecordId) {
+        Runnable submit = () -> executor.execute(() -> {
+            try {
+                receipt(serviceRecordId);
+            } catch (RuntimeException e) {
+                // Left uncached; the next print renders it again and reports the error to the caller
+            }
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit.run();
+                }
+            });
+        } else {
+            submit.run();
+        }
+    }
+
+    public String text(Long serviceRecordId) {
+        return receipt(serviceRecordId).text;
+    }
+
+    public byte[] bytes(Long serviceRecordId, ReceiptFormat format) {
+        RenderedReceipt receipt = receipt(serviceRecordId);
+        switch (format) {
+            case PDF:
+                return receipt.pdf;
+            case ESC_POS:
+                return receipt.escPos;
+            default:
+                return receipt.text.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private RenderedReceipt receipt(Long serviceRecordId) {
+        synchronized (cache) {
+            RenderedReceipt cached = cache.get(serviceRecordId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        RenderedReceipt rendered = readOnlyTransaction.execute(status -> render(serviceRecordId));
+        synchronized (cache) {
+            RenderedReceipt previous = cache.put(serviceRecordId, rendered);
+            cachedBytes += rendered.size() - (previous != null ? previous.size() : 0);
+            Iterator<RenderedReceipt> eldest = cache.values().iterator();
+            while (cachedBytes > maxCacheBytes && eldest.hasNext()) {
+                cachedBytes -= eldest.next().size();
+                eldest.remove();
+            }
+        }
+        return rendered;
+    }
+
+    private RenderedReceipt render(Long serviceRecordId) {
+        List<ServiceRecord> found = serviceRecordRepository.findWithDetailsByIdIn(List.of(serviceRecordId));
+        if (found.isEmpty()) {
+            throw new BillingService.ResourceNotFoundException("ServiceRecord id");
+        }
+        ServiceRecord record = found.get(0);
+        Vehicle vehicle = record.getVehicle();
+        Customer customer = vehicle.getOwner();
+        VehicleModel model = vehicle.getModel();
+        String make = model.getMakeName() != null ? model.getMakeName() : model.getVehicleMake().getName();
+
+        List<String> items = new ArrayList<>();
+        List<BillLineItem> lineItems = billLineItemService.lineItems(record.getId());
+        if (!lineItems.isEmpty()) {
+            for (BillLineItem line : lineItems) {
+                BigDecimal amount = line.getUnitPrice().multiply(BigDecimal.valueOf(line.getQuantity())).setScale(2);
+                items.add("  " + line.getDescription() + (line.getQuantity() != 1 ? " x" + line.getQuantity() : "") + ": Rs." + amount);
+            }
+        } else if (record.getServiceDetails() != null && !record.getServiceDetails().isBlank()) {
+            // Bills from before line items, not yet backfilled
+            Stream.of(record.getServiceDetails().split("\n"))
+                    .filter(line -> !line.trim().isEmpty())
+                    .forEach(line -> items.add("  " + line));
+        }
+
+        String[] fields = {
+                String.valueOf(record.getId()),
+                record.getServiceDateTime().format(DATE_TIME),
+                String.valueOf(customer.getName()),
+                String.valueOf(customer.getPhoneNo()),
+                String.valueOf(customer.getNicNo()),
+                String.valueOf(vehicle.getVehicleId()),
+                String.valueOf(make),
+                String.valueOf(model.getName()),
+                String.valueOf(vehicle.getYear()),
+                String.valueOf(vehicle.getChassisNo()),
+                record.getTotalCost().setScale(2, RoundingMode.HALF_UP).toPlainString()
+        };
+        List<String> lines = RECEIPT.render(fields, items);
+        return new RenderedReceipt(String.join("\n", lines), pdf(lines), escPos(lines));
+    }
+
+    /**
+     * A single-page PDF sized to the receipt, set in Courier so the text columns line up as printed.
+     */
+    static byte[] pdf(List<String> lines) {
+        int fontSize = 9;
+        int leading = 11;
+        int margin = 18;
+        int longest = 0;
+        for (String line : lines) {
+            longest = Math.max(longest, line.length());
+        }
+        // Courier glyphs are 600/1000 of the font size wide
+        int width = margin * 2 + (longest * fontSize * 6 + 9) / 10;
+        int height = margin * 2 + lines.size() * leading;
+
+        StringBuilder content = new StringBuilder();
+        content.append("BT /F1 ").append(fontSize).append(" Tf ").append(leading).append(" TL ")
+                .append(margin).append(' ').append(height - margin - fontSize).append(" Td\n");
+        for (String line : lines) {
+            content.append('(');
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (c == '(' || c == ')' || c == '\\') {
+                    content.append('\\').append(c);
+                } else {
+                    content.append(c >= 32 && c <= 126 ? c : '?');
+                }
+            }
+            content.append(") Tj T*\n");
+        }
+        content.append("ET\n");
+        byte[] stream = content.toString().getBytes(StandardCharsets.US_ASCII);
+
+        String[] objects = {
+                "<< /Type /Catalog /Pages 2 0 R >>",
+                "<< /Type /Pages /Kids [3 0 R] /Count 1 >>",
+                "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 " + width + " " + height + "] " +
+                        "/Resources << /Font << /F1 4 0 R >> >> /Contents 5 0 R >>",
+                "<< /Type /Font /Subtype /Type1 /BaseFont /Courier >>",
+                null
+        };
+        ByteArrayOutputStream out = new ByteArrayOutputStream(stream.length + 1024);
+        int[] offsets = new int[objects.length];
+        writeAscii(out, "%PDF-1.4\n");
+        for (int i = 0; i < objects.length; i++) {
+            offsets[i] = out.size();
+            writeAscii(out, (i + 1) + " 0 obj\n");
+            if (objects[i] != null) {
+                writeAscii(out, objects[i]);
+            } else {
+                writeAscii(out, "<< /Length " + stream.length + " >>\nstream\n");
+                out.write(stream, 0, stream.length);
+                writeAscii(out, "endstream");
+            }
+            writeAscii(out, "\nendobj\n");
+        }
+        int xref = out.size();
+        writeAscii(out, "xref\n0 " + (objects.length + 1) + "\n0000000000 65535 f \n");
+        for (int offset : offsets) {
+            String digits = Integer.toString(offset);
+            writeAscii(out, "0000000000".substring(digits.length()) + digits + " 00000 n \n");
+        }
+        writeAscii(out, "trailer\n<< /Size " + (objects.length + 1) + " /Root 1 0 R >>\nstartxref\n" + xref + "\n%%EOF\n");
+        return out.toByteArray();
+    }
+
+    /**
+     * ESC/POS commands for a thermal printer: reset, the receipt in the printer's default code page
+     * (characters outside ASCII print as '?'), then feed and a partial cut.
+     */
+    static byte[] escPos(List<String> lines) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(lines.size() * 42 + 8);
+        out.write(0x1B);
+        out.write('@');
+        for (String line : lines) {
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                out.write(c >= 32 && c <= 126 ? c : '?');
+            }
+            out.write('\n');
+        }
+        out.write(0x1B);
+        out.write('d');
+        out.write(3);
+        out.write(0x1D);
+        out.write('V');
+        out.write(66);
+        out.write(0);
+        return out.toByteArray();
+    }
+
+    private static void writeAscii(ByteArrayOutputStream out, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static class RenderedReceipt {
+        private final String text;
+        private final byte[] pdf;
+        private final byte[] escPos;
+
+        private RenderedReceipt(String text, byte[] pdf, byte[] escPos) {
+            this.text = text;
+            this.pdf = pdf;
+            this.escPos = escPos;
+        }
+
+        private long size() {
+            return text.length() * 2L + pdf.length + escPos.length;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.automobile.service.system.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A receipt layout parsed once into literal text and field slots, so rendering is only appends.
+ * <p>
+ * {@code {name}} is replaced by the field of that name; a line holding nothing but
+ * {@code {items}} repeats once per item line, or prints {@code emptyItems} when there are none.
+ */
+class ReceiptTemplate {
+    static final String ITEMS = "items";
+
+    private final Object[][] lines;
+    private final String emptyItems;
+
+    private ReceiptTemplate(Object[][] lines, String emptyItems) {
+        this.lines = lines;
+        this.emptyItems = emptyItems;
+    }
+
+    /**
+     * Fails on any placeholder not in {@code fieldNames}, so a typo is caught at startup.
+     * Field values are later passed in the same order as {@code fieldNames}.
+     */
+    static ReceiptTemplate compile(String template, String emptyItems, String... fieldNames) {
+        List<String> names = Arrays.asList(fieldNames);
+        String[] rawLines = template.split("\n", -1);
+        Object[][] lines = new Object[rawLines.length][];
+        for (int i = 0; i < rawLines.length; i++) {
+            String raw = rawLines[i];
+            if (raw.equals("{" + ITEMS + "}")) {
+                lines[i] = null;
+                continue;
+            }
+            List<Object> parts = new ArrayList<>();
+            int from = 0;
+            while (from < raw.length()) {
+                int open = raw.indexOf('{', from);
+                if (open < 0) {
+                    parts.add(raw.substring(from));
+                    break;
+                }
+                int close = raw.indexOf('}', open);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unclosed placeholder in receipt template line: " + raw);
+                }
+                if (open > from) {
+                    parts.add(raw.substring(from, open));
+                }
+                int field = names.indexOf(raw.substring(open + 1, close));
+                if (field < 0) {
+                    throw new IllegalArgumentException("Unknown receipt field: " + raw.substring(open, close + 1));
+                }
+                parts.add(field);
+                from = close + 1;
+            }
+            lines[i] = parts.toArray();
+        }
+        return new ReceiptTemplate(lines, emptyItems);
+    }
+
+    List<String> render(String[] fields, List<String> items) {
+        List<String> out = new ArrayList<>(lines.length + items.size());
+        StringBuilder line = new StringBuilder(64);
+        for (Object[] parts : lines) {
+            if (parts == null) {
+                if (items.isEmpty()) {
+                    out.add(emptyItems);
+                } else {
+                    out.addAll(items);
+                }
+                continue;
+            }
+            line.setLength(0);
+            for (Object part : parts) {
+                if (part instanceof Integer) {
+                    line.append(fields[(Integer) part]);
+                } else {
+                    line.append((String) part);
+                }
+            }
+            out.add(line.toString());
+        }
+        return out;
+    }
+}
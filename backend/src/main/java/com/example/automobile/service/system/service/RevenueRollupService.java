@@ -0,0 +1,204 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.model.ModelRevenue;
+import com.example.automobile.service.system.model.RevenuePeriod;
+import com.example.automobile.service.system.model.RollupGranularity;
+import com.example.automobile.service.system.repository.RevenueRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Daily and monthly revenue and job counts, in total and per make and model.
+ * <p>
+ * Every bill adds itself to its day and month buckets in the billing transaction, so the rollups
+ * always agree with the committed bills. Reports then read a few rows per period rather than the
+ * bills themselves. {@link #rebuild} recomputes everything from the service records, one month per
+ * task, for use after bills are changed or removed outside billing.
+ */
+@Service
+public class RevenueRollupService {
+    private static final String ALL = "";
+    private static final String UNKNOWN = "Unknown";
+    static final int SLOTS = 8;
+    private static final String UPSERT = "INSERT INTO revenue_rollup " +
+            "(granularity, period_start, make, model, slot, job_count, revenue_cents) VALUES (?, ?, ?, ?, ?, 1, ?) " +
+            "ON DUPLICATE KEY UPDATE job_count = job_count + 1, revenue_cents = revenue_cents + VALUES(revenue_cents)";
+    private static final String REBUILD_DAYS_BY_MODEL = "INSERT INTO revenue_rollup " +
+            "(granularity, period_start, make, model, slot, job_count, revenue_cents) " +
+            "SELECT 'DAY', CAST(sr.service_date_time AS DATE), COALESCE(vm.make_name, '" + UNKNOWN + "'), COALESCE(vm.name, '" + UNKNOWN + "'), " +
+            "0, COUNT(*), SUM(ROUND(sr.total_cost * 100)) " +
+            "FROM service_record sr JOIN vehicle v ON v.id = sr.vehicle_id JOIN vehicle_model vm ON vm.id = v.model_id " +
+            "WHERE sr.service_date_time >= ? AND sr.service_date_time < ? " +
+            "GROUP BY CAST(sr.service_date_time AS DATE), COALESCE(vm.make_name, '" + UNKNOWN + "'), COALESCE(vm.name, '" + UNKNOWN + "')";
+    private static final String REBUILD_DAY_TOTALS = "INSERT INTO revenue_rollup " +
+            "(granularity, period_start, make, model, slot, job_count, revenue_cents) " +
+            "SELECT 'DAY', period_start, '', '', 0, SUM(job_count), SUM(revenue_cents) FROM revenue_rollup " +
+            "WHERE granularity = 'DAY' AND make <> '' AND period_start >= ? AND period_start < ? GROUP BY period_start";
+    private static final String REBUILD_MONTH_BY_MODEL = "INSERT INTO revenue_rollup " +
+            "(granularity, period_start, make, model, slot, job_count, revenue_cents) " +
+            "SELECT 'MONTH', CAST(? AS DATE), make, model, 0, SUM(job_count), SUM(revenue_cents) FROM revenue_rollup " +
+            "WHERE granularity = 'DAY' AND make <> '' AND period_start >= ? AND period_start < ? GROUP BY make, model";
+    private static final String REBUILD_MONTH_TOTAL = "INSERT INTO revenue_rollup " +
+            "(granularity, period_start, make, model, slot, job_count, revenue_cents) " +
+            "SELECT 'MONTH', CAST(? AS DATE), '', '', 0, SUM(job_count), SUM(revenue_cents) FROM revenue_rollup " +
+            "WHERE granularity = 'DAY' AND make = '' AND period_start >= ? AND period_start < ? GROUP BY granularity";
+
+    @Autowired
+    RevenueRollupRepository revenueRollupRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Value("${revenue.rollup.rebuild.threads:4}")
+    private int rebuildThreads = 4;
+
+    private final AtomicBoolean rebuildRunning = new AtomicBoolean();
+
+    /**
+     * Adds one bill to its day and month buckets, in the caller's transaction.
+     */
+    public void recordBill(long serviceRecordId, LocalDateTime billedAt, String make, String model, long totalCents) {
+        Date day = Date.valueOf(billedAt.toLocalDate());
+        Date month = Date.valueOf(billedAt.toLocalDate().withDayOfMonth(1));
+        String makeName = make != null ? make : UNKNOWN;
+        String modelName = model != null ? model : UNKNOWN;
+        int slot = (int) Math.floorMod(serviceRecordId, (long) SLOTS);
+        // The same order for every bill, so two bills never wait on each other's rows in a cycle
+        jdbcTemplate.batchUpdate(UPSERT, List.of(
+                new Object[]{RollupGranularity.DAY.name(), day, ALL, ALL, slot, totalCents},
+                new Object[]{RollupGranularity.DAY.name(), day, makeName, modelName, slot, totalCents},
+                new Object[]{RollupGranularity.MONTH.name(), month, ALL, ALL, slot, totalCents},
+                new Object[]{RollupGranularity.MONTH.name(), month, makeName, modelName, slot, totalCents}));
+    }
+
+    /**
+     * Revenue per day or per month within {@code [fromDate, toDate]}; periods without bills are left out.
+     * Months are whole months, from the month of {@code fromDate} to the month of {@code toDate}.
+     */
+    public List<RevenuePeriod> revenueByPeriod(LocalDate fromDate, LocalDate toDate, RollupGranularity granularity) {
+        requireRange(fromDate, toDate);
+        LocalDate from = granularity == RollupGranularity.MONTH ? fromDate.withDayOfMonth(1) : fromDate;
+        return revenueRollupRepository.sumTotals(granularity, from, toDate);
+    }
+
+    /**
+     * Revenue per make and model for bills dated within {@code [fromDate, toDate]}, highest first.
+     * Whole months inside the range are read from the month buckets and only the days at either
+     * end from the day buckets.
+     */
+    public List<ModelRevenue> revenueByModel(LocalDate fromDate, LocalDate toDate) {
+        requireRange(fromDate, toDate);
+        LocalDate firstFullMonth = fromDate.getDayOfMonth() == 1 ? fromDate : fromDate.withDayOfMonth(1).plusMonths(1);
+        LocalDate afterLastFullMonth = toDate.plusDays(1).getDayOfMonth() == 1 ? toDate.plusDays(1) : toDate.withDayOfMonth(1);
+
+        Map<String, ModelRevenue> byModel = new LinkedHashMap<>();
+        if (firstFullMonth.isBefore(afterLastFullMonth)) {
+            merge(byModel, revenueRollupRepository.sumByModel(RollupGranularity.DAY, fromDate, firstFullMonth.minusDays(1)));
+            merge(byModel, revenueRollupRepository.sumByModel(RollupGranularity.MONTH, firstFullMonth, afterLastFullMonth.minusMonths(1)));
+            merge(byModel, revenueRollupRepository.sumByModel(RollupGranularity.DAY, afterLastFullMonth, toDate));
+        } else {
+            merge(byModel, revenueRollupRepository.sumByModel(RollupGranularity.DAY, fromDate, toDate));
+        }
+        List<ModelRevenue> result = new ArrayList<>(byModel.values());
+        result.sort(Comparator.comparing(ModelRevenue::getRevenue).reversed());
+        return result;
+    }
+
+    /**
+     * Recomputes every rollup from the service records, each month in its own transaction on a
+     * pool of {@code revenue.rollup.rebuild.threads}. Returns the number of months rebuilt.
+     */
+    public int rebuild() {
+        if (!rebuildRunning.compareAndSet(false, true)) {
+            throw new IllegalStateException("A revenue rollup rebuild is already running.");
+        }
+        ExecutorService executor = null;
+        try {
+            Timestamp firstBill = jdbcTemplate.queryForObject("SELECT MIN(service_date_time) FROM service_record", Timestamp.class);
+            Timestamp lastBill = jdbcTemplate.queryForObject("SELECT MAX(service_date_time) FROM service_record", Timestamp.class);
+            if (firstBill == null || lastBill == null) {
+                jdbcTemplate.update("DELETE FROM revenue_rollup");
+                return 0;
+            }
+            LocalDate firstMonth = firstBill.toLocalDateTime().toLocalDate().withDayOfMonth(1);
+            LocalDate endMonth = lastBill.toLocalDateTime().toLocalDate().withDayOfMonth(1).plusMonths(1);
+            // Buckets outside the billed months have no bills left to rebuild them from
+            jdbcTemplate.update("DELETE FROM revenue_rollup WHERE period_start < ? OR period_start >= ?",
+                    Date.valueOf(firstMonth), Date.valueOf(endMonth));
+
+            executor = Executors.newFixedThreadPool(Math.max(1, rebuildThreads), r -> {
+                Thread thread = new Thread(r, "revenue-rollup-rebuild");
+                thread.setDaemon(true);
+                return thread;
+            });
+            List<Future<?>> months = new ArrayList<>();
+            for (LocalDate month = firstMonth; month.isBefore(endMonth); month = month.plusMonths(1)) {
+                LocalDate monthStart = month;
+                months.add(executor.submit(() -> transactionTemplate.executeWithoutResult(status -> rebuildMonth(monthStart))));
+            }
+            RuntimeException failure = null;
+            for (Future<?> month : months) {
+                try {
+                    month.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = new IllegalStateException("Revenue rollup rebuild failed; run it again.", e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Revenue rollup rebuild was interrupted.", e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return months.size();
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            rebuildRunning.set(false);
+        }
+    }
+
+    private void rebuildMonth(LocalDate month) {
+        Date start = Date.valueOf(month);
+        Date end = Date.valueOf(month.plusMonths(1));
+        jdbcTemplate.update("DELETE FROM revenue_rollup WHERE period_start >= ? AND period_start < ?", start, end);
+        jdbcTemplate.update(REBUILD_DAYS_BY_MODEL, Timestamp.valueOf(month.atStartOfDay()), Timestamp.valueOf(month.plusMonths(1).atStartOfDay()));
+        jdbcTemplate.update(REBUILD_DAY_TOTALS, start, end);
+        jdbcTemplate.update(REBUILD_MONTH_BY_MODEL, start, start, end);
+        jdbcTemplate.update(REBUILD_MONTH_TOTAL, start, start, end);
+    }
+
+    private static void merge(Map<String, ModelRevenue> byModel, List<ModelRevenue> rows) {
+        for (ModelRevenue row : rows) {
+            ModelRevenue total = byModel.putIfAbsent(row.getMake() + '\n' + row.getModel(), row);
+            if (total != null) {
+                total.setJobCount(total.getJobCount() + row.getJobCount());
+                total.setRevenue(total.getRevenue().add(row.getRevenue()));
+            }
+        }
+    }
+
+    private static void requireRange(LocalDate fromDate, LocalDate toDate) {
+        if (fromDate == null || toDate == null || toDate.isBefore(fromDate)) {
+            throw new IllegalArgumentException("A date range with the end on or after the start is required.");
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.Customer;
+import com.example.automobile.service.system.entity.Vehicle;
+import com.example.automobile.service.system.entity.VehicleModel;
+import com.example.automobile.service.system.model.VehicleSuggestion;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps {@link AppointmentSearchIndex}, {@link ServiceHistoryIndex} and {@link VehicleSuggestionIndex}
+ * in step with vehicle and customer writes. Values are captured when the entity is flushed and
+ * applied once the transaction commits, so rolled-back changes never reach the indexes.
+ */
+public class SearchIndexEntityListener {
+    @Autowired
+    AppointmentSearchIndex searchIndex;
+    @Autowired
+    ServiceHistoryIndex serviceHistoryIndex;
+    @Autowired
+    VehicleSuggestionIndex vehicleSuggestionIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void saved(Object entity) {
+        if (entity instanceof Vehicle vehicle) {
+            Long id = vehicle.getId();
+            String vehicleId = vehicle.getVehicleId();
+            String chassisNo = vehicle.getChassisNo();
+            Customer owner = vehicle.getOwner();
+            Long ownerId = owner != null ? owner.getId() : null;
+            String ownerName = owner != null ? owner.getName() : null;
+            String nicNo = owner != null ? owner.getNicNo() : null;
+            VehicleModel model = vehicle.getModel();
+            VehicleSuggestion suggestion = new VehicleSuggestion(id, vehicleId, chassisNo,
+                    model != null ? model.getMakeName() : null, model != null ? model.getName() : null,
+                    vehicle.getYear(), ownerId, ownerName);
+            afterCommit(() -> {
+                searchIndex.vehicleSaved(id, vehicleId, chassisNo);
+                serviceHistoryIndex.vehicleSaved(id, vehicleId, chassisNo, ownerId, ownerName, nicNo);
+                vehicleSuggestionIndex.vehicleSaved(suggestion);
+            });
+        } else if (entity instanceof Customer customer) {
+            Long id = customer.getId();
+            String name = customer.getName();
+            String nicNo = customer.getNicNo();
+            afterCommit(() -> {
+                searchIndex.customerSaved(id, name);
+                serviceHistoryIndex.customerSaved(id, name, nicNo);
+                vehicleSuggestionIndex.customerSaved(id, name);
+            });
+        }
+    }
+
+    @PostRemove
+    public void removed(Object entity) {
+        if (entity instanceof Vehicle vehicle) {
+            Long id = vehicle.getId();
+            afterCommit(() -> {
+                searchIndex.vehicleRemoved(id);
+                vehicleSuggestionIndex.vehicleRemoved(id);
+            });
+        } else if (entity instanceof Customer customer) {
+            Long id = customer.getId();
+            afterCommit(() -> searchIndex.customerRemoved(id));
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (searchIndex == null || serviceHistoryIndex == null || vehicleSuggestionIndex == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.ServiceFee;
+import com.example.automobile.service.system.entity.ServiceFeeVersion;
+import com.example.automobile.service.system.repository.ServiceFeeRepository;
+import com.example.automobile.service.system.repository.ServiceFeeVersionRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Every service fee and duration, indexed by (model, description) and held in memory so quoting,
+ * billing and slot searches never query the fee table.
+ * <p>
+ * The index is immutable; any change to a fee rebuilds it from the database and swaps it in one
+ * reference write, so readers always see one consistent version. It is also refreshed periodically
+ * to pick up edits made through other instances.
+ * <p>
+ * Past fees are indexed alongside: every version of a (model, description) fee is held as parallel
+ * arrays sorted by effective time, so the fee in force at any instant is one binary search. Fees
+ * with no recorded versions have not changed since history began and read at today's amount.
+ */
+@Component
+public class ServiceFeeCatalog {
+    @Autowired
+    ServiceFeeRepository serviceFeeRepository;
+    @Autowired
+    ServiceFeeVersionRepository serviceFeeVersionRepository;
+
+    @Value("${service.fee.catalog.refresh.seconds:300}")
+    private long refreshSeconds = 300;
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private volatile Snapshot snapshot = new Snapshot(new HashMap<>(), new HashMap<>(), 0, Long.MAX_VALUE);
+
+    @PostConstruct
+    public void reload() {
+        reloadLock.lock();
+        try {
+            replace(serviceFeeRepository.findAll(), serviceFeeVersionRepository.findAll());
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * Reloads once the current transaction commits, so the index never shows a change that is rolled back.
+     */
+    public void reloadAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload();
+                }
+            });
+        } else {
+            reload();
+        }
+    }
+
+    void replace(List<ServiceFee> serviceFees) {
+        replace(serviceFees, Collections.emptyList());
+    }
+
+    void replace(List<ServiceFee> serviceFees, List<ServiceFeeVersion> versions) {
+        snapshot = build(serviceFees, versions, snapshot.version + 1, System.currentTimeMillis());
+    }
+
+    /**
+     * Increases every time a new index is swapped in.
+     */
+    public long version() {
+        return current().version;
+    }
+
+    /**
+     * Fees offered for the model, in id order. The entries are shared and must not be modified.
+     */
+    public List<ServiceFee> feesForModel(String model) {
+        Model fees = current().models.get(model);
+        return fees != null ? fees.fees : Collections.emptyList();
+    }
+
+    /**
+     * Fees offered for the model keyed by description. The entries are shared and must not be modified.
+     */
+    public Map<String, ServiceFee> feesByDescription(String model) {
+        Model fees = current().models.get(model);
+        return fees != null ? fees.byDescription : Collections.emptyMap();
+    }
+
+    public ServiceFee find(String model, String description) {
+        return feesByDescription(model).get(description);
+    }
+
+    /**
+     * The model's fees converted to cents once per snapshot, for the pricing engine.
+     */
+    public PriceList pricesFor(String model) {
+        Model fees = current().models.get(model);
+        return fees != null ? fees.prices : PriceList.EMPTY;
+    }
+
+    /**
+     * The model's fees as they stood at the given time, for pricing a bill or quote as of its date.
+     */
+    public PriceList pricesAt(String model, LocalDateTime at) {
+        Snapshot current = current();
+        Model fees = current.models.get(model);
+        History history = current.histories.get(model);
+        long time = toMillis(at);
+        if (history == null || time >= history.lastChange) {
+            return fees != null ? fees.prices : PriceList.EMPTY;
+        }
+        return history.pricesAt(time, fees);
+    }
+
+    /**
+     * Id of the fee offered for the model under the description at the given time, or null if there was none.
+     */
+    public Long feeIdAt(String model, String description, LocalDateTime at) {
+        Snapshot current = current();
+        History history = current.histories.get(model);
+        FeeVersions versions = history != null ? history.byDescription.get(description) : null;
+        long time = toMillis(at);
+        if (versions == null || time >= history.lastChange) {
+            Model fees = current.models.get(model);
+            ServiceFee fee = fees != null ? fees.byDescription.get(description) : null;
+            return fee != null ? fee.getId() : null;
+        }
+        int version = versions.at(time);
+        return version >= 0 && versions.states[version] != FeeVersions.WITHDRAWN ? versions.feeIds[version] : null;
+    }
+
+    /**
+     * Combined duration in minutes of the selected services, all read from one version of the index.
+     */
+    public int totalDuration(String model, List<String> serviceDescriptions) {
+        if (serviceDescriptions == null || serviceDescriptions.isEmpty()) {
+            throw new IllegalArgumentException("At least one service must be selected to calculate duration.");
+        }
+        Map<String, ServiceFee> fees = feesByDescription(model);
+        int totalDuration = 0;
+        for (String description : serviceDescriptions) {
+            ServiceFee fee = fees.get(description);
+            if (fee == null || fee.getDurationMinutes() == null) {
+                throw new IllegalArgumentException("Service '" + description + "' is not offered for " + model + ".");
+            }
+            totalDuration += fee.getDurationMinutes();
+        }
+        return totalDuration;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (System.currentTimeMillis() - current.loadedAtMillis > refreshSeconds * 1000 && reloadLock.tryLock()) {
+            try {
+                if (snapshot == current) {
+                    snapshot = build(serviceFeeRepository.findAll(), serviceFeeVersionRepository.findAll(),
+                            current.version + 1, System.currentTimeMillis());
+                }
+            } finally {
+                reloadLock.unlock();
+            }
+            return snapshot;
+        }
+        return current;
+    }
+
+    private static Snapshot build(List<ServiceFee> serviceFees, List<ServiceFeeVersion> versions, long version, long loadedAtMillis) {
+        List<ServiceFee> sorted = new ArrayList<>(serviceFees);
+        sorted.sort(Comparator.comparing(ServiceFee::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        Map<String, List<ServiceFee>> byModel = new HashMap<>();
+        for (ServiceFee fee : sorted) {
+            if (fee.getModel() != null) {
+                // Detached copies, so later changes to the managed entities cannot leak into the snapshot
+                byModel.computeIfAbsent(fee.getModel(), m -> new ArrayList<>()).add(new ServiceFee(
+                        fee.getId(), fee.getDescription(), fee.getFee(), fee.getMake(), fee.getModel(), fee.getDurationMinutes()));
+            }
+        }
+        Map<String, Model> models = new HashMap<>();
+        for (Map.Entry<String, List<ServiceFee>> entry : byModel.entrySet()) {
+            models.put(entry.getKey(), Model.of(entry.getValue()));
+        }
+
+        // Oldest first; of two changes stamped with the same instant, the later one wins
+        List<ServiceFeeVersion> sortedVersions = new ArrayList<>(versions);
+        sortedVersions.removeIf(v -> v.getModel() == null || v.getDescription() == null || v.getEffectiveFrom() == null);
+        sortedVersions.sort(Comparator.comparing(ServiceFeeVersion::getEffectiveFrom)
+                .thenComparing(ServiceFeeVersion::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        Map<String, Map<String, List<ServiceFeeVersion>>> versionsByModel = new HashMap<>();
+        for (ServiceFeeVersion feeVersion : sortedVersions) {
+            versionsByModel.computeIfAbsent(feeVersion.getModel(), m -> new HashMap<>())
+                    .computeIfAbsent(feeVersion.getDescription(), d -> new ArrayList<>()).add(feeVersion);
+        }
+        Map<String, History> histories = new HashMap<>();
+        for (Map.Entry<String, Map<String, List<ServiceFeeVersion>>> entry : versionsByModel.entrySet()) {
+            histories.put(entry.getKey(), History.of(entry.getValue()));
+        }
+        return new Snapshot(models, histories, version, loadedAtMillis);
+    }
+
+    // Local date-times are only compared with each other, so any fixed offset orders them correctly
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static class Snapshot {
+        private final Map<String, Model> models;
+        private final Map<String, History> histories;
+        private final long version;
+        private final long loadedAtMillis;
+
+        private Snapshot(Map<String, Model> models, Map<String, History> histories, long version, long loadedAtMillis) {
+            this.models = Collections.unmodifiableMap(models);
+            this.histories = Collections.unmodifiableMap(histories);
+            this.version = version;
+            this.loadedAtMillis = loadedAtMillis;
+        }
+    }
+
+    private static class Model {
+        private final List<ServiceFee> fees;
+        private final Map<String, ServiceFee> byDescription;
+        private final PriceList prices;
+
+        private Model(List<ServiceFee> fees, Map<String, ServiceFee> byDescription) {
+            this.fees = fees;
+            this.byDescription = byDescription;
+            this.prices = PriceList.of(byDescription);
+        }
+
+        private static Model of(List<ServiceFee> fees) {
+            Map<String, ServiceFee> byDescription = new HashMap<>();
+            for (ServiceFee fee : fees) {
+                // The lowest id wins when a description is listed twice for the same model
+                byDescription.putIfAbsent(fee.getDescription(), fee);
+            }
+            return new Model(Collections.unmodifiableList(fees), Collections.unmodifiableMap(byDescription));
+        }
+    }
+
+    private static class History {
+        private final Map<String, FeeVersions> byDescription;
+        // Effective time of the model's latest version; from then on its current fees apply
+        private final long lastChange;
+
+        private History(Map<String, FeeVersions> byDescription, long lastChange) {
+            this.byDescription = byDescription;
+            this.lastChange = lastChange;
+        }
+
+        private static History of(Map<String, List<ServiceFeeVersion>> versionsByDescription) {
+            Map<String, FeeVersions> byDescription = new HashMap<>();
+            long lastChange = Long.MIN_VALUE;
+            for (Map.Entry<String, List<ServiceFeeVersion>> entry : versionsByDescription.entrySet()) {
+                FeeVersions versions = FeeVersions.of(entry.getValue());
+                byDescription.put(entry.getKey(), versions);
+                lastChange = Math.max(lastChange, versions.from[versions.from.length - 1]);
+            }
+            return new History(Collections.unmodifiableMap(byDescription), lastChange);
+        }
+
+        private PriceList pricesAt(long time, Model current) {
+            int capacity = byDescription.size() + (current != null ? current.prices.indexByDescription.size() : 0);
+            Map<String, Integer> indexByDescription = new HashMap<>();
+            long[] cents = new long[capacity];
+            long[] feeIds = new long[capacity];
+            boolean[] exact = new boolean[capacity];
+            int count = 0;
+            if (current != null) {
+                PriceList today = current.prices;
+                for (Map.Entry<String, Integer> entry : today.indexByDescription.entrySet()) {
+                    if (byDescription.containsKey(entry.getKey())) {
+                        continue;
+                    }
+                    int index = entry.getValue();
+                    cents[count] = today.cents[index];
+                    feeIds[count] = today.feeIds[index];
+                    exact[count] = today.exact[index];
+                    indexByDescription.put(entry.getKey(), count++);
+                }
+            }
+            for (Map.Entry<String, FeeVersions> entry : byDescription.entrySet()) {
+                FeeVersions versions = entry.getValue();
+                int version = versions.at(time);
+                if (version < 0 || versions.states[version] < FeeVersions.INEXACT) {
+                    continue;
+                }
+                cents[count] = versions.cents[version];
+                feeIds[count] = versions.feeIds[version];
+                exact[count] = versions.states[version] == FeeVersions.EXACT;
+                indexByDescription.put(entry.getKey(), count++);
+            }
+            return new PriceList(indexByDescription, cents, feeIds, exact);
+        }
+    }
+
+    /**
+     * Every version of one (model, description) fee, as parallel arrays sorted by effective time.
+     */
+    private static final class FeeVersions {
+        private static final byte WITHDRAWN = 0;
+        private static final byte UNPRICED = 1;
+        private static final byte INEXACT = 2;
+        private static final byte EXACT = 3;
+
+        private final long[] from;
+        private final long[] cents;
+        private final long[] feeIds;
+        private final byte[] states;
+
+        private FeeVersions(long[] from, long[] cents, long[] feeIds, byte[] states) {
+            this.from = from;
+            this.cents = cents;
+            this.feeIds = feeIds;
+            this.states = states;
+        }
+
+        // The versions arrive sorted by effective time
+        private static FeeVersions of(List<ServiceFeeVersion> versions) {
+            long[] from = new long[versions.size()];
+            long[] cents = new long[versions.size()];
+            long[] feeIds = new long[versions.size()];
+            byte[] states = new byte[versions.size()];
+            int count = 0;
+            for (ServiceFeeVersion version : versions) {
+                long time = toMillis(version.getEffectiveFrom());
+                if (count > 0 && from[count - 1] == time) {
+                    count--;
+                }
+                from[count] = time;
+                cents[count] = 0;
+                feeIds[count] = version.getServiceFeeId() != null ? version.getServiceFeeId() : PricingEngine.NO_FEE;
+                if (version.isWithdrawn()) {
+                    states[count] = WITHDRAWN;
+                } else if (version.getFee() == null) {
+                    states[count] = UNPRICED;
+                } else {
+                    try {
+                        cents[count] = PricingEngine.toCents(version.getFee());
+                        states[count] = EXACT;
+                    } catch (ArithmeticException e) {
+                        states[count] = INEXACT;
+                    }
+                }
+                count++;
+            }
+            return new FeeVersions(Arrays.copyOf(from, count), Arrays.copyOf(cents, count),
+                    Arrays.copyOf(feeIds, count), Arrays.copyOf(states, count));
+        }
+
+        /**
+         * Position of the version in force at the time, or -1 when the first version is later.
+         */
+        private int at(long time) {
+            int index = Arrays.binarySearch(from, time);
+            return index >= 0 ? index : -index - 2;
+        }
+    }
+
+    /**
+     * Fee amounts in cents keyed by description. Fees with a null amount are left out, as the
+     * billing code always skipped them; fees with a fraction of a cent are kept but marked inexact.
+     */
+    public static final class PriceList {
+        static final PriceList EMPTY = new PriceList(Collections.emptyMap(), new long[0], new long[0], new boolean[0]);
+
+        private final Map<String, Integer> indexByDescription;
+        private final long[] cents;
+        private final long[] feeIds;
+        private final boolean[] exact;
+
+        private PriceList(Map<String, Integer> indexByDescription, long[] cents, long[] feeIds, boolean[] exact) {
+            this.indexByDescription = indexByDescription;
+            this.cents = cents;
+            this.feeIds = feeIds;
+            this.exact = exact;
+        }
+
+        private static PriceList of(Map<String, ServiceFee> byDescription) {
+            Map<String, Integer> indexByDescription = new HashMap<>();
+            long[] cents = new long[byDescription.size()];
+            long[] feeIds = new long[byDescription.size()];
+            boolean[] exact = new boolean[byDescription.size()];
+            int count = 0;
+            for (ServiceFee fee : byDescription.values()) {
+                if (fee.getFee() == null) {
+                    continue;
+                }
+                try {
+                    cents[count] = PricingEngine.toCents(fee.getFee());
+                    exact[count] = true;
+                } catch (ArithmeticException e) {
+                    exact[count] = false;
+                }
+                feeIds[count] = fee.getId() != null ? fee.getId() : PricingEngine.NO_FEE;
+                indexByDescription.put(fee.getDescription(), count++);
+            }
+            return new PriceList(indexByDescription, cents, feeIds, exact);
+        }
+
+        /**
+         * Position of the description's fee, or -1 when the model has no priced fee by that name.
+         */
+        public int indexOf(String description) {
+            Integer index = indexByDescription.get(description);
+            return index != null ? index : -1;
+        }
+
+        public long cents(int index) {
+            return cents[index];
+        }
+
+        public long feeId(int index) {
+            return feeIds[index];
+        }
+
+        public boolean isExact(int index) {
+            return exact[index];
+        }
+    }
+}
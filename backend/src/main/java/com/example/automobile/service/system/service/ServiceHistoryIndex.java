@@ -0,0 +1,436 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.Customer;
+import com.example.automobile.service.system.entity.ServiceRecord;
+import com.example.automobile.service.system.entity.Vehicle;
+import com.example.automobile.service.system.repository.ServiceRecordRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Inverted index over service history for the cashier search box.
+ * <p>
+ * Bill text is indexed per service record; plate, chassis, make, model, owner name and NIC are
+ * indexed once per vehicle and shared by all of its records, so a customer rename touches one
+ * vehicle entry rather than every past bill. A query matches records that contain every term
+ * (the last term also as a prefix, counting every indexed term it starts), scored by weighted
+ * term frequency times inverse document frequency, newest first on ties. Candidates come from
+ * the term with the fewest postings and are then checked against their own terms, so work grows
+ * with the rarest term, not the size of the history.
+ * <p>
+ * Writes on this instance are applied after commit, and the whole index is rebuilt from the
+ * database every {@code service.history.search.refresh.seconds} so other instances' bills show up.
+ */
+@Component
+public class ServiceHistoryIndex {
+    private static final float WEIGHT_IDENTIFIER = 3f;
+    private static final float WEIGHT_NAME = 2f;
+    private static final float WEIGHT_TEXT = 1f;
+
+    @Autowired
+    ServiceRecordRepository serviceRecordRepository;
+
+    @Value("${service.history.search.refresh.seconds:300}")
+    private long refreshSeconds = 300;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private volatile Contents contents = new Contents(Long.MAX_VALUE);
+    // Changes that arrive while a rebuild reads the database, replayed onto the new contents; guarded by the write lock
+    private final List<Consumer<Contents>> changesDuringReload = new ArrayList<>();
+    private boolean reloading;
+
+    @PostConstruct
+    public void load() {
+        reloadLock.lock();
+        try {
+            rebuild();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * Matching record ids for one page, best first, with the total number of matches.
+     */
+    public SearchResult search(String query, int page, int size) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return new SearchResult(Collections.emptyList(), 0);
+        }
+        refreshIfStale();
+        lock.readLock().lock();
+        try {
+            Contents current = contents;
+            // Each query term becomes the index terms it stands for; the last may still be being typed
+            List<Set<String>> expanded = new ArrayList<>();
+            for (int i = 0; i < terms.size(); i++) {
+                Set<String> forms = i == terms.size() - 1 ? current.prefixForms(terms.get(i)) : current.exactForms(terms.get(i));
+                if (forms.isEmpty()) {
+                    return new SearchResult(Collections.emptyList(), 0);
+                }
+                expanded.add(forms);
+            }
+            expanded.sort(Comparator.comparingLong(current::estimatedMatches));
+
+            Map<Long, Float> scores = current.matches(expanded.get(0));
+            for (int i = 1; i < expanded.size() && !scores.isEmpty(); i++) {
+                Set<String> forms = expanded.get(i);
+                Iterator<Map.Entry<Long, Float>> it = scores.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<Long, Float> entry = it.next();
+                    float score = current.score(forms, entry.getKey());
+                    if (score == 0f) {
+                        it.remove();
+                    } else {
+                        entry.setValue(entry.getValue() + score);
+                    }
+                }
+            }
+
+            List<Long> ranked = new ArrayList<>(scores.keySet());
+            ranked.sort(Comparator.<Long>comparingDouble(id -> -scores.get(id))
+                    .thenComparing(id -> current.records.get(id).serviceDateTime, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(Comparator.reverseOrder()));
+            int from = Math.min((int) Math.min((long) page * size, Integer.MAX_VALUE), ranked.size());
+            int to = Math.min(from + size, ranked.size());
+            return new SearchResult(new ArrayList<>(ranked.subList(from, to)), ranked.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void recordSaved(ServiceRecord record) {
+        Vehicle vehicle = record.getVehicle();
+        Customer owner = vehicle.getOwner();
+        VehicleEntry vehicleEntry = new VehicleEntry(vehicle.getId(), owner.getId(), vehicle.getVehicleId(), vehicle.getChassisNo(),
+                vehicle.getModel().getMakeName(), vehicle.getModel().getName(), owner.getName(), owner.getNicNo());
+        Long id = record.getId();
+        LocalDateTime serviceDateTime = record.getServiceDateTime();
+        String details = record.getServiceDetails();
+        afterCommit(() -> apply(current -> {
+            current.putVehicle(vehicleEntry);
+            current.putRecord(id, vehicleEntry.id, serviceDateTime, details);
+        }));
+    }
+
+    void vehicleSaved(Long id, String vehicleId, String chassisNo, Long ownerId, String ownerName, String nicNo) {
+        apply(current -> {
+            VehicleEntry existing = current.vehicles.get(id);
+            if (existing != null) {
+                current.putVehicle(new VehicleEntry(id, ownerId, vehicleId, chassisNo, existing.make, existing.model, ownerName, nicNo));
+            }
+        });
+    }
+
+    void customerSaved(Long id, String name, String nicNo) {
+        apply(current -> {
+            for (Long vehicleId : new ArrayList<>(current.vehiclesByOwner.getOrDefault(id, Collections.emptySet()))) {
+                VehicleEntry existing = current.vehicles.get(vehicleId);
+                current.putVehicle(new VehicleEntry(vehicleId, id, existing.plate, existing.chassisNo, existing.make, existing.model, name, nicNo));
+            }
+        });
+    }
+
+    private void refreshIfStale() {
+        if (System.currentTimeMillis() - contents.loadedAtMillis > refreshSeconds * 1000 && reloadLock.tryLock()) {
+            try {
+                if (System.currentTimeMillis() - contents.loadedAtMillis > refreshSeconds * 1000) {
+                    rebuild();
+                }
+            } finally {
+                reloadLock.unlock();
+            }
+        }
+    }
+
+    // Caller holds reloadLock
+    private void rebuild() {
+        lock.writeLock().lock();
+        try {
+            reloading = true;
+            changesDuringReload.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            Contents fresh = new Contents(System.currentTimeMillis());
+            for (Object[] row : serviceRecordRepository.findSearchRows()) {
+                Long vehicleId = (Long) row[3];
+                if (!fresh.vehicles.containsKey(vehicleId)) {
+                    fresh.putVehicle(new VehicleEntry(vehicleId, (Long) row[8], (String) row[4], (String) row[5],
+                            (String) row[6], (String) row[7], (String) row[9], (String) row[10]));
+                }
+                fresh.putRecord((Long) row[0], vehicleId, (LocalDateTime) row[1], (String) row[2]);
+            }
+            lock.writeLock().lock();
+            try {
+                for (Consumer<Contents> change : changesDuringReload) {
+                    change.accept(fresh);
+                }
+                contents = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                reloading = false;
+                changesDuringReload.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void apply(Consumer<Contents> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(contents);
+            if (reloading) {
+                changesDuringReload.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static float idf(int documents, int containing) {
+        return (float) Math.log(1 + (double) documents / containing);
+    }
+
+    // Identifiers also get their separator-free form, so "WP CAB-1234" is found by "wpcab1234"
+    private static void addIdentifier(Map<String, Float> terms, String value) {
+        addTerms(terms, value, WEIGHT_IDENTIFIER);
+        List<String> parts = tokenize(value);
+        if (parts.size() > 1) {
+            terms.merge(String.join("", parts), WEIGHT_IDENTIFIER, Float::sum);
+        }
+    }
+
+    private static void addTerms(Map<String, Float> terms, String text, float weight) {
+        for (String term : tokenize(text)) {
+            terms.merge(term, weight, Float::sum);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        for (String part : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!part.isEmpty()) {
+                terms.add(part);
+            }
+        }
+        return terms;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    public static class SearchResult {
+        private final List<Long> recordIds;
+        private final int totalHits;
+
+        SearchResult(List<Long> recordIds, int totalHits) {
+            this.recordIds = recordIds;
+            this.totalHits = totalHits;
+        }
+
+        public List<Long> getRecordIds() {
+            return recordIds;
+        }
+
+        public int getTotalHits() {
+            return totalHits;
+        }
+    }
+
+    // One loaded generation of the index; callers hold the lock, or own it before it is published
+    private static class Contents {
+        private final TreeMap<String, Map<Long, Float>> recordPostings = new TreeMap<>();
+        private final TreeMap<String, Map<Long, Float>> vehiclePostings = new TreeMap<>();
+        private final Map<Long, RecordEntry> records = new HashMap<>();
+        private final Map<Long, VehicleEntry> vehicles = new HashMap<>();
+        private final Map<Long, Set<Long>> recordsByVehicle = new HashMap<>();
+        private final Map<Long, Set<Long>> vehiclesByOwner = new HashMap<>();
+        private final long loadedAtMillis;
+
+        private Contents(long loadedAtMillis) {
+            this.loadedAtMillis = loadedAtMillis;
+        }
+
+        private Map<Long, Float> matches(Set<String> forms) {
+            Map<Long, Float> scores = new HashMap<>();
+            for (String term : forms) {
+                Map<Long, Float> byRecord = recordPostings.get(term);
+                if (byRecord != null) {
+                    float idf = idf(records.size(), byRecord.size());
+                    byRecord.forEach((id, weight) -> scores.merge(id, idf * weight, Float::sum));
+                }
+                Map<Long, Float> byVehicle = vehiclePostings.get(term);
+                if (byVehicle != null) {
+                    float idf = idf(vehicles.size(), byVehicle.size());
+                    byVehicle.forEach((vehicleId, weight) -> {
+                        for (Long id : recordsByVehicle.getOrDefault(vehicleId, Collections.emptySet())) {
+                            scores.merge(id, idf * weight, Float::sum);
+                        }
+                    });
+                }
+            }
+            return scores;
+        }
+
+        // Walks the record's own terms, so a prefix standing for thousands of terms costs no more
+        private float score(Set<String> forms, Long recordId) {
+            RecordEntry record = records.get(recordId);
+            float score = 0f;
+            for (Map.Entry<String, Float> term : record.terms.entrySet()) {
+                if (forms.contains(term.getKey())) {
+                    score += idf(records.size(), recordPostings.get(term.getKey()).size()) * term.getValue();
+                }
+            }
+            VehicleEntry vehicle = vehicles.get(record.vehicleId);
+            if (vehicle != null) {
+                for (Map.Entry<String, Float> term : vehicle.terms.entrySet()) {
+                    if (forms.contains(term.getKey())) {
+                        score += idf(vehicles.size(), vehiclePostings.get(term.getKey()).size()) * term.getValue();
+                    }
+                }
+            }
+            return score;
+        }
+
+        private long estimatedMatches(Set<String> forms) {
+            long estimate = 0;
+            for (String term : forms) {
+                Map<Long, Float> byRecord = recordPostings.get(term);
+                estimate += byRecord != null ? byRecord.size() : 0;
+                Map<Long, Float> byVehicle = vehiclePostings.get(term);
+                if (byVehicle != null) {
+                    for (Long vehicleId : byVehicle.keySet()) {
+                        estimate += recordsByVehicle.getOrDefault(vehicleId, Collections.emptySet()).size();
+                    }
+                }
+            }
+            return estimate;
+        }
+
+        private Set<String> exactForms(String term) {
+            return recordPostings.containsKey(term) || vehiclePostings.containsKey(term)
+                    ? Collections.singleton(term) : Collections.emptySet();
+        }
+
+        private Set<String> prefixForms(String prefix) {
+            Set<String> forms = new HashSet<>(recordPostings.subMap(prefix, prefix + Character.MAX_VALUE).keySet());
+            forms.addAll(vehiclePostings.subMap(prefix, prefix + Character.MAX_VALUE).keySet());
+            return forms;
+        }
+
+        private void putRecord(Long id, Long vehicleId, LocalDateTime serviceDateTime, String details) {
+            RecordEntry previous = records.remove(id);
+            if (previous != null) {
+                unpost(recordPostings, previous.terms, id);
+                Set<Long> ids = recordsByVehicle.get(previous.vehicleId);
+                if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                    recordsByVehicle.remove(previous.vehicleId);
+                }
+            }
+            Map<String, Float> terms = new HashMap<>();
+            addTerms(terms, details, WEIGHT_TEXT);
+            records.put(id, new RecordEntry(vehicleId, serviceDateTime, terms));
+            post(recordPostings, terms, id);
+            recordsByVehicle.computeIfAbsent(vehicleId, v -> new HashSet<>()).add(id);
+        }
+
+        private void putVehicle(VehicleEntry entry) {
+            VehicleEntry previous = vehicles.put(entry.id, entry);
+            if (previous != null) {
+                unpost(vehiclePostings, previous.terms, previous.id);
+                Set<Long> owned = vehiclesByOwner.get(previous.ownerId);
+                if (owned != null && owned.remove(previous.id) && owned.isEmpty()) {
+                    vehiclesByOwner.remove(previous.ownerId);
+                }
+            }
+            post(vehiclePostings, entry.terms, entry.id);
+            vehiclesByOwner.computeIfAbsent(entry.ownerId, o -> new HashSet<>()).add(entry.id);
+        }
+
+        private static void post(Map<String, Map<Long, Float>> postings, Map<String, Float> terms, Long id) {
+            terms.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, weight));
+        }
+
+        private static void unpost(Map<String, Map<Long, Float>> postings, Map<String, Float> terms, Long id) {
+            for (String term : terms.keySet()) {
+                Map<Long, Float> ids = postings.get(term);
+                if (ids != null && ids.remove(id) != null && ids.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static class RecordEntry {
+        private final Long vehicleId;
+        private final LocalDateTime serviceDateTime;
+        private final Map<String, Float> terms;
+
+        private RecordEntry(Long vehicleId, LocalDateTime serviceDateTime, Map<String, Float> terms) {
+            this.vehicleId = vehicleId;
+            this.serviceDateTime = serviceDateTime;
+            this.terms = terms;
+        }
+    }
+
+    private static class VehicleEntry {
+        private final Long id;
+        private final Long ownerId;
+        private final String plate;
+        private final String chassisNo;
+        private final String make;
+        private final String model;
+        private final String ownerName;
+        private final String nicNo;
+        private final Map<String, Float> terms = new HashMap<>();
+
+        private VehicleEntry(Long id, Long ownerId, String plate, String chassisNo, String make, String model, String ownerName, String nicNo) {
+            this.id = id;
+            this.ownerId = ownerId;
+            this.plate = plate;
+            this.chassisNo = chassisNo;
+            this.make = make;
+            this.model = model;
+            this.ownerName = ownerName;
+            this.nicNo = nicNo;
+            addIdentifier(terms, plate);
+            addIdentifier(terms, chassisNo);
+            addIdentifier(terms, nicNo);
+            addTerms(terms, ownerName, WEIGHT_NAME);
+            addTerms(terms, make, WEIGHT_TEXT);
+            addTerms(terms, model, WEIGHT_TEXT);
+        }
+    }
+}
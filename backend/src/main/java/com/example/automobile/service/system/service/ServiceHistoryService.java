@@ -4,6 +4,7 @@ import com.example.automobile.service.system.entity.Customer;
 import com.example.automobile.service.system.entity.UserAccount;
 import com.example.automobile.service.system.entity.ServiceRecord;
 import com.example.automobile.service.system.entity.Vehicle;
+import com.example.automobile.service.system.model.ServiceHistoryPage;
 import com.example.automobile.service.system.model.ServiceRecordDTO;
 import com.example.automobile.service.system.repository.CustomerRepository;
 import com.example.automobile.service.system.repository.UserAccountRepository;
@@ -14,6 +15,9 @@ import org.springframework.stereotype.Service;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static java.util.Arrays.stream;
@@ -29,6 +33,11 @@ public class ServiceHistoryService {
 
     @Autowired
     CustomerRepository customerRepository;
+    @Autowired
+    ServiceHistoryIndex serviceHistoryIndex;
+
+    static final int MAX_PAGE_SIZE = 100;
+
     public List<ServiceRecordDTO> getHistoryByVehicleIdentifier(String vehicleIdentifier) {
         List<ServiceRecord> records;
         Vehicle vehicleOpt = vehicleRepository.findByVehicleId(vehicleIdentifier);
@@ -79,21 +88,29 @@ public class ServiceHistoryService {
             return Collections.emptyList();
         }
 
-        // Fetch service records for all owned vehicles
-        return vehicles.stream()
-                .flatMap(vehicle -> serviceRecordRepository.findByVehicleOrderByServiceDateTimeDesc(vehicle).stream())
-                .sorted((r1, r2) -> r2.getServiceDateTime().compareTo(r1.getServiceDateTime()))
-                .collect(Collectors.toList());
+        // Fetch service records for all owned vehicles in one query
+        return serviceRecordRepository.findByVehicleInOrderByServiceDateTimeDesc(vehicles);
     }
 
-    public List<ServiceRecordDTO> searchHistory(String query) {
+    public ServiceHistoryPage searchHistory(String query, int page, int size) {
+        if (page < 0 || size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page must be 0 or more and size between 1 and " + MAX_PAGE_SIZE + ".");
+        }
         if (query == null || query.isBlank()) {
-            return Collections.emptyList();
+            return new ServiceHistoryPage(Collections.emptyList(), page, size, 0);
         }
-        // Use the combined search method from the repository
-        List<ServiceRecord> records = serviceRecordRepository.searchHistory(query);
-        return records.stream()
-                .map(this::toDTO) // map to DTOs
+        // Rank in memory, then load just this page's records in one query and keep the ranked order
+        ServiceHistoryIndex.SearchResult result = serviceHistoryIndex.search(query, page, size);
+        if (result.getRecordIds().isEmpty()) {
+            return new ServiceHistoryPage(Collections.emptyList(), page, size, result.getTotalHits());
+        }
+        Map<Long, ServiceRecord> byId = serviceRecordRepository.findWithDetailsByIdIn(result.getRecordIds()).stream()
+                .collect(Collectors.toMap(ServiceRecord::getId, Function.identity()));
+        List<ServiceRecordDTO> items = result.getRecordIds().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(this::toDTO)
                 .collect(Collectors.toList());
+        return new ServiceHistoryPage(items, page, size, result.getTotalHits());
     }
 }
@@ -0,0 +1,132 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.Cashier;
+import com.example.automobile.service.system.exception.ResourceNotFoundException;
+import com.example.automobile.service.system.model.BillLineItemKind;
+import com.example.automobile.service.system.model.SettlementLine;
+import com.example.automobile.service.system.model.ShiftSettlement;
+import com.example.automobile.service.system.repository.CashierRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * End-of-shift settlement for one cashier, computed in a single pass over their bills.
+ * <p>
+ * Bills and their line items are read through one forward-only cursor, ordered by bill, and
+ * folded into running totals as they arrive, so nothing is held per bill. The line breakdown is
+ * kept per service and part description, which the fee catalog and parts list bound; custom items
+ * are free text and are summed into one line.
+ */
+@Service
+public class ShiftSettlementService {
+    private static final String CUSTOM_ITEMS = "Custom items";
+    private static final String SETTLEMENT_ROWS = "SELECT sr.id, sr.total_cost, a.advance_fee_paid, li.kind, li.description, li.unit_price, li.quantity " +
+            "FROM service_record sr " +
+            "LEFT JOIN appointment a ON a.id = sr.appointment_id " +
+            "LEFT JOIN bill_line_item li ON li.service_record_id = sr.id " +
+            "WHERE sr.cashier_id = ? AND sr.service_date_time >= ? AND sr.service_date_time < ? " +
+            "ORDER BY sr.service_date_time, sr.id, li.line_no";
+
+    @Autowired
+    CashierRepository cashierRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    // 0 leaves it to the driver; on MySQL, Integer.MIN_VALUE makes Connector/J stream rows one at a time
+    @Value("${shift.settlement.fetch-size:0}")
+    private int fetchSize = 0;
+
+    /**
+     * Settles the bills the cashier finalized within {@code [from, to)}.
+     */
+    public ShiftSettlement settle(String cashierName, LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !to.isAfter(from)) {
+            throw new IllegalArgumentException("A time window with the end after the start is required.");
+        }
+        if (cashierName == null || cashierName.isBlank()) {
+            throw new IllegalArgumentException("A cashier name is required.");
+        }
+        Cashier cashier = cashierRepository.findByName(cashierName.trim());
+        if (cashier == null) {
+            throw new ResourceNotFoundException("Cashier", "name", cashierName);
+        }
+
+        Totals totals = new Totals();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SETTLEMENT_ROWS, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, cashier.getId());
+            ps.setTimestamp(2, Timestamp.valueOf(from));
+            ps.setTimestamp(3, Timestamp.valueOf(to));
+            return ps;
+        }, totals::add);
+
+        List<SettlementLine> lines = new ArrayList<>(totals.lines.size());
+        for (LineTotal line : totals.lines.values()) {
+            lines.add(new SettlementLine(line.kind, line.description, line.quantity, PricingEngine.toAmount(line.cents)));
+        }
+        lines.sort(Comparator.comparing(SettlementLine::getKind).thenComparing(SettlementLine::getAmount, Comparator.reverseOrder()));
+        return new ShiftSettlement(cashier.getId(), cashier.getName(), from, to, totals.billCount, totals.unitemizedBillCount,
+                PricingEngine.toAmount(totals.billedCents), totals.advanceFeeBillCount, PricingEngine.toAmount(totals.advanceCents),
+                PricingEngine.toAmount(Math.subtractExact(totals.billedCents, totals.advanceCents)), lines);
+    }
+
+    private static final class Totals {
+        private long currentRecordId = -1;
+        private long billCount;
+        private long unitemizedBillCount;
+        private long billedCents;
+        private long advanceFeeBillCount;
+        private long advanceCents;
+        private final Map<String, LineTotal> lines = new LinkedHashMap<>();
+
+        // One row per line item, or a single row with no line item for an unitemized bill
+        private void add(ResultSet rs) throws SQLException {
+            long recordId = rs.getLong(1);
+            if (recordId != currentRecordId) {
+                currentRecordId = recordId;
+                billCount++;
+                billedCents = Math.addExact(billedCents, PricingEngine.toCents(rs.getBigDecimal(2)));
+                BigDecimal advance = rs.getBigDecimal(3);
+                if (advance != null && advance.signum() > 0) {
+                    advanceFeeBillCount++;
+                    advanceCents = Math.addExact(advanceCents, PricingEngine.toCents(advance));
+                }
+            }
+            String kindName = rs.getString(4);
+            if (kindName == null) {
+                unitemizedBillCount++;
+                return;
+            }
+            BillLineItemKind kind = BillLineItemKind.valueOf(kindName);
+            String description = kind == BillLineItemKind.CUSTOM ? CUSTOM_ITEMS : rs.getString(5);
+            int quantity = rs.getInt(7);
+            long cents = Math.multiplyExact(PricingEngine.toCents(rs.getBigDecimal(6)), quantity);
+            LineTotal line = lines.computeIfAbsent(kindName + '\n' + description, key -> new LineTotal(kind, description));
+            line.quantity += quantity;
+            line.cents = Math.addExact(line.cents, cents);
+        }
+    }
+
+    private static final class LineTotal {
+        private final BillLineItemKind kind;
+        private final String description;
+        private long quantity;
+        private long cents;
+
+        private LineTotal(BillLineItemKind kind, String description) {
+            this.kind = kind;
+            this.description = description;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.model.SlotChange;
+import com.example.automobile.service.system.model.SlotChangeEvent;
+import com.example.automobile.service.system.model.SlotChangeType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes slot-taken and slot-freed deltas to customers watching a date over server-sent events.
+ * <p>
+ * Subscribers are async emitters grouped by date, so an idle one costs a map entry and an open
+ * connection but no thread. Changes are queued per date and a single flusher thread builds at
+ * most one message per date per interval, serialized once. The writes themselves run on a small
+ * sender pool, one at a time per subscriber, so a slow connection never holds up the others; a
+ * subscriber still busy with the previous message when the next one is due is completed and
+ * dropped, and its client has to reconnect. Changes for dates nobody is watching are dropped on
+ * arrival.
+ */
+@Component
+public class SlotChangeBroadcaster {
+    private static final String EVENT_NAME = "slot-changes";
+    private static final long HEARTBEAT_SECONDS = 25;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${appointment.events.coalesce.millis:1000}")
+    private long coalesceMillis = 1000;
+
+    @Value("${appointment.events.timeout.minutes:30}")
+    private long timeoutMinutes = 30;
+
+    @Value("${appointment.events.send.threads:4}")
+    private int sendThreads = 4;
+
+    private final Map<LocalDate, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<LocalDate, List<SlotChange>> pending = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private ExecutorService sender;
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "slot-change-broadcast");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, coalesceMillis, coalesceMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::heartbeat, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+        sender = Executors.newFixedThreadPool(sendThreads, r -> {
+            Thread thread = new Thread(r, "slot-change-send");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (sender != null) {
+            sender.shutdownNow();
+        }
+        subscribers.values().forEach(forDate -> forDate.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    public SseEmitter subscribe(LocalDate date) {
+        Subscriber subscriber = new Subscriber(new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes)));
+        subscribers.compute(date, (d, forDate) -> {
+            Set<Subscriber> watching = forDate != null ? forDate : ConcurrentHashMap.newKeySet();
+            watching.add(subscriber);
+            return watching;
+        });
+        subscriber.emitter.onCompletion(() -> unsubscribe(date, subscriber));
+        subscriber.emitter.onTimeout(() -> unsubscribe(date, subscriber));
+        subscriber.emitter.onError(e -> unsubscribe(date, subscriber));
+        return subscriber.emitter;
+    }
+
+    /**
+     * Whether anyone is watching the date, so callers can skip working out a change nobody receives.
+     */
+    public boolean isWatched(LocalDate date) {
+        return subscribers.containsKey(date);
+    }
+
+    public void slotTaken(LocalDate date, LocalTime startTime, LocalTime endTime) {
+        publish(date, new SlotChange(SlotChangeType.TAKEN, startTime, endTime));
+    }
+
+    public void slotFreed(LocalDate date, LocalTime startTime, LocalTime endTime) {
+        publish(date, new SlotChange(SlotChangeType.FREED, startTime, endTime));
+    }
+
+    private void publish(LocalDate date, SlotChange change) {
+        if (!subscribers.containsKey(date)) {
+            return;
+        }
+        // compute() and the flusher's remove() lock the same bin, so no change is added to a drained list
+        pending.compute(date, (d, changes) -> {
+            List<SlotChange> forDate = changes != null ? changes : new ArrayList<>();
+            forDate.add(change);
+            return forDate;
+        });
+    }
+
+    void flush() {
+        for (LocalDate date : pending.keySet()) {
+            List<SlotChange> changes = pending.remove(date);
+            Set<Subscriber> forDate = subscribers.get(date);
+            if (changes == null || forDate == null || forDate.isEmpty()) {
+                continue;
+            }
+            String payload;
+            try {
+                payload = objectMapper.writeValueAsString(new SlotChangeEvent(date, changes));
+            } catch (JsonProcessingException e) {
+                continue;
+            }
+            for (Subscriber subscriber : forDate) {
+                if (!send(date, subscriber, SseEmitter.event().name(EVENT_NAME).data(payload))) {
+                    // Still writing the last change: it would only fall further behind
+                    unsubscribe(date, subscriber);
+                    subscriber.emitter.complete();
+                }
+            }
+        }
+    }
+
+    private void heartbeat() {
+        // Also how dropped connections get noticed and their emitters released; a busy connection is alive
+        subscribers.forEach((date, forDate) -> {
+            for (Subscriber subscriber : forDate) {
+                send(date, subscriber, SseEmitter.event().comment("keep-alive"));
+            }
+        });
+    }
+
+    /**
+     * Queues the write on the sender pool, or returns false if the subscriber's previous write has
+     * not finished yet.
+     */
+    private boolean send(LocalDate date, Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.sending.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            sender.execute(() -> {
+                try {
+                    subscriber.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    unsubscribe(date, subscriber);
+                    subscriber.emitter.completeWithError(e);
+                } finally {
+                    subscriber.sending.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            subscriber.sending.set(false);
+        }
+        return true;
+    }
+
+    private void unsubscribe(LocalDate date, Subscriber subscriber) {
+        subscribers.computeIfPresent(date, (d, forDate) -> {
+            forDate.remove(subscriber);
+            return forDate.isEmpty() ? null : forDate;
+        });
+    }
+
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.model.SlotHold;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tentative slot holds kept in memory while a customer completes payment.
+ * <p>
+ * Holds are indexed by id and by date. Expiry is driven by a hashed timer wheel: each hold is
+ * dropped into the bucket for its deadline tick, and every tick only drains that one bucket, so
+ * expiring a hold costs O(1) and never scans the other holds. Reads also check the deadline, so
+ * a hold stops counting as busy the moment it expires even if its tick has not run yet.
+ */
+@Component
+public class SlotHoldRegistry {
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 1024;
+
+    private final Clock clock;
+    private final Map<String, Entry> holdsById = new ConcurrentHashMap<>();
+    private final Map<LocalDate, Map<String, Entry>> holdsByDate = new ConcurrentHashMap<>();
+    private final Bucket[] wheel = new Bucket[WHEEL_SIZE];
+    private volatile long lastTick;
+    private ScheduledExecutorService ticker;
+
+    public SlotHoldRegistry() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public SlotHoldRegistry(Clock clock) {
+        this.clock = clock;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.lastTick = clock.millis() / TICK_MILLIS;
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "slot-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::advance, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    public SlotHold place(LocalDate date, LocalTime startTime, LocalTime endTime, Duration ttl) {
+        long expiresAtMillis = clock.millis() + ttl.toMillis();
+        SlotHold hold = new SlotHold(UUID.randomUUID().toString(), date, startTime, endTime,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAtMillis), clock.getZone()));
+        Entry entry = new Entry(hold, expiresAtMillis);
+        holdsById.put(hold.getHoldId(), entry);
+        // compute() keeps this atomic with removeFromDate dropping an emptied date map
+        holdsByDate.compute(date, (d, forDate) -> {
+            Map<String, Entry> holds = forDate != null ? forDate : new ConcurrentHashMap<>();
+            holds.put(hold.getHoldId(), entry);
+            return holds;
+        });
+        // A deadline inside a tick that has already run goes to the next one, not a full turn later
+        long deadlineTick = Math.max((expiresAtMillis + TICK_MILLIS - 1) / TICK_MILLIS, lastTick + 1);
+        wheel[(int) (deadlineTick % WHEEL_SIZE)].add(entry);
+        return hold;
+    }
+
+    public boolean release(String holdId) {
+        Entry entry = holdsById.remove(holdId);
+        if (entry == null) {
+            return false;
+        }
+        removeFromDate(entry);
+        return !isExpired(entry, clock.millis());
+    }
+
+    /**
+     * The hold with this id, or null once it has expired or been released.
+     */
+    public SlotHold get(String holdId) {
+        Entry entry = holdId != null ? holdsById.get(holdId) : null;
+        return entry != null && !isExpired(entry, clock.millis()) ? entry.hold : null;
+    }
+
+    public List<SlotHold> activeHolds(LocalDate date) {
+        Map<String, Entry> forDate = holdsByDate.get(date);
+        List<SlotHold> holds = new ArrayList<>();
+        if (forDate == null) {
+            return holds;
+        }
+        long now = clock.millis();
+        for (Entry entry : forDate.values()) {
+            if (!isExpired(entry, now)) {
+                holds.add(entry.hold);
+            }
+        }
+        return holds;
+    }
+
+    /**
+     * Whether any live hold other than {@code ignoredHoldId} overlaps the given time on the date.
+     * Callers only pass a hold they have checked is for exactly this slot.
+     */
+    public boolean isHeld(LocalDate date, LocalTime startTime, LocalTime endTime, String ignoredHoldId) {
+        for (SlotHold hold : activeHolds(date)) {
+            if (!hold.getHoldId().equals(ignoredHoldId)
+                    && startTime.isBefore(hold.getEndTime()) && endTime.isAfter(hold.getStartTime())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized void advance() {
+        long now = clock.millis();
+        long currentTick = now / TICK_MILLIS;
+        // After a long pause every bucket is visited at most once; entries compare their own deadline
+        long firstTick = Math.max(lastTick + 1, currentTick - WHEEL_SIZE + 1);
+        for (long tick = firstTick; tick <= currentTick; tick++) {
+            Bucket bucket = wheel[(int) (tick % WHEEL_SIZE)];
+            for (Entry entry : bucket.drain()) {
+                if (isExpired(entry, now)) {
+                    expire(entry);
+                } else {
+                    // Deadline is a later turn of the wheel
+                    bucket.add(entry);
+                }
+            }
+        }
+        lastTick = Math.max(lastTick, currentTick);
+    }
+
+    private void expire(Entry entry) {
+        // Only drop the mapping if it still points at this entry; released holds are already gone
+        if (holdsById.remove(entry.hold.getHoldId(), entry)) {
+            removeFromDate(entry);
+        }
+    }
+
+    private void removeFromDate(Entry entry) {
+        holdsByDate.computeIfPresent(entry.hold.getDate(), (date, forDate) -> {
+            forDate.remove(entry.hold.getHoldId(), entry);
+            return forDate.isEmpty() ? null : forDate;
+        });
+    }
+
+    int size() {
+        return holdsById.size();
+    }
+
+    private static boolean isExpired(Entry entry, long nowMillis) {
+        return entry.expiresAtMillis <= nowMillis;
+    }
+
+    // Adds and drains share the bucket's monitor, so a hold placed while its bucket is drained
+    // either makes this drain or stays for the next one, and is never dropped
+    private static final class Bucket {
+        private List<Entry> entries = new ArrayList<>();
+
+        private synchronized void add(Entry entry) {
+            entries.add(entry);
+        }
+
+        private synchronized List<Entry> drain() {
+            List<Entry> drained = entries;
+            entries = new ArrayList<>();
+            return drained;
+        }
+    }
+
+    private static class Entry {
+        private final SlotHold hold;
+        private final long expiresAtMillis;
+
+        private Entry(SlotHold hold, long expiresAtMillis) {
+            this.hold = hold;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
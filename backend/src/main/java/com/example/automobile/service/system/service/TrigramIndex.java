@@ -0,0 +1,107 @@
+package com.example.automobile.service.system.service;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index from every three-character window of a lower-cased string to the ids holding it,
+ * used to answer {@code contains(substring)} without scanning every value.
+ * <p>
+ * A query's trigram posting lists are intersected smallest first and the survivors checked
+ * against the stored value, so results are exact. Queries under three characters have no
+ * trigram and fall back to a scan of the stored values.
+ */
+class TrigramIndex {
+    private final Map<Long, String> values = new HashMap<>();
+    private final Map<Long, Set<Long>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    void put(Long id, String value) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            if (value != null && !value.isEmpty()) {
+                String normalized = value.toLowerCase(Locale.ROOT);
+                values.put(id, normalized);
+                for (long trigram : trigrams(normalized)) {
+                    postings.computeIfAbsent(trigram, t -> new HashSet<>()).add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids whose value contains {@code query}, ignoring case, or {@code null} when more than
+     * {@code limit} match and the caller is better off letting the database filter.
+     */
+    Set<Long> search(String query, int limit) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            Collection<Long> candidates = needle.length() < 3 ? values.keySet() : candidates(needle);
+            Set<Long> matches = new HashSet<>();
+            for (Long id : candidates) {
+                if (values.get(id).contains(needle)) {
+                    if (matches.size() == limit) {
+                        return null;
+                    }
+                    matches.add(id);
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Collection<Long> candidates(String needle) {
+        List<Set<Long>> lists = new ArrayList<>();
+        for (long trigram : trigrams(needle)) {
+            Set<Long> ids = postings.get(trigram);
+            if (ids == null) {
+                return Collections.emptySet();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private void removeLocked(Long id) {
+        String old = values.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (long trigram : trigrams(old)) {
+            Set<Long> ids = postings.get(trigram);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    // Three UTF-16 units packed into one key
+    private static Set<Long> trigrams(String s) {
+        Set<Long> result = new HashSet<>();
+        for (int i = 0; i + 3 <= s.length(); i++) {
+            result.add(((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2));
+        }
+        return result;
+    }
+}
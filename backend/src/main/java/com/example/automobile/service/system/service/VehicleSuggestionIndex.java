@@ -0,0 +1,229 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.model.VehicleSuggestion;
+import com.example.automobile.service.system.repository.VehicleRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory autocomplete for the cashier vehicle search. Plate numbers, chassis numbers and owner
+ * names are normalized (upper case, letters and digits only) and stored in a {@link PrefixTrie};
+ * each owner name word and a plate's trailing digits are indexed too, so "1234" or "silva" find
+ * "WP CAB-1234" owned by "Nimal Silva". Plate matches rank above chassis, chassis above owner.
+ * <p>
+ * Kept current by {@link SearchIndexEntityListener} and rebuilt from the database every
+ * {@code vehicle.suggestions.refresh.seconds}, which also picks up other instances' writes.
+ */
+@Component
+public class VehicleSuggestionIndex {
+    static final int MAX_LIMIT = 50;
+    private static final int RANK_PLATE = 0;
+    private static final int RANK_CHASSIS = 1;
+    private static final int RANK_OWNER = 2;
+
+    @Autowired
+    VehicleRepository vehicleRepository;
+
+    @Value("${vehicle.suggestions.refresh.seconds:300}")
+    private long refreshSeconds = 300;
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private volatile Suggestions suggestions = new Suggestions(Long.MAX_VALUE);
+    // Changes that arrive while a rebuild reads the database, replayed onto the new index
+    private final List<Consumer<Suggestions>> changesDuringReload = new ArrayList<>();
+    private boolean reloading;
+
+    @PostConstruct
+    public void load() {
+        reloadLock.lock();
+        try {
+            rebuild();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    public List<VehicleSuggestion> suggest(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Suggestions current = current();
+        current.lock.readLock().lock();
+        try {
+            List<VehicleSuggestion> results = new ArrayList<>();
+            for (Long id : current.trie.search(prefix, Math.min(Math.max(limit, 1), MAX_LIMIT))) {
+                results.add(current.vehicles.get(id));
+            }
+            return results;
+        } finally {
+            current.lock.readLock().unlock();
+        }
+    }
+
+    void vehicleSaved(VehicleSuggestion suggestion) {
+        apply(current -> current.put(suggestion));
+    }
+
+    void vehicleRemoved(Long id) {
+        apply(current -> current.remove(id));
+    }
+
+    // Re-keys every vehicle of a customer whose name may have changed
+    void customerSaved(Long ownerId, String name) {
+        apply(current -> {
+            for (Long id : new ArrayList<>(current.vehiclesByOwner.getOrDefault(ownerId, Collections.emptySet()))) {
+                VehicleSuggestion previous = current.vehicles.get(id);
+                current.put(new VehicleSuggestion(previous.getId(), previous.getVehicleId(), previous.getChassisNo(),
+                        previous.getMake(), previous.getModel(), previous.getYear(), ownerId, name));
+            }
+        });
+    }
+
+    private Suggestions current() {
+        Suggestions current = suggestions;
+        if (System.currentTimeMillis() - current.loadedAtMillis > refreshSeconds * 1000 && reloadLock.tryLock()) {
+            try {
+                if (suggestions == current) {
+                    rebuild();
+                }
+            } finally {
+                reloadLock.unlock();
+            }
+            return suggestions;
+        }
+        return current;
+    }
+
+    // Caller holds reloadLock
+    private void rebuild() {
+        synchronized (changesDuringReload) {
+            reloading = true;
+            changesDuringReload.clear();
+        }
+        try {
+            Suggestions fresh = new Suggestions(System.currentTimeMillis());
+            for (VehicleSuggestion suggestion : vehicleRepository.findAllSuggestions()) {
+                fresh.put(suggestion);
+            }
+            synchronized (changesDuringReload) {
+                for (Consumer<Suggestions> change : changesDuringReload) {
+                    change.accept(fresh);
+                }
+                suggestions = fresh;
+            }
+        } finally {
+            synchronized (changesDuringReload) {
+                reloading = false;
+                changesDuringReload.clear();
+            }
+        }
+    }
+
+    private void apply(Consumer<Suggestions> change) {
+        synchronized (changesDuringReload) {
+            Suggestions current = suggestions;
+            current.lock.writeLock().lock();
+            try {
+                change.accept(current);
+            } finally {
+                current.lock.writeLock().unlock();
+            }
+            if (reloading) {
+                changesDuringReload.add(change);
+            }
+        }
+    }
+
+    private static void forEachKey(VehicleSuggestion suggestion, KeyConsumer consumer) {
+        String plate = normalize(suggestion.getVehicleId());
+        if (!plate.isEmpty()) {
+            consumer.accept(plate, RANK_PLATE);
+            String digits = trailingDigits(plate);
+            if (!digits.isEmpty() && digits.length() < plate.length()) {
+                consumer.accept(digits, RANK_PLATE);
+            }
+        }
+        String chassis = normalize(suggestion.getChassisNo());
+        if (!chassis.isEmpty()) {
+            consumer.accept(chassis, RANK_CHASSIS);
+        }
+        String owner = normalize(suggestion.getOwnerName());
+        if (!owner.isEmpty()) {
+            consumer.accept(owner, RANK_OWNER);
+            String[] words = suggestion.getOwnerName().trim().split("\\s+");
+            for (int i = 1; i < words.length; i++) {
+                String word = normalize(words[i]);
+                if (!word.isEmpty()) {
+                    consumer.accept(word, RANK_OWNER);
+                }
+            }
+        }
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toUpperCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String trailingDigits(String value) {
+        int i = value.length();
+        while (i > 0 && Character.isDigit(value.charAt(i - 1))) {
+            i--;
+        }
+        return value.substring(i);
+    }
+
+    private interface KeyConsumer {
+        void accept(String key, int rank);
+    }
+
+    private static class Suggestions {
+        private final PrefixTrie trie = new PrefixTrie();
+        private final Map<Long, VehicleSuggestion> vehicles = new HashMap<>();
+        private final Map<Long, Set<Long>> vehiclesByOwner = new HashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final long loadedAtMillis;
+
+        private Suggestions(long loadedAtMillis) {
+            this.loadedAtMillis = loadedAtMillis;
+        }
+
+        // Callers hold the write lock, or own the index before it is published
+        private void put(VehicleSuggestion suggestion) {
+            remove(suggestion.getId());
+            vehicles.put(suggestion.getId(), suggestion);
+            forEachKey(suggestion, (key, rank) -> trie.add(key, suggestion.getId(), rank));
+            vehiclesByOwner.computeIfAbsent(suggestion.getOwnerId(), o -> new HashSet<>()).add(suggestion.getId());
+        }
+
+        private void remove(Long id) {
+            VehicleSuggestion previous = vehicles.remove(id);
+            if (previous == null) {
+                return;
+            }
+            forEachKey(previous, (key, rank) -> trie.remove(key, previous.getId()));
+            Set<Long> owned = vehiclesByOwner.get(previous.getOwnerId());
+            if (owned != null && owned.remove(previous.getId()) && owned.isEmpty()) {
+                vehiclesByOwner.remove(previous.getOwnerId());
+            }
+        }
+    }
+}
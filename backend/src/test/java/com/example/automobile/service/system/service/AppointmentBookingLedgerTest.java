@@ -0,0 +1,158 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.*;
+import com.example.automobile.service.system.exception.AppointmentConflictException;
+import com.example.automobile.service.system.model.AppointmentBookingRequest;
+import com.example.automobile.service.system.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the ledger row lock against H2 in MySQL mode. The second service has its own in-process
+ * date locks, as another instance would, so only the database can keep the two bookings apart.
+ */
+@SpringBootTest
+class AppointmentBookingLedgerTest {
+    private static final LocalDate FIRST_DATE = LocalDate.of(2031, 3, 3);
+    private static final int ROUNDS = 10;
+
+    @Autowired
+    AppointmentService appointmentService;
+    @Autowired
+    AutowireCapableBeanFactory beanFactory;
+    @Autowired
+    VehicleMakeRepository vehicleMakeRepository;
+    @Autowired
+    VehicleModelRepository vehicleModelRepository;
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    VehicleRepository vehicleRepository;
+    @Autowired
+    ServiceFeeRepository serviceFeeRepository;
+    @Autowired
+    ServiceFeeCatalog serviceFeeCatalog;
+    @Autowired
+    AppointmentRepository appointmentRepository;
+    @Autowired
+    BookingDayLedgerRepository bookingDayLedgerRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    private AppointmentService otherInstance;
+
+    @BeforeEach
+    void setUp() {
+        if (vehicleRepository.findByVehicleId("LDG-0001") == null) {
+            VehicleMake make = vehicleMakeRepository.save(new VehicleMake(null, "Ledger Motors", null, null));
+            VehicleModel model = vehicleModelRepository.save(new VehicleModel(null, "Ledger", "Ledger Motors", make));
+            Customer customer = customerRepository.save(new Customer(null, "Ledger Customer", "Colombo", "071-555-0101", "199912345678", null));
+            vehicleRepository.save(new Vehicle(null, "LDG-0001", model, 2021, "LDGCHASSIS0001", customer, null, null));
+            serviceFeeRepository.save(new ServiceFee(null, "Ledger Service", new BigDecimal("1000.00"), "Ledger Motors", "Ledger", 60));
+            serviceFeeCatalog.reload();
+        }
+        otherInstance = new AppointmentService();
+        beanFactory.autowireBean(otherInstance);
+    }
+
+    @Test
+    void sameDayBookingsFromTwoInstancesAdmitExactlyOne() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                LocalDate date = FIRST_DATE.plusDays(round);
+                CyclicBarrier start = new CyclicBarrier(2);
+                Future<Boolean> first = executor.submit(() -> book(appointmentService, date, start));
+                Future<Boolean> second = executor.submit(() -> book(otherInstance, date, start));
+
+                int booked = (first.get(30, TimeUnit.SECONDS) ? 1 : 0) + (second.get(30, TimeUnit.SECONDS) ? 1 : 0);
+                assertEquals(1, booked, "Bookings admitted on " + date);
+                assertEquals(1, appointmentRepository.findByDateBetween(date, date).size());
+                assertEquals(1, bookingDayLedgerRepository.findById(date).orElseThrow().getAppointmentCount());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void twoInstancesThatBothFindANewDayMissingTakeItsRowInTurn() throws Exception {
+        LocalDate date = FIRST_DATE.minusDays(1);
+        raceForLedger(date);
+        assertEquals(2, bookingDayLedgerRepository.findById(date).orElseThrow().getAppointmentCount());
+    }
+
+    @Test
+    void twoInstancesThatBothFindAnExistingDayTakeItsRowInTurn() throws Exception {
+        LocalDate date = FIRST_DATE.minusDays(2);
+        bookingDayLedgerRepository.save(new BookingDayLedger(date, 0));
+        raceForLedger(date);
+        assertEquals(2, bookingDayLedgerRepository.findById(date).orElseThrow().getAppointmentCount());
+    }
+
+    // Both transactions have checked for the day's row before either inserts or locks it
+    private void raceForLedger(LocalDate date) throws Exception {
+        CyclicBarrier checked = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> countBooking(date, checked));
+            Future<?> second = executor.submit(() -> countBooking(date, checked));
+            first.get(30, TimeUnit.SECONDS);
+            second.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void countBooking(LocalDate date, CyclicBarrier checked) {
+        AppointmentService instance = new AppointmentService();
+        beanFactory.autowireBean(instance);
+        instance.bookingDayLedgerRepository = awaitingAfterCheck(bookingDayLedgerRepository, checked);
+        transactionTemplate.executeWithoutResult(status -> {
+            BookingDayLedger ledger = instance.lockBookingDay(date);
+            ledger.setAppointmentCount(ledger.getAppointmentCount() + 1);
+        });
+    }
+
+    private static BookingDayLedgerRepository awaitingAfterCheck(BookingDayLedgerRepository repository, CyclicBarrier checked) {
+        return (BookingDayLedgerRepository) Proxy.newProxyInstance(BookingDayLedgerRepository.class.getClassLoader(),
+                new Class<?>[]{BookingDayLedgerRepository.class}, (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(repository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (method.getName().equals("existsById")) {
+                        checked.await(10, TimeUnit.SECONDS);
+                    }
+                    return result;
+                });
+    }
+
+    private static boolean book(AppointmentService service, LocalDate date, CyclicBarrier start) throws Exception {
+        AppointmentBookingRequest request = new AppointmentBookingRequest(date, LocalTime.of(10, 0), "LDG-0001", null, null, null,
+                "199912345678", null, null, BigDecimal.ZERO, "071-555-0101", List.of("Ledger Service"));
+        start.await(10, TimeUnit.SECONDS);
+        try {
+            service.bookAppointment(request, "ledger-test");
+            return true;
+        } catch (AppointmentConflictException e) {
+            return false;
+        }
+    }
+}
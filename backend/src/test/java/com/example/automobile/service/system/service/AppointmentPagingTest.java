@@ -0,0 +1,174 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.*;
+import com.example.automobile.service.system.model.AppointmentCursor;
+import com.example.automobile.service.system.model.AppointmentFilter;
+import com.example.automobile.service.system.model.AppointmentPage;
+import com.example.automobile.service.system.model.AppointmentStatus;
+import com.example.automobile.service.system.model.AppointmentSummary;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pages through appointments in H2 with the keyset cursor, including many rows that share a
+ * date and start time.
+ */
+@SpringBootTest
+class AppointmentPagingTest {
+    @Autowired
+    AppointmentService appointmentService;
+    @Autowired
+    EntityManager entityManager;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void pagesThroughTiedStartTimesWithoutSkippingOrRepeating() {
+        // Each test gets its own dates, so rows from other tests never fall inside the filter
+        LocalDate date = LocalDate.of(2037, 3, 2);
+        List<Appointment> created = transactionTemplate.execute(status -> {
+            Vehicle vehicle = vehicle("PG" + System.nanoTime());
+            List<Appointment> appointments = new ArrayList<>();
+            // Inserted out of order, so ids do not follow (date, startTime)
+            appointments.add(appointment(vehicle, date.plusDays(1), LocalTime.of(9, 0), AppointmentStatus.UPCOMING));
+            for (int i = 0; i < 7; i++) {
+                appointments.add(appointment(vehicle, date, LocalTime.of(10, 0), i % 3 == 0 ? AppointmentStatus.CANCELLED : AppointmentStatus.UPCOMING));
+            }
+            for (int i = 0; i < 3; i++) {
+                appointments.add(appointment(vehicle, date, LocalTime.of(9, 0), AppointmentStatus.UPCOMING));
+            }
+            appointments.add(appointment(vehicle, date.plusDays(1), LocalTime.of(9, 0), AppointmentStatus.COMPLETED));
+            appointments.add(appointment(vehicle, date.plusDays(2), LocalTime.of(8, 0), AppointmentStatus.UPCOMING));
+            return appointments;
+        });
+        List<Long> expected = created.stream()
+                .filter(a -> !a.getDate().isAfter(date.plusDays(1)))
+                .sorted(Comparator.comparing(Appointment::getDate).thenComparing(Appointment::getStartTime).thenComparing(Appointment::getId))
+                .map(Appointment::getId)
+                .toList();
+        AppointmentFilter filters = new AppointmentFilter(date, date.plusDays(1), null, null, null, null);
+
+        // Pages of four split both the three 9:00 rows from the 10:00 ones and the 10:00 ties themselves
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            AppointmentPage page = appointmentService.filterAppointments(filters, cursor, 4, pages == 0);
+            if (pages == 0) {
+                assertEquals(expected.size(), page.getTotalCount());
+            } else {
+                assertNull(page.getTotalCount());
+            }
+            assertTrue(page.getItems().size() <= 4);
+            page.getItems().forEach(item -> seen.add(item.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(expected, seen);
+        assertEquals(3, pages);
+
+        // A page that ends exactly on the last row has no next cursor
+        AppointmentPage whole = appointmentService.filterAppointments(filters, null, expected.size(), true);
+        assertNull(whole.getNextCursor());
+        assertEquals(expected.size(), whole.getItems().size());
+
+        // The total counts every match, not just the page
+        filters.setStatus(AppointmentStatus.CANCELLED);
+        AppointmentPage cancelled = appointmentService.filterAppointments(filters, null, 1, true);
+        assertEquals(1, cancelled.getItems().size());
+        assertEquals(3L, cancelled.getTotalCount());
+        assertNotNull(cancelled.getNextCursor());
+    }
+
+    @Test
+    void cursorsResumeAfterTheExactRowTheyNamed() {
+        LocalDate date = LocalDate.of(2037, 4, 6);
+        List<Appointment> created = transactionTemplate.execute(status -> {
+            Vehicle vehicle = vehicle("PC" + System.nanoTime());
+            List<Appointment> appointments = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                appointments.add(appointment(vehicle, date, LocalTime.of(11, 0), AppointmentStatus.UPCOMING));
+            }
+            return appointments;
+        });
+        AppointmentFilter filters = new AppointmentFilter(date, date, null, null, null, null);
+        Appointment middle = created.get(1);
+
+        String token = new AppointmentCursor(date, LocalTime.of(11, 0), middle.getId()).encode();
+        List<AppointmentSummary> rest = appointmentService.filterAppointments(filters, token, 10, false).getItems();
+        assertEquals(List.of(created.get(2).getId()), rest.stream().map(AppointmentSummary::getId).toList());
+
+        AppointmentCursor decoded = AppointmentCursor.decode(token);
+        assertEquals(date, decoded.getDate());
+        assertEquals(LocalTime.of(11, 0), decoded.getStartTime());
+        assertEquals(middle.getId(), decoded.getId());
+    }
+
+    @Test
+    void malformedOrTamperedCursorsAreRefused() {
+        AppointmentFilter filters = new AppointmentFilter(LocalDate.of(2037, 5, 4), LocalDate.of(2037, 5, 4), null, null, null, null);
+        for (String cursor : List.of("not a cursor!", token("2037-05-04|10:00"), token("2037-05-04|10:00|1|2"),
+                token("2037-02-30|10:00|1"), token("2037-05-04|25:00|1"), token("2037-05-04|10:00|x"),
+                token("2037-05-04|10:00|"))) {
+            assertThrows(IllegalArgumentException.class, () -> appointmentService.filterAppointments(filters, cursor, 10, false), cursor);
+        }
+        // A blank cursor is the first page
+        assertTrue(appointmentService.filterAppointments(filters, " ", 10, true).getItems().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> appointmentService.filterAppointments(filters, null, 0, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.filterAppointments(filters, null, AppointmentService.MAX_PAGE_SIZE + 1, false));
+    }
+
+    private Vehicle vehicle(String tag) {
+        VehicleMake make = new VehicleMake();
+        make.setName("Toyota");
+        entityManager.persist(make);
+        VehicleModel model = new VehicleModel();
+        model.setName(tag);
+        model.setMakeName("Toyota");
+        model.setVehicleMake(make);
+        entityManager.persist(model);
+        Customer customer = new Customer();
+        customer.setName("Paging Customer");
+        customer.setNicNo(tag);
+        customer.setPhoneNo(tag);
+        entityManager.persist(customer);
+        Vehicle vehicle = new Vehicle();
+        vehicle.setVehicleId(tag);
+        vehicle.setChassisNo(tag);
+        vehicle.setYear(2020);
+        vehicle.setModel(model);
+        vehicle.setOwner(customer);
+        entityManager.persist(vehicle);
+        return vehicle;
+    }
+
+    private Appointment appointment(Vehicle vehicle, LocalDate date, LocalTime startTime, AppointmentStatus status) {
+        Appointment appointment = new Appointment();
+        appointment.setVehicle(vehicle);
+        appointment.setDate(date);
+        appointment.setStartTime(startTime);
+        appointment.setEndTime(startTime.plusMinutes(30));
+        appointment.setStatus(status);
+        entityManager.persist(appointment);
+        return appointment;
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.model.AppointmentFilter;
+import com.example.automobile.service.system.repository.CustomerRepository;
+import com.example.automobile.service.system.repository.VehicleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AppointmentSearchIndexTest {
+    private final List<Object[]> vehicles = new ArrayList<>();
+    private final List<Object[]> customers = new ArrayList<>();
+    private AppointmentSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        vehicles.add(new Object[] {1L, "CAB-1234", "CHASSIS0000001"});
+        vehicles.add(new Object[] {2L, "CAB-5678", "CHASSIS0000002"});
+        customers.add(new Object[] {10L, "Nimal Perera"});
+        customers.add(new Object[] {11L, "Kamal Silva"});
+
+        index = new AppointmentSearchIndex();
+        index.vehicleRepository = mock(VehicleRepository.class);
+        when(index.vehicleRepository.findSearchKeys()).thenAnswer(inv -> new ArrayList<>(vehicles));
+        index.customerRepository = mock(CustomerRepository.class);
+        when(index.customerRepository.findSearchKeys()).thenAnswer(inv -> new ArrayList<>(customers));
+        index.load();
+    }
+
+    @Test
+    void replacesSubstringFiltersWithKeys() {
+        AppointmentFilter narrowed = index.narrow(filter("cab", "0002", "perera"));
+
+        assertNull(narrowed.getVehicleId());
+        assertNull(narrowed.getChassisNo());
+        assertNull(narrowed.getCustomerName());
+        assertEquals(Set.of(2L), narrowed.getVehicleKeys());
+        assertEquals(Set.of(10L), narrowed.getCustomerKeys());
+    }
+
+    @Test
+    void filtersWithNoIndexedMatchMatchNothing() {
+        AppointmentFilter unknown = index.narrow(filter("NEW-0001", null, null));
+        assertNull(unknown.getVehicleId());
+        assertEquals(Set.of(), unknown.getVehicleKeys());
+
+        // Each matches, but not the same vehicle
+        AppointmentFilter disjoint = index.narrow(filter("1234", "0002", null));
+        assertEquals(Set.of(), disjoint.getVehicleKeys());
+
+        AppointmentFilter nobody = index.narrow(filter(null, null, "nobody"));
+        assertNull(nobody.getCustomerName());
+        assertEquals(Set.of(), nobody.getCustomerKeys());
+    }
+
+    @Test
+    void keepsTheLikeFilterWhenTooManyMatch() {
+        for (long id = 100; id < 100 + AppointmentSearchIndex.MAX_CANDIDATES + 1; id++) {
+            customers.add(new Object[] {id, "Fernando " + id});
+        }
+        index.load();
+
+        AppointmentFilter narrowed = index.narrow(filter(null, null, "fernando"));
+        assertEquals("fernando", narrowed.getCustomerName());
+        assertNull(narrowed.getCustomerKeys());
+    }
+
+    @Test
+    void picksUpOtherInstancesWritesOnReload() throws Exception {
+        ReflectionTestUtils.setField(index, "refreshSeconds", 0L);
+        vehicles.add(new Object[] {3L, "NEW-0001", "CHASSIS0000003"});
+        Thread.sleep(5);
+
+        assertEquals(Set.of(3L), index.narrow(filter("new-0001", null, null)).getVehicleKeys());
+    }
+
+    @Test
+    void keepsChangesThatLandDuringAReload() {
+        when(index.customerRepository.findSearchKeys()).thenAnswer(inv -> {
+            // Committed after the rebuild read its rows
+            index.customerSaved(12L, "Sunil Jayasuriya");
+            return new ArrayList<>(customers);
+        });
+        index.load();
+
+        assertEquals(Set.of(12L), index.narrow(filter(null, null, "jayasuriya")).getCustomerKeys());
+    }
+
+    private static AppointmentFilter filter(String vehicleId, String chassisNo, String customerName) {
+        return new AppointmentFilter(null, null, vehicleId, chassisNo, customerName, null);
+    }
+}
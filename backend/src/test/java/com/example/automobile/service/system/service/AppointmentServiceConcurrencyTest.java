@@ -0,0 +1,342 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.Appointment;
+import com.example.automobile.service.system.entity.BookingDayLedger;
+import com.example.automobile.service.system.entity.Customer;
+import com.example.automobile.service.system.entity.Holiday;
+import com.example.automobile.service.system.entity.ServiceFee;
+import com.example.automobile.service.system.entity.Vehicle;
+import com.example.automobile.service.system.entity.VehicleModel;
+import com.example.automobile.service.system.exception.AppointmentConflictException;
+import com.example.automobile.service.system.model.AppointmentBookingRequest;
+import com.example.automobile.service.system.model.AppointmentSlot;
+import com.example.automobile.service.system.model.AppointmentStatus;
+import com.example.automobile.service.system.model.DatedAppointmentSlot;
+import com.example.automobile.service.system.model.DayAvailability;
+import com.example.automobile.service.system.model.SlotHold;
+import com.example.automobile.service.system.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AppointmentServiceConcurrencyTest {
+    private static final LocalDate FIRST_DATE = LocalDate.of(2030, 1, 7);
+    private static final int DAYS = 4;
+    private static final int BOOKINGS = 4000;
+
+    private final List<Appointment> saved = new CopyOnWriteArrayList<>();
+    private final AtomicLong ids = new AtomicLong();
+    private AppointmentService appointmentService;
+
+    @BeforeEach
+    void setUp() {
+        appointmentService = new AppointmentService();
+        ReflectionTestUtils.setField(appointmentService, "slotGranularityMinutes", 15);
+        ReflectionTestUtils.setField(appointmentService, "workingStartTimeStr", "09:00");
+        ReflectionTestUtils.setField(appointmentService, "workingEndTimeStr", "17:00");
+
+        VehicleModel model = new VehicleModel(1L, "Corolla", "Toyota", null);
+        Customer customer = new Customer(1L, "Test Customer", "Colombo", "071-000-0000", "200012345678", null);
+        Vehicle vehicle = new Vehicle(1L, "CAB-1234", model, 2020, "CHASSIS0000001", customer, null, null);
+
+        AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+        // Back the repository with a list and yield between the check and the insert to widen any race window
+        when(appointmentRepository.existsOverlappingAppointment(any(), any(), any())).thenAnswer(inv -> {
+            LocalDate date = inv.getArgument(0);
+            LocalTime start = inv.getArgument(1);
+            LocalTime end = inv.getArgument(2);
+            boolean overlaps = saved.stream().anyMatch(a -> a.getDate().equals(date)
+                    && a.getStartTime().isBefore(end) && a.getEndTime().isAfter(start));
+            Thread.yield();
+            return overlaps;
+        });
+        when(appointmentRepository.save(any(Appointment.class))).thenAnswer(inv -> {
+            Appointment appointment = inv.getArgument(0);
+            appointment.setId(ids.incrementAndGet());
+            saved.add(appointment);
+            return appointment;
+        });
+
+        CustomerRepository customerRepository = mock(CustomerRepository.class);
+        when(customerRepository.findByNicNo(anyString())).thenReturn(customer);
+        VehicleRepository vehicleRepository = mock(VehicleRepository.class);
+        when(vehicleRepository.findByVehicleId(anyString())).thenReturn(vehicle);
+        ServiceFeeRepository serviceFeeRepository = mock(ServiceFeeRepository.class);
+        when(serviceFeeRepository.findAll())
+                .thenReturn(List.of(new ServiceFee(1L, "Oil Change", new BigDecimal("2500.00"), "Toyota", "Corolla", 45)));
+        ServiceFeeCatalog serviceFeeCatalog = new ServiceFeeCatalog();
+        serviceFeeCatalog.serviceFeeRepository = serviceFeeRepository;
+        serviceFeeCatalog.reload();
+
+        appointmentService.appointmentRepository = appointmentRepository;
+        appointmentService.holidayRepository = mock(HolidayRepository.class);
+        appointmentService.customerRepository = customerRepository;
+        appointmentService.vehicleRepository = vehicleRepository;
+        appointmentService.serviceFeeCatalog = serviceFeeCatalog;
+        appointmentService.roleRepository = mock(UserAccountRepository.class);
+
+        // The ledger row lock is a database concern; here the in-process date stripes must hold on their own
+        BookingDayLedgerRepository ledgerRepository = mock(BookingDayLedgerRepository.class);
+        when(ledgerRepository.lockByBookingDate(any())).thenAnswer(inv -> new BookingDayLedger(inv.getArgument(0), 0));
+        appointmentService.bookingDayLedgerRepository = ledgerRepository;
+        appointmentService.transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        appointmentService.slotHolds = new SlotHoldRegistry();
+        appointmentService.holidayCalendar = new HolidayCalendar();
+        appointmentService.holidayCalendar.holidayRepository = appointmentService.holidayRepository;
+        appointmentService.monthAvailabilityCache = new MonthAvailabilityCache();
+        appointmentService.slotChanges = new SlotChangeBroadcaster();
+    }
+
+    @Test
+    void heldSlotsAreNeitherOfferedNorBookable() {
+        LocalDate date = FIRST_DATE.plusDays(DAYS);
+        SlotHold hold = appointmentService.slotHolds.place(date, LocalTime.of(10, 0), LocalTime.of(10, 45), Duration.ofMinutes(10));
+
+        List<LocalTime> starts = appointmentService.getAvailableSlots(date, 45).stream()
+                .map(AppointmentSlot::getStartTime).collect(Collectors.toList());
+        assertTrue(starts.contains(LocalTime.of(9, 15)));
+        assertFalse(starts.contains(LocalTime.of(9, 30)));
+        assertFalse(starts.contains(LocalTime.of(10, 0)));
+        assertTrue(starts.contains(LocalTime.of(10, 45)));
+
+        AppointmentBookingRequest other = request(date, LocalTime.of(10, 30));
+        assertThrows(AppointmentConflictException.class, () -> appointmentService.bookAppointment(other, "200012345678"));
+
+        // The hold id only covers the slot it was placed for, neither an overlapping one nor a free one
+        AppointmentBookingRequest overlapping = request(date, LocalTime.of(10, 30));
+        overlapping.setHoldId(hold.getHoldId());
+        assertThrows(AppointmentConflictException.class, () -> appointmentService.bookAppointment(overlapping, "200012345678"));
+        AppointmentBookingRequest elsewhere = request(date, LocalTime.of(14, 0));
+        elsewhere.setHoldId(hold.getHoldId());
+        assertThrows(AppointmentConflictException.class, () -> appointmentService.bookAppointment(elsewhere, "200012345678"));
+        assertSame(hold, appointmentService.slotHolds.get(hold.getHoldId()));
+
+        // The holder books their own slot, which releases the hold
+        AppointmentBookingRequest holder = request(date, LocalTime.of(10, 0));
+        holder.setHoldId(hold.getHoldId());
+        assertNotNull(appointmentService.bookAppointment(holder, "200012345678"));
+        assertTrue(appointmentService.slotHolds.activeHolds(date).isEmpty());
+    }
+
+    @Test
+    void cancellingOnlyFreesWhatNothingElseStillCovers() {
+        LocalDate date = FIRST_DATE.plusDays(DAYS);
+        Appointment appointment = new Appointment();
+        appointment.setId(99L);
+        appointment.setDate(date);
+        appointment.setStartTime(LocalTime.of(10, 0));
+        appointment.setEndTime(LocalTime.of(11, 0));
+        appointment.setStatus(AppointmentStatus.UPCOMING);
+        appointment.setVehicle(ownedVehicle("200012345678"));
+        when(appointmentService.appointmentRepository.findById(99L)).thenReturn(Optional.of(appointment));
+        when(appointmentService.appointmentRepository.findByDate(date)).thenReturn(List.of(appointment));
+        HolidayRepository holidayRepository = mock(HolidayRepository.class);
+        when(holidayRepository.findAll()).thenReturn(List.of(new Holiday(1L, LocalTime.of(10, 45), LocalTime.of(12, 0), date)));
+        appointmentService.holidayCalendar.holidayRepository = holidayRepository;
+        appointmentService.holidayCalendar.reload();
+        appointmentService.slotHolds.place(date, LocalTime.of(10, 15), LocalTime.of(10, 30), Duration.ofMinutes(10));
+        SlotChangeBroadcaster slotChanges = mock(SlotChangeBroadcaster.class);
+        when(slotChanges.isWatched(date)).thenReturn(true);
+        appointmentService.slotChanges = slotChanges;
+
+        appointmentService.cancelAppointment(99L, "200012345678");
+
+        verify(slotChanges).slotFreed(date, LocalTime.of(10, 0), LocalTime.of(10, 15));
+        verify(slotChanges).slotFreed(date, LocalTime.of(10, 30), LocalTime.of(10, 45));
+        verify(slotChanges, times(2)).slotFreed(any(), any(), any());
+    }
+
+    @Test
+    void customersCannotCancelSomeoneElsesAppointment() {
+        LocalDate date = FIRST_DATE.plusDays(DAYS);
+        Appointment appointment = new Appointment();
+        appointment.setId(98L);
+        appointment.setDate(date);
+        appointment.setStartTime(LocalTime.of(10, 0));
+        appointment.setEndTime(LocalTime.of(11, 0));
+        appointment.setStatus(AppointmentStatus.UPCOMING);
+        appointment.setVehicle(ownedVehicle("200012345678"));
+        when(appointmentService.appointmentRepository.findById(98L)).thenReturn(Optional.of(appointment));
+
+        assertThrows(AppointmentService.ResourceNotFoundException.class,
+                () -> appointmentService.cancelAppointment(98L, "199900000000"));
+        assertThrows(AppointmentService.ResourceNotFoundException.class,
+                () -> appointmentService.cancelAppointment(98L, null));
+        assertEquals(AppointmentStatus.UPCOMING, appointment.getStatus());
+    }
+
+    @Test
+    void monthAvailabilityMatchesDaySlotsAndFollowsBookingsAndHolidays() {
+        YearMonth month = YearMonth.from(FIRST_DATE);
+        when(appointmentService.appointmentRepository.findByDate(any())).thenAnswer(inv -> saved.stream()
+                .filter(a -> a.getDate().equals(inv.getArgument(0))).collect(Collectors.toList()));
+        when(appointmentService.appointmentRepository.findByDateBetween(any(), any())).thenAnswer(inv -> {
+            LocalDate from = inv.getArgument(0);
+            LocalDate to = inv.getArgument(1);
+            return saved.stream().filter(a -> !a.getDate().isBefore(from) && !a.getDate().isAfter(to)).collect(Collectors.toList());
+        });
+        List<Holiday> holidays = new CopyOnWriteArrayList<>(List.of(new Holiday(1L, LocalTime.of(12, 0), LocalTime.of(13, 0), FIRST_DATE.plusDays(1))));
+        when(appointmentService.holidayRepository.findAll()).thenAnswer(inv -> new ArrayList<>(holidays));
+        when(appointmentService.holidayRepository.save(any(Holiday.class))).thenAnswer(inv -> {
+            Holiday holiday = inv.getArgument(0);
+            holidays.add(holiday);
+            return holiday;
+        });
+        appointmentService.holidayCalendar.reload();
+        appointmentService.bookAppointment(request(FIRST_DATE, LocalTime.of(10, 0)), "200012345678");
+
+        List<DayAvailability> before = appointmentService.getMonthAvailability(month, 45);
+        assertMonthMatchesDaySlots(month);
+        assertEquals(month.lengthOfMonth(), before.size());
+        // Nothing booked on the 1st: every quarter hour from 9:00 to 16:15
+        assertEquals(30, before.get(0).getFreeSlotCount());
+        assertEquals(480, before.get(0).getLongestFreeMinutes());
+        // 10:45 to 17:00 is the longest gap left around the 10:00 booking
+        assertEquals(375, before.get(FIRST_DATE.getDayOfMonth() - 1).getLongestFreeMinutes());
+
+        // A booking drops the cached month: 13:30 to 14:30 all overlap 14:00-14:45
+        LocalDate date = FIRST_DATE.plusDays(2);
+        appointmentService.bookAppointment(request(date, LocalTime.of(14, 0)), "200012345678");
+        assertEquals(before.get(date.getDayOfMonth() - 1).getFreeSlotCount() - 5,
+                appointmentService.getMonthAvailability(month, 45).get(date.getDayOfMonth() - 1).getFreeSlotCount());
+        assertMonthMatchesDaySlots(month);
+
+        // So does a holiday change
+        LocalDate closed = FIRST_DATE.plusDays(3);
+        appointmentService.setHolidays(new Holiday(2L, null, null, closed));
+        DayAvailability closedDay = appointmentService.getMonthAvailability(month, 45).get(closed.getDayOfMonth() - 1);
+        assertEquals(0, closedDay.getFreeSlotCount());
+        assertEquals(0, closedDay.getLongestFreeMinutes());
+        assertMonthMatchesDaySlots(month);
+    }
+
+    @Test
+    void slotSearchCoversAtMostMaxSearchDays() {
+        ReflectionTestUtils.setField(appointmentService, "maxSearchDays", 31);
+
+        // Both ends count, so 31 days run from the first date to thirty days after it
+        assertTrue(appointmentService.findAvailableSlotsBetween(FIRST_DATE, FIRST_DATE.plusDays(30), 45, 10).size() <= 10);
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.findAvailableSlotsBetween(FIRST_DATE, FIRST_DATE.plusDays(31), 45, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.findAvailableSlotsBetween(FIRST_DATE, FIRST_DATE.minusDays(1), 45, 10));
+        assertEquals(30, appointmentService.findAvailableSlotsBetween(FIRST_DATE, FIRST_DATE, 45, 100).size());
+        // The whole window is read with one query
+        verify(appointmentService.appointmentRepository).findByDateBetween(FIRST_DATE, FIRST_DATE.plusDays(30));
+    }
+
+    @Test
+    void slotSearchCarriesOnIntoLaterDaysInOrder() {
+        ReflectionTestUtils.setField(appointmentService, "maxSearchDays", 31);
+        when(appointmentService.appointmentRepository.findByDateBetween(any(), any())).thenAnswer(inv -> {
+            LocalDate from = inv.getArgument(0);
+            LocalDate to = inv.getArgument(1);
+            return saved.stream().filter(a -> !a.getDate().isBefore(from) && !a.getDate().isAfter(to)).collect(Collectors.toList());
+        });
+        when(appointmentService.holidayRepository.findAll())
+                .thenReturn(List.of(new Holiday(1L, null, null, FIRST_DATE)));
+        appointmentService.holidayCalendar.reload();
+        Appointment mostOfTheDay = new Appointment();
+        mostOfTheDay.setDate(FIRST_DATE.plusDays(1));
+        mostOfTheDay.setStartTime(LocalTime.of(9, 0));
+        mostOfTheDay.setEndTime(LocalTime.of(16, 0));
+        mostOfTheDay.setStatus(AppointmentStatus.UPCOMING);
+        saved.add(mostOfTheDay);
+        appointmentService.slotHolds.place(FIRST_DATE.plusDays(2), LocalTime.of(9, 0), LocalTime.of(9, 45), Duration.ofMinutes(10));
+
+        // The first date is a holiday, the second has room for two, and the third is free after the hold
+        List<DatedAppointmentSlot> firstFive = appointmentService.findAvailableSlotsBetween(FIRST_DATE, FIRST_DATE.plusDays(3), 45, 5);
+        assertEquals(List.of(
+                FIRST_DATE.plusDays(1) + " 16:00", FIRST_DATE.plusDays(1) + " 16:15",
+                FIRST_DATE.plusDays(2) + " 09:45", FIRST_DATE.plusDays(2) + " 10:00", FIRST_DATE.plusDays(2) + " 10:15"),
+                firstFive.stream().map(slot -> slot.getDate() + " " + slot.getStartTime()).toList());
+        assertEquals(LocalTime.of(16, 45), firstFive.get(0).getEndTime());
+
+        List<DatedAppointmentSlot> all = appointmentService.findAvailableSlotsBetween(FIRST_DATE, FIRST_DATE.plusDays(3), 45, 1000);
+        assertEquals(2 + 27 + 30, all.size());
+        assertEquals(FIRST_DATE.plusDays(3), all.get(all.size() - 1).getDate());
+        assertEquals(LocalTime.of(16, 15), all.get(all.size() - 1).getStartTime());
+    }
+
+    @Test
+    void parallelBookingsNeverOverlap() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < BOOKINGS; i++) {
+            LocalDate date = FIRST_DATE.plusDays(i % DAYS);
+            LocalTime startTime = LocalTime.of(9, 0).plusMinutes(15L * ThreadLocalRandom.current().nextInt(29));
+            AppointmentBookingRequest request = request(date, startTime);
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    appointmentService.bookAppointment(request, "200012345678");
+                } catch (AppointmentConflictException e) {
+                    conflicts.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(BOOKINGS, saved.size() + conflicts.get());
+        assertFalse(saved.isEmpty());
+        Map<LocalDate, List<Appointment>> byDate = saved.stream().collect(Collectors.groupingBy(Appointment::getDate));
+        for (List<Appointment> day : byDate.values()) {
+            for (int i = 0; i < day.size(); i++) {
+                for (int j = i + 1; j < day.size(); j++) {
+                    Appointment a = day.get(i);
+                    Appointment b = day.get(j);
+                    assertFalse(a.getStartTime().isBefore(b.getEndTime()) && b.getStartTime().isBefore(a.getEndTime()),
+                            "Overlapping appointments on " + a.getDate() + ": " + a.getStartTime() + " and " + b.getStartTime());
+                }
+            }
+        }
+    }
+
+    private void assertMonthMatchesDaySlots(YearMonth month) {
+        for (DayAvailability day : appointmentService.getMonthAvailability(month, 45)) {
+            assertEquals(appointmentService.getAvailableSlots(day.getDate(), 45).size(), day.getFreeSlotCount(), day.getDate().toString());
+        }
+    }
+
+    private static Vehicle ownedVehicle(String nicNo) {
+        Customer owner = new Customer(2L, "Owner", "Colombo", "071-000-0001", nicNo, null);
+        return new Vehicle(2L, "CAB-5678", new VehicleModel(1L, "Corolla", "Toyota", null), 2020, "CHASSIS0000002", owner, null, null);
+    }
+
+    private static AppointmentBookingRequest request(LocalDate date, LocalTime startTime) {
+        return new AppointmentBookingRequest(date, startTime, "CAB-1234", null, null, null,
+                "200012345678", null, null, BigDecimal.ZERO, "071-000-0000", List.of("Oil Change"));
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.*;
+import com.example.automobile.service.system.model.AppointmentBookingRequest;
+import com.example.automobile.service.system.model.AppointmentStatus;
+import com.example.automobile.service.system.model.BatchBookingRequest;
+import com.example.automobile.service.system.model.BatchBookingResult;
+import com.example.automobile.service.system.model.SlotHold;
+import com.example.automobile.service.system.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BatchBookingServiceTest {
+    private static final LocalDate DATE = LocalDate.of(2030, 1, 7);
+    private static final String KNOWN_NIC = "200012345678";
+
+    private final List<Customer> savedCustomers = new ArrayList<>();
+    private final List<Vehicle> savedVehicles = new ArrayList<>();
+    private final SimpleTransactionStatus transaction = new SimpleTransactionStatus();
+    private BatchBookingService batchBookingService;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        VehicleMake toyota = new VehicleMake(1L, "Toyota", null, null);
+        VehicleModel corolla = new VehicleModel(1L, "Corolla", "Toyota", toyota);
+        Customer customer = new Customer(1L, "Known Customer", "Colombo", "071-000-0000", KNOWN_NIC, null);
+        Vehicle vehicle = new Vehicle(1L, "CAB-1234", corolla, 2020, "CHASSIS0000001", customer, null, null);
+        Appointment booked = new Appointment();
+        booked.setDate(DATE);
+        booked.setStartTime(LocalTime.of(10, 0));
+        booked.setEndTime(LocalTime.of(10, 45));
+        booked.setStatus(AppointmentStatus.UPCOMING);
+
+        CustomerRepository customerRepository = mock(CustomerRepository.class);
+        when(customerRepository.findByNicNoIn(anyCollection())).thenReturn(List.of(customer));
+        when(customerRepository.save(any(Customer.class))).thenAnswer(inv -> {
+            Customer saved = inv.getArgument(0);
+            saved.setId(100L + savedCustomers.size());
+            savedCustomers.add(saved);
+            return saved;
+        });
+        VehicleRepository vehicleRepository = mock(VehicleRepository.class);
+        when(vehicleRepository.findWithModelByVehicleIdIn(anyCollection())).thenReturn(List.of(vehicle));
+        when(vehicleRepository.save(any(Vehicle.class))).thenAnswer(inv -> {
+            Vehicle saved = inv.getArgument(0);
+            saved.setId(100L + savedVehicles.size());
+            savedVehicles.add(saved);
+            return saved;
+        });
+        VehicleMakeRepository vehicleMakeRepository = mock(VehicleMakeRepository.class);
+        when(vehicleMakeRepository.findByName("Toyota")).thenReturn(toyota);
+        VehicleModelRepository vehicleModelRepository = mock(VehicleModelRepository.class);
+        when(vehicleModelRepository.findByNameAndVehicleMake(eq("Corolla"), any())).thenReturn(corolla);
+        AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+        when(appointmentRepository.findByDateIn(anyCollection())).thenReturn(List.of(booked));
+        BookingDayLedgerRepository ledgerRepository = mock(BookingDayLedgerRepository.class);
+        when(ledgerRepository.lockByBookingDate(any())).thenAnswer(inv -> new BookingDayLedger(inv.getArgument(0), 1));
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(transaction);
+
+        ServiceFeeCatalog serviceFeeCatalog = new ServiceFeeCatalog();
+        serviceFeeCatalog.replace(List.of(new ServiceFee(1L, "Oil Change", new BigDecimal("2500.00"), "Toyota", "Corolla", 45)));
+        HolidayCalendar holidayCalendar = new HolidayCalendar();
+        holidayCalendar.holidayRepository = mock(HolidayRepository.class);
+        SlotHoldRegistry slotHolds = new SlotHoldRegistry();
+
+        AppointmentService appointmentService = new AppointmentService();
+        ReflectionTestUtils.setField(appointmentService, "workingStartTimeStr", "09:00");
+        ReflectionTestUtils.setField(appointmentService, "workingEndTimeStr", "17:00");
+        appointmentService.customerRepository = customerRepository;
+        appointmentService.vehicleRepository = vehicleRepository;
+        appointmentService.vehicleMakeRepository = vehicleMakeRepository;
+        appointmentService.vehicleModelRepository = vehicleModelRepository;
+        appointmentService.bookingDayLedgerRepository = ledgerRepository;
+        appointmentService.slotHolds = slotHolds;
+
+        batchBookingService = new BatchBookingService();
+        batchBookingService.appointmentService = appointmentService;
+        batchBookingService.appointmentRepository = appointmentRepository;
+        batchBookingService.holidayCalendar = holidayCalendar;
+        batchBookingService.monthAvailabilityCache = new MonthAvailabilityCache();
+        batchBookingService.slotChanges = new SlotChangeBroadcaster();
+        batchBookingService.customerRepository = customerRepository;
+        batchBookingService.vehicleRepository = vehicleRepository;
+        batchBookingService.serviceFeeCatalog = serviceFeeCatalog;
+        batchBookingService.transactionTemplate = new TransactionTemplate(transactionManager);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        batchBookingService.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Test
+    void placesEachItemAndReportsItsOwnFailure() {
+        BatchBookingResult result = batchBookingService.bookAppointments(new BatchBookingRequest(List.of(
+                known(LocalTime.of(9, 0)),
+                known(LocalTime.of(9, 30)),
+                known(LocalTime.of(10, 15)),
+                known(LocalTime.of(16, 30)),
+                newVehicle("NEW-0001", "199900000001", "Prius", LocalTime.of(12, 0)),
+                newVehicle("NEW-0002", "199900000002", "Corolla", LocalTime.of(11, 0)),
+                newVehicle("NEW-0003", "199900000003", "Corolla", LocalTime.of(11, 15))), false));
+
+        assertEquals(2, result.getBookedCount());
+        assertEquals(5, result.getFailedCount());
+        List<String> errors = new ArrayList<>();
+        for (BatchBookingResult.ItemResult item : result.getItems()) {
+            errors.add(item.getError());
+        }
+        assertNull(errors.get(0));
+        assertEquals(LocalTime.of(9, 45), result.getItems().get(0).getEndTime());
+        assertEquals("The requested time slot is no longer available.", errors.get(1));
+        assertEquals("The requested time slot is no longer available.", errors.get(2));
+        assertTrue(errors.get(3).startsWith("Requested time is outside working hours"));
+        assertEquals("Vehicle model not recognised.", errors.get(4));
+        assertNull(errors.get(5));
+        assertEquals("The requested time slot is no longer available.", errors.get(6));
+
+        // Only the booked newcomer is kept; the ones whose items failed are never written
+        assertEquals(List.of("199900000002"), savedCustomers.stream().map(Customer::getNicNo).toList());
+        assertEquals(List.of("NEW-0002"), savedVehicles.stream().map(Vehicle::getVehicleId).toList());
+        assertFalse(transaction.isRollbackOnly());
+        verify(jdbcTemplate).execute(any(ConnectionCallback.class));
+    }
+
+    @Test
+    void allOrNothingBooksNothingWhenAnyItemFails() {
+        BatchBookingResult result = batchBookingService.bookAppointments(new BatchBookingRequest(List.of(
+                known(LocalTime.of(9, 0)),
+                newVehicle("NEW-0002", "199900000002", "Corolla", LocalTime.of(11, 0)),
+                known(LocalTime.of(10, 30))), true));
+
+        assertEquals(0, result.getBookedCount());
+        assertEquals(3, result.getFailedCount());
+        assertEquals("Not booked: another item in the batch failed.", result.getItems().get(0).getError());
+        assertEquals("Not booked: another item in the batch failed.", result.getItems().get(1).getError());
+        assertEquals("The requested time slot is no longer available.", result.getItems().get(2).getError());
+        assertTrue(savedCustomers.isEmpty());
+        assertTrue(savedVehicles.isEmpty());
+        assertTrue(transaction.isRollbackOnly());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void aHoldIdOnlyPassesOverTheSlotItWasPlacedFor() {
+        SlotHoldRegistry slotHolds = batchBookingService.appointmentService.slotHolds;
+        SlotHold hold = slotHolds.place(DATE, LocalTime.of(13, 0), LocalTime.of(13, 45), Duration.ofMinutes(10));
+        AppointmentBookingRequest elsewhere = known(LocalTime.of(14, 0));
+        elsewhere.setHoldId(hold.getHoldId());
+        AppointmentBookingRequest own = known(LocalTime.of(13, 0));
+        own.setHoldId(hold.getHoldId());
+
+        BatchBookingResult result = batchBookingService.bookAppointments(new BatchBookingRequest(List.of(
+                elsewhere, known(LocalTime.of(13, 15)), own), false));
+
+        assertEquals("The hold is for a different time slot than the booking.", result.getItems().get(0).getError());
+        assertEquals("The requested time slot is being held by another customer.", result.getItems().get(1).getError());
+        assertNull(result.getItems().get(2).getError());
+        assertNull(slotHolds.get(hold.getHoldId()));
+    }
+
+    @Test
+    void vehiclesKnownOnlyByChassisGetTheirOwnPlaceholderIds() {
+        BatchBookingResult result = batchBookingService.bookAppointments(new BatchBookingRequest(List.of(
+                newVehicle("JTDBR32E720000001", "199900000004", "Corolla", LocalTime.of(13, 0)),
+                newVehicle("JTDBR32E720000002", "199900000005", "Corolla", LocalTime.of(14, 0)),
+                newVehicle("JTDBR32E720000003", "199900000006", "Corolla", LocalTime.of(15, 0))), false));
+
+        assertEquals(3, result.getBookedCount());
+        List<String> vehicleIds = savedVehicles.stream().map(Vehicle::getVehicleId).toList();
+        assertEquals(3, Set.copyOf(vehicleIds).size());
+        assertTrue(vehicleIds.stream().allMatch(id -> id.startsWith("TEMP_")));
+        assertEquals(List.of("JTDBR32E720000001", "JTDBR32E720000002", "JTDBR32E720000003"),
+                savedVehicles.stream().map(Vehicle::getChassisNo).toList());
+    }
+
+    private static AppointmentBookingRequest known(LocalTime startTime) {
+        return new AppointmentBookingRequest(DATE, startTime, "CAB-1234", null, null, null,
+                KNOWN_NIC, null, null, BigDecimal.ZERO, "071-000-0000", List.of("Oil Change"));
+    }
+
+    private static AppointmentBookingRequest newVehicle(String vehicleId, String nic, String model, LocalTime startTime) {
+        return new AppointmentBookingRequest(DATE, startTime, vehicleId, "Toyota", model, 2022,
+                nic, "New Customer", "Kandy", BigDecimal.ZERO, "077-000-0000", List.of("Oil Change"));
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.*;
+import com.example.automobile.service.system.model.BillLineItemKind;
+import com.example.automobile.service.system.model.BillingRequest;
+import com.example.automobile.service.system.model.ServiceRevenue;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class BillLineItemServiceTest {
+    // Far enough ahead that no other test bills on these dates
+    private static final LocalDate REPORT_MONTH = LocalDate.of(2035, 5, 1);
+
+    @Autowired
+    BillLineItemService billLineItemService;
+    @Autowired
+    BillingService billingService;
+    @Autowired
+    EntityManager entityManager;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    private Vehicle vehicle;
+
+    @BeforeEach
+    void setUp() {
+        String tag = "LI" + System.nanoTime();
+        vehicle = transactionTemplate.execute(status -> {
+            VehicleMake make = new VehicleMake();
+            make.setName("Toyota");
+            entityManager.persist(make);
+            VehicleModel model = new VehicleModel();
+            model.setName(tag);
+            model.setMakeName("Toyota");
+            model.setVehicleMake(make);
+            entityManager.persist(model);
+            Customer customer = new Customer();
+            customer.setName("Line Item Customer");
+            customer.setNicNo(tag);
+            customer.setPhoneNo(tag);
+            entityManager.persist(customer);
+            Vehicle created = new Vehicle();
+            created.setVehicleId(tag);
+            created.setChassisNo(tag);
+            created.setYear(2020);
+            created.setModel(model);
+            created.setOwner(customer);
+            entityManager.persist(created);
+            return created;
+        });
+    }
+
+    @Test
+    void parsesLegacyDetailsIntoLineItems() {
+        BillLineItemService parser = new BillLineItemService();
+        parser.serviceFeeCatalog = mock(ServiceFeeCatalog.class);
+        LocalDateTime billedAt = LocalDateTime.of(2024, 3, 1, 10, 0);
+        when(parser.serviceFeeCatalog.feeIdAt("Corolla", "Oil Change", billedAt)).thenReturn(7L);
+        String longDescription = "Detailing ".repeat(40).trim();
+
+        List<BillLineItem> lines = parser.parse(String.join("\n",
+                "Oil Change: Rs.2500.00",
+                "Wheel alignment: front: Rs. see notes: Rs.1500.50",
+                "Inspection: Rs.free",
+                "Inspection: Rs.",
+                ": Rs.100.00",
+                "Parts Cost: Rs.4200.00",
+                "Loose text without an amount",
+                longDescription + ": Rs.900.00"), "Corolla", billedAt);
+
+        assertEquals(4, lines.size());
+        assertLine(lines.get(0), BillLineItemKind.SERVICE, "Oil Change", "2500.00");
+        assertEquals(7L, lines.get(0).getServiceFeeId());
+        // Only the last separator splits off the amount
+        assertLine(lines.get(1), BillLineItemKind.CUSTOM, "Wheel alignment: front: Rs. see notes", "1500.50");
+        assertLine(lines.get(2), BillLineItemKind.PARTS, "Parts Cost", "4200.00");
+        assertLine(lines.get(3), BillLineItemKind.CUSTOM, longDescription.substring(0, BillLineItem.MAX_DESCRIPTION_LENGTH), "900.00");
+        assertNull(lines.get(1).getServiceFeeId());
+        assertTrue(parser.parse(null, "Corolla", billedAt).isEmpty());
+    }
+
+    @Test
+    void backfillItemizesEveryRecordAcrossChunkBoundaries() {
+        int recordCount = BillLineItemService.BACKFILL_CHUNK_SIZE * 2 + 1;
+        List<Long> ids = transactionTemplate.execute(status -> {
+            List<Long> created = new ArrayList<>();
+            for (int i = 0; i < recordCount; i++) {
+                // Every seventh record has nothing to parse and must not stop the run
+                String details = i % 7 == 3 ? "Handwritten bill" : "Custom job " + i + ": Rs." + i + ".00\nParts Cost: Rs.10.00";
+                created.add(bill(LocalDateTime.of(2024, 1, 1, 9, 0).plusMinutes(i), details).getId());
+            }
+            return created;
+        });
+
+        assertTrue(billLineItemService.backfill() >= recordCount - recordCount / 7);
+        for (int i = 0; i < recordCount; i++) {
+            List<BillLineItem> lines = billLineItemService.lineItems(ids.get(i));
+            if (i % 7 == 3) {
+                assertTrue(lines.isEmpty());
+            } else {
+                assertEquals(2, lines.size(), "record " + i);
+                assertEquals(0, lines.get(0).getLineNo());
+                assertLine(lines.get(0), BillLineItemKind.CUSTOM, "Custom job " + i, i + ".00");
+                assertLine(lines.get(1), BillLineItemKind.PARTS, "Parts Cost", "10.00");
+            }
+        }
+        // Running again finds nothing left to do
+        assertEquals(0, billLineItemService.backfill());
+    }
+
+    @Test
+    void revenueByServiceSumsGrossServiceLinesWithinTheRange() {
+        transactionTemplate.executeWithoutResult(status -> {
+            itemize(bill(REPORT_MONTH.atStartOfDay(), "first"),
+                    line(BillLineItemKind.SERVICE, "Oil Change", "2500.00", 1),
+                    line(BillLineItemKind.CUSTOM, "Polish", "1000.00", 1),
+                    line(BillLineItemKind.PARTS, "Parts Cost", "4000.00", 1));
+            itemize(bill(REPORT_MONTH.plusDays(14).atTime(12, 0), "second"),
+                    line(BillLineItemKind.SERVICE, "Oil Change", "2500.00", 1),
+                    line(BillLineItemKind.SERVICE, "Wheel Alignment", "1500.00", 2),
+                    // Revenue is gross, so discounts and tax do not change it
+                    line(BillLineItemKind.DISCOUNT, "Oil promo (Oil Change)", "-250.00", 1),
+                    line(BillLineItemKind.TAX, "VAT", "945.00", 1));
+            itemize(bill(REPORT_MONTH.plusDays(30).atTime(23, 30), "last day"),
+                    line(BillLineItemKind.CUSTOM, "Polish", "2800.00", 1));
+            // Just outside the month on either side
+            itemize(bill(REPORT_MONTH.minusDays(1).atTime(23, 59), "before"),
+                    line(BillLineItemKind.SERVICE, "Oil Change", "9999.00", 1));
+            itemize(bill(REPORT_MONTH.plusMonths(1).atStartOfDay(), "after"),
+                    line(BillLineItemKind.SERVICE, "Oil Change", "9999.00", 1));
+        });
+        LocalDate monthEnd = REPORT_MONTH.plusMonths(1).minusDays(1);
+
+        List<ServiceRevenue> services = billLineItemService.revenueByService(REPORT_MONTH, monthEnd, false);
+        assertEquals(2, services.size());
+        assertRevenue(services.get(0), "Oil Change", 2, 2, "5000.00");
+        assertRevenue(services.get(1), "Wheel Alignment", 1, 2, "3000.00");
+
+        List<ServiceRevenue> withCustom = billLineItemService.revenueByService(REPORT_MONTH, monthEnd, true);
+        assertEquals(3, withCustom.size());
+        assertRevenue(withCustom.get(0), "Oil Change", 2, 2, "5000.00");
+        assertRevenue(withCustom.get(1), "Polish", 2, 2, "3800.00");
+        assertRevenue(withCustom.get(2), "Wheel Alignment", 1, 2, "3000.00");
+
+        assertThrows(IllegalArgumentException.class, () -> billLineItemService.revenueByService(monthEnd, REPORT_MONTH, false));
+    }
+
+    @Test
+    void customDescriptionsLongerThanTheColumnAreRefused() {
+        BillingRequest request = new BillingRequest(vehicle.getId(), List.of(),
+                List.of(new BillingRequest.CustomServiceItem("x".repeat(BillLineItem.MAX_DESCRIPTION_LENGTH + 1), new BigDecimal("10.00"))),
+                BigDecimal.ZERO, null);
+
+        assertThrows(IllegalArgumentException.class, () -> billingService.calculateAndSaveBill(request));
+    }
+
+    private ServiceRecord bill(LocalDateTime billedAt, String details) {
+        ServiceRecord record = new ServiceRecord();
+        record.setVehicle(vehicle);
+        record.setServiceDateTime(billedAt);
+        record.setServiceDetails(details);
+        record.setTotalCost(BigDecimal.ZERO);
+        entityManager.persist(record);
+        return record;
+    }
+
+    private void itemize(ServiceRecord record, BillLineItem... lines) {
+        entityManager.flush();
+        billLineItemService.insert(record.getId(), List.of(lines));
+    }
+
+    private static BillLineItem line(BillLineItemKind kind, String description, String unitPrice, int quantity) {
+        return new BillLineItem(null, null, 0, kind, description, new BigDecimal(unitPrice), quantity, null);
+    }
+
+    private static void assertLine(BillLineItem line, BillLineItemKind kind, String description, String amount) {
+        assertEquals(kind, line.getKind());
+        assertEquals(description, line.getDescription());
+        assertEquals(0, new BigDecimal(amount).compareTo(line.getUnitPrice()), description);
+        assertEquals(1, line.getQuantity());
+    }
+
+    private static void assertRevenue(ServiceRevenue revenue, String description, long bills, long quantity, String amount) {
+        assertEquals(description, revenue.getDescription());
+        assertEquals(bills, revenue.getBillCount());
+        assertEquals(quantity, revenue.getQuantity());
+        assertEquals(0, new BigDecimal(amount).compareTo(revenue.getRevenue()), description);
+    }
+}
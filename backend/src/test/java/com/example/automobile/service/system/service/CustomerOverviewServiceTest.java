@@ -0,0 +1,112 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.*;
+import com.example.automobile.service.system.model.AppointmentStatus;
+import com.example.automobile.service.system.model.CustomerOverview;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class CustomerOverviewServiceTest {
+    private static final int VEHICLES = 6;
+
+    @Autowired
+    CustomerOverviewService customerOverviewService;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    EntityManager entityManager;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private String nicNo;
+
+    @BeforeEach
+    void setUp() {
+        nicNo = "OV" + System.nanoTime();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            VehicleMake make = new VehicleMake();
+            make.setName("Toyota");
+            entityManager.persist(make);
+            VehicleModel model = new VehicleModel();
+            model.setName("Corolla");
+            model.setMakeName("Toyota");
+            model.setVehicleMake(make);
+            entityManager.persist(model);
+            Cashier cashier = new Cashier(null, "Counter 1", "0110000000", "counter@example.com");
+            entityManager.persist(cashier);
+
+            Customer customer = new Customer();
+            customer.setName("Overview Customer");
+            customer.setNicNo(nicNo);
+            customer.setPhoneNo(nicNo);
+            entityManager.persist(customer);
+
+            for (int i = 0; i < VEHICLES; i++) {
+                Vehicle vehicle = new Vehicle();
+                vehicle.setVehicleId(nicNo + "-V" + i);
+                vehicle.setChassisNo(nicNo + "-C" + i);
+                vehicle.setYear(2015 + i);
+                vehicle.setModel(model);
+                vehicle.setOwner(customer);
+                entityManager.persist(vehicle);
+
+                Appointment upcoming = new Appointment();
+                upcoming.setDate(LocalDate.now().plusDays(i + 1));
+                upcoming.setStartTime(LocalTime.of(9, 0));
+                upcoming.setEndTime(LocalTime.of(10, 0));
+                upcoming.setVehicle(vehicle);
+                upcoming.setStatus(AppointmentStatus.UPCOMING);
+                entityManager.persist(upcoming);
+
+                Appointment past = new Appointment();
+                past.setDate(LocalDate.now().minusDays(i + 1));
+                past.setStartTime(LocalTime.of(9, 0));
+                past.setEndTime(LocalTime.of(10, 0));
+                past.setVehicle(vehicle);
+                past.setStatus(AppointmentStatus.COMPLETED);
+                entityManager.persist(past);
+
+                for (int j = 0; j < 3; j++) {
+                    ServiceRecord record = new ServiceRecord();
+                    record.setVehicle(vehicle);
+                    record.setServiceDateTime(LocalDateTime.now().minusDays(i * 3L + j));
+                    record.setServiceDetails("Oil change: Rs.100.00");
+                    record.setTotalCost(new BigDecimal("100.00"));
+                    record.setProcessedByCashier(cashier);
+                    record.setAppointment(j == 0 ? past : null);
+                    entityManager.persist(record);
+                }
+            }
+        });
+    }
+
+    @Test
+    void overviewUsesFourStatementsRegardlessOfVehicleCount() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        CustomerOverview overview = customerOverviewService.getOverview(nicNo);
+
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertEquals(VEHICLES, overview.getVehicles().size());
+        assertEquals(VEHICLES, overview.getUpcomingAppointments().size());
+        assertEquals(CustomerOverviewService.RECENT_SERVICE_RECORDS, overview.getRecentServiceRecords().size());
+        assertEquals("Counter 1", overview.getRecentServiceRecords().get(0).getProcessedByCashierName());
+    }
+}
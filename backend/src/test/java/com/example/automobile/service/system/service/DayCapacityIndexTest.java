@@ -0,0 +1,220 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.Appointment;
+import com.example.automobile.service.system.entity.Holiday;
+import com.example.automobile.service.system.model.AppointmentSlot;
+import com.example.automobile.service.system.model.AppointmentStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the bitmap against the per-slot loop that getAvailableSlots used before it, on random days.
+ */
+class DayCapacityIndexTest {
+    private static final LocalDate DATE = LocalDate.of(2030, 1, 7);
+    private static final int[] GRANULARITIES = {1, 5, 7, 10, 15, 20, 30, 45, 60};
+    private static final int[] DURATIONS = {1, 10, 15, 25, 30, 45, 60, 90, 120, 135, 180};
+
+    @Test
+    void matchesCheckingEverySlotAgainstEveryEntry() {
+        Random random = new Random(20300107L);
+        for (int round = 0; round < 3000; round++) {
+            LocalTime windowStart = LocalTime.of(6, 0).plusMinutes(random.nextInt(240));
+            // Any length, so the grid often does not divide the working day
+            LocalTime windowEnd = windowStart.plusMinutes(random.nextInt(11 * 60));
+            int granularity = GRANULARITIES[random.nextInt(GRANULARITIES.length)];
+            int duration = random.nextInt(4) == 0 ? 1 + random.nextInt(240) : DURATIONS[random.nextInt(DURATIONS.length)];
+            List<Appointment> appointments = randomAppointments(random, windowStart, windowEnd);
+            List<Holiday> holidays = randomHolidays(random, windowStart, windowEnd);
+
+            DayCapacityIndex index = DayCapacityIndex.forWindow(windowStart, windowEnd)
+                    .appointments(appointments)
+                    .holidays(holidays)
+                    .build(granularity, duration);
+            String context = "round " + round + ": window " + windowStart + "-" + windowEnd + ", every " + granularity
+                    + " min for " + duration + " min, appointments " + describe(appointments) + ", holidays " + describeHolidays(holidays);
+
+            List<AppointmentSlot> expected = perSlotLoop(windowStart, windowEnd, granularity, duration, appointments, holidays);
+            assertEquals(times(expected), times(index.availableSlots()), context);
+            assertEquals(expected.size(), index.countAvailableSlots(), context);
+            assertEquals(longestFree(windowStart, windowEnd, appointments, holidays), index.longestFreeMinutes(), context);
+        }
+    }
+
+    @Test
+    void fullyBlockedDaysHaveNoSlots() {
+        LocalTime start = LocalTime.of(9, 0);
+        LocalTime end = LocalTime.of(17, 0);
+        DayCapacityIndex wholeDay = DayCapacityIndex.forWindow(start, end)
+                .holidays(List.of(new Holiday(1L, null, null, DATE)))
+                .build(15, 30);
+        assertTrue(wholeDay.availableSlots().isEmpty());
+        assertEquals(0, wholeDay.countAvailableSlots());
+        assertEquals(0, wholeDay.longestFreeMinutes());
+
+        DayCapacityIndex covered = DayCapacityIndex.forWindow(start, end)
+                .appointments(List.of(appointment(LocalTime.of(8, 59, 30), LocalTime.of(13, 0), AppointmentStatus.UPCOMING)))
+                .holidays(List.of(new Holiday(2L, LocalTime.of(12, 59), LocalTime.of(17, 0, 1), DATE)))
+                .build(15, 15);
+        assertEquals(0, covered.countAvailableSlots());
+        assertEquals(0, covered.longestFreeMinutes());
+    }
+
+    @Test
+    void zeroLengthAndReversedEntriesOnlyBlockSlotsSpanningThem() {
+        DayCapacityIndex index = DayCapacityIndex.forWindow(LocalTime.of(9, 0), LocalTime.of(12, 0))
+                .appointments(List.of(appointment(LocalTime.of(10, 0), LocalTime.of(10, 0), AppointmentStatus.UPCOMING)))
+                .holidays(List.of(new Holiday(1L, LocalTime.of(11, 30), LocalTime.of(11, 0), DATE)))
+                .build(30, 60);
+
+        // 9:30 straddles the zero-length entry, and 10:00 to 11:00 ends exactly where the reversed one starts
+        assertEquals(List.of(LocalTime.of(9, 0), LocalTime.of(10, 0), LocalTime.of(10, 30), LocalTime.of(11, 0)), times(index.availableSlots()));
+        // 10:00 to 12:00 would cover the whole reversed 11:00-11:30 entry
+        assertEquals(90, index.longestFreeMinutes());
+    }
+
+    /**
+     * The loop getAvailableSlots ran before the index, kept as the reference.
+     */
+    private static List<AppointmentSlot> perSlotLoop(LocalTime workingStartTime, LocalTime workingEndTime, int granularity,
+                                                     int duration, List<Appointment> appointments, List<Holiday> holidays) {
+        List<AppointmentSlot> availableSlots = new ArrayList<>();
+        List<Appointment> existingAppointments = appointments.stream()
+                .filter(a -> a.getStatus() != AppointmentStatus.CANCELLED)
+                .toList();
+        LocalTime potentialStartTime = workingStartTime;
+        while (!potentialStartTime.isAfter(workingEndTime)) {
+            LocalTime potentialEndTime = potentialStartTime.plusMinutes(duration);
+            if (potentialEndTime.isAfter(workingEndTime)) {
+                break;
+            }
+            if (isFree(potentialStartTime, potentialEndTime, existingAppointments, holidays)) {
+                availableSlots.add(new AppointmentSlot(potentialStartTime, potentialEndTime));
+            }
+            potentialStartTime = potentialStartTime.plusMinutes(granularity);
+        }
+        return availableSlots;
+    }
+
+    private static boolean isFree(LocalTime start, LocalTime end, List<Appointment> appointments, List<Holiday> holidays) {
+        for (Holiday holiday : holidays) {
+            LocalTime holidayStart = holiday.getStartTime() != null ? holiday.getStartTime() : LocalTime.MIN;
+            LocalTime holidayEnd = holiday.getEndTime() != null ? holiday.getEndTime() : LocalTime.MAX;
+            if (start.isBefore(holidayEnd) && end.isAfter(holidayStart)) {
+                return false;
+            }
+        }
+        for (Appointment existing : appointments) {
+            if (existing.getStatus() != AppointmentStatus.CANCELLED
+                    && start.isBefore(existing.getEndTime()) && end.isAfter(existing.getStartTime())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Longest whole-minute stretch of the window that the same overlap check calls free.
+     */
+    private static int longestFree(LocalTime windowStart, LocalTime windowEnd, List<Appointment> appointments, List<Holiday> holidays) {
+        int windowMinutes = (int) ((windowEnd.toSecondOfDay() - windowStart.toSecondOfDay()) / 60);
+        int longest = 0;
+        for (int from = 0; from < windowMinutes; from++) {
+            LocalTime start = windowStart.plusMinutes(from);
+            // A longer stretch overlaps everything a shorter one does, so search for the longest free one
+            int lo = 0;
+            int hi = windowMinutes - from;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (isFree(start, start.plusMinutes(mid), appointments, holidays)) {
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            longest = Math.max(longest, lo);
+        }
+        return longest;
+    }
+
+    private static List<Appointment> randomAppointments(Random random, LocalTime windowStart, LocalTime windowEnd) {
+        List<Appointment> appointments = new ArrayList<>();
+        int count = random.nextInt(8);
+        for (int i = 0; i < count; i++) {
+            LocalTime start = randomTime(random, windowStart, windowEnd);
+            LocalTime end = lengthAfter(random, start);
+            AppointmentStatus status = random.nextInt(5) == 0 ? AppointmentStatus.CANCELLED : AppointmentStatus.UPCOMING;
+            appointments.add(appointment(start, end, status));
+        }
+        return appointments;
+    }
+
+    private static List<Holiday> randomHolidays(Random random, LocalTime windowStart, LocalTime windowEnd) {
+        List<Holiday> holidays = new ArrayList<>();
+        int count = random.nextInt(10) == 0 ? 1 : random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            LocalTime start = random.nextInt(8) == 0 ? null : randomTime(random, windowStart, windowEnd);
+            LocalTime end = random.nextInt(8) == 0 ? null : lengthAfter(random, start != null ? start : windowStart);
+            holidays.add(new Holiday((long) i, start, end, DATE));
+        }
+        return holidays;
+    }
+
+    /**
+     * Mostly on the minute grid, sometimes off it by seconds, sometimes outside the window.
+     */
+    private static LocalTime randomTime(Random random, LocalTime windowStart, LocalTime windowEnd) {
+        int span = (int) ((windowEnd.toSecondOfDay() - windowStart.toSecondOfDay()) / 60);
+        LocalTime time = windowStart.minusMinutes(60).plusMinutes(random.nextInt(span + 121));
+        switch (random.nextInt(6)) {
+            case 0:
+                return time.plusSeconds(1 + random.nextInt(59));
+            case 1:
+                return time.plusMinutes(random.nextInt(4)).withMinute(random.nextInt(4) * 15);
+            default:
+                return time;
+        }
+    }
+
+    private static LocalTime lengthAfter(Random random, LocalTime start) {
+        switch (random.nextInt(8)) {
+            case 0:
+                return start;
+            case 1:
+                // Reversed, as a bad edit might leave it
+                return start.minusMinutes(random.nextInt(90)).minusSeconds(random.nextInt(2) * 30L);
+            case 2:
+                return start.plusSeconds(1 + random.nextInt(90));
+            default:
+                return start.plusMinutes(5 + random.nextInt(150));
+        }
+    }
+
+    private static Appointment appointment(LocalTime start, LocalTime end, AppointmentStatus status) {
+        Appointment appointment = new Appointment();
+        appointment.setDate(DATE);
+        appointment.setStartTime(start);
+        appointment.setEndTime(end);
+        appointment.setStatus(status);
+        return appointment;
+    }
+
+    private static List<LocalTime> times(List<AppointmentSlot> slots) {
+        return slots.stream().map(AppointmentSlot::getStartTime).toList();
+    }
+
+    private static String describe(List<Appointment> appointments) {
+        return appointments.stream().map(a -> a.getStartTime() + "-" + a.getEndTime() + "/" + a.getStatus()).toList().toString();
+    }
+
+    private static String describeHolidays(List<Holiday> holidays) {
+        return holidays.stream().map(h -> h.getStartTime() + "-" + h.getEndTime()).toList().toString();
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.Holiday;
+import com.example.automobile.service.system.repository.HolidayRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HolidayCalendarTest {
+    private static final LocalDate DATE = LocalDate.of(2030, 1, 7);
+
+    private HolidayRepository holidayRepository;
+    private HolidayCalendar calendar;
+
+    @BeforeEach
+    void setUp() {
+        holidayRepository = mock(HolidayRepository.class);
+        calendar = new HolidayCalendar();
+        calendar.holidayRepository = holidayRepository;
+    }
+
+    @Test
+    void mergesEntriesAndKeepsTheBookingCheckBoundaries() {
+        load(new Holiday(1L, LocalTime.of(9, 0), LocalTime.of(10, 0), DATE),
+                new Holiday(2L, LocalTime.of(9, 30), LocalTime.of(9, 45), DATE),
+                new Holiday(3L, LocalTime.of(10, 0), LocalTime.of(10, 30), DATE),
+                new Holiday(4L, LocalTime.of(12, 0), LocalTime.of(12, 0), DATE),
+                new Holiday(5L, LocalTime.of(15, 0), LocalTime.of(14, 0), DATE),
+                new Holiday(6L, null, null, DATE.plusDays(1)));
+
+        assertFalse(blocked(DATE, 8, 0, 9, 0));
+        assertTrue(blocked(DATE, 8, 30, 9, 1));
+        // 9:00-10:00 and 10:00-10:30 touch, so they block as one stretch
+        assertTrue(blocked(DATE, 9, 55, 10, 5));
+        assertTrue(blocked(DATE, 10, 29, 11, 0));
+        assertFalse(blocked(DATE, 10, 30, 11, 0));
+
+        // A zero-length entry only blocks times that contain it
+        assertFalse(blocked(DATE, 11, 30, 12, 0));
+        assertFalse(blocked(DATE, 12, 0, 12, 30));
+        assertTrue(blocked(DATE, 11, 45, 12, 15));
+
+        // A reversed entry blocks times that start before its end and finish after its start
+        assertFalse(blocked(DATE, 13, 30, 14, 30));
+        assertFalse(blocked(DATE, 14, 30, 15, 30));
+        assertTrue(blocked(DATE, 13, 30, 15, 30));
+
+        assertTrue(calendar.isHoliday(DATE.plusDays(1)));
+        assertTrue(blocked(DATE.plusDays(1), 0, 0, 0, 1));
+        assertFalse(calendar.isHoliday(DATE.plusDays(2)));
+        assertFalse(blocked(DATE.plusDays(2), 9, 0, 17, 0));
+    }
+
+    @Test
+    void matchesCheckingEveryEntry() {
+        Random random = new Random(7L);
+        for (int round = 0; round < 2000; round++) {
+            List<Holiday> holidays = new ArrayList<>();
+            int count = random.nextInt(6);
+            for (int i = 0; i < count; i++) {
+                LocalTime start = random.nextInt(10) == 0 ? null : randomTime(random);
+                LocalTime end = random.nextInt(10) == 0 ? null : randomTime(random);
+                holidays.add(new Holiday((long) i, start, end, DATE));
+            }
+            load(holidays.toArray(new Holiday[0]));
+
+            for (int query = 0; query < 20; query++) {
+                LocalTime start = randomTime(random);
+                LocalTime end = start.plusMinutes(1 + random.nextInt(120));
+                if (end.isBefore(start)) {
+                    continue;
+                }
+                assertEquals(checkEveryEntry(holidays, start, end), calendar.isBlocked(DATE, start, end),
+                        "round " + round + ": " + start + "-" + end + " against " + describe(holidays));
+            }
+        }
+    }
+
+    @Test
+    void bookingChecksSeeHolidaysTheSnapshotHasNotLoadedYet() {
+        load();
+        Holiday added = new Holiday(1L, LocalTime.of(12, 0), LocalTime.of(13, 0), DATE);
+        when(holidayRepository.findAllByDate(DATE)).thenReturn(List.of(added));
+        when(holidayRepository.findByDateBetween(DATE, DATE.plusDays(3))).thenReturn(List.of(added,
+                new Holiday(2L, LocalTime.of(14, 0), LocalTime.of(13, 30), DATE.plusDays(3)),
+                new Holiday(3L, null, null, DATE.plusDays(2))));
+
+        assertFalse(calendar.isBlocked(DATE, LocalTime.of(12, 30), LocalTime.of(13, 30)));
+        assertTrue(calendar.isBlockedInDatabase(DATE, LocalTime.of(12, 30), LocalTime.of(13, 30)));
+        assertFalse(calendar.isBlockedInDatabase(DATE, LocalTime.of(13, 0), LocalTime.of(14, 0)));
+
+        // Dates between the requested ones are read but left out
+        Map<LocalDate, HolidayCalendar.Day> days = calendar.readDays(Set.of(DATE, DATE.plusDays(3)));
+        assertEquals(Set.of(DATE, DATE.plusDays(3)), days.keySet());
+        assertTrue(days.get(DATE).blocks(LocalTime.of(12, 30), LocalTime.of(13, 30)));
+        assertTrue(days.get(DATE.plusDays(3)).blocks(LocalTime.of(13, 0), LocalTime.of(14, 30)));
+        assertFalse(days.get(DATE.plusDays(3)).blocks(LocalTime.of(13, 30), LocalTime.of(14, 30)));
+    }
+
+    private void load(Holiday... holidays) {
+        when(holidayRepository.findAll()).thenReturn(List.of(holidays));
+        calendar.reload();
+    }
+
+    private boolean blocked(LocalDate date, int startHour, int startMinute, int endHour, int endMinute) {
+        return calendar.isBlocked(date, LocalTime.of(startHour, startMinute), LocalTime.of(endHour, endMinute));
+    }
+
+    // The check validateAppointmentTime made against each holiday before the calendar existed
+    private static boolean checkEveryEntry(List<Holiday> holidays, LocalTime startTime, LocalTime endTime) {
+        for (Holiday holiday : holidays) {
+            LocalTime holidayStart = holiday.getStartTime() != null ? holiday.getStartTime() : LocalTime.MIN;
+            LocalTime holidayEnd = holiday.getEndTime() != null ? holiday.getEndTime() : LocalTime.MAX;
+            if (startTime.isBefore(holidayEnd) && endTime.isAfter(holidayStart)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static LocalTime randomTime(Random random) {
+        LocalTime time = LocalTime.of(7, 0).plusMinutes(random.nextInt(12 * 60));
+        return random.nextInt(5) == 0 ? time.plusSeconds(random.nextInt(60)) : time;
+    }
+
+    private static String describe(List<Holiday> holidays) {
+        return holidays.stream().map(h -> h.getStartTime() + "-" + h.getEndTime()).toList().toString();
+    }
+}
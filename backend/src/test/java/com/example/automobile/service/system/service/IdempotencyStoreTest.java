@@ -0,0 +1,115 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.exception.IdempotencyKeyConflictException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore();
+        store.objectMapper = new ObjectMapper();
+    }
+
+    @Test
+    void replaysReturnTheStoredResult() {
+        AtomicInteger runs = new AtomicInteger();
+        String first = store.execute("booking", "key-1", Map.of("slot", "10:00"), () -> "booked-" + runs.incrementAndGet());
+        String retry = store.execute("booking", "key-1", Map.of("slot", "10:00"), () -> "booked-" + runs.incrementAndGet());
+
+        assertEquals("booked-1", first);
+        assertSame(first, retry);
+        assertEquals(1, runs.get());
+        // The same key on another endpoint is a different request
+        assertEquals("billed", store.execute("billing", "key-1", Map.of("slot", "10:00"), () -> "billed"));
+    }
+
+    @Test
+    void concurrentDuplicatesWaitForTheFirstInsteadOfRunning() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        Callable<String> request = () -> store.execute("booking", "key-2", Map.of("slot", "10:00"), () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "booked";
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(request);
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            Future<String> duplicate = executor.submit(request);
+            // The duplicate is parked on the first request's result, not running the action
+            assertThrows(TimeoutException.class, () -> duplicate.get(200, TimeUnit.MILLISECONDS));
+
+            release.countDown();
+            assertEquals("booked", first.get(10, TimeUnit.SECONDS));
+            assertEquals("booked", duplicate.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void aFailedRequestFreesItsKey() {
+        assertThrows(IllegalStateException.class, () -> store.execute("billing", "key-3", List.of("oil"), () -> {
+            throw new IllegalStateException("Out of stock");
+        }));
+
+        assertEquals("billed", store.execute("billing", "key-3", List.of("oil"), () -> "billed"));
+    }
+
+    @Test
+    void reusingAKeyForADifferentBodyIsAConflict() {
+        store.execute("booking", "key-4", Map.of("slot", "10:00"), () -> "booked");
+
+        assertThrows(IdempotencyKeyConflictException.class,
+                () -> store.execute("booking", "key-4", Map.of("slot", "11:00"), () -> "booked again"));
+    }
+
+    @Test
+    void aDuplicateThatOutwaitsTheFirstRequestIsAConflict() throws Exception {
+        ReflectionTestUtils.setField(store, "waitSeconds", 0L);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> first = executor.submit(() -> store.execute("booking", "key-5", Map.of("slot", "10:00"), () -> {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "booked";
+            }));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            assertThrows(IdempotencyKeyConflictException.class,
+                    () -> store.execute("booking", "key-5", Map.of("slot", "10:00"), () -> "booked twice"));
+
+            release.countDown();
+            assertEquals("booked", first.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
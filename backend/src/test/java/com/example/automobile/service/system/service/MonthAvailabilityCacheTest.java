@@ -0,0 +1,82 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.model.DayAvailability;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonthAvailabilityCacheTest {
+    private static final YearMonth MONTH = YearMonth.of(2030, 1);
+
+    private final MonthAvailabilityCache cache = new MonthAvailabilityCache();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void servesTheCachedMonthUntilItIsInvalidated() {
+        List<DayAvailability> first = cache.get(MONTH, 45, loader(3));
+        assertSame(first, cache.get(MONTH, 45, loader(4)));
+        assertEquals(1, loads.get());
+
+        // Each duration is its own entry
+        assertEquals(5, cache.get(MONTH, 60, loader(5)).get(0).getFreeSlotCount());
+        assertEquals(2, loads.get());
+
+        // Another month changing leaves this one cached
+        cache.invalidate(MONTH.plusMonths(1).atDay(3));
+        assertSame(first, cache.get(MONTH, 45, loader(6)));
+        assertEquals(2, loads.get());
+
+        cache.invalidate(MONTH.atDay(20));
+        assertEquals(7, cache.get(MONTH, 45, loader(7)).get(0).getFreeSlotCount());
+        assertEquals(8, cache.get(MONTH, 60, loader(8)).get(0).getFreeSlotCount());
+        assertEquals(4, loads.get());
+
+        cache.invalidateAll();
+        assertEquals(9, cache.get(MONTH, 45, loader(9)).get(0).getFreeSlotCount());
+        assertEquals(9, cache.get(MONTH, 45, loader(10)).get(0).getFreeSlotCount());
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void entriesExpireAfterTheirTimeToLive() {
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 0L);
+
+        assertEquals(1, cache.get(MONTH, 45, loader(1)).get(0).getFreeSlotCount());
+        assertEquals(2, cache.get(MONTH, 45, loader(2)).get(0).getFreeSlotCount());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void resultsComputedWhileTheMonthChangedAreReturnedButNotKept() {
+        List<DayAvailability> stale = cache.get(MONTH, 45, () -> {
+            loads.incrementAndGet();
+            // A booking lands while the month is being computed
+            cache.invalidate(MONTH.atDay(7));
+            return days(1);
+        });
+        assertEquals(1, stale.get(0).getFreeSlotCount());
+
+        assertEquals(2, cache.get(MONTH, 45, loader(2)).get(0).getFreeSlotCount());
+        assertEquals(2, cache.get(MONTH, 45, loader(3)).get(0).getFreeSlotCount());
+        assertEquals(2, loads.get());
+    }
+
+    private Supplier<List<DayAvailability>> loader(int freeSlots) {
+        return () -> {
+            loads.incrementAndGet();
+            return days(freeSlots);
+        };
+    }
+
+    private static List<DayAvailability> days(int freeSlots) {
+        LocalDate date = MONTH.atDay(1);
+        return List.of(new DayAvailability(date, freeSlots, freeSlots * 15));
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.Part;
+import com.example.automobile.service.system.exception.InsufficientStockException;
+import com.example.automobile.service.system.model.BillingRequest;
+import com.example.automobile.service.system.model.PartStock;
+import com.example.automobile.service.system.model.StockMovementReason;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sells parts against H2 in MySQL mode through two inventories, as two instances would, so only
+ * the leases in the database keep them from selling the same stock twice.
+ */
+@SpringBootTest
+class PartInventoryTest {
+    private static final long OPENING_STOCK = 500;
+
+    @Autowired
+    PartInventory partInventory;
+    @Autowired
+    AutowireCapableBeanFactory beanFactory;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private PartInventory otherInstance;
+
+    @BeforeEach
+    void setUp() {
+        otherInstance = new PartInventory();
+        beanFactory.autowireBean(otherInstance);
+        otherInstance.load();
+    }
+
+    @AfterEach
+    void tearDown() {
+        otherInstance.stop();
+    }
+
+    @Test
+    void concurrentSalesFromTwoInstancesNeverOversell() throws Exception {
+        stockPart("BP-01");
+        AtomicLong sold = new AtomicLong();
+        AtomicInteger refused = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> sales = new ArrayList<>();
+        try {
+            for (int i = 0; i < 600; i++) {
+                PartInventory inventory = i % 2 == 0 ? partInventory : otherInstance;
+                int quantity = 1 + i % 3;
+                // Every fifth bill fails after reserving, and its parts must go back on the shelf
+                boolean commits = i % 5 != 0;
+                sales.add(executor.submit(() -> {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> {
+                            List<PartInventory.Line> lines = inventory.reserve(List.of(new BillingRequest.PartItem("BP-01", quantity)));
+                            if (commits) {
+                                inventory.recordSale(null, lines);
+                                sold.addAndGet(quantity);
+                            } else {
+                                status.setRollbackOnly();
+                            }
+                        });
+                    } catch (InsufficientStockException e) {
+                        refused.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> sale : sales) {
+                sale.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(refused.get() > 0);
+        assertEquals(OPENING_STOCK, sold.get() + level("BP-01").getOnHand());
+
+        otherInstance.stop();
+        otherInstance.maintain();
+        partInventory.maintain();
+        long leftOver = OPENING_STOCK - sold.get();
+        assertTrue(leftOver >= 0);
+        assertEquals(leftOver, level("BP-01").getOnHand());
+        assertEquals(leftOver, pool("BP-01") + leased("BP-01"));
+    }
+
+    @Test
+    void reservesAllLinesOrNone() {
+        stockPart("BP-02");
+        transactionTemplate.executeWithoutResult(status ->
+                assertThrows(InsufficientStockException.class, () -> partInventory.reserve(List.of(
+                        new BillingRequest.PartItem("BP-02", 2),
+                        new BillingRequest.PartItem("BP-02", (int) OPENING_STOCK)))));
+
+        assertEquals(OPENING_STOCK, level("BP-02").getOnHand());
+        assertEquals(new BigDecimal("1250.50"), level("BP-02").getPrice());
+    }
+
+    @Test
+    void leasesOfAnInstanceThatStopsRenewingGoBackToThePool() {
+        stockPart("BP-03");
+        transactionTemplate.executeWithoutResult(status -> otherInstance.recordSale(null,
+                otherInstance.reserve(List.of(new BillingRequest.PartItem("BP-03", 3)))));
+        assertTrue(pool("BP-03") < OPENING_STOCK - 3);
+
+        // The other instance dies without handing anything back
+        jdbcTemplate.update("UPDATE part_stock_lease SET renewed_at = ? WHERE instance_id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(1)), otherInstance.instanceId);
+        partInventory.maintain();
+
+        assertEquals(OPENING_STOCK - 3, pool("BP-03"));
+        assertEquals(0, leased("BP-03"));
+        assertEquals(OPENING_STOCK - 3, level("BP-03").getOnHand());
+    }
+
+    @Test
+    void writeOffsBeyondStockAreRefused() {
+        stockPart("BP-04");
+        assertThrows(InsufficientStockException.class,
+                () -> otherInstance.adjust("BP-04", -(OPENING_STOCK + 1), StockMovementReason.ADJUSTMENT));
+        assertEquals(OPENING_STOCK - 5, partInventory.adjust("BP-04", -5, StockMovementReason.ADJUSTMENT).getOnHand());
+    }
+
+    private void stockPart(String partId) {
+        Part part = new Part(partId, "Brake pads", null);
+        part.setPriceCents(125050L);
+        partInventory.savePart(partId, part);
+        partInventory.adjust(partId, OPENING_STOCK, StockMovementReason.RESTOCK);
+    }
+
+    private PartStock level(String partId) {
+        for (PartStock level : partInventory.stockLevels()) {
+            if (level.getPartId().equals(partId)) {
+                return level;
+            }
+        }
+        throw new AssertionError("No stock level for " + partId);
+    }
+
+    private long pool(String partId) {
+        return jdbcTemplate.queryForObject("SELECT stock_on_hand FROM part WHERE id = ?", Long.class, partId);
+    }
+
+    private long leased(String partId) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(quantity), 0) FROM part_stock_lease WHERE part_id = ?", Long.class, partId);
+    }
+}
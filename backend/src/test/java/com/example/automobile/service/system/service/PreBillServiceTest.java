@@ -0,0 +1,139 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.ServiceFee;
+import com.example.automobile.service.system.entity.VehicleMake;
+import com.example.automobile.service.system.entity.VehicleModel;
+import com.example.automobile.service.system.model.BatchPreBillRequest;
+import com.example.automobile.service.system.model.BatchPreBillResult;
+import com.example.automobile.service.system.model.PreBillRequest;
+import com.example.automobile.service.system.repository.VehicleMakeRepository;
+import com.example.automobile.service.system.repository.VehicleModelRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PreBillServiceTest {
+    private PreBillService preBillService;
+    private VehicleModel corolla;
+
+    @BeforeEach
+    void setUp() {
+        ServiceFeeCatalog catalog = new ServiceFeeCatalog();
+        catalog.replace(List.of(
+                new ServiceFee(1L, "Oil Change", new BigDecimal("2500.00"), "Toyota", "Corolla", 45),
+                new ServiceFee(2L, "Brake Check", new BigDecimal("1500.00"), "Toyota", "Corolla", 30),
+                new ServiceFee(3L, "Oil Change", new BigDecimal("2800.00"), "Honda", "Civic", 45)));
+        PricingEngine pricingEngine = new PricingEngine();
+        pricingEngine.serviceFeeCatalog = catalog;
+
+        VehicleMake toyota = new VehicleMake(1L, "Toyota", null, null);
+        VehicleMake honda = new VehicleMake(2L, "Honda", null, null);
+        corolla = new VehicleModel(1L, "Corolla", "Toyota", toyota);
+        VehicleModel civic = new VehicleModel(2L, "Civic", "Honda", honda);
+        VehicleModelRepository vehicleModelRepository = mock(VehicleModelRepository.class);
+        when(vehicleModelRepository.findByMakeNamesAndNames(any(), any())).thenReturn(List.of(corolla, civic));
+        when(vehicleModelRepository.findByNameAndVehicleMake("Corolla", toyota)).thenReturn(corolla);
+        VehicleMakeRepository vehicleMakeRepository = mock(VehicleMakeRepository.class);
+        when(vehicleMakeRepository.findByName("Toyota")).thenReturn(toyota);
+
+        preBillService = new PreBillService();
+        preBillService.serviceFeeCatalog = catalog;
+        preBillService.pricingEngine = pricingEngine;
+        preBillService.pricingRules = new PricingRules();
+        preBillService.vehicleModelRepository = vehicleModelRepository;
+        preBillService.vehicleMakeRepository = vehicleMakeRepository;
+    }
+
+    @Test
+    void answersEveryQuoteInInputOrderAndFailsOnlyTheBadOnes() {
+        PreBillRequest nullCustomItem = quote("Toyota", "Corolla", "Oil Change");
+        nullCustomItem.setCustomItems(Arrays.asList(new PreBillRequest.CustomServiceItemDTO("Polish", new BigDecimal("500.00")), null));
+        PreBillRequest fractionOfACent = quote("Toyota", "Corolla", "Brake Check");
+        fractionOfACent.setEstimatedPartsCost(new BigDecimal("10.005"));
+
+        BatchPreBillResult result = preBillService.calculateEstimates(new BatchPreBillRequest(Arrays.asList(
+                quote("Honda", "Civic", "Oil Change"),
+                null,
+                quote("Toyota", "Prius", "Oil Change"),
+                // Make and model each exist, but not together
+                quote("Honda", "Corolla", "Oil Change"),
+                nullCustomItem,
+                fractionOfACent,
+                quote(null, "Corolla", "Oil Change"),
+                quote("Toyota", "Corolla", "Oil Change", "Brake Check"))));
+
+        assertEquals(2, result.getQuotedCount());
+        assertEquals(6, result.getFailedCount());
+        List<BatchPreBillResult.ItemResult> items = result.getItems();
+        assertEquals(8, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(i, items.get(i).getIndex());
+        }
+        assertEquals(0, new BigDecimal("2800.00").compareTo(items.get(0).getEstimate().getEstimatedTotal()));
+        assertEquals("Every quote needs a make and a model.", items.get(1).getError());
+        assertEquals("Unknown vehicle model Toyota Prius.", items.get(2).getError());
+        assertEquals("Unknown vehicle model Honda Corolla.", items.get(3).getError());
+        assertEquals("The quote could not be priced.", items.get(4).getError());
+        assertEquals("Amounts can have at most two decimal places.", items.get(5).getError());
+        assertEquals("Every quote needs a make and a model.", items.get(6).getError());
+        assertEquals(0, new BigDecimal("4000.00").compareTo(items.get(7).getEstimate().getEstimatedTotal()));
+        for (int i = 1; i < 7; i++) {
+            assertNull(items.get(i).getEstimate());
+        }
+    }
+
+    @Test
+    void batchEstimatesMatchSingleEstimates() {
+        PreBillRequest request = quote("Toyota", "Corolla", "Oil Change", "Brake Check");
+        request.setCustomItems(List.of(new PreBillRequest.CustomServiceItemDTO("Polish", new BigDecimal("750.50"))));
+        request.setEstimatedPartsCost(new BigDecimal("1200.00"));
+
+        BatchPreBillResult batch = preBillService.calculateEstimates(new BatchPreBillRequest(List.of(request)));
+        assertEquals(preBillService.calculateEstimate(request).getEstimatedTotal(), batch.getItems().get(0).getEstimate().getEstimatedTotal());
+        assertEquals(0, new BigDecimal("5950.50").compareTo(batch.getItems().get(0).getEstimate().getEstimatedTotal()));
+    }
+
+    @Test
+    void resolvesAllModelsWithOneQueryPerBatch() {
+        List<PreBillRequest> quotes = new ArrayList<>();
+        for (int i = 0; i < PreBillService.MAX_BATCH_SIZE; i++) {
+            quotes.add(i % 3 == 0 ? quote("Honda", "Civic", "Oil Change") : quote("Toyota", i % 3 == 1 ? "Corolla" : "Prius", "Oil Change"));
+        }
+
+        BatchPreBillResult result = preBillService.calculateEstimates(new BatchPreBillRequest(quotes));
+
+        assertEquals(PreBillService.MAX_BATCH_SIZE, result.getItems().size());
+        assertEquals(PreBillService.MAX_BATCH_SIZE / 3, result.getFailedCount());
+        verify(preBillService.vehicleModelRepository, times(1)).findByMakeNamesAndNames(any(), any());
+        verifyNoMoreInteractions(preBillService.vehicleModelRepository);
+        verifyNoInteractions(preBillService.vehicleMakeRepository);
+    }
+
+    @Test
+    void refusesBatchesOverTheCapAndSkipsTheQueryWhenEmpty() {
+        List<PreBillRequest> quotes = new ArrayList<>();
+        for (int i = 0; i <= PreBillService.MAX_BATCH_SIZE; i++) {
+            quotes.add(quote("Toyota", "Corolla", "Oil Change"));
+        }
+        assertThrows(IllegalArgumentException.class, () -> preBillService.calculateEstimates(new BatchPreBillRequest(quotes)));
+
+        BatchPreBillResult empty = preBillService.calculateEstimates(new BatchPreBillRequest(null));
+        assertEquals(0, empty.getQuotedCount());
+        assertTrue(empty.getItems().isEmpty());
+        BatchPreBillResult unnamed = preBillService.calculateEstimates(new BatchPreBillRequest(List.of(quote(null, null, "Oil Change"))));
+        assertEquals(1, unnamed.getFailedCount());
+        verifyNoInteractions(preBillService.vehicleModelRepository);
+    }
+
+    private static PreBillRequest quote(String make, String model, String... services) {
+        return new PreBillRequest(make, model, List.of(services), null, BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.automobile.service.system.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixTrieTest {
+    private final PrefixTrie trie = new PrefixTrie();
+
+    @Test
+    void returnsShorterKeysFirst() {
+        trie.add("CAB1234", 1, 0);
+        trie.add("CAB5678", 2, 0);
+        trie.add("CA", 3, 2);
+        trie.add("CHASSIS01", 4, 1);
+
+        List<Long> results = trie.search("CA", 10);
+        assertEquals(3L, results.get(0));
+        assertEquals(Set.of(1L, 2L), Set.copyOf(results.subList(1, 3)));
+        assertEquals(3, results.size());
+        assertEquals(List.of(4L), trie.search("CH", 10));
+        assertEquals(List.of(1L, 2L, 3L, 4L), trie.search("C", 10).stream().sorted().toList());
+    }
+
+    @Test
+    void ranksIdsUnderTheSameKey() {
+        trie.add("SILVA", 5, 2);
+        trie.add("SILVA", 6, 0);
+        trie.add("SILVA", 7, 2);
+        // The same id under a better rank keeps the better one
+        trie.add("SILVA", 7, 1);
+
+        assertEquals(List.of(6L, 7L, 5L), trie.search("SIL", 10));
+    }
+
+    @Test
+    void listsEachIdOnceAndStopsAtTheLimit() {
+        trie.add("NIMAL", 1, 2);
+        trie.add("NIMALSILVA", 1, 2);
+        trie.add("NIMALPERERA", 2, 2);
+        trie.add("NIMALFONSEKA", 3, 2);
+
+        assertEquals(List.of(1L, 2L, 3L), trie.search("NIM", 10).stream().sorted().toList());
+        assertEquals(List.of(1L), trie.search("NIMAL", 1));
+        assertEquals(2, trie.search("NIMAL", 2).size());
+    }
+
+    @Test
+    void splitsEdgesWhereKeysDiverge() {
+        trie.add("ABCD", 1, 0);
+        trie.add("ABXY", 2, 0);
+        trie.add("AB", 3, 0);
+
+        assertEquals(List.of(1L), trie.search("ABC", 10));
+        assertEquals(List.of(2L), trie.search("ABXY", 10));
+        assertEquals(3L, trie.search("AB", 10).get(0));
+        assertEquals(List.of(), trie.search("ABZ", 10));
+        assertEquals(List.of(), trie.search("ABCDE", 10));
+        assertEquals(List.of(), trie.search("B", 10));
+    }
+
+    @Test
+    void removesIdsAndPrunesEmptyBranches() {
+        trie.add("ABCD", 1, 0);
+        trie.add("ABXY", 2, 0);
+        trie.add("ABXY", 3, 0);
+
+        trie.remove("ABXY", 2);
+        assertEquals(List.of(3L), trie.search("ABX", 10));
+        trie.remove("ABXY", 3);
+        assertEquals(List.of(1L), trie.search("AB", 10));
+        // Unknown keys and ids are ignored
+        trie.remove("ABQ", 1);
+        trie.remove("ABCD", 9);
+        assertEquals(List.of(1L), trie.search("A", 10));
+
+        trie.remove("ABCD", 1);
+        assertEquals(List.of(), trie.search("A", 10));
+        trie.add("ABXZ", 4, 0);
+        assertEquals(List.of(4L), trie.search("ABX", 10));
+    }
+}
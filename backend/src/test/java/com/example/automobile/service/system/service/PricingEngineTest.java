@@ -0,0 +1,173 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.ServiceFee;
+import com.example.automobile.service.system.entity.ServiceFeeVersion;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingEngineTest {
+    private static final String MODEL = "Corolla";
+    private static final String[] SERVICES = {"Oil Change", "Wheel Alignment", "Full Service", "Brake Check", "Body Wash", "Unknown"};
+
+    @Test
+    void matchesBigDecimalPricing() {
+        Random random = new Random(42);
+        for (int round = 0; round < 2000; round++) {
+            List<ServiceFee> fees = new ArrayList<>();
+            for (int i = 0; i < SERVICES.length - 1; i++) {
+                if (random.nextInt(6) > 0) {
+                    fees.add(new ServiceFee((long) i + 1, SERVICES[i], random.nextInt(10) == 0 ? null : amount(random), "Toyota", MODEL, 30));
+                }
+            }
+            ServiceFeeCatalog catalog = new ServiceFeeCatalog();
+            catalog.replace(fees);
+            PricingEngine engine = new PricingEngine();
+            engine.serviceFeeCatalog = catalog;
+
+            List<String> selected = new ArrayList<>();
+            for (int i = random.nextInt(5); i > 0; i--) {
+                selected.add(SERVICES[random.nextInt(SERVICES.length)]);
+            }
+            List<String> customDescriptions = new ArrayList<>();
+            List<BigDecimal> customCosts = new ArrayList<>();
+            for (int i = random.nextInt(4); i > 0; i--) {
+                customDescriptions.add(random.nextInt(8) == 0 ? " " : "Custom " + i);
+                customCosts.add(random.nextInt(8) == 0 ? null : amount(random));
+            }
+            BigDecimal partsCost = random.nextInt(5) == 0 ? null : amount(random);
+
+            List<String> expected;
+            try {
+                expected = reference(catalog.feesByDescription(MODEL), selected, customDescriptions, customCosts, partsCost);
+            } catch (ArithmeticException e) {
+                assertThrows(ArithmeticException.class, () -> price(engine, selected, customDescriptions, customCosts, partsCost));
+                continue;
+            }
+            assertEquals(expected, price(engine, selected, customDescriptions, customCosts, partsCost));
+        }
+    }
+
+    @Test
+    void rejectsFractionsOfACent() {
+        assertEquals(1050, PricingEngine.toCents(new BigDecimal("10.500")));
+        assertEquals(100000, PricingEngine.toCents(new BigDecimal("1E+3")));
+        assertThrows(ArithmeticException.class, () -> PricingEngine.toCents(new BigDecimal("10.005")));
+    }
+
+    @Test
+    void pricesAtTheFeesInForceAtTheTime() {
+        LocalDateTime start = LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime raised = LocalDateTime.of(2030, 1, 10, 9, 0);
+        LocalDateTime revised = LocalDateTime.of(2030, 3, 1, 0, 0);
+        ServiceFeeCatalog catalog = new ServiceFeeCatalog();
+        catalog.replace(List.of(
+                new ServiceFee(1L, "Oil Change", new BigDecimal("3000.00"), "Toyota", MODEL, 45),
+                new ServiceFee(2L, "Brake Check", new BigDecimal("1500.00"), "Toyota", MODEL, 30),
+                new ServiceFee(3L, "Wheel Alignment", new BigDecimal("800.00"), "Toyota", MODEL, 30)
+        ), List.of(
+                new ServiceFeeVersion(10L, 1L, "Oil Change", "Toyota", MODEL, new BigDecimal("2500.00"), start, false),
+                // Two changes in the same instant: the later one is the one that took effect
+                new ServiceFeeVersion(12L, 1L, "Oil Change", "Toyota", MODEL, new BigDecimal("2800.00"), raised, false),
+                new ServiceFeeVersion(11L, 1L, "Oil Change", "Toyota", MODEL, new BigDecimal("2750.00"), raised, false),
+                new ServiceFeeVersion(13L, 1L, "Oil Change", "Toyota", MODEL, new BigDecimal("3000.00"), revised, false),
+                new ServiceFeeVersion(14L, 3L, "Wheel Alignment", "Toyota", MODEL, new BigDecimal("800.00"), revised, false),
+                new ServiceFeeVersion(15L, 4L, "Full Service", "Toyota", MODEL, new BigDecimal("5000.00"), start, false),
+                new ServiceFeeVersion(16L, 4L, "Full Service", "Toyota", MODEL, null, revised, true)));
+        PricingEngine engine = new PricingEngine();
+        engine.serviceFeeCatalog = catalog;
+
+        assertEquals(List.of("Oil Change 2500.00", "Brake Check 1500.00", "Full Service 5000.00", "Total 9000.00"),
+                priceAt(engine, catalog, raised.minusDays(1)));
+        assertEquals(List.of("Oil Change 2800.00", "Brake Check 1500.00", "Full Service 5000.00", "Total 9300.00"),
+                priceAt(engine, catalog, raised));
+        assertEquals(List.of("Oil Change 2800.00", "Brake Check 1500.00", "Full Service 5000.00", "Total 9300.00"),
+                priceAt(engine, catalog, revised.minusSeconds(1)));
+        assertEquals(List.of("Oil Change 3000.00", "Wheel Alignment 800.00", "Brake Check 1500.00", "Total 5300.00"),
+                priceAt(engine, catalog, revised));
+
+        assertEquals(4L, catalog.feeIdAt(MODEL, "Full Service", revised.minusSeconds(1)));
+        assertNull(catalog.feeIdAt(MODEL, "Full Service", revised));
+        assertNull(catalog.feeIdAt(MODEL, "Wheel Alignment", raised));
+        assertEquals(2L, catalog.feeIdAt(MODEL, "Brake Check", start.minusYears(1)));
+    }
+
+    private static List<String> priceAt(PricingEngine engine, ServiceFeeCatalog catalog, LocalDateTime at) {
+        PricingEngine.Calculation bill = engine.start(catalog.pricesAt(MODEL, at))
+                .services(List.of("Oil Change", "Wheel Alignment", "Brake Check", "Full Service"));
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < bill.size(); i++) {
+            lines.add(bill.description(i) + " " + bill.amount(i));
+        }
+        lines.add("Total " + bill.total());
+        return lines;
+    }
+
+    private static List<String> price(PricingEngine engine, List<String> selected, List<String> customDescriptions,
+                                      List<BigDecimal> customCosts, BigDecimal partsCost) {
+        PricingEngine.Calculation bill = engine.start(MODEL).services(selected);
+        for (int i = 0; i < customDescriptions.size(); i++) {
+            bill.custom(customDescriptions.get(i), customCosts.get(i));
+        }
+        bill.parts("Parts Cost", partsCost);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < bill.size(); i++) {
+            lines.add(bill.description(i) + ": Rs." + bill.amount(i) + " " + bill.amount(i).scale());
+        }
+        lines.add("Total " + bill.total() + " " + bill.total().scale());
+        return lines;
+    }
+
+    // The BigDecimal arithmetic BillingService and PreBillService used before the engine
+    private static List<String> reference(Map<String, ServiceFee> fees, List<String> selected, List<String> customDescriptions,
+                                          List<BigDecimal> customCosts, BigDecimal partsCost) {
+        Map<String, BigDecimal> feeMap = fees.values().stream().filter(f -> f.getFee() != null)
+                .collect(Collectors.toMap(ServiceFee::getDescription, ServiceFee::getFee));
+        BigDecimal total = BigDecimal.ZERO;
+        List<String> lines = new ArrayList<>();
+        for (String desc : selected) {
+            BigDecimal fee = feeMap.get(desc);
+            if (fee != null) {
+                total = total.add(fee);
+                lines.add(desc + ": Rs." + fee.setScale(2) + " " + fee.setScale(2).scale());
+            }
+        }
+        for (int i = 0; i < customDescriptions.size(); i++) {
+            BigDecimal cost = customCosts.get(i);
+            String description = customDescriptions.get(i);
+            if (cost != null && cost.compareTo(BigDecimal.ZERO) > 0 && description != null && !description.isBlank()) {
+                total = total.add(cost);
+                lines.add(description + ": Rs." + cost.setScale(2) + " " + cost.setScale(2).scale());
+            }
+        }
+        if (partsCost != null && partsCost.compareTo(BigDecimal.ZERO) > 0) {
+            total = total.add(partsCost);
+            lines.add("Parts Cost: Rs." + partsCost.setScale(2) + " " + partsCost.setScale(2).scale());
+        }
+        lines.add("Total " + total.setScale(2) + " " + total.setScale(2).scale());
+        return lines;
+    }
+
+    // Mostly whole cents at scales 0 to 3, with the odd negative, zero or sub-cent amount
+    private static BigDecimal amount(Random random) {
+        BigDecimal value = BigDecimal.valueOf(random.nextInt(2_000_000) - 100_000, 2);
+        switch (random.nextInt(10)) {
+            case 0:
+                return value.add(new BigDecimal("0.005"));
+            case 1:
+                return value.setScale(3);
+            case 2:
+                return BigDecimal.valueOf(random.nextInt(5000));
+            default:
+                return value;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.PricingRule;
+import com.example.automobile.service.system.entity.ServiceFee;
+import com.example.automobile.service.system.model.PricingRuleKind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingRulesTest {
+    private static final LocalDate TODAY = LocalDate.of(2030, 6, 15);
+    private static final List<String> SERVICES = List.of("Oil Change", "Brake Check");
+
+    private PricingEngine engine;
+    private PricingRules rules;
+
+    @BeforeEach
+    void setUp() {
+        ServiceFeeCatalog catalog = new ServiceFeeCatalog();
+        catalog.replace(List.of(
+                new ServiceFee(1L, "Oil Change", new BigDecimal("2500.00"), "Toyota", "Corolla", 45),
+                new ServiceFee(2L, "Brake Check", new BigDecimal("1500.00"), "Toyota", "Corolla", 30)));
+        engine = new PricingEngine();
+        engine.serviceFeeCatalog = catalog;
+        rules = new PricingRules();
+    }
+
+    @Test
+    void appliesServiceDiscountsThenBillDiscountThenTax() {
+        rules.replace(List.of(
+                rule(1L, "Oil promo", PricingRuleKind.DISCOUNT, "Toyota", null, "Oil Change", "10", null),
+                rule(2L, "Honda oil promo", PricingRuleKind.DISCOUNT, "Honda", null, "Oil Change", "50", null),
+                rule(3L, "Welcome back", PricingRuleKind.DISCOUNT, null, null, null, null, "300"),
+                rule(4L, "VAT", PricingRuleKind.TAX, null, null, null, "18", null)));
+
+        assertEquals(List.of(
+                "SERVICE Oil Change 2500.00",
+                "SERVICE Brake Check 1500.00",
+                "DISCOUNT Oil promo (Oil Change) -250.00",
+                "DISCOUNT Welcome back -300.00",
+                "TAX VAT 621.00",
+                "TOTAL 4071.00"), price(PricingRules.ANY_CUSTOMER, 0, TODAY));
+    }
+
+    @Test
+    void appliesOnlyRulesWhoseConditionsHold() {
+        PricingRule loyalty = rule(1L, "Loyalty", PricingRuleKind.DISCOUNT, null, null, null, "15", null);
+        loyalty.setMinPriorVisits(5);
+        PricingRule fleet = rule(2L, "Fleet account", PricingRuleKind.DISCOUNT, null, "Corolla", "Brake Check", null, "200");
+        fleet.setCustomerId(42L);
+        PricingRule monsoon = rule(3L, "Monsoon check", PricingRuleKind.DISCOUNT, null, null, "Brake Check", "20", null);
+        monsoon.setValidFrom(TODAY.minusDays(10));
+        monsoon.setValidTo(TODAY.minusDays(1));
+        rules.replace(List.of(loyalty, fleet, monsoon));
+
+        assertEquals("TOTAL 4000.00", last(price(7L, 4, TODAY)));
+        assertEquals("TOTAL 3400.00", last(price(7L, 5, TODAY)));
+        assertEquals("TOTAL 3800.00", last(price(42L, 0, TODAY)));
+        // Inclusive validity: the last day still applies, the day after does not
+        assertEquals("TOTAL 3700.00", last(price(7L, 0, TODAY.minusDays(1))));
+    }
+
+    @Test
+    void bestDiscountWinsAndNeverGoesBelowZero() {
+        rules.replace(List.of(
+                rule(1L, "Ten off", PricingRuleKind.DISCOUNT, null, null, "Oil Change", "10", null),
+                rule(2L, "Free oil", PricingRuleKind.DISCOUNT, "Toyota", "Corolla", "Oil Change", null, "5000"),
+                rule(3L, "Everything free", PricingRuleKind.DISCOUNT, null, null, null, "100", null),
+                rule(4L, "VAT", PricingRuleKind.TAX, null, null, null, "18", null)));
+
+        assertEquals(List.of(
+                "SERVICE Oil Change 2500.00",
+                "SERVICE Brake Check 1500.00",
+                "DISCOUNT Free oil (Oil Change) -2500.00",
+                "DISCOUNT Everything free -1500.00",
+                "TOTAL 0.00"), price(PricingRules.ANY_CUSTOMER, 0, TODAY));
+    }
+
+    @Test
+    void knowsWhenPriorVisitsCanChangeTheBill() {
+        PricingRule loyalty = rule(1L, "Loyalty", PricingRuleKind.DISCOUNT, "Toyota", null, null, "15", null);
+        loyalty.setMinPriorVisits(5);
+        PricingRule firstVisit = rule(2L, "First visit", PricingRuleKind.DISCOUNT, null, null, null, "5", null);
+        firstVisit.setMinPriorVisits(0);
+        rules.replace(List.of(loyalty, firstVisit));
+
+        assertTrue(rules.needsPriorVisits("Toyota", "Corolla"));
+        assertFalse(rules.needsPriorVisits("Honda", "Civic"));
+
+        loyalty.setActive(false);
+        rules.replace(List.of(loyalty, firstVisit));
+        assertFalse(rules.needsPriorVisits("Toyota", "Corolla"));
+    }
+
+    @Test
+    void swapsInChangedRules() {
+        rules.replace(List.of(rule(1L, "VAT", PricingRuleKind.TAX, null, null, null, "18", null)));
+        long version = rules.version();
+        assertEquals("TOTAL 4720.00", last(price(PricingRules.ANY_CUSTOMER, 0, TODAY)));
+
+        PricingRule inactive = rule(1L, "VAT", PricingRuleKind.TAX, null, null, null, "18", null);
+        inactive.setActive(false);
+        rules.replace(List.of(inactive, rule(2L, "VAT", PricingRuleKind.TAX, null, null, null, "12.5", null)));
+        assertEquals(version + 1, rules.version());
+        assertEquals("TOTAL 4500.00", last(price(PricingRules.ANY_CUSTOMER, 0, TODAY)));
+    }
+
+    @Test
+    void rejectsRulesItCannotCompile() {
+        assertThrows(IllegalArgumentException.class, () -> PricingRules.validate(
+                rule(null, "VAT", PricingRuleKind.TAX, null, null, null, null, "100")));
+        assertThrows(IllegalArgumentException.class, () -> PricingRules.validate(
+                rule(null, "Too much", PricingRuleKind.DISCOUNT, null, null, null, "100.01", null)));
+        assertThrows(IllegalArgumentException.class, () -> PricingRules.validate(
+                rule(null, "Sub-cent", PricingRuleKind.DISCOUNT, null, null, null, null, "0.005")));
+        assertThrows(IllegalArgumentException.class, () -> PricingRules.validate(
+                rule(null, "Both", PricingRuleKind.DISCOUNT, null, null, null, "5", "5")));
+    }
+
+    private List<String> price(long customerId, int priorVisits, LocalDate date) {
+        PricingEngine.Calculation bill = engine.start("Corolla").services(SERVICES);
+        rules.apply(bill, "Toyota", "Corolla", customerId, priorVisits, date);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < bill.size(); i++) {
+            lines.add(bill.kind(i) + " " + bill.description(i) + " " + bill.amount(i));
+        }
+        lines.add("TOTAL " + bill.total());
+        return lines;
+    }
+
+    private static String last(List<String> lines) {
+        return lines.get(lines.size() - 1);
+    }
+
+    private static PricingRule rule(Long id, String name, PricingRuleKind kind, String make, String model,
+                                    String service, String percent, String fixedAmount) {
+        return new PricingRule(id, name, kind, make, model, service, null, null, null, null,
+                percent != null ? new BigDecimal(percent) : null, fixedAmount != null ? new BigDecimal(fixedAmount) : null, true);
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.*;
+import com.example.automobile.service.system.model.BillLineItemKind;
+import com.example.automobile.service.system.model.ReceiptFormat;
+import com.example.automobile.service.system.repository.ServiceRecordRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class ReceiptRendererTest {
+    private final Map<Long, ServiceRecord> records = new HashMap<>();
+    private final Map<Long, List<BillLineItem>> lineItems = new HashMap<>();
+    private ReceiptRenderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        renderer = renderer(32L * 1024 * 1024);
+    }
+
+    @AfterEach
+    void tearDown() {
+        renderer.stop();
+    }
+
+    @Test
+    void textMatchesTheReceiptBillingServiceUsedToGenerate() {
+        record(1L, "Oil Change: Rs.2500.00\nWheel alignment: front: Rs.1500.50\n\n   \nParts Cost: Rs.4200.00", "8200.5");
+        record(2L, null, "0");
+        ServiceRecord odd = record(3L, "  Detailing (full) \\ polish: Rs.10.00", "10.005");
+        odd.getVehicle().getOwner().setPhoneNo(null);
+        odd.getVehicle().getOwner().setName("Perera (Jr.)");
+        record(4L, "   ", "123456789.994");
+
+        for (long id = 1; id <= 4; id++) {
+            assertEquals(baselineReceipt(records.get(id)), renderer.text(id), "record " + id);
+            assertArrayEquals(renderer.text(id).getBytes(StandardCharsets.UTF_8), renderer.bytes(id, ReceiptFormat.TEXT));
+        }
+    }
+
+    @Test
+    void itemizedBillsPrintTheSameLinesAsTheirDetails() {
+        record(5L, "Oil Change: Rs.2500.00\nBrake pads x2: Rs.2501.00\nOil promo (Oil Change): Rs.-250.00", "4751.00");
+        lineItems.put(5L, List.of(
+                new BillLineItem(1L, 5L, 0, BillLineItemKind.SERVICE, "Oil Change", new BigDecimal("2500.00"), 1, 7L),
+                new BillLineItem(2L, 5L, 1, BillLineItemKind.PARTS, "Brake pads", new BigDecimal("1250.50"), 2, null),
+                new BillLineItem(3L, 5L, 2, BillLineItemKind.DISCOUNT, "Oil promo (Oil Change)", new BigDecimal("-250.00"), 1, null)));
+
+        assertEquals(baselineReceipt(records.get(5L)), renderer.text(5L));
+    }
+
+    @Test
+    void pdfCrossReferencesPointAtEveryObject() {
+        record(6L, "Detailing (full) \\ polish: Rs.10.00\nCaf\u00e9 service: Rs.5.00", "15.00");
+
+        byte[] pdf = renderer.bytes(6L, ReceiptFormat.PDF);
+        String raw = new String(pdf, StandardCharsets.ISO_8859_1);
+        assertTrue(raw.startsWith("%PDF-1.4\n"));
+        assertTrue(raw.endsWith("%%EOF\n"));
+
+        Matcher startXref = Pattern.compile("startxref\n(\\d+)\n%%EOF\n$").matcher(raw);
+        assertTrue(startXref.find());
+        int xref = Integer.parseInt(startXref.group(1));
+        assertTrue(raw.startsWith("xref\n0 6\n0000000000 65535 f \n", xref));
+        for (int object = 1; object <= 5; object++) {
+            String entry = raw.substring(xref + 29 + (object - 1) * 20, xref + 29 + object * 20);
+            assertTrue(entry.matches("\\d{10} 00000 n \n"), entry);
+            int offset = Integer.parseInt(entry.substring(0, 10));
+            assertTrue(raw.startsWith(object + " 0 obj\n", offset), "object " + object + " at " + offset);
+        }
+        assertTrue(raw.startsWith("trailer\n<< /Size 6 /Root 1 0 R >>", xref + 29 + 5 * 20));
+
+        Matcher length = Pattern.compile("<< /Length (\\d+) >>\nstream\n").matcher(raw);
+        assertTrue(length.find());
+        int streamStart = length.end();
+        assertTrue(raw.startsWith("endstream\nendobj\n", streamStart + Integer.parseInt(length.group(1))));
+        String stream = raw.substring(streamStart, streamStart + Integer.parseInt(length.group(1)));
+        // Brackets and backslashes are escaped, and anything outside ASCII prints as '?'
+        assertTrue(stream.contains("(  Detailing \\(full\\) \\\\ polish: Rs.10.00) Tj T*\n"));
+        assertTrue(stream.contains("(  Caf? service: Rs.5.00) Tj T*\n"));
+        for (int i = 0; i < pdf.length; i++) {
+            assertTrue(pdf[i] >= 0, "byte " + i + " is not ASCII");
+        }
+    }
+
+    @Test
+    void escPosWrapsTheReceiptInResetFeedAndCut() {
+        record(7L, "Caf\u00e9 service: Rs.5.00", "5.00");
+
+        byte[] escPos = renderer.bytes(7L, ReceiptFormat.ESC_POS);
+        String text = renderer.text(7L);
+        assertArrayEquals(new byte[]{0x1B, '@'}, Arrays.copyOfRange(escPos, 0, 2));
+        assertArrayEquals(new byte[]{0x1B, 'd', 3, 0x1D, 'V', 66, 0}, Arrays.copyOfRange(escPos, escPos.length - 7, escPos.length));
+        // Every line of the text, each ended by a line feed, with anything outside ASCII as '?'
+        String body = new String(escPos, 2, escPos.length - 9, StandardCharsets.US_ASCII);
+        assertEquals(text.replace('\u00e9', '?') + "\n", body);
+    }
+
+    @Test
+    void evictsLeastRecentlyPrintedReceiptsAndKeepsTheByteCountExact() {
+        for (long id = 10; id < 20; id++) {
+            record(id, "Service " + "x".repeat((int) (id - 10) * 40) + ": Rs." + id + ".00", id + ".00");
+        }
+        Map<Long, Long> sizes = new HashMap<>();
+        for (long id = 10; id < 20; id++) {
+            sizes.put(id, size(renderer, id));
+        }
+        renderer.stop();
+        // Room for about three receipts
+        long maxBytes = sizes.get(13L) * 3;
+        renderer = renderer(maxBytes);
+
+        // The same least-recently-used rule, kept by hand
+        LinkedHashMap<Long, Long> expected = new LinkedHashMap<>(16, 0.75f, true);
+        long[] accesses = {10, 11, 12, 10, 13, 14, 10, 19, 11, 12, 12, 15, 16, 17, 18, 10};
+        int renders = 0;
+        for (long id : accesses) {
+            if (expected.get(id) == null) {
+                renders++;
+                expected.put(id, sizes.get(id));
+                long total = expected.values().stream().mapToLong(Long::longValue).sum();
+                Iterator<Long> eldest = expected.values().iterator();
+                while (total > maxBytes && eldest.hasNext()) {
+                    total -= eldest.next();
+                    eldest.remove();
+                }
+            }
+            renderer.bytes(id, ReceiptFormat.ESC_POS);
+
+            assertEquals(new ArrayList<>(expected.keySet()), cachedIds(), "after printing " + id);
+            assertEquals(expected.values().stream().mapToLong(Long::longValue).sum(), cachedBytes(), "after printing " + id);
+            assertTrue(cachedBytes() <= maxBytes);
+        }
+        // Only receipts that were not cached went to the database
+        verify(renderer.serviceRecordRepository, times(renders)).findWithDetailsByIdIn(any());
+
+        // A receipt larger than the whole cache is returned but not kept
+        renderer.stop();
+        renderer = renderer(sizes.get(19L) - 1);
+        assertNotNull(renderer.text(19L));
+        assertTrue(cachedIds().isEmpty());
+        assertEquals(0, cachedBytes());
+    }
+
+    private ReceiptRenderer renderer(long maxCacheBytes) {
+        ReceiptRenderer created = new ReceiptRenderer();
+        created.serviceRecordRepository = mock(ServiceRecordRepository.class);
+        stubRepository(created.serviceRecordRepository);
+        created.billLineItemService = mock(BillLineItemService.class);
+        when(created.billLineItemService.lineItems(anyLong()))
+                .thenAnswer(inv -> lineItems.getOrDefault(inv.<Long>getArgument(0), List.of()));
+        created.transactionManager = mock(PlatformTransactionManager.class);
+        ReflectionTestUtils.setField(created, "maxCacheBytes", maxCacheBytes);
+        created.start();
+        return created;
+    }
+
+    private void stubRepository(ServiceRecordRepository repository) {
+        when(repository.findWithDetailsByIdIn(any())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            return ids.stream().map(records::get).filter(Objects::nonNull).toList();
+        });
+    }
+
+    private ServiceRecord record(Long id, String details, String total) {
+        VehicleMake make = new VehicleMake(1L, "Toyota", null, null);
+        VehicleModel model = new VehicleModel(1L, "Corolla", "Toyota", make);
+        Customer customer = new Customer(id, "Customer " + id, "Colombo", "071-000-00" + id, "2000123456" + id, null);
+        Vehicle vehicle = new Vehicle(id, "CAB-" + id, model, 2015, "CHASSIS" + id, customer, null, null);
+        ServiceRecord record = new ServiceRecord(id, vehicle, LocalDateTime.of(2030, 3, 4, 9, 5).plusMinutes(id),
+                details, new BigDecimal(total), null, null);
+        records.put(id, record);
+        return record;
+    }
+
+    private static long size(ReceiptRenderer renderer, long id) {
+        return renderer.text(id).length() * 2L + renderer.bytes(id, ReceiptFormat.PDF).length
+                + renderer.bytes(id, ReceiptFormat.ESC_POS).length;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> cachedIds() {
+        return new ArrayList<>(((Map<Long, ?>) ReflectionTestUtils.getField(renderer, "cache")).keySet());
+    }
+
+    private long cachedBytes() {
+        return (long) ReflectionTestUtils.getField(renderer, "cachedBytes");
+    }
+
+    /**
+     * BillingService.generateReceipt as it was before the renderer, kept as the reference. The
+     * total used the platform line separator and default locale, here fixed to the Linux servers'.
+     */
+    private static String baselineReceipt(ServiceRecord record) {
+        Vehicle vehicle = record.getVehicle();
+        Customer customer = vehicle.getOwner();
+
+        StringBuilder receipt = new StringBuilder();
+        receipt.append("========================================\n");
+        receipt.append("         AutoZen Services Receipt       \n");
+        receipt.append("========================================\n");
+        receipt.append("Service Record ID: ").append(record.getId()).append("\n");
+        receipt.append("Date & Time: ").append(record.getServiceDateTime().format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))).append("\n");
+        receipt.append("----------------------------------------\n");
+        receipt.append("Customer Information:\n");
+        receipt.append("  Name: ").append(customer.getName()).append("\n");
+        receipt.append("  Phone: ").append(customer.getPhoneNo()).append("\n");
+        receipt.append("  NIC: ").append(customer.getNicNo()).append("\n");
+        receipt.append("----------------------------------------\n");
+        receipt.append("Vehicle Information:\n");
+        receipt.append("  ID: ").append(vehicle.getVehicleId()).append("\n");
+        receipt.append("  Make: ").append(vehicle.getModel().getVehicleMake().getName()).append("\n");
+        receipt.append("  Model: ").append(vehicle.getModel().getName()).append("\n");
+        receipt.append("  Year: ").append(vehicle.getYear()).append("\n");
+        receipt.append("  Chassis: ").append(vehicle.getChassisNo()).append("\n");
+        receipt.append("----------------------------------------\n");
+        receipt.append("Services & Parts:\n");
+
+        if (record.getServiceDetails() != null && !record.getServiceDetails().isBlank()) {
+            Stream.of(record.getServiceDetails().split("\n"))
+                    .filter(line -> !line.trim().isEmpty())
+                    .forEach(line -> receipt.append("  ").append(line).append("\n"));
+        } else {
+            receipt.append("  (No itemized details available)\n");
+        }
+        receipt.append("----------------------------------------\n");
+        receipt.append(String.format(Locale.US, "Total Amount: Rs.%.2f\n", record.getTotalCost()));
+        receipt.append("========================================\n");
+        receipt.append("          Thank you for choosing        \n");
+        receipt.append("            AutoZen Services!           \n");
+        receipt.append("========================================\n");
+
+        return receipt.toString();
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.*;
+import com.example.automobile.service.system.model.ModelRevenue;
+import com.example.automobile.service.system.model.RevenuePeriod;
+import com.example.automobile.service.system.model.RollupGranularity;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class RevenueRollupServiceTest {
+    @Autowired
+    RevenueRollupService revenueRollupService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    EntityManager entityManager;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    private String makeName;
+    private Vehicle corolla;
+    private Vehicle civic;
+
+    @BeforeEach
+    void setUp() {
+        // Models of their own, so bills from other tests never land in these rows
+        String tag = "RR" + System.nanoTime();
+        makeName = tag + "-make";
+        transactionTemplate.executeWithoutResult(status -> {
+            corolla = vehicle(tag + "-corolla");
+            civic = vehicle(tag + "-civic");
+        });
+    }
+
+    @Test
+    void recordedBillsMatchARebuildFromTheServiceRecords() {
+        // The months are this test's own; the edge-day test bills earlier in the same year
+        LocalDate june = LocalDate.of(2038, 6, 1);
+        LocalDate afterAugust = LocalDate.of(2038, 9, 1);
+        transactionTemplate.executeWithoutResult(status -> {
+            bill(corolla, LocalDateTime.of(2038, 6, 30, 23, 59, 59), "1234.56");
+            bill(civic, LocalDateTime.of(2038, 7, 1, 0, 0), "0.01");
+            for (int i = 0; i < 10; i++) {
+                bill(i % 2 == 0 ? corolla : civic, LocalDateTime.of(2038, 7, 15, 9, 0).plusMinutes(i), (1000 + i) + ".25");
+            }
+            bill(civic, LocalDateTime.of(2038, 8, 31, 18, 0), "99999.99");
+        });
+        // Ten bills on one day are spread over more than one row
+        assertTrue(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT slot) FROM revenue_rollup " +
+                "WHERE granularity = 'DAY' AND period_start = ? AND make = ''", Integer.class, Date.valueOf(LocalDate.of(2038, 7, 15))) > 1);
+        // A bucket with no bill behind it, past the last billed month
+        transactionTemplate.executeWithoutResult(status ->
+                revenueRollupService.recordBill(-1, LocalDateTime.of(2040, 1, 10, 10, 0), makeName, "Stray", 500));
+
+        List<String> recorded = buckets(june, afterAugust);
+        List<ModelRevenue> byModel = ownModels(revenueRollupService.revenueByModel(june.plusDays(29), afterAugust.minusDays(1)));
+        List<RevenuePeriod> byDay = revenueRollupService.revenueByPeriod(june, afterAugust.minusDays(1), RollupGranularity.DAY);
+
+        assertTrue(revenueRollupService.rebuild() >= 3);
+
+        assertEquals(recorded, buckets(june, afterAugust));
+        assertEquals(describe(byModel), describe(ownModels(revenueRollupService.revenueByModel(june.plusDays(29), afterAugust.minusDays(1)))));
+        assertEquals(describePeriods(byDay), describePeriods(revenueRollupService.revenueByPeriod(june, afterAugust.minusDays(1), RollupGranularity.DAY)));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM revenue_rollup WHERE slot <> 0 AND period_start >= ? AND period_start < ?",
+                Integer.class, Date.valueOf(june), Date.valueOf(afterAugust)));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM revenue_rollup WHERE make = ? AND model = 'Stray'", Integer.class, makeName));
+
+        // Bills after a rebuild still add up with the rebuilt rows
+        transactionTemplate.executeWithoutResult(status -> bill(corolla, LocalDateTime.of(2038, 7, 15, 17, 0), "250.00"));
+        List<String> afterNewBill = buckets(june, afterAugust);
+        assertNotEquals(recorded, afterNewBill);
+        revenueRollupService.rebuild();
+        assertEquals(afterNewBill, buckets(june, afterAugust));
+    }
+
+    @Test
+    void revenueByModelAddsTheEdgeDaysToTheWholeMonths() {
+        List<ServiceRecord> bills = transactionTemplate.execute(status -> List.of(
+                bill(corolla, LocalDateTime.of(2038, 1, 31, 23, 30), "1000.00"),
+                bill(corolla, LocalDateTime.of(2038, 2, 1, 0, 0), "200.50"),
+                bill(civic, LocalDateTime.of(2038, 2, 15, 12, 0), "3000.00"),
+                bill(corolla, LocalDateTime.of(2038, 3, 31, 16, 0), "40.00"),
+                bill(civic, LocalDateTime.of(2038, 4, 1, 8, 0), "5.05"),
+                bill(corolla, LocalDateTime.of(2038, 4, 10, 10, 0), "600.00")));
+
+        List<LocalDate[]> ranges = List.of(
+                // Edge days on both sides of two whole months
+                range(2038, 1, 31, 2038, 4, 1),
+                // A partial month, then a whole one ending on its last day
+                range(2038, 2, 2, 2038, 3, 31),
+                // Exactly one whole month
+                range(2038, 2, 1, 2038, 2, 28),
+                // Inside a single month
+                range(2038, 2, 10, 2038, 2, 20),
+                range(2038, 4, 1, 2038, 4, 1),
+                // Two edge days with no whole month in between
+                range(2038, 1, 31, 2038, 2, 1),
+                // December days, then all of January
+                range(2037, 12, 20, 2038, 1, 31),
+                range(2038, 1, 1, 2038, 4, 30));
+        for (LocalDate[] range : ranges) {
+            List<ModelRevenue> revenue = ownModels(revenueRollupService.revenueByModel(range[0], range[1]));
+            assertEquals(expected(bills, range[0], range[1]), describe(revenue), range[0] + ".." + range[1]);
+            for (int i = 1; i < revenue.size(); i++) {
+                assertTrue(revenue.get(i - 1).getRevenue().compareTo(revenue.get(i).getRevenue()) >= 0);
+            }
+        }
+
+        // Months start at the month of the first day, however late in it
+        List<RevenuePeriod> months = revenueRollupService.revenueByPeriod(LocalDate.of(2038, 2, 15), LocalDate.of(2038, 3, 1), RollupGranularity.MONTH);
+        assertEquals(List.of("2038-02-01 2 3200.50", "2038-03-01 1 40.00"), describePeriods(months));
+        List<RevenuePeriod> days = revenueRollupService.revenueByPeriod(LocalDate.of(2038, 1, 31), LocalDate.of(2038, 2, 1), RollupGranularity.DAY);
+        assertEquals(List.of("2038-01-31 1 1000.00", "2038-02-01 1 200.50"), describePeriods(days));
+
+        assertThrows(IllegalArgumentException.class, () -> revenueRollupService.revenueByModel(LocalDate.of(2038, 2, 1), LocalDate.of(2038, 1, 31)));
+        assertThrows(IllegalArgumentException.class, () -> revenueRollupService.revenueByPeriod(null, LocalDate.of(2038, 1, 31), RollupGranularity.DAY));
+    }
+
+    private Vehicle vehicle(String tag) {
+        VehicleMake make = new VehicleMake();
+        make.setName(makeName);
+        entityManager.persist(make);
+        VehicleModel model = new VehicleModel();
+        model.setName(tag);
+        model.setMakeName(makeName);
+        model.setVehicleMake(make);
+        entityManager.persist(model);
+        Customer customer = new Customer();
+        customer.setName("Rollup Customer");
+        customer.setNicNo(tag);
+        customer.setPhoneNo(tag);
+        entityManager.persist(customer);
+        Vehicle vehicle = new Vehicle();
+        vehicle.setVehicleId(tag);
+        vehicle.setChassisNo(tag);
+        vehicle.setYear(2020);
+        vehicle.setModel(model);
+        vehicle.setOwner(customer);
+        entityManager.persist(vehicle);
+        return vehicle;
+    }
+
+    // Saves a bill and adds it to the rollups in the same transaction, as billing does
+    private ServiceRecord bill(Vehicle vehicle, LocalDateTime billedAt, String total) {
+        ServiceRecord record = new ServiceRecord();
+        record.setVehicle(vehicle);
+        record.setServiceDateTime(billedAt);
+        record.setServiceDetails("Rollup job: Rs." + total);
+        record.setTotalCost(new BigDecimal(total));
+        entityManager.persist(record);
+        revenueRollupService.recordBill(record.getId(), billedAt, makeName, vehicle.getModel().getName(),
+                record.getTotalCost().movePointRight(2).longValueExact());
+        return record;
+    }
+
+    // Every bucket in the range summed over its slots, one line each
+    private List<String> buckets(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("SELECT granularity, period_start, make, model, SUM(job_count) AS jobs, SUM(revenue_cents) AS cents " +
+                        "FROM revenue_rollup WHERE period_start >= ? AND period_start < ? AND (make = '' OR make = ?) " +
+                        "GROUP BY granularity, period_start, make, model ORDER BY granularity, period_start, make, model",
+                (rs, rowNum) -> rs.getString("granularity") + " " + rs.getDate("period_start") + " " + rs.getString("make") + "/" +
+                        rs.getString("model") + " " + rs.getLong("jobs") + " " + rs.getLong("cents"),
+                Date.valueOf(from), Date.valueOf(to), makeName);
+    }
+
+    private List<ModelRevenue> ownModels(List<ModelRevenue> revenue) {
+        return revenue.stream().filter(row -> makeName.equals(row.getMake())).toList();
+    }
+
+    private static Map<String, String> describe(List<ModelRevenue> revenue) {
+        Map<String, String> described = new TreeMap<>();
+        for (ModelRevenue row : revenue) {
+            assertNull(described.put(row.getModel(), row.getJobCount() + " " + row.getRevenue().setScale(2)), row.getModel());
+        }
+        return described;
+    }
+
+    private static List<String> describePeriods(List<RevenuePeriod> periods) {
+        List<String> described = new ArrayList<>();
+        for (RevenuePeriod period : periods) {
+            described.add(period.getPeriodStart() + " " + period.getJobCount() + " " + period.getRevenue().setScale(2));
+        }
+        return described;
+    }
+
+    // What the report should say, summed straight from the bills
+    private static Map<String, String> expected(List<ServiceRecord> bills, LocalDate from, LocalDate to) {
+        Map<String, Long> jobs = new TreeMap<>();
+        Map<String, BigDecimal> revenue = new TreeMap<>();
+        for (ServiceRecord bill : bills) {
+            LocalDate day = bill.getServiceDateTime().toLocalDate();
+            if (!day.isBefore(from) && !day.isAfter(to)) {
+                String model = bill.getVehicle().getModel().getName();
+                jobs.merge(model, 1L, Long::sum);
+                revenue.merge(model, bill.getTotalCost(), BigDecimal::add);
+            }
+        }
+        Map<String, String> described = new TreeMap<>();
+        jobs.forEach((model, count) -> described.put(model, count + " " + revenue.get(model).setScale(2)));
+        return described;
+    }
+
+    private static LocalDate[] range(int fromYear, int fromMonth, int fromDay, int toYear, int toMonth, int toDay) {
+        return new LocalDate[]{LocalDate.of(fromYear, fromMonth, fromDay), LocalDate.of(toYear, toMonth, toDay)};
+    }
+}
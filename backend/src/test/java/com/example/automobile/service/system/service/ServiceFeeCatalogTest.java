@@ -0,0 +1,147 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.*;
+import com.example.automobile.service.system.model.BatchPreBillRequest;
+import com.example.automobile.service.system.model.BatchPreBillResult;
+import com.example.automobile.service.system.model.BillingRequest;
+import com.example.automobile.service.system.model.PreBillRequest;
+import com.example.automobile.service.system.model.PreBillResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ServiceFeeCatalogTest {
+    @Autowired
+    ServiceFeeCatalog serviceFeeCatalog;
+    @Autowired
+    BillingService billingService;
+    @Autowired
+    PreBillService preBillService;
+    @Autowired
+    DataService dataService;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    EntityManager entityManager;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    private String makeName;
+    private String modelName;
+
+    @BeforeEach
+    void setUp() {
+        // A make and model of its own, so fees added by other tests never show up here
+        modelName = "FC" + System.nanoTime();
+        makeName = modelName + "-make";
+    }
+
+    @Test
+    void feeChangesSwapInANewSnapshotOnceCommitted() {
+        long version = serviceFeeCatalog.version();
+        assertTrue(serviceFeeCatalog.feesForModel(modelName).isEmpty());
+
+        ServiceFee added = billingService.addServiceFee(new ServiceFee(null, "Oil Change", new BigDecimal("2500.00"), makeName, modelName, 45));
+        assertTrue(serviceFeeCatalog.version() > version);
+        assertEquals(0, new BigDecimal("2500.00").compareTo(serviceFeeCatalog.find(modelName, "Oil Change").getFee()));
+        assertEquals(45, serviceFeeCatalog.totalDuration(modelName, List.of("Oil Change")));
+        List<ServiceFee> afterAdd = serviceFeeCatalog.feesForModel(modelName);
+
+        version = serviceFeeCatalog.version();
+        billingService.updateServiceFee(added.getId(), new ServiceFee(null, "Oil Change", new BigDecimal("2750.00"), makeName, modelName, 60));
+        assertTrue(serviceFeeCatalog.version() > version);
+        assertEquals(0, new BigDecimal("2750.00").compareTo(serviceFeeCatalog.find(modelName, "Oil Change").getFee()));
+        assertEquals(60, serviceFeeCatalog.totalDuration(modelName, List.of("Oil Change")));
+        // Lists handed out earlier belong to the old snapshot and keep the old fee
+        assertEquals(0, new BigDecimal("2500.00").compareTo(afterAdd.get(0).getFee()));
+        assertEquals(45, afterAdd.get(0).getDurationMinutes());
+
+        version = serviceFeeCatalog.version();
+        billingService.deleteServiceFee(added.getId());
+        assertTrue(serviceFeeCatalog.version() > version);
+        assertNull(serviceFeeCatalog.find(modelName, "Oil Change"));
+        assertTrue(serviceFeeCatalog.feesForModel(modelName).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> serviceFeeCatalog.totalDuration(modelName, List.of("Oil Change")));
+    }
+
+    @Test
+    void rolledBackFeeChangesNeverReachTheCatalog() {
+        long version = serviceFeeCatalog.version();
+        transactionTemplate.executeWithoutResult(status -> {
+            billingService.addServiceFee(new ServiceFee(null, "Oil Change", new BigDecimal("2500.00"), makeName, modelName, 45));
+            // Not visible before the commit either
+            assertNull(serviceFeeCatalog.find(modelName, "Oil Change"));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(version, serviceFeeCatalog.version());
+        assertNull(serviceFeeCatalog.find(modelName, "Oil Change"));
+    }
+
+    @Test
+    void billingQuotingAndDurationsReadNoFeesFromTheDatabase() {
+        billingService.addServiceFee(new ServiceFee(null, "Oil Change", new BigDecimal("2500.00"), makeName, modelName, 45));
+        billingService.addServiceFee(new ServiceFee(null, "Wheel Alignment", new BigDecimal("1500.00"), makeName, modelName, 30));
+        Vehicle vehicle = transactionTemplate.execute(status -> {
+            VehicleMake make = new VehicleMake();
+            make.setName(makeName);
+            entityManager.persist(make);
+            VehicleModel model = new VehicleModel();
+            model.setName(modelName);
+            model.setMakeName(makeName);
+            model.setVehicleMake(make);
+            entityManager.persist(model);
+            Customer customer = new Customer();
+            customer.setName("Fee Catalog Customer");
+            customer.setNicNo(modelName);
+            customer.setPhoneNo(modelName);
+            entityManager.persist(customer);
+            Vehicle created = new Vehicle();
+            created.setVehicleId(modelName);
+            created.setChassisNo(modelName);
+            created.setYear(2020);
+            created.setModel(model);
+            created.setOwner(customer);
+            entityManager.persist(created);
+            return created;
+        });
+        List<String> services = List.of("Oil Change", "Wheel Alignment");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ServiceRecord bill = billingService.calculateAndSaveBill(new BillingRequest(vehicle.getId(), services, List.of(), BigDecimal.ZERO, null));
+        PreBillResponse estimate = preBillService.calculateEstimate(new PreBillRequest(makeName, modelName, services, List.of(), BigDecimal.ZERO));
+        BatchPreBillResult estimates = preBillService.calculateEstimates(new BatchPreBillRequest(List.of(
+                new PreBillRequest(makeName, modelName, List.of("Oil Change"), List.of(), BigDecimal.ZERO),
+                new PreBillRequest(makeName, modelName, List.of("Wheel Alignment"), List.of(), BigDecimal.ZERO))));
+        dataService.getAvailableAppointmentSlots(LocalDate.of(2036, 6, 2), services, makeName, modelName);
+        dataService.findNextAvailableSlots(LocalDate.of(2036, 6, 2), LocalDate.of(2036, 6, 4), services, makeName, modelName, 5);
+
+        assertEquals(0, statistics.getEntityStatistics(ServiceFee.class.getName()).getLoadCount());
+        assertEquals(0, statistics.getEntityStatistics(ServiceFeeVersion.class.getName()).getLoadCount());
+        assertTrue(Arrays.stream(statistics.getQueries()).noneMatch(query -> query.contains("ServiceFee")),
+                () -> Arrays.toString(statistics.getQueries()));
+
+        // The catalog still priced everything
+        assertTrue(bill.getServiceDetails().contains("Oil Change: Rs.2500.00"));
+        assertTrue(bill.getServiceDetails().contains("Wheel Alignment: Rs.1500.00"));
+        assertEquals(List.of("Oil Change", "Wheel Alignment"),
+                estimate.getServiceBreakdown().stream().map(PreBillResponse.ServiceCostDetail::getDescription).toList().subList(0, 2));
+        assertEquals(2, estimates.getQuotedCount());
+        assertEquals(0, new BigDecimal("1500.00").compareTo(estimates.getItems().get(1).getEstimate().getServiceBreakdown().get(0).getCost()));
+    }
+}
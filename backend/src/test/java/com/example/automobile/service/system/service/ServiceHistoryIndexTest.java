@@ -0,0 +1,117 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.repository.ServiceRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ServiceHistoryIndexTest {
+    private final List<Object[]> rows = new ArrayList<>();
+    private ServiceHistoryIndex index;
+
+    @BeforeEach
+    void setUp() {
+        rows.add(corolla(1L, 1, "Oil change and brake pads"));
+        rows.add(corolla(2L, 2, "Brake check"));
+        rows.add(civic(3L, 3, "Oil change"));
+        rows.add(civic(4L, 4, "Silva alloy wheels"));
+        index = new ServiceHistoryIndex();
+        index.serviceRecordRepository = mock(ServiceRecordRepository.class);
+        when(index.serviceRecordRepository.findSearchRows()).thenAnswer(inv -> new ArrayList<>(rows));
+        index.load();
+    }
+
+    @Test
+    void tokenizesOnAnythingButLettersAndDigits() {
+        assertEquals(List.of("wp", "cab", "1234", "oil", "change"), ServiceHistoryIndex.tokenize("WP CAB-1234, Oil/Change!"));
+        assertEquals(List.of("\u00f1and\u00fa", "5"), ServiceHistoryIndex.tokenize("  \u00d1and\u00fa 5 "));
+        assertEquals(List.of(), ServiceHistoryIndex.tokenize(null));
+        assertEquals(List.of(), ServiceHistoryIndex.tokenize("--"));
+    }
+
+    @Test
+    void matchesEveryTermAndTheLastAsAPrefix() {
+        assertEquals(List.of(1L), ids("oil corolla"));
+        assertEquals(List.of(2L, 1L), ids("wpcab1234"));
+        assertEquals(List.of(2L, 1L), ids("wp cab"));
+        assertEquals(List.of(3L, 1L), ids("oil chan"));
+        assertEquals(List.of(), ids("chan oil"));
+        assertEquals(List.of(), ids("oil civic brake"));
+    }
+
+    @Test
+    void ranksByWeightedScoreThenNewestFirst() {
+        // An owner name outweighs the same word in a bill's text; equal scores go newest first
+        assertEquals(List.of(2L, 1L, 4L), ids("silva"));
+        assertEquals(List.of(2L, 1L), ids("brake"));
+    }
+
+    @Test
+    void pagesThroughTheRankedMatches() {
+        ServiceHistoryIndex.SearchResult first = index.search("silva", 0, 2);
+        assertEquals(List.of(2L, 1L), first.getRecordIds());
+        assertEquals(3, first.getTotalHits());
+        assertEquals(List.of(4L), index.search("silva", 1, 2).getRecordIds());
+        ServiceHistoryIndex.SearchResult past = index.search("silva", 5, 2);
+        assertEquals(List.of(), past.getRecordIds());
+        assertEquals(3, past.getTotalHits());
+    }
+
+    @Test
+    void countsEveryTermAPrefixExpandsTo() {
+        StringBuilder parts = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            parts.append(String.format("part%03d ", i));
+        }
+        rows.add(civic(5L, 5, parts.toString()));
+        rows.add(corolla(6L, 6, "part099 fitted"));
+        index.load();
+
+        assertEquals(List.of(5L, 6L), ids("part").stream().sorted().toList());
+        assertEquals(List.of(6L), ids("fitted part"));
+    }
+
+    @Test
+    void picksUpOtherInstancesBillsOnReload() throws Exception {
+        ReflectionTestUtils.setField(index, "refreshSeconds", 0L);
+        rows.add(civic(5L, 5, "Timing belt"));
+        Thread.sleep(5);
+
+        assertEquals(List.of(5L), ids("timing"));
+    }
+
+    @Test
+    void keepsChangesThatLandDuringAReload() {
+        when(index.serviceRecordRepository.findSearchRows()).thenAnswer(inv -> {
+            // Committed after the rebuild read its rows
+            index.customerSaved(10L, "Nimal Gunawardena", "200012345678");
+            return new ArrayList<>(rows);
+        });
+        index.load();
+
+        assertEquals(List.of(2L, 1L), ids("gunawardena"));
+        assertEquals(List.of(4L), ids("silva"));
+    }
+
+    private List<Long> ids(String query) {
+        return index.search(query, 0, 10).getRecordIds();
+    }
+
+    private static Object[] corolla(Long id, int month, String details) {
+        return new Object[] {id, LocalDateTime.of(2030, month, 1, 10, 0), details,
+                1L, "WP CAB-1234", "CHASSIS0000001", "Toyota", "Corolla", 10L, "Nimal Silva", "200012345678"};
+    }
+
+    private static Object[] civic(Long id, int month, String details) {
+        return new Object[] {id, LocalDateTime.of(2030, month, 1, 10, 0), details,
+                2L, "KX-5678", "CHASSIS0000002", "Honda", "Civic", 11L, "Kamal Perera", "199912345678"};
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.entity.*;
+import com.example.automobile.service.system.model.AppointmentStatus;
+import com.example.automobile.service.system.model.BillLineItemKind;
+import com.example.automobile.service.system.model.SettlementLine;
+import com.example.automobile.service.system.model.ShiftSettlement;
+import com.example.automobile.service.system.repository.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Settles a shift against H2 in MySQL mode, with the default fetch size.
+ */
+@SpringBootTest
+class ShiftSettlementServiceTest {
+    private static final LocalDate DAY = LocalDate.of(2031, 5, 5);
+
+    @Autowired
+    ShiftSettlementService shiftSettlementService;
+    @Autowired
+    CashierRepository cashierRepository;
+    @Autowired
+    VehicleMakeRepository vehicleMakeRepository;
+    @Autowired
+    VehicleModelRepository vehicleModelRepository;
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    VehicleRepository vehicleRepository;
+    @Autowired
+    AppointmentRepository appointmentRepository;
+    @Autowired
+    ServiceRecordRepository serviceRecordRepository;
+    @Autowired
+    BillLineItemRepository billLineItemRepository;
+
+    private Vehicle vehicle;
+
+    @Test
+    void totalsEveryBillInTheWindowInOnePass() {
+        VehicleMake make = vehicleMakeRepository.save(new VehicleMake(null, "Settlement Motors", null, null));
+        VehicleModel model = vehicleModelRepository.save(new VehicleModel(null, "Settler", "Settlement Motors", make));
+        Customer customer = customerRepository.save(new Customer(null, "Settlement Customer", "Galle", "071-555-0202", "199955500001", null));
+        vehicle = vehicleRepository.save(new Vehicle(null, "STL-0001", model, 2020, "STLCHASSIS0001", customer, null, null));
+        Cashier cashier = cashierRepository.save(new Cashier(null, "Settlement Cashier", "071-555-0203", "settle@example.com"));
+        Cashier otherCashier = cashierRepository.save(new Cashier(null, "Other Cashier", "071-555-0204", "other@example.com"));
+
+        Appointment appointment = appointmentRepository.save(new Appointment(null, DAY, LocalTime.of(9, 0), LocalTime.of(10, 0),
+                vehicle, new BigDecimal("500.00"), "PAY-STL-1", AppointmentStatus.COMPLETED, customer));
+        ServiceRecord first = bill(cashier, 9, "4000.00", appointment);
+        line(first, 1, BillLineItemKind.SERVICE, "Oil Change", "2500.00", 1);
+        line(first, 2, BillLineItemKind.PARTS, "Brake pads", "750.00", 2);
+        ServiceRecord second = bill(cashier, 11, "3200.00", null);
+        line(second, 1, BillLineItemKind.SERVICE, "Oil Change", "2500.00", 1);
+        line(second, 2, BillLineItemKind.CUSTOM, "Polish", "300.00", 1);
+        line(second, 3, BillLineItemKind.CUSTOM, "Wash", "400.00", 1);
+        // Billed before line items were stored
+        bill(cashier, 12, "1000.00", null);
+        // Another cashier's bill, and one after the window closes
+        line(bill(otherCashier, 10, "9999.00", null), 1, BillLineItemKind.SERVICE, "Oil Change", "9999.00", 1);
+        line(bill(cashier, 18, "2500.00", null), 1, BillLineItemKind.SERVICE, "Oil Change", "2500.00", 1);
+
+        ShiftSettlement settlement = shiftSettlementService.settle(" Settlement Cashier ",
+                DAY.atTime(8, 0), DAY.atTime(18, 0));
+
+        assertEquals(cashier.getId(), settlement.getCashierId());
+        assertEquals(3, settlement.getBillCount());
+        assertEquals(1, settlement.getUnitemizedBillCount());
+        assertEquals(new BigDecimal("8200.00"), settlement.getTotalBilled());
+        assertEquals(1, settlement.getAdvanceFeeBillCount());
+        assertEquals(new BigDecimal("500.00"), settlement.getAdvanceFeesOffset());
+        assertEquals(new BigDecimal("7700.00"), settlement.getAmountDue());
+
+        List<SettlementLine> lines = settlement.getLines();
+        assertEquals(3, lines.size());
+        assertLine(lines.get(0), BillLineItemKind.SERVICE, "Oil Change", 2, "5000.00");
+        assertLine(lines.get(1), BillLineItemKind.CUSTOM, "Custom items", 2, "700.00");
+        assertLine(lines.get(2), BillLineItemKind.PARTS, "Brake pads", 2, "1500.00");
+    }
+
+    private ServiceRecord bill(Cashier cashier, int hour, String total, Appointment appointment) {
+        return serviceRecordRepository.save(new ServiceRecord(null, vehicle, LocalDateTime.of(DAY, LocalTime.of(hour, 0)),
+                "Settlement test", new BigDecimal(total), cashier, appointment));
+    }
+
+    private void line(ServiceRecord record, int lineNo, BillLineItemKind kind, String description, String unitPrice, int quantity) {
+        billLineItemRepository.save(new BillLineItem(null, record, lineNo, kind, description, new BigDecimal(unitPrice), quantity, null));
+    }
+
+    private static void assertLine(SettlementLine line, BillLineItemKind kind, String description, long quantity, String amount) {
+        assertEquals(kind, line.getKind());
+        assertEquals(description, line.getDescription());
+        assertEquals(quantity, line.getQuantity());
+        assertEquals(new BigDecimal(amount), line.getAmount());
+    }
+}
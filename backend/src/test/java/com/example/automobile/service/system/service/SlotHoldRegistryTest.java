@@ -0,0 +1,117 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.model.SlotHold;
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlotHoldRegistryTest {
+    private static final LocalDate DATE = LocalDate.of(2030, 1, 7);
+
+    private final MutableClock clock = new MutableClock(1_900_000_000_000L);
+    private final SlotHoldRegistry registry = new SlotHoldRegistry(clock);
+
+    @Test
+    void expiredHoldsLeaveTheRegistry() {
+        SlotHold hold = registry.place(DATE, LocalTime.of(10, 0), LocalTime.of(10, 45), Duration.ofSeconds(5));
+        assertTrue(registry.isHeld(DATE, LocalTime.of(10, 30), LocalTime.of(11, 0), null));
+        assertFalse(registry.isHeld(DATE, LocalTime.of(10, 30), LocalTime.of(11, 0), hold.getHoldId()));
+
+        clock.advance(4_000);
+        registry.advance();
+        assertEquals(1, registry.size());
+        assertSame(hold, registry.get(hold.getHoldId()));
+
+        // A hold stops counting at its deadline, before the wheel gets to it
+        clock.advance(1_000);
+        assertTrue(registry.activeHolds(DATE).isEmpty());
+        assertNull(registry.get(hold.getHoldId()));
+
+        clock.advance(1_000);
+        registry.advance();
+        assertEquals(0, registry.size());
+        assertFalse(registry.release(hold.getHoldId()));
+    }
+
+    @Test
+    void releasedHoldsStopBlockingAtOnce() {
+        SlotHold hold = registry.place(DATE, LocalTime.of(10, 0), LocalTime.of(10, 45), Duration.ofMinutes(10));
+        assertTrue(registry.release(hold.getHoldId()));
+        assertFalse(registry.isHeld(DATE, LocalTime.of(10, 0), LocalTime.of(10, 45), null));
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void holdsPlacedWhileTheWheelTurnsAllExpire() throws Exception {
+        AtomicBoolean placing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        List<Future<?>> placers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            placers.add(executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    registry.place(DATE.plusDays(i % 3), LocalTime.of(9, 0), LocalTime.of(9, 30), Duration.ofMillis(1 + i % 3_000));
+                }
+            }));
+        }
+        Future<?> ticker = executor.submit(() -> {
+            while (placing.get()) {
+                clock.advance(250);
+                registry.advance();
+            }
+        });
+        for (Future<?> placer : placers) {
+            placer.get(60, TimeUnit.SECONDS);
+        }
+        placing.set(false);
+        ticker.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        for (int i = 0; i < 5; i++) {
+            clock.advance(1_000);
+            registry.advance();
+        }
+        assertEquals(0, registry.size());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(registry.activeHolds(DATE.plusDays(i)).isEmpty());
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private final AtomicLong millis;
+
+        private MutableClock(long millis) {
+            this.millis = new AtomicLong(millis);
+        }
+
+        private void advance(long deltaMillis) {
+            millis.addAndGet(deltaMillis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis.get();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis.get());
+        }
+    }
+}
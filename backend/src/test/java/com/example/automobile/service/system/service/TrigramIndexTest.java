@@ -0,0 +1,60 @@
+package com.example.automobile.service.system.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+    private final TrigramIndex index = new TrigramIndex();
+
+    @Test
+    void findsSubstringsIgnoringCase() {
+        index.put(1L, "CAB-1234");
+        index.put(2L, "cab-9999");
+        index.put(3L, "XYZ-1234");
+
+        assertEquals(Set.of(1L, 2L), index.search("Cab", 10));
+        assertEquals(Set.of(1L, 3L), index.search("1234", 10));
+        assertEquals(Set.of(1L), index.search("b-12", 10));
+        assertEquals(Set.of(), index.search("abc", 10));
+        // Too short for a trigram, answered by scanning the values
+        assertEquals(Set.of(1L, 3L), index.search("12", 10));
+        assertEquals(Set.of(), index.search("zz", 10));
+    }
+
+    @Test
+    void checksCandidatesAgainstTheValue() {
+        // Holds both trigrams of "abcd" without containing it
+        index.put(1L, "abcXbcd");
+        index.put(2L, "xabcdx");
+
+        assertEquals(Set.of(2L), index.search("abcd", 10));
+    }
+
+    @Test
+    void updatesAndRemovalsDropTheOldValue() {
+        index.put(1L, "alpha");
+        index.put(1L, "beta");
+        assertEquals(Set.of(), index.search("alp", 10));
+        assertEquals(Set.of(1L), index.search("bet", 10));
+
+        index.put(2L, null);
+        assertEquals(Set.of(), index.search("nul", 10));
+
+        index.remove(1L);
+        assertEquals(Set.of(), index.search("bet", 10));
+        assertEquals(Set.of(), index.search("e", 10));
+    }
+
+    @Test
+    void givesUpPastTheLimit() {
+        for (long id = 1; id <= 5; id++) {
+            index.put(id, "Perera " + id);
+        }
+
+        assertNull(index.search("perera", 4));
+        assertEquals(5, index.search("perera", 5).size());
+    }
+}
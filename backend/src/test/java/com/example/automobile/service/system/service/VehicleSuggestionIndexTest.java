@@ -0,0 +1,77 @@
+package com.example.automobile.service.system.service;
+
+import com.example.automobile.service.system.model.VehicleSuggestion;
+import com.example.automobile.service.system.repository.VehicleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VehicleSuggestionIndexTest {
+    private final List<VehicleSuggestion> rows = new ArrayList<>();
+    private VehicleSuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        rows.add(new VehicleSuggestion(1L, "CAB-1234", "CHASSIS0000001", "Toyota", "Corolla", 2020, 10L, "Nimal Silva"));
+        rows.add(new VehicleSuggestion(2L, "KX-5678", "CHASSIS0000002", "Honda", "Civic", 2018, 11L, "Kamal Perera"));
+        index = new VehicleSuggestionIndex();
+        index.vehicleRepository = mock(VehicleRepository.class);
+        when(index.vehicleRepository.findAllSuggestions()).thenAnswer(inv -> new ArrayList<>(rows));
+        index.load();
+    }
+
+    @Test
+    void findsPlatesDigitsChassisAndOwnerWords() {
+        assertEquals(List.of(1L), ids("cab-1"));
+        assertEquals(List.of(1L), ids("1234"));
+        assertEquals(List.of(2L), ids("chassis0000002"));
+        assertEquals(List.of(2L), ids("perera"));
+        assertEquals(List.of(), ids("-"));
+    }
+
+    @Test
+    void appliesSavesRenamesAndRemovals() {
+        index.vehicleSaved(new VehicleSuggestion(3L, "CAB-9999", "CHASSIS0000003", "Toyota", "Prius", 2022, 11L, "Kamal Perera"));
+        assertEquals(List.of(2L, 3L), ids("perera").stream().sorted().toList());
+
+        index.customerSaved(11L, "Kamal Fonseka");
+        assertEquals(List.of(), ids("perera"));
+        assertEquals(List.of(2L, 3L), ids("fonseka").stream().sorted().toList());
+
+        index.vehicleRemoved(1L);
+        assertEquals(List.of(3L), ids("cab"));
+    }
+
+    @Test
+    void picksUpOtherInstancesWritesOnReload() throws Exception {
+        ReflectionTestUtils.setField(index, "refreshSeconds", 0L);
+        rows.add(new VehicleSuggestion(3L, "NB-4321", "CHASSIS0000003", "Nissan", "Sunny", 2015, 12L, "Sunil Jayasuriya"));
+        Thread.sleep(5);
+
+        assertEquals(List.of(3L), ids("nb"));
+    }
+
+    @Test
+    void keepsChangesThatLandDuringAReload() {
+        when(index.vehicleRepository.findAllSuggestions()).thenAnswer(inv -> {
+            // Committed after the rebuild read its rows
+            index.customerSaved(10L, "Nimal Gunawardena");
+            return new ArrayList<>(rows);
+        });
+        index.load();
+
+        assertEquals(List.of(1L), ids("gunawardena"));
+        assertEquals(List.of(), ids("silva"));
+    }
+
+    private List<Long> ids(String query) {
+        return index.suggest(query, 10).stream().map(VehicleSuggestion::getId).toList();
+    }
+}
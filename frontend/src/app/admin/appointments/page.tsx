@@ -17,15 +17,17 @@ import { Label } from '@/components/ui/label';
 import { Alert, AlertDescription, AlertTitle } from "@/components/ui/alert";
 import { apiClient, getAuthToken } from '@/lib/api-client'; // Import apiClient
 import { useAuth } from '@/contexts/AuthContext'; // Import useAuth
-import { AppointmentDTO, AppointmentFilterDTO, AppointmentStatus } from '@/types/dto'; // Import DTO types
+import { AppointmentFilterDTO, AppointmentPageDTO, AppointmentStatus, AppointmentSummaryDTO } from '@/types/dto'; // Import DTO types
 import { useToast } from '@/hooks/use-toast';
 
 
 export default function AdminAppointmentsPage() {
   const { token } = useAuth(); // Get auth token
   const { toast } = useToast();
-  const [appointments, setAppointments] = useState<AppointmentDTO[]>([]);
+  const [appointments, setAppointments] = useState<AppointmentSummaryDTO[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [isLoading, setIsLoading] = useState(false);
+  const [isLoadingMore, setIsLoadingMore] = useState(false);
   const [error, setError] = useState<string | null>(null);
 
   // Filter State
@@ -34,32 +36,54 @@ export default function AdminAppointmentsPage() {
   const [vehicleIdFilter, setVehicleIdFilter] = useState('');
   const [statusFilter, setStatusFilter] = useState<AppointmentStatus | ''>(''); // Use enum type
 
-  // Fetch appointments based on filters
-  const fetchAppointments = useCallback(async () => {
-    setIsLoading(true);
-    setError(null);
+  const buildQuery = useCallback((cursor?: string) => {
     const filters: Partial<AppointmentFilterDTO> = {}; // Use Partial for optional filters
     if (startDate) filters.startDate = format(startDate, 'yyyy-MM-dd');
     if (endDate) filters.endDate = format(endDate, 'yyyy-MM-dd');
     if (vehicleIdFilter) filters.vehicleId = vehicleIdFilter; // Assuming backend searches by vehicleId (or chassis?)
     if (statusFilter) filters.status = statusFilter;
 
-    const queryString = new URLSearchParams(filters as Record<string, string>).toString();
-    const url = `/admin/appointments?${queryString}`;
+    const params = new URLSearchParams(filters as Record<string, string>);
+    if (cursor) params.set('cursor', cursor);
+    return params.toString();
+  }, [startDate, endDate, vehicleIdFilter, statusFilter]);
+
+  // Fetch the first page of appointments based on filters
+  const fetchAppointments = useCallback(async () => {
+    setIsLoading(true);
+    setError(null);
+    const url = `/admin/appointments?${buildQuery()}`;
 
     try {
         console.log(`Fetching appointments from ${url}`);
-        const data = await apiClient<AppointmentDTO[]>(url, { token });
-        setAppointments(data || []); // Handle null response
+        const page = await apiClient<AppointmentPageDTO>(url, { token });
+        setAppointments(page?.items || []); // Handle null response
+        setNextCursor(page?.nextCursor || null);
     } catch (err: any) {
         const message = err.message || "Failed to fetch appointments.";
         setError(message);
         toast({ title: "Error", description: message, variant: "destructive" });
         setAppointments([]); // Clear appointments on error
+        setNextCursor(null);
     } finally {
         setIsLoading(false);
     }
-  }, [startDate, endDate, vehicleIdFilter, statusFilter, token, toast]);
+  }, [buildQuery, token, toast]);
+
+  // Append the next page after the last row already shown
+  const loadMore = async () => {
+    if (!nextCursor) return;
+    setIsLoadingMore(true);
+    try {
+        const page = await apiClient<AppointmentPageDTO>(`/admin/appointments?${buildQuery(nextCursor)}`, { token });
+        setAppointments(prev => [...prev, ...(page?.items || [])]);
+        setNextCursor(page?.nextCursor || null);
+    } catch (err: any) {
+        toast({ title: "Error", description: err.message || "Failed to load more appointments.", variant: "destructive" });
+    } finally {
+        setIsLoadingMore(false);
+    }
+  };
 
   // Initial fetch on component mount
   useEffect(() => {
@@ -208,7 +232,7 @@ export default function AdminAppointmentsPage() {
                         <TableCell>{format(new Date(appointment.date + 'T00:00:00'), 'PPP')}</TableCell>
                         <TableCell>{appointment.startTime}</TableCell>
                         <TableCell>{appointment.endTime}</TableCell>
-                        <TableCell>{appointment.vehicleMakeModelYear || `ID: ${appointment.vehicleId}`}</TableCell>
+                        <TableCell>{appointment.make ? `${appointment.make} ${appointment.model ?? ''} ${appointment.year ?? ''}`.trim() : `ID: ${appointment.vehicleId}`}</TableCell>
                          <TableCell>{appointment.customerName || 'N/A'}</TableCell>
                          <TableCell>
                             <span className={cn(
@@ -225,7 +249,16 @@ export default function AdminAppointmentsPage() {
                     ))}
                   </TableBody>
                 </Table>
-              ) : (
+              ) : null}
+             {!isLoading && nextCursor && (
+                <div className="flex justify-center pt-4">
+                    <Button variant="outline" onClick={loadMore} disabled={isLoadingMore}>
+                        {isLoadingMore ? <Loader2 className="mr-2 h-4 w-4 animate-spin" /> : null}
+                        Load More
+                    </Button>
+                </div>
+             )}
+             {!isLoading && appointments.length === 0 && (
                 <p className="text-muted-foreground text-center py-8">No appointments found matching the filter criteria.</p>
               )}
           </CardContent>
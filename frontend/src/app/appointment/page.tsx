@@ -1,6 +1,6 @@
 "use client";
 
-import React, { useState, useEffect, useMemo, useCallback } from 'react';
+import React, { useState, useEffect, useMemo, useCallback, useRef } from 'react';
 import { addDays, format, isBefore, startOfDay, differenceInDays, parseISO, isValid, parse } from 'date-fns'; // Import parse
 import { Calendar } from "@/components/ui/calendar";
 import { Button } from "@/components/ui/button";
@@ -15,7 +15,7 @@ import { processPayment, PaymentConfirmation } from '@/services/payment'; // Kee
 import { ProtectedComponent } from '@/components/ProtectedComponent';
 import { useToast } from '@/hooks/use-toast';
 import { useAnnouncement } from '@/contexts/AnnouncementContext';
-import { apiClient, getAuthToken } from '@/lib/api-client'; // Import apiClient
+import { apiClient, getAuthToken, idempotencyKeyFor } from '@/lib/api-client'; // Import apiClient
 import { useAuth } from '@/contexts/AuthContext'; // Import useAuth
 import type { VehicleMakeDTO, VehicleModelDTO, AppointmentBookingRequestDTO, AppointmentDTO, ServiceFeeDTO, CustomerDTO, VehicleDTO } from '@/types/dto'; // Import DTO types
 import { Checkbox } from '@/components/ui/checkbox'; // Import Checkbox
@@ -69,6 +69,7 @@ export default function AppointmentPage() {
 
   // UI State
   const [isBooking, setIsBooking] = useState<boolean>(false);
+  const bookingKeyRef = useRef<{ body: string; key: string } | null>(null);
   const [error, setError] = useState<string>('');
 
   const today = startOfDay(new Date());
@@ -346,9 +347,11 @@ export default function AppointmentPage() {
       console.log('Sending booking request to backend:', bookingPayload);
 
       // Call backend API to book appointment
+      const body = JSON.stringify(bookingPayload);
       const createdAppointment = await apiClient<AppointmentDTO>('/user/appointments', {
           method: 'POST',
-          body: JSON.stringify(bookingPayload),
+          body,
+          headers: { 'Idempotency-Key': idempotencyKeyFor(bookingKeyRef, body) },
           token: token,
       });
 
@@ -19,7 +19,7 @@ import { zodResolver } from '@hookform/resolvers/zod';
 import { Select, SelectContent, SelectItem, SelectTrigger, SelectValue } from "@/components/ui/select";
 import { Popover, PopoverContent, PopoverTrigger, PopoverAnchor } from "@/components/ui/popover";
 import { Command, CommandEmpty, CommandGroup, CommandInput, CommandItem, CommandList } from "@/components/ui/command";
-import { apiClient, getAuthToken } from '@/lib/api-client'; // Import apiClient
+import { apiClient, getAuthToken, idempotencyKeyFor } from '@/lib/api-client'; // Import apiClient
 import { useAuth } from '@/contexts/AuthContext'; // Import useAuth
 import type {
     CustomerDTO,
@@ -88,6 +88,7 @@ export default function CashierBillingPage() {
   const [suggestions, setSuggestions] = useState<VehicleDTO[]>([]);
   const [isLoadingSuggestions, setIsLoadingSuggestions] = useState(false);
   const searchInputRef = useRef<HTMLInputElement>(null);
+  const billingKeyRef = useRef<{ body: string; key: string } | null>(null);
 
   // UI Hooks
   const { toast } = useToast();
@@ -372,14 +373,16 @@ export default function CashierBillingPage() {
              .filter(item => item.description.trim() !== '' && item.cost > 0)
              .map(({ id, ...rest }) => rest), // Remove UI id
          partsCost: parseFloat(partsCost) || 0,
-         processedByCashierUsername: username?username:undefined
+         processedByCashierName: username?username:undefined
      };
 
      try {
          console.log("Finalizing bill with payload:", billingPayload);
+         const body = JSON.stringify(billingPayload);
          const finalizedRecord = await apiClient<ServiceRecordDTO>('/cashier/billing/calculate', {
              method: 'POST',
-             body: JSON.stringify(billingPayload),
+             body,
+             headers: { 'Idempotency-Key': idempotencyKeyFor(billingKeyRef, body) },
              token,
          });
          toast({ title: "Bill Finalized", description: `Total: Rs.${finalizedRecord.totalCost.toFixed(2)}. Record ID: ${finalizedRecord.id}`});
@@ -13,7 +13,7 @@ import { Alert, AlertDescription, AlertTitle } from "@/components/ui/alert";
 import { format, parseISO } from 'date-fns';
 import { apiClient, getAuthToken } from '@/lib/api-client'; // Import apiClient
 import { useAuth } from '@/contexts/AuthContext'; // Import useAuth
-import type { ServiceRecordDTO } from '@/types/dto'; // Import DTO type
+import type { ServiceHistoryPageDTO, ServiceRecordDTO } from '@/types/dto'; // Import DTO type
 import { useToast } from '@/hooks/use-toast';
 
 export default function CashierHistoryPage() {
@@ -45,10 +45,11 @@ export default function CashierHistoryPage() {
     try {
         const url = `/cashier/history/search?query=${encodeURIComponent(searchQuery)}`;
         console.log(`Searching history from API: ${url}`);
-        const results = await apiClient<ServiceRecordDTO[]>(url, { token });
-        setServiceHistory(results || []);
-        console.log("Fetched history results:", results);
-         if (!results || results.length === 0) {
+        const page = await apiClient<ServiceHistoryPageDTO>(url, { token });
+        const results = page?.items || [];
+        setServiceHistory(results);
+        console.log("Fetched history results:", page);
+         if (results.length === 0) {
              toast({ title: "No Results", description: "No service history found for the search criteria.", variant: "default" });
          }
     } catch (err: any) {
@@ -100,6 +100,20 @@ export function getAuthToken(auth: AuthContextType | null): string | null {
     return null;
 }
 
+// Holds the Idempotency-Key of the last submission, e.g. in a useRef
+export interface IdempotencyKeyRef {
+  current: { body: string; key: string } | null;
+}
+
+// Same key while the request body is unchanged, so resubmitting after a dropped response
+// returns the original result instead of creating a duplicate; a changed body gets a new key.
+export function idempotencyKeyFor(ref: IdempotencyKeyRef, body: string): string {
+  if (!ref.current || ref.current.body !== body) {
+    ref.current = { body, key: crypto.randomUUID() };
+  }
+  return ref.current.key;
+}
+
 // Example usage for authenticated requests:
 // import { useAuth } from '@/contexts/AuthContext';
 // const { token } = useAuth();
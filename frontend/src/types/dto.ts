@@ -59,6 +59,17 @@ export interface ServiceFeeDTO {
     durationMinutes: number; // Added duration
 }
 
+export interface ServiceFeeVersionDTO {
+    id: number;
+    serviceFeeId: number;
+    description: string;
+    make: string;
+    model: string;
+    fee: number | null;
+    effectiveFrom: string; // ISO DateTime string
+    withdrawn: boolean;
+}
+
 // --- Cashier ---
 export interface CashierDTO {
     id?: number;
@@ -106,6 +117,28 @@ export interface AppointmentFilterDTO {
     status?: AppointmentStatus;
 }
 
+// Flat row returned by the paginated admin appointments endpoint
+export interface AppointmentSummaryDTO {
+    id: number;
+    date: string; // ISO date string
+    startTime: string; // HH:MM string
+    endTime: string; // HH:MM string
+    status: AppointmentStatus;
+    advanceFeePaid?: number;
+    vehicleId?: string;
+    chassisNo?: string;
+    make?: string;
+    model?: string;
+    year?: number;
+    customerName?: string;
+}
+
+export interface AppointmentPageDTO {
+    items: AppointmentSummaryDTO[];
+    nextCursor?: string | null; // Pass back as `cursor` to fetch the next page
+    totalCount?: number | null; // Only present when requested with includeTotal=true
+}
+
 export interface AppointmentBookingRequestDTO {
     date: string; // ISO date string
     startTime: string; // HH:MM string
@@ -164,12 +197,26 @@ export interface CustomServiceItemInputDTO {
     cost: number; // Send as number
 }
 
+export interface PartItemInputDTO {
+    partId: string;
+    quantity: number;
+}
+
+export interface PartStockDTO {
+    partId: string;
+    name: string;
+    price?: number;
+    onHand: number;
+}
+
 export interface BillingRequestDTO {
     vehicleId: number;
     selectedServiceDescriptions?: string[];
     customItems?: CustomServiceItemInputDTO[];
     partsCost?: number; // Send as number
-    processedByCashierUsername?: string;
+    parts?: PartItemInputDTO[]; // Stocked parts, priced and taken out of stock by the backend
+    processedByCashierName?: string;
+    appointmentId?: number;
 }
 
 export interface ServiceRecordDTO {
@@ -183,6 +230,14 @@ export interface ServiceRecordDTO {
     appointmentId?: number;
 }
 
+// Ranked page of service history search results
+export interface ServiceHistoryPageDTO {
+    items: ServiceRecordDTO[];
+    page: number;
+    size: number;
+    totalHits: number;
+}
+
 // --- Pre-Bill ---
 export interface PreBillRequestDTO {
     make: string;
@@ -190,6 +245,7 @@ export interface PreBillRequestDTO {
     selectedServiceDescriptions?: string[];
     customItems?: CustomServiceItemInputDTO[];
     estimatedPartsCost?: number; // Send as number
+    quotedAt?: string; // ISO DateTime string; re-prices an earlier quote at the fees then in force
 }
 
 export interface ServiceCostDetailDTO {